@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ClassDescription;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ExportIndex;
+
+/**
+ * Measures the class and parameter queries of the {@link AllModulesState} on a synthetic state.
+ *
+ * @see #createState(int, int, int)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AllModulesStateBenchmark {
+	static class SyntheticExport implements Export {
+		private static final long serialVersionUID = 1L;
+
+		private final transient EClass eClass;
+
+		private final File file;
+
+		private final String name;
+
+		private final String parentName;
+
+		SyntheticExport(EClass eClass, File file, String name, String parentName) {
+			this.eClass = eClass;
+			this.file = file;
+			this.name = name;
+			this.parentName = parentName;
+		}
+
+		@Override
+		public String getDefaultValueText() {
+			return null;
+		}
+
+		@Override
+		public EClass getEClass() {
+			return eClass;
+		}
+
+		@Override
+		public File getFile() {
+			return file;
+		}
+
+		@Override
+		public String getLastNameSegment() {
+			return name.substring(name.lastIndexOf(':') + 1);
+		}
+
+		@Override
+		public int getLength() {
+			return 0;
+		}
+
+		@Override
+		public int getLine() {
+			return -1;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getNameWithoutLastSegment() {
+			int idx = name.lastIndexOf("::");
+			return idx < 0
+				? ""
+				: name.substring(0, idx);
+		}
+
+		@Override
+		public String getParentName() {
+			return parentName;
+		}
+
+		@Override
+		public int getStart() {
+			return -1;
+		}
+	}
+
+	/**
+	 * Creates a synthetic state. Each module exports a number of classes with parameters and each class inherits from
+	 * a class in the previous module. Every other module has its visibility restricted to itself and the previous
+	 * module.
+	 */
+	static AllModulesState createState(int modules, int classesPerModule, int parametersPerClass) {
+		File root = new File("/synthetic");
+		AllModulesState state = new AllModulesState();
+		state.setRoot(root);
+		Multimap<String, String> restricted = ArrayListMultimap.create();
+		File previousDir = null;
+		for(int m = 0; m < modules; ++m) {
+			File moduleDir = new File(root, "module" + m);
+			for(int c = 0; c < classesPerModule; ++c) {
+				String className = "module" + m + "::class" + c;
+				String parentName = m == 0
+					? null
+					: "module" + (m - 1) + "::class" + c;
+				state.addExport(moduleDir, new SyntheticExport(
+					PPPackage.Literals.HOST_CLASS_DEFINITION, moduleDir, className, parentName));
+				for(int p = 0; p < parametersPerClass; ++p)
+					state.addExport(moduleDir, new SyntheticExport(
+						PPPackage.Literals.DEFINITION_ARGUMENT, moduleDir, className + "::param" + p, null));
+			}
+			if(m % 2 == 1) {
+				restricted.put(moduleDir.getPath(), moduleDir.getPath());
+				restricted.put(moduleDir.getPath(), previousDir.getPath());
+			}
+			previousDir = moduleDir;
+		}
+		state.setRestricted(restricted);
+		return state;
+	}
+
+	@Param({ "200" })
+	public int modules;
+
+	@Param({ "15" })
+	public int classesPerModule;
+
+	@Param({ "5" })
+	public int parametersPerClass;
+
+	private AllModulesState state;
+
+	private List<File> moduleDirs;
+
+	@Benchmark
+	public void classDescriptions(Blackhole blackhole) {
+		for(File moduleDir : moduleDirs)
+			blackhole.consume(state.getClassDescriptions(state.getVisibleExports(moduleDir)));
+	}
+
+	@Benchmark
+	public void indexedClassDescriptions(Blackhole blackhole) {
+		for(File moduleDir : moduleDirs)
+			blackhole.consume(state.getExportIndex(moduleDir).getClassDescriptions());
+	}
+
+	@Benchmark
+	public void indexedParameters(Blackhole blackhole) {
+		for(File moduleDir : moduleDirs) {
+			ExportIndex index = state.getExportIndex(moduleDir);
+			for(Export c : index.getClasses())
+				blackhole.consume(index.getParameterMap(c));
+		}
+	}
+
+	@Benchmark
+	public void parameters(Blackhole blackhole) {
+		Iterable<Export> visibleExports = state.getAllExported();
+		for(ClassDescription cd : state.getClassDescriptions(visibleExports))
+			blackhole.consume(state.getParameters(cd.getExportedClass(), visibleExports));
+	}
+
+	@Setup
+	public void setup() {
+		state = createState(modules, classesPerModule, parametersPerClass);
+		moduleDirs = Lists.newArrayList(state.getExportsPerModule().keySet());
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.puppetlabs.geppetto.validation.runner.AllModulesState;
+import com.puppetlabs.geppetto.validation.runner.BuildResult;
+import com.puppetlabs.geppetto.validation.runner.BuildResultCodec;
+
+/**
+ * Compares the {@link BuildResultCodec} with Java serialization of the {@link AllModulesState} of a build result. The
+ * state is the synthetic state of the {@link AllModulesStateBenchmark}. Java serialization does not include the
+ * EClass of the exports since it is not serializable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BuildResultCodecBenchmark {
+	@Param({ "20", "200" })
+	public int modules;
+
+	@Param({ "15" })
+	public int classesPerModule;
+
+	@Param({ "5" })
+	public int parametersPerClass;
+
+	private BuildResult buildResult;
+
+	private byte[] encoded;
+
+	private byte[] serialized;
+
+	@Benchmark
+	public BuildResult decode() throws IOException {
+		return BuildResultCodec.read(new ByteArrayInputStream(encoded));
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return in.readObject();
+		}
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BuildResultCodec.write(buildResult, out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+			objectOut.writeObject(buildResult.getAllModuleReferences());
+		}
+		return out.toByteArray();
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		buildResult = new BuildResult(false);
+		buildResult.setAllModuleReferences(AllModulesStateBenchmark.createState(modules, classesPerModule, parametersPerClass));
+		encoded = encode();
+		serialized = serialize();
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.puppetlabs.geppetto.catalog.Catalog;
+import com.puppetlabs.geppetto.catalog.util.CatalogJsonSerializer;
+
+/**
+ * Measures the time it takes to load a catalog from JSON. The catalog has one class resource for each generated
+ * class and one file resource for each resource body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CatalogBenchmark {
+	@Param({ "10", "100" })
+	public int files;
+
+	@Param({ "10" })
+	public int classesPerFile;
+
+	@Param({ "10" })
+	public int resourceBodies;
+
+	private String json;
+
+	@Benchmark
+	public Catalog load() throws IOException {
+		return CatalogJsonSerializer.load(json);
+	}
+
+	@Setup
+	public void setup() {
+		json = new PuppetCodeGenerator(files, classesPerFile, resourceBodies).generateCatalogJSON();
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.puppetlabs.geppetto.pp.dsl.adapters.SharedExportsAdapter;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPFinder;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPResourceLinker;
+import com.puppetlabs.geppetto.pp.dsl.linking.RecordingMessageAcceptor;
+
+/**
+ * Measures the time it takes to link all manifests of a workspace, once with an index of the exported names that the
+ * {@link PPFinder} builds for each manifest and once with an index that is shared by all manifests through a
+ * {@link SharedExportsAdapter}. The shared index is discarded before each invocation so that every invocation
+ * includes building it once, as a validation run does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExportedNamesIndexBenchmark {
+	@Param({ "100", "500" })
+	public int files;
+
+	@Param({ "10" })
+	public int classesPerFile;
+
+	@Param({ "false", "true" })
+	public boolean sharedIndex;
+
+	private PuppetWorkspace workspace;
+
+	private List<EObject> models;
+
+	private PPResourceLinker linker;
+
+	private SharedExportsAdapter sharedExports;
+
+	@Benchmark
+	public void link(Blackhole blackhole) {
+		if(sharedExports != null)
+			sharedExports.invalidate();
+		for(EObject model : models) {
+			RecordingMessageAcceptor acceptor = new RecordingMessageAcceptor();
+			linker.link(model, acceptor, false);
+			blackhole.consume(acceptor);
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		workspace = new PuppetWorkspace(new PuppetCodeGenerator(files, classesPerFile, 1).generateManifests());
+		workspace.resolveAll();
+		models = workspace.getModels();
+		linker = PuppetWorkspace.getInjector().getInstance(PPResourceLinker.class);
+		if(sharedIndex)
+			sharedExports = SharedExportsAdapter.install(workspace.getResourceSet());
+	}
+
+	@TearDown
+	public void tearDown() {
+		workspace.unload();
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.resource.SaveOptions;
+import org.eclipse.xtext.serializer.ISerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time it takes to format all generated manifests. The serializer builds a <code>DomModel</code> of each
+ * manifest and formats it using the CSS based formatter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FormatterBenchmark {
+	@Param({ "10" })
+	public int files;
+
+	@Param({ "10", "50" })
+	public int classesPerFile;
+
+	@Param({ "1", "10" })
+	public int resourceBodies;
+
+	private PuppetWorkspace workspace;
+
+	private List<EObject> models;
+
+	private ISerializer serializer;
+
+	private SaveOptions formatOptions;
+
+	@Benchmark
+	public void format(Blackhole blackhole) {
+		for(EObject model : models)
+			blackhole.consume(serializer.serialize(model, formatOptions));
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		workspace = new PuppetWorkspace(new PuppetCodeGenerator(files, classesPerFile, resourceBodies).generateManifests());
+		workspace.resolveAll();
+		models = workspace.getModels();
+		serializer = PuppetWorkspace.getInjector().getInstance(ISerializer.class);
+		formatOptions = SaveOptions.newBuilder().format().getOptions();
+	}
+
+	@TearDown
+	public void tearDown() {
+		workspace.unload();
+	}
+}
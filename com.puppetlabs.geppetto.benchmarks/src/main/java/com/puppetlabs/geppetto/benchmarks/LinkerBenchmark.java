@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.puppetlabs.geppetto.pp.dsl.linking.PPResourceLinker;
+import com.puppetlabs.geppetto.pp.dsl.linking.RecordingMessageAcceptor;
+
+/**
+ * Measures the time it takes for the {@link PPResourceLinker} to link all generated manifests. The manifests are
+ * parsed and linked once during setup so that the index of exported names is populated before the measurement
+ * starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LinkerBenchmark {
+	@Param({ "10", "50" })
+	public int files;
+
+	@Param({ "10" })
+	public int classesPerFile;
+
+	@Param({ "1", "10" })
+	public int resourceBodies;
+
+	private PuppetWorkspace workspace;
+
+	private List<EObject> models;
+
+	private PPResourceLinker linker;
+
+	@Benchmark
+	public void link(Blackhole blackhole) {
+		for(EObject model : models) {
+			RecordingMessageAcceptor acceptor = new RecordingMessageAcceptor();
+			linker.link(model, acceptor, false);
+			blackhole.consume(acceptor);
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		workspace = new PuppetWorkspace(new PuppetCodeGenerator(files, classesPerFile, resourceBodies).generateManifests());
+		workspace.resolveAll();
+		models = workspace.getModels();
+		linker = PuppetWorkspace.getInjector().getInstance(PPResourceLinker.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		workspace.unload();
+	}
+}
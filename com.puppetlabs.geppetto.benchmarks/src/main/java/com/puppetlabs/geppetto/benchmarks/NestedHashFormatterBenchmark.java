@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.resource.SaveOptions;
+import org.eclipse.xtext.serializer.ISerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time it takes to format a manifest with deeply nested literal hashes. The layout of each hash measures
+ * if the hash fits on the current line, and that measurement formats all hashes nested in it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NestedHashFormatterBenchmark {
+	@Param({ "5", "10" })
+	public int depth;
+
+	@Param({ "3" })
+	public int entries;
+
+	private PuppetWorkspace workspace;
+
+	private EObject model;
+
+	private ISerializer serializer;
+
+	private SaveOptions formatOptions;
+
+	@Benchmark
+	public String format() {
+		return serializer.serialize(model, formatOptions);
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		workspace = new PuppetWorkspace(Collections.singletonList(PuppetCodeGenerator.generateNestedHashManifest(depth, entries)));
+		workspace.resolveAll();
+		model = workspace.getModels().get(0);
+		serializer = PuppetWorkspace.getInjector().getInstance(ISerializer.class);
+		formatOptions = SaveOptions.newBuilder().format().getOptions();
+	}
+
+	@TearDown
+	public void tearDown() {
+		workspace.unload();
+	}
+}
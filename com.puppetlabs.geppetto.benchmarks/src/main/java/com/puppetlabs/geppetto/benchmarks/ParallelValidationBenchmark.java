@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Charsets;
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.module.dsl.validation.DefaultModuleValidationAdvisor;
+import com.puppetlabs.geppetto.pp.dsl.target.PuppetTarget;
+import com.puppetlabs.geppetto.validation.FileType;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationService;
+import com.puppetlabs.geppetto.validation.runner.PPDiagnosticsSetup;
+
+/**
+ * Measures how the validation of a generated repository of modules scales with the number of validation threads.
+ * Each module depends on the previous one and each of its classes includes a class of the previous module so that
+ * references between modules must be resolved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelValidationBenchmark {
+	private static void generateModule(File modulesDir, int moduleIndex, int classesPerModule) throws IOException {
+		String name = "module" + moduleIndex;
+		File moduleDir = new File(modulesDir, name);
+		File manifests = new File(moduleDir, "manifests");
+		manifests.mkdirs();
+
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\n  \"name\": \"test-").append(name).append("\",\n");
+		bld.append("  \"version\": \"1.0.0\",\n  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n");
+		bld.append("  \"summary\": \"Generated module\",\n  \"source\": \"http://example.com\",\n");
+		bld.append("  \"dependencies\": [");
+		if(moduleIndex > 0)
+			bld.append("\n    { \"name\": \"test-module").append(moduleIndex - 1).append("\", \"version_requirement\": \">= 1.0.0\" }\n  ");
+		bld.append("]\n}\n");
+		Files.write(new File(moduleDir, "metadata.json").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+
+		bld.setLength(0);
+		bld.append("class ").append(name).append(" {\n}\n");
+		Files.write(new File(manifests, "init.pp").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+
+		for(int classIndex = 0; classIndex < classesPerModule; ++classIndex) {
+			bld.setLength(0);
+			String className = name + "::class" + classIndex;
+			bld.append("class ").append(className).append("($param = 'value").append(classIndex).append("') {\n");
+			bld.append("  include ").append(name).append('\n');
+			if(moduleIndex > 0)
+				bld.append("  include module").append(moduleIndex - 1).append("::class").append(classIndex).append('\n');
+			bld.append("  file { \"/tmp/").append(name).append('/').append(classIndex).append("\":\n");
+			bld.append("    ensure  => file,\n    content => $param,\n    mode    => '0644',\n  }\n");
+			bld.append("  $unused = $undefined_variable").append(classIndex).append('\n');
+			bld.append("}\n");
+			Files.write(new File(manifests, "class" + classIndex + ".pp").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+		}
+	}
+
+	@Param({ "200" })
+	public int modules;
+
+	@Param({ "20" })
+	public int classesPerModule;
+
+	@Param({ "1", "2", "4", "8", "16" })
+	public int threadCount;
+
+	private File root;
+
+	private ValidationService validationService;
+
+	private ValidationOptions options;
+
+	@Setup
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("geppetto-parallel-").toFile();
+		File modulesDir = new File(root, "modules");
+		for(int moduleIndex = 0; moduleIndex < modules; ++moduleIndex)
+			generateModule(modulesDir, moduleIndex, classesPerModule);
+
+		validationService = new PPDiagnosticsSetup().createInjectorAndDoEMFRegistration().getInstance(ValidationService.class);
+		options = new ValidationOptions();
+		options.setComplianceLevel(PuppetTarget.getDefault().getComplianceLevel());
+		options.setModuleValidationAdvisor(DefaultModuleValidationAdvisor.INSTANCE);
+		options.setCheckLayout(true);
+		options.setCheckModuleSemantics(true);
+		options.setCheckReferences(true);
+		options.setFileType(FileType.PUPPET_ROOT);
+		options.setThreadCount(threadCount);
+		options.setValidationRoot(root);
+	}
+
+	@TearDown
+	public void tearDown() {
+		FileUtils.rmR(root);
+	}
+
+	@Benchmark
+	public Diagnostic validate() {
+		Diagnostic chain = new Diagnostic();
+		validationService.validate(chain, options, root, new NullProgressMonitor());
+		return chain;
+	}
+}
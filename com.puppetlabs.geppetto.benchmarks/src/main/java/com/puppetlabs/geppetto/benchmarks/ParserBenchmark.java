@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.IParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time it takes for the PP parser to parse all generated manifests, including the creation of the node
+ * model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({ "10" })
+	public int files;
+
+	@Param({ "10", "50" })
+	public int classesPerFile;
+
+	@Param({ "1", "10" })
+	public int resourceBodies;
+
+	private IParser parser;
+
+	private List<String> sources;
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for(String source : sources)
+			blackhole.consume(parser.parse(new StringReader(source)));
+	}
+
+	@Setup
+	public void setup() {
+		parser = PuppetWorkspace.getInjector().getInstance(IParser.class);
+		sources = new PuppetCodeGenerator(files, classesPerFile, resourceBodies).generateManifests();
+		for(String source : sources) {
+			IParseResult result = parser.parse(new StringReader(source));
+			if(result.hasSyntaxErrors())
+				throw new IllegalStateException("Generated manifest has syntax errors");
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalIndex;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalsGenerator;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPQualifiedNameConverter;
+
+/**
+ * Measures how long it takes to find the proposal candidates for a number of misspelled names, by a scan of all
+ * exported descriptions and by a {@link PPProposalIndex}. Building the index is measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProposalIndexBenchmark {
+	private static final String[] SYLLABLES = {
+			"ap", "ache", "con", "cat", "file", "serv", "ice", "user", "group", "mod", "ule", "ng", "inx", "my", "sql",
+			"post", "gres", "fire", "wall", "cron", "ntp", "ssh", "key", "repo", "pack", "age", "host", "vhost" };
+
+	private static String createName(Random random) {
+		StringBuilder bld = new StringBuilder();
+		int segmentCount = 1 + random.nextInt(2);
+		for(int segment = 0; segment < segmentCount; ++segment) {
+			if(segment > 0)
+				bld.append("::");
+			int syllableCount = 1 + random.nextInt(3);
+			for(int syllable = 0; syllable < syllableCount; ++syllable)
+				bld.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return bld.toString();
+	}
+
+	@Param({ "10000", "50000" })
+	public int exportCount;
+
+	@Param({ "200" })
+	public int queryCount;
+
+	private final IQualifiedNameConverter converter = new PPQualifiedNameConverter();
+
+	private List<IEObjectDescription> exports;
+
+	private List<String> names;
+
+	private PPProposalIndex index;
+
+	@Benchmark
+	public PPProposalIndex buildIndex() {
+		return PPProposalIndex.create(exports, converter);
+	}
+
+	@Benchmark
+	public void queryIndex(Blackhole blackhole) {
+		for(String name : names)
+			blackhole.consume(index.getCandidates(name, PPProposalsGenerator.MAX_DISTANCE));
+	}
+
+	/**
+	 * The candidate selection of the proposals generator applied to all descriptions, which is what the generator did
+	 * before it used the index.
+	 */
+	@Benchmark
+	public void scan(Blackhole blackhole) {
+		DoubleMetaphone encoder = new DoubleMetaphone();
+		for(String name : names) {
+			String metaphoneName = encoder.encode(name);
+			for(IEObjectDescription d : exports) {
+				String candidateName = converter.toString(d.getName());
+				if(StringUtils.getLevenshteinDistance(name, candidateName) <= PPProposalsGenerator.MAX_DISTANCE) {
+					blackhole.consume(d);
+					continue;
+				}
+				String candidateMetaphone = encoder.encode(candidateName);
+				if(candidateMetaphone.startsWith(metaphoneName) || candidateMetaphone.endsWith(metaphoneName))
+					blackhole.consume(d);
+			}
+		}
+	}
+
+	@Setup
+	public void setup() {
+		Random random = new Random(4711);
+		exports = Lists.newArrayListWithCapacity(exportCount);
+		for(int idx = 0; idx < exportCount; ++idx) {
+			InternalEObject proxy = (InternalEObject) EcoreUtil.create(PPPackage.Literals.HOST_CLASS_DEFINITION);
+			proxy.eSetProxyURI(URI.createFileURI("/modules/m" + idx + "/manifests/init.pp").appendFragment("/0"));
+			exports.add(EObjectDescription.create(converter.toQualifiedName(createName(random)), proxy));
+		}
+		names = Lists.newArrayListWithCapacity(queryCount);
+		for(int idx = 0; idx < queryCount; ++idx)
+			names.add(createName(random));
+		index = PPProposalIndex.create(exports, converter);
+	}
+}
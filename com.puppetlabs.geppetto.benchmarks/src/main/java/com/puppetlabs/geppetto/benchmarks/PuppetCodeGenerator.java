@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Generates synthetic input for the benchmarks. The generator is seeded so that a given set of scale parameters
+ * always produces the same input.
+ * <p>
+ * Each generated manifest contains one define and a number of classes. Every class has parameters, includes a class
+ * from the next manifest (so that linking has to cross resource boundaries), and declares two resource expressions,
+ * one of a built in type and one of the define, each with a given number of resource bodies.
+ * </p>
+ */
+public class PuppetCodeGenerator {
+	private static final String[] FILE_MODES = { "0644", "0600", "0755", "0444" };
+
+	private static final String[] VERSION_RANGE_TEMPLATES = {
+			"%d.%d.%d", ">=%d.%d.%d", "~%d.%d.%d", "%d.%d.x", ">=%d.%d.%d <%d.0.0", "%d.%d.%d - %d.0.0" };
+
+	private static final long SEED = 4711;
+
+	private static void appendClass(StringBuilder bld, int file, int cls, int files, int classesPerFile, int resourceBodies) {
+		String className = "m" + file + "::c" + cls;
+		String path = "/opt/m" + file + "/c" + cls;
+		bld.append("class ").append(className).append("(\n");
+		bld.append("  $ensure = present,\n");
+		bld.append("  $owner = 'root',\n");
+		bld.append("  $count = ").append(cls + 1).append("\n");
+		bld.append(") {\n");
+		bld.append("  include m").append((file + 1) % files).append("::c").append(cls % classesPerFile).append("\n");
+		bld.append("  $base = \"").append(path).append("/${owner}\"\n");
+		bld.append("  if $count > 1 {\n");
+		bld.append("    notify { 'm").append(file).append("_c").append(cls).append("': message => \"count is ${count}\" }\n");
+		bld.append("  }\n");
+
+		bld.append("  file {\n");
+		for(int body = 0; body < resourceBodies; ++body) {
+			bld.append("    \"${base}/f").append(body).append("\":\n");
+			bld.append("      ensure => $ensure,\n");
+			bld.append("      owner => $owner,\n");
+			bld.append("      mode => '").append(FILE_MODES[body % FILE_MODES.length]).append("',\n");
+			bld.append("      content => \"file ").append(body).append(" of ${title}\";\n");
+		}
+		bld.append("  }\n");
+
+		bld.append("  m").append(file).append("::d {\n");
+		for(int body = 0; body < resourceBodies; ++body) {
+			bld.append("    '").append(className).append("::d").append(body).append("':\n");
+			bld.append("      path => \"${base}/d").append(body).append("\",\n");
+			bld.append("      size => ").append(body).append(";\n");
+		}
+		bld.append("  }\n");
+		bld.append("  File[\"${base}/f0\"] -> M").append(file).append("::D['").append(className).append("::d0']\n");
+		bld.append("}\n\n");
+	}
+
+	private static void appendDefine(StringBuilder bld, int file) {
+		bld.append("define m").append(file).append("::d($path, $size = 0) {\n");
+		bld.append("  case $size {\n");
+		bld.append("    0: { $kind = 'empty' }\n");
+		bld.append("    default: { $kind = 'sized' }\n");
+		bld.append("  }\n");
+		bld.append("  exec { \"touch ${path}\":\n");
+		bld.append("    path => ['/bin', '/usr/bin'],\n");
+		bld.append("    creates => $path,\n");
+		bld.append("    tag => [$kind, $name]\n");
+		bld.append("  }\n");
+		bld.append("}\n\n");
+	}
+
+	private static void appendNestedHash(StringBuilder bld, int level, int depth, int entries) {
+		String indent = Strings.repeat("  ", level + 1);
+		bld.append("{\n");
+		for(int entry = 0; entry < entries; ++entry)
+			bld.append(indent).append("'key").append(Strings.repeat("x", entry)).append(level).append("' => 'value ").append(entry).append("',\n");
+		bld.append(indent).append("'nested' => ");
+		if(level + 1 < depth)
+			appendNestedHash(bld, level + 1, depth, entries);
+		else
+			bld.append("{ 'leaf' => true }");
+		bld.append('\n').append(Strings.repeat("  ", level)).append('}');
+	}
+
+	/**
+	 * Generates the source of a manifest with an assignment of a literal hash where each level contains a number of
+	 * entries and a nested hash. Formatting such a manifest requires that each hash is measured to check if it fits
+	 * on the line of its container.
+	 *
+	 * @param depth
+	 *            The number of nested hashes
+	 * @param entries
+	 *            The number of plain entries in each hash
+	 * @return The Puppet source
+	 */
+	public static String generateNestedHashManifest(int depth, int entries) {
+		if(depth < 1 || entries < 0)
+			throw new IllegalArgumentException("Depth must be greater than zero and entries must not be negative");
+		StringBuilder bld = new StringBuilder();
+		bld.append("$data = ");
+		appendNestedHash(bld, 0, depth, entries);
+		bld.append("\nnotify { 'nested': message => $data }\n");
+		return bld.toString();
+	}
+
+	private final int files;
+
+	private final int classesPerFile;
+
+	private final int resourceBodies;
+
+	/**
+	 * @param files
+	 *            The number of manifests to generate
+	 * @param classesPerFile
+	 *            The number of classes in each manifest
+	 * @param resourceBodies
+	 *            The number of bodies in each resource expression
+	 */
+	public PuppetCodeGenerator(int files, int classesPerFile, int resourceBodies) {
+		if(files < 1 || classesPerFile < 1 || resourceBodies < 1)
+			throw new IllegalArgumentException("All scale parameters must be greater than zero");
+		this.files = files;
+		this.classesPerFile = classesPerFile;
+		this.resourceBodies = resourceBodies;
+	}
+
+	/**
+	 * Generates a catalog in the JSON format produced by the Puppet master. The catalog contains one
+	 * <code>Class</code> resource for each generated class and one <code>File</code> resource for each resource body,
+	 * with an edge from each class to its files.
+	 *
+	 * @return The catalog JSON
+	 */
+	public String generateCatalogJSON() {
+		JsonArray resources = new JsonArray();
+		JsonArray edges = new JsonArray();
+		JsonArray classes = new JsonArray();
+		for(int file = 0; file < files; ++file) {
+			String manifest = "/etc/puppet/modules/m" + file + "/manifests/init.pp";
+			for(int cls = 0; cls < classesPerFile; ++cls) {
+				String className = "m" + file + "::c" + cls;
+				classes.add(new JsonPrimitive(className));
+				resources.add(createCatalogResource("Class", className, manifest, cls + 1, new JsonObject()));
+				String classRef = "Class[" + className + "]";
+				for(int body = 0; body < resourceBodies; ++body) {
+					String title = "/opt/m" + file + "/c" + cls + "/root/f" + body;
+					JsonObject parameters = new JsonObject();
+					parameters.addProperty("ensure", "present");
+					parameters.addProperty("owner", "root");
+					parameters.addProperty("mode", FILE_MODES[body % FILE_MODES.length]);
+					resources.add(createCatalogResource("File", title, manifest, cls + body + 2, parameters));
+					JsonObject edge = new JsonObject();
+					edge.addProperty("source", classRef);
+					edge.addProperty("target", "File[" + title + "]");
+					edges.add(edge);
+				}
+			}
+		}
+
+		JsonArray tags = new JsonArray();
+		tags.add(new JsonPrimitive("settings"));
+		JsonObject data = new JsonObject();
+		data.addProperty("name", "benchmark.example.com");
+		data.addProperty("version", 1);
+		data.add("tags", tags);
+		data.add("classes", classes);
+		data.add("resources", resources);
+		data.add("edges", edges);
+
+		JsonObject metadata = new JsonObject();
+		metadata.addProperty("api_version", 1);
+
+		JsonObject catalog = new JsonObject();
+		catalog.addProperty("document_type", "Catalog");
+		catalog.add("data", data);
+		catalog.add("metadata", metadata);
+		return catalog.toString();
+	}
+
+	private JsonObject createCatalogResource(String type, String title, String manifest, int line, JsonObject parameters) {
+		JsonArray tags = new JsonArray();
+		tags.add(new JsonPrimitive(type.toLowerCase()));
+		JsonObject resource = new JsonObject();
+		resource.addProperty("type", type);
+		resource.addProperty("title", title);
+		resource.addProperty("exported", Boolean.FALSE);
+		resource.addProperty("file", manifest);
+		resource.addProperty("line", line);
+		resource.add("tags", tags);
+		resource.add("parameters", parameters);
+		return resource;
+	}
+
+	/**
+	 * Generates the source of one manifest.
+	 *
+	 * @param file
+	 *            The index of the manifest, between zero and the number of files
+	 * @return The Puppet source
+	 */
+	public String generateManifest(int file) {
+		StringBuilder bld = new StringBuilder();
+		appendDefine(bld, file);
+		for(int cls = 0; cls < classesPerFile; ++cls)
+			appendClass(bld, file, cls, files, classesPerFile, resourceBodies);
+		return bld.toString();
+	}
+
+	/**
+	 * @return The source of all manifests
+	 */
+	public List<String> generateManifests() {
+		List<String> manifests = Lists.newArrayListWithCapacity(files);
+		for(int file = 0; file < files; ++file)
+			manifests.add(generateManifest(file));
+		return manifests;
+	}
+
+	/**
+	 * Generates version ranges using a mix of all supported range syntaxes.
+	 *
+	 * @param count
+	 *            The number of ranges to generate
+	 * @return The ranges in string form
+	 */
+	public List<String> generateVersionRanges(int count) {
+		Random random = new Random(SEED);
+		List<String> ranges = Lists.newArrayListWithCapacity(count);
+		for(int idx = 0; idx < count; ++idx) {
+			int major = random.nextInt(5);
+			int minor = random.nextInt(10);
+			int patch = random.nextInt(20);
+			String template = VERSION_RANGE_TEMPLATES[idx % VERSION_RANGE_TEMPLATES.length];
+			ranges.add(String.format(template, major, minor, patch, major + 1));
+		}
+		return ranges;
+	}
+
+	/**
+	 * Generates versions in the same span as the ranges created by {@link #generateVersionRanges(int)}.
+	 *
+	 * @param count
+	 *            The number of versions to generate
+	 * @return The versions in string form
+	 */
+	public List<String> generateVersions(int count) {
+		Random random = new Random(SEED + 1);
+		List<String> versions = Lists.newArrayListWithCapacity(count);
+		for(int idx = 0; idx < count; ++idx) {
+			StringBuilder bld = new StringBuilder();
+			bld.append(random.nextInt(6)).append('.').append(random.nextInt(10)).append('.').append(random.nextInt(20));
+			if(random.nextInt(4) == 0)
+				bld.append("-rc").append(random.nextInt(3));
+			versions.add(bld.toString());
+		}
+		return versions;
+	}
+
+	public int getClassesPerFile() {
+		return classesPerFile;
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public int getResourceBodies() {
+		return resourceBodies;
+	}
+}
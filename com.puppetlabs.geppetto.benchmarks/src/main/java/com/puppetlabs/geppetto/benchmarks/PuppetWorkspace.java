@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.linking.lazy.LazyLinkingResource;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.StringInputStream;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Injector;
+import com.puppetlabs.geppetto.pp.dsl.PPStandaloneSetup;
+import com.puppetlabs.geppetto.pp.dsl.target.PuppetTarget;
+
+/**
+ * A resource set holding the default Puppet target and a set of manifests loaded from source strings. All manifests
+ * are visible to each other so that references between them can be resolved.
+ */
+public class PuppetWorkspace {
+	private static Injector injector;
+
+	/**
+	 * Returns the injector for the PP language. The injector is created, and the EMF registrations are made, the first
+	 * time this method is called.
+	 *
+	 * @return The injector
+	 */
+	public static synchronized Injector getInjector() {
+		if(injector == null)
+			injector = new PPStandaloneSetup().createInjectorAndDoEMFRegistration();
+		return injector;
+	}
+
+	private final XtextResourceSet resourceSet;
+
+	private final List<XtextResource> manifests;
+
+	/**
+	 * Creates the resource set and loads the given sources into it.
+	 *
+	 * @param sources
+	 *            The source of each manifest
+	 * @throws IOException
+	 *             if a manifest could not be loaded
+	 * @throws IllegalArgumentException
+	 *             if a manifest has syntax errors
+	 */
+	public PuppetWorkspace(List<String> sources) throws IOException {
+		resourceSet = getInjector().getInstance(XtextResourceSet.class);
+		PuppetTarget target = PuppetTarget.getDefault();
+		resourceSet.getResource(target.getPlatformURI(), true);
+		URI typesURI = target.getTypesURI();
+		if(typesURI != null)
+			resourceSet.getResource(typesURI, true);
+
+		Map<String, String> options = Collections.singletonMap(XtextResource.OPTION_ENCODING, "UTF-8");
+		int top = sources.size();
+		manifests = Lists.newArrayListWithCapacity(top);
+		for(int idx = 0; idx < top; ++idx) {
+			URI uri = URI.createFileURI("/benchmark/modules/m" + idx + "/manifests/init.pp");
+			XtextResource resource = (XtextResource) resourceSet.createResource(uri);
+			resource.load(new StringInputStream(sources.get(idx), "UTF-8"), options);
+			if(!resource.getErrors().isEmpty())
+				throw new IllegalArgumentException("Generated manifest " + uri + " has errors: " + resource.getErrors());
+			manifests.add(resource);
+		}
+	}
+
+	/**
+	 * @return The loaded manifests in the order of the sources given to the constructor
+	 */
+	public List<XtextResource> getManifests() {
+		return manifests;
+	}
+
+	/**
+	 * @return The root element of each manifest
+	 */
+	public List<EObject> getModels() {
+		List<EObject> models = Lists.newArrayListWithCapacity(manifests.size());
+		for(XtextResource manifest : manifests)
+			models.add(manifest.getParseResult().getRootASTElement());
+		return models;
+	}
+
+	public XtextResourceSet getResourceSet() {
+		return resourceSet;
+	}
+
+	/**
+	 * Resolves all cross references in all manifests.
+	 */
+	public void resolveAll() {
+		for(XtextResource manifest : manifests)
+			((LazyLinkingResource) manifest).resolveLazyCrossReferences(CancelIndicator.NullImpl);
+	}
+
+	/**
+	 * Unloads all resources.
+	 */
+	public void unload() {
+		for(Resource resource : resourceSet.getResources())
+			resource.unload();
+		resourceSet.getResources().clear();
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+import com.puppetlabs.geppetto.semver.Version;
+import com.puppetlabs.geppetto.semver.VersionIndex;
+import com.puppetlabs.geppetto.semver.VersionRange;
+
+/**
+ * Measures parsing of version ranges and matching of versions against ranges, both by scanning and by searching a
+ * {@link VersionIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SemverBenchmark {
+	@Param({ "100", "1000" })
+	public int ranges;
+
+	@Param({ "100" })
+	public int versions;
+
+	private List<String> rangeStrings;
+
+	private List<VersionRange> parsedRanges;
+
+	private List<Version> parsedVersions;
+
+	private VersionIndex<Version> versionIndex;
+
+	@Benchmark
+	public void findBestMatchIndexed(Blackhole blackhole) {
+		for(VersionRange range : parsedRanges)
+			blackhole.consume(versionIndex.findBestMatch(range));
+	}
+
+	@Benchmark
+	public void findBestMatchScanned(Blackhole blackhole) {
+		for(VersionRange range : parsedRanges)
+			blackhole.consume(range.findBestMatch(parsedVersions));
+	}
+
+	@Benchmark
+	public void fromString(Blackhole blackhole) {
+		for(String range : rangeStrings)
+			blackhole.consume(VersionRange.fromString(range));
+	}
+
+	@Benchmark
+	public void isIncluded(Blackhole blackhole) {
+		for(VersionRange range : parsedRanges)
+			for(Version version : parsedVersions)
+				blackhole.consume(range.isIncluded(version));
+	}
+
+	@Setup
+	public void setup() {
+		PuppetCodeGenerator generator = new PuppetCodeGenerator(1, 1, 1);
+		rangeStrings = generator.generateVersionRanges(ranges);
+		parsedRanges = Lists.newArrayListWithCapacity(ranges);
+		for(String range : rangeStrings)
+			parsedRanges.add(VersionRange.fromString(range));
+		parsedVersions = Lists.newArrayListWithCapacity(versions);
+		for(String version : generator.generateVersions(versions))
+			parsedVersions.add(Version.fromString(version));
+		versionIndex = VersionIndex.create(parsedVersions);
+	}
+}
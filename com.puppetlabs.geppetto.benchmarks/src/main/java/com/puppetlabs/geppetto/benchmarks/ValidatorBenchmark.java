@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time it takes to validate all generated manifests. The manifests are linked during setup so that the
+ * measurement is dominated by the checks of the <code>PPJavaValidator</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ValidatorBenchmark {
+	@Param({ "10" })
+	public int files;
+
+	@Param({ "10", "50" })
+	public int classesPerFile;
+
+	@Param({ "1", "10" })
+	public int resourceBodies;
+
+	private PuppetWorkspace workspace;
+
+	private IResourceValidator validator;
+
+	@Setup
+	public void setup() throws IOException {
+		workspace = new PuppetWorkspace(new PuppetCodeGenerator(files, classesPerFile, resourceBodies).generateManifests());
+		workspace.resolveAll();
+		validator = PuppetWorkspace.getInjector().getInstance(IResourceValidator.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		workspace.unload();
+	}
+
+	@Benchmark
+	public void validate(Blackhole blackhole) {
+		for(XtextResource manifest : workspace.getManifests())
+			blackhole.consume(validator.validate(manifest, CheckMode.ALL, CancelIndicator.NullImpl));
+	}
+}
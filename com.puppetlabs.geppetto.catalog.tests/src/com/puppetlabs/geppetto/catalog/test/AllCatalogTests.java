@@ -25,6 +25,7 @@ public class AllCatalogTests {
 		// $JUnit-BEGIN$
 		suite.addTestSuite(TestJsonLoad.class);
 		suite.addTestSuite(TestCatalogRspec.class);
+		suite.addTestSuite(TestCatalogDiff.class);
 		// $JUnit-END$
 		return suite;
 	}
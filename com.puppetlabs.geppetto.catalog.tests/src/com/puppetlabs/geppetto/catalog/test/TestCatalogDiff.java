@@ -0,0 +1,138 @@
+package com.puppetlabs.geppetto.catalog.test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+
+import com.puppetlabs.geppetto.catalog.Catalog;
+import com.puppetlabs.geppetto.catalog.diff.BatchCatalogDiffer;
+import com.puppetlabs.geppetto.catalog.diff.BatchDiffStatistics;
+import com.puppetlabs.geppetto.catalog.diff.CatalogDelta;
+import com.puppetlabs.geppetto.catalog.diff.CatalogDiffer;
+import com.puppetlabs.geppetto.catalog.diff.CatalogIndex;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta.Kind;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta.ParameterDelta;
+import com.puppetlabs.geppetto.catalog.diff.ResourceEdge;
+import com.puppetlabs.geppetto.catalog.util.CatalogJsonSerializer;
+
+public class TestCatalogDiff extends TestCase {
+
+	private static Catalog catalog(String resources, String edges) throws Exception {
+		return CatalogJsonSerializer.load("{\"document_type\":\"Catalog\",\"data\":{\"name\":\"test\",\"resources\":[" + resources +
+				"],\"edges\":[" + edges + "]}}");
+	}
+
+	private static void copy(String sample, File dir, String name) throws Exception {
+		Files.copy(TestDataProvider.getTestFile(new Path("testData/" + sample)).toPath(), new File(dir, name).toPath());
+	}
+
+	private static ResourceDelta find(CatalogDelta delta, String ref) {
+		for(ResourceDelta rd : delta.getResourceDeltas())
+			if(rd.getRef().equals(ref))
+				return rd;
+		return null;
+	}
+
+	public void testAddedRemovedAndModified() throws Exception {
+		Catalog oldCatalog = catalog(
+			"{\"type\":\"File\",\"title\":\"/a\",\"parameters\":{\"mode\":\"0644\",\"owner\":\"root\"}}," +
+					"{\"type\":\"File\",\"title\":\"/b\",\"parameters\":{\"mode\":\"0644\"}}," +
+					"{\"type\":\"Package\",\"title\":\"p\",\"parameters\":{\"ensure\":\"present\",\"before\":\"File[/a]\"}}",
+			"{\"source\":\"Class[Main]\",\"target\":\"File[/a]\"}");
+		Catalog newCatalog = catalog(
+			"{\"type\":\"File\",\"title\":\"/A\",\"parameters\":{\"owner\":\"root\",\"mode\":\"0600\",\"group\":\"wheel\"}}," +
+					"{\"type\":\"Package\",\"title\":\"p\",\"parameters\":{\"ensure\":\"present\",\"before\":\"File[/c]\"}}," +
+					"{\"type\":\"File\",\"title\":\"/c\"}", "{\"source\":\"Class[Main]\",\"target\":\"File[/A]\"}");
+
+		CatalogDelta delta = CatalogDiffer.diff(oldCatalog, newCatalog);
+		assertEquals(3, delta.getResourceDeltas().size());
+		assertEquals("Package[p] is unchanged since relationships are edges", 1, delta.getUnchangedResourceCount());
+
+		ResourceDelta modified = find(delta, "File[/A]");
+		assertNotNull("Resources should be matched without regard to case", modified);
+		assertEquals(Kind.MODIFIED, modified.getKind());
+		List<ParameterDelta> parameters = modified.getParameterDeltas();
+		assertEquals(2, parameters.size());
+		for(ParameterDelta pd : parameters) {
+			if("mode".equals(pd.getName())) {
+				assertEquals(Arrays.asList("0644"), pd.getOldValue());
+				assertEquals(Arrays.asList("0600"), pd.getNewValue());
+			}
+			else {
+				assertEquals("group", pd.getName());
+				assertNull(pd.getOldValue());
+			}
+		}
+
+		assertEquals(Kind.REMOVED, find(delta, "File[/b]").getKind());
+		assertEquals(Kind.ADDED, find(delta, "File[/c]").getKind());
+
+		assertEquals("The catalog edge should be matched without regard to case", 1, delta.getUnchangedEdgeCount());
+		assertEquals(1, delta.getRemovedEdges().size());
+		ResourceEdge removed = delta.getRemovedEdges().get(0);
+		assertEquals("before", removed.getLabel());
+		assertEquals("Package[p]", removed.getSource());
+		assertEquals("File[/a]", removed.getTarget());
+		assertEquals(1, delta.getAddedEdges().size());
+		assertEquals("File[/c]", delta.getAddedEdges().get(0).getTarget());
+	}
+
+	public void testBatch() throws Exception {
+		File tmp = Files.createTempDirectory("catalogs").toFile();
+		File oldDir = new File(tmp, "old");
+		File newDir = new File(tmp, "new");
+		oldDir.mkdir();
+		newDir.mkdir();
+		copy("sample1.json", oldDir, "a.json");
+		copy("sample1.json", newDir, "a.json");
+		copy("sample3.json", oldDir, "b.json");
+		copy("sample2.json", newDir, "b.json");
+		copy("sample2.json", oldDir, "c.json");
+		copy("sample3.json", newDir, "d.json");
+
+		StringWriter out = new StringWriter();
+		BatchDiffStatistics statistics = new BatchCatalogDiffer(2).diff(oldDir, newDir, out);
+		assertEquals(1, statistics.getUnchangedNodeCount());
+		assertEquals(1, statistics.getChangedNodeCount());
+		assertEquals(1, statistics.getRemovedNodeCount());
+		assertEquals(1, statistics.getAddedNodeCount());
+		assertEquals(0, statistics.getFailedNodeCount());
+		assertFalse(statistics.getMostChangedTypes(3).isEmpty());
+
+		String[] lines = out.toString().split("\n");
+		assertEquals("Should have one summary per node", 4, lines.length);
+		for(String line : lines)
+			if(line.contains("\"node\":\"b\""))
+				assertTrue(line, line.contains("\"status\":\"changed\""));
+	}
+
+	public void testParameterOrderIsInsignificant() throws Exception {
+		Catalog oldCatalog = catalog("{\"type\":\"File\",\"title\":\"/a\",\"parameters\":{\"mode\":\"0644\",\"owner\":\"root\"}}", "");
+		Catalog newCatalog = catalog(
+			"{\"type\":\"File\",\"title\":\"/a\",\"parameters\":{\"owner\":\"root\",\"mode\":\"0644\"}}", "");
+		assertTrue(CatalogDiffer.diff(oldCatalog, newCatalog).isEmpty());
+
+		newCatalog = catalog(
+			"{\"type\":\"File\",\"title\":\"/a\",\"exported\":true,\"parameters\":{\"owner\":\"root\",\"mode\":\"0644\"}}", "");
+		CatalogDelta delta = CatalogDiffer.diff(oldCatalog, newCatalog);
+		assertEquals(1, delta.getResourceDeltas().size());
+		assertEquals("exported", delta.getResourceDeltas().get(0).getParameterDeltas().get(0).getName());
+	}
+
+	public void testSameCatalog() throws Exception {
+		File f = TestDataProvider.getTestFile(new Path("testData/sample3.json"));
+		CatalogIndex index = CatalogIndex.create(CatalogJsonSerializer.load(f));
+		CatalogDelta delta = CatalogDiffer.diff(index, CatalogIndex.create(CatalogJsonSerializer.load(f)));
+		assertTrue(delta.isEmpty());
+		assertEquals(index.getResourceCount(), delta.getUnchangedResourceCount());
+		assertEquals(index.getEdgeCount(), delta.getUnchangedEdgeCount());
+		assertNotNull(index.getResource("package[HTTPD]"));
+	}
+}
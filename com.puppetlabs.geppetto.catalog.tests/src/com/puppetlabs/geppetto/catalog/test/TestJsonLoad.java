@@ -1,11 +1,14 @@
 package com.puppetlabs.geppetto.catalog.test;
 
 import java.io.File;
+import java.util.Collections;
 
 import junit.framework.TestCase;
 
 import com.puppetlabs.geppetto.catalog.Catalog;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
 import com.puppetlabs.geppetto.catalog.util.CatalogJsonSerializer;
+import com.puppetlabs.geppetto.catalog.util.CatalogVisitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
@@ -63,4 +66,34 @@ public class TestJsonLoad extends TestCase {
 
 	}
 
+	public void testLoadWithTypeFilter() throws Exception {
+		File f = TestDataProvider.getTestFile(new Path("testData/sample3.json"));
+		Catalog c = CatalogJsonSerializer.load(f, Collections.singleton("File"));
+
+		assertEquals("Should have the expected name", "backend.i-fcda579c", c.getName());
+		assertEquals("Should only have File resources", 4, c.getResources().size());
+		for(CatalogResource r : c.getResources())
+			assertEquals("File", r.getType());
+		assertEquals("Edges should not be filtered", 19, c.getEdges().size());
+	}
+
+	public void testVisit() throws Exception {
+		final int[] counts = new int[2];
+		File f = TestDataProvider.getTestFile(new Path("testData/sample3.json"));
+		CatalogJsonSerializer.visit(f, new CatalogVisitor() {
+			@Override
+			public void visitResource(CatalogResource resource) {
+				assertNull("Visited resources should not be contained", resource.eContainer());
+				counts[0]++;
+			}
+
+			@Override
+			public boolean visitResourceType(String type) {
+				counts[1]++;
+				return "Package".equals(type);
+			}
+		});
+		assertEquals("Should visit Package resources only", 5, counts[0]);
+		assertEquals("Should check the type of all resources", 21, counts[1]);
+	}
 }
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Charsets;
+import com.google.gson.stream.JsonWriter;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+import com.puppetlabs.geppetto.catalog.util.CatalogJsonSerializer;
+
+/**
+ * Compares the catalogs of many nodes. The catalogs are read from two directories, one with the old and one with the
+ * new catalogs, where each catalog is stored in a file named <code>&lt;certname&gt;.json</code>. The nodes are
+ * compared in parallel and a summary of each node is written as one line of JSON as soon as the node has been
+ * compared. The order of the lines is therefore not deterministic.
+ * <p>
+ * At most one pair of catalogs per thread is held in memory at any time, so the memory needed is independent of the
+ * number of nodes.
+ * </p>
+ * <p>
+ * The JSON line written for a node has the following properties:
+ * <ul>
+ * <li><code>node</code> - the certname</li>
+ * <li><code>status</code> - one of <code>changed</code>, <code>unchanged</code>, <code>added</code>,
+ * <code>removed</code> or <code>failed</code></li>
+ * <li><code>resources_added</code>, <code>resources_removed</code>, <code>resources_modified</code>,
+ * <code>resources_unchanged</code>, <code>edges_added</code>, <code>edges_removed</code> - counts, present when both
+ * catalogs were compared</li>
+ * <li><code>changed_types</code> - the number of changed resources per type, present when the node has changed</li>
+ * <li><code>error</code> - the reason for a failure</li>
+ * </ul>
+ * </p>
+ */
+public class BatchCatalogDiffer {
+	/**
+	 * Compares the two catalogs of one node and writes its summary
+	 */
+	private static class NodeDiff implements Runnable {
+		private final String node;
+
+		private final File oldFile;
+
+		private final File newFile;
+
+		private final BatchDiffStatistics statistics;
+
+		private final Writer summaries;
+
+		private final AtomicReference<IOException> writeError;
+
+		private final Semaphore inFlight;
+
+		NodeDiff(String node, File oldFile, File newFile, BatchDiffStatistics statistics, Writer summaries,
+				AtomicReference<IOException> writeError, Semaphore inFlight) {
+			this.node = node;
+			this.oldFile = oldFile;
+			this.newFile = newFile;
+			this.statistics = statistics;
+			this.summaries = summaries;
+			this.writeError = writeError;
+			this.inFlight = inFlight;
+		}
+
+		private String diff() throws IOException {
+			StringWriter line = new StringWriter();
+			JsonWriter json = new JsonWriter(line);
+			json.beginObject();
+			json.name("node").value(node);
+			if(oldFile == null) {
+				statistics.addedNode();
+				json.name("status").value("added");
+			}
+			else if(newFile == null) {
+				statistics.removedNode();
+				json.name("status").value("removed");
+			}
+			else {
+				CatalogDelta delta;
+				try {
+					delta = CatalogDiffer.diff(CatalogJsonSerializer.load(oldFile), CatalogJsonSerializer.load(newFile));
+				}
+				catch(Exception e) {
+					statistics.failedNode();
+					json.name("status").value("failed");
+					json.name("error").value(e.toString());
+					json.endObject();
+					json.close();
+					return line.toString();
+				}
+				statistics.record(delta);
+				writeDelta(json, delta);
+			}
+			json.endObject();
+			json.close();
+			return line.toString();
+		}
+
+		@Override
+		public void run() {
+			try {
+				String line = diff();
+				synchronized(summaries) {
+					if(writeError.get() == null) {
+						summaries.write(line);
+						summaries.write('\n');
+						summaries.flush();
+					}
+				}
+			}
+			catch(IOException e) {
+				writeError.compareAndSet(null, e);
+			}
+			finally {
+				inFlight.release();
+			}
+		}
+
+		private void writeDelta(JsonWriter json, CatalogDelta delta) throws IOException {
+			int added = 0;
+			int removed = 0;
+			int modified = 0;
+			Map<String, Integer> changedTypes = new TreeMap<String, Integer>();
+			for(ResourceDelta rd : delta.getResourceDeltas()) {
+				CatalogResource r;
+				switch(rd.getKind()) {
+					case ADDED:
+						++added;
+						r = rd.getNewResource();
+						break;
+					case REMOVED:
+						++removed;
+						r = rd.getOldResource();
+						break;
+					default:
+						++modified;
+						r = rd.getNewResource();
+				}
+				String type = String.valueOf(r.getType());
+				Integer count = changedTypes.get(type);
+				changedTypes.put(type, Integer.valueOf(count == null
+					? 1
+					: count.intValue() + 1));
+			}
+
+			json.name("status").value(delta.isEmpty()
+				? "unchanged"
+				: "changed");
+			json.name("resources_added").value(added);
+			json.name("resources_removed").value(removed);
+			json.name("resources_modified").value(modified);
+			json.name("resources_unchanged").value(delta.getUnchangedResourceCount());
+			json.name("edges_added").value(delta.getAddedEdges().size());
+			json.name("edges_removed").value(delta.getRemovedEdges().size());
+			if(!changedTypes.isEmpty()) {
+				json.name("changed_types").beginObject();
+				for(Map.Entry<String, Integer> entry : changedTypes.entrySet())
+					json.name(entry.getKey()).value(entry.getValue().intValue());
+				json.endObject();
+			}
+		}
+	}
+
+	public static final String CATALOG_SUFFIX = ".json";
+
+	private static Set<String> listNodes(File dir) throws IOException {
+		String[] names = dir.list();
+		if(names == null)
+			throw new IOException("Unable to list catalogs in " + dir.getAbsolutePath());
+		Set<String> nodes = new TreeSet<String>();
+		for(String name : names)
+			if(name.endsWith(CATALOG_SUFFIX))
+				nodes.add(name.substring(0, name.length() - CATALOG_SUFFIX.length()));
+		return nodes;
+	}
+
+	/**
+	 * Compares two directories of catalogs and writes the node summaries to <code>stdout</code> followed by the
+	 * aggregated statistics to <code>stderr</code>.
+	 *
+	 * <pre>
+	 * BatchCatalogDiffer &lt;old catalog dir&gt; &lt;new catalog dir&gt; [&lt;thread count&gt;]
+	 * </pre>
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 2 || args.length > 3) {
+			System.err.println("Usage: BatchCatalogDiffer <old catalog dir> <new catalog dir> [<thread count>]");
+			System.exit(1);
+		}
+		int threadCount = args.length == 3
+			? Integer.parseInt(args[2])
+			: Runtime.getRuntime().availableProcessors();
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charsets.UTF_8));
+		BatchDiffStatistics statistics = new BatchCatalogDiffer(threadCount).diff(new File(args[0]), new File(args[1]), out);
+		out.flush();
+		System.err.println(statistics);
+	}
+
+	private final int threadCount;
+
+	/**
+	 * @param threadCount
+	 *            The number of nodes to compare in parallel
+	 */
+	public BatchCatalogDiffer(int threadCount) {
+		if(threadCount < 1)
+			throw new IllegalArgumentException("threadCount must be at least 1");
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Compares the catalogs of all nodes that have a catalog in any of the two directories.
+	 *
+	 * @param oldDir
+	 *            The directory with the old catalogs
+	 * @param newDir
+	 *            The directory with the new catalogs
+	 * @param summaries
+	 *            Receives one line of JSON per node. The writer is flushed after each line but not closed
+	 * @return The statistics aggregated over all nodes
+	 * @throws IOException
+	 *             if a directory could not be listed or a summary could not be written
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting for the comparisons
+	 */
+	public BatchDiffStatistics diff(File oldDir, File newDir, Writer summaries) throws IOException, InterruptedException {
+		Set<String> oldNodes = listNodes(oldDir);
+		Set<String> newNodes = listNodes(newDir);
+		Set<String> allNodes = new TreeSet<String>(oldNodes);
+		allNodes.addAll(newNodes);
+
+		BatchDiffStatistics statistics = new BatchDiffStatistics();
+		AtomicReference<IOException> writeError = new AtomicReference<IOException>();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		Semaphore inFlight = new Semaphore(threadCount);
+		try {
+			for(String node : allNodes) {
+				if(writeError.get() != null)
+					break;
+				File oldFile = oldNodes.contains(node)
+					? new File(oldDir, node + CATALOG_SUFFIX)
+					: null;
+				File newFile = newNodes.contains(node)
+					? new File(newDir, node + CATALOG_SUFFIX)
+					: null;
+				inFlight.acquire();
+				executor.execute(new NodeDiff(node, oldFile, newFile, statistics, summaries, writeError, inFlight));
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		if(writeError.get() != null)
+			throw writeError.get();
+		return statistics;
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta.ParameterDelta;
+
+/**
+ * Statistics aggregated over all nodes compared by a {@link BatchCatalogDiffer}. Only counters are kept so the size
+ * of the statistics depends on the number of distinct resource types and parameters, not on the number of nodes.
+ * Instances are thread safe.
+ */
+public class BatchDiffStatistics {
+	/**
+	 * A name and the number of times it was counted
+	 */
+	public static class Count {
+		private final String name;
+
+		private final int count;
+
+		Count(String name, int count) {
+			this.name = name;
+			this.count = count;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return name + '=' + count;
+		}
+	}
+
+	private static final Comparator<Count> countComparator = new Comparator<Count>() {
+		@Override
+		public int compare(Count a, Count b) {
+			int cmp = b.count - a.count;
+			return cmp == 0
+				? a.name.compareTo(b.name)
+				: cmp;
+		}
+	};
+
+	private static void increment(ConcurrentMap<String, AtomicInteger> counts, String name) {
+		AtomicInteger count = counts.get(name);
+		if(count == null) {
+			AtomicInteger created = new AtomicInteger();
+			count = counts.putIfAbsent(name, created);
+			if(count == null)
+				count = created;
+		}
+		count.incrementAndGet();
+	}
+
+	private static List<Count> top(Map<String, AtomicInteger> counts, int max) {
+		List<Count> result = new ArrayList<Count>(counts.size());
+		for(Map.Entry<String, AtomicInteger> entry : counts.entrySet())
+			result.add(new Count(entry.getKey(), entry.getValue().get()));
+		Collections.sort(result, countComparator);
+		return result.size() > max
+			? result.subList(0, max)
+			: result;
+	}
+
+	private final AtomicInteger changedNodes = new AtomicInteger();
+
+	private final AtomicInteger unchangedNodes = new AtomicInteger();
+
+	private final AtomicInteger addedNodes = new AtomicInteger();
+
+	private final AtomicInteger removedNodes = new AtomicInteger();
+
+	private final AtomicInteger failedNodes = new AtomicInteger();
+
+	private final ConcurrentMap<String, AtomicInteger> typeCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private final ConcurrentMap<String, AtomicInteger> parameterCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+	void addedNode() {
+		addedNodes.incrementAndGet();
+	}
+
+	void failedNode() {
+		failedNodes.incrementAndGet();
+	}
+
+	/**
+	 * @return The number of nodes that only have a catalog in the new directory
+	 */
+	public int getAddedNodeCount() {
+		return addedNodes.get();
+	}
+
+	/**
+	 * @return The number of nodes where the old and new catalogs differ
+	 */
+	public int getChangedNodeCount() {
+		return changedNodes.get();
+	}
+
+	/**
+	 * @return The number of nodes where a catalog could not be read
+	 */
+	public int getFailedNodeCount() {
+		return failedNodes.get();
+	}
+
+	/**
+	 * Returns the parameters that were most frequently changed. A parameter is named <code>Type.parameter</code> and
+	 * is counted once for each modified resource where it was added, removed, or changed.
+	 *
+	 * @param max
+	 *            The maximum number of parameters to return
+	 * @return The parameters, most frequently changed first
+	 */
+	public List<Count> getMostChangedParameters(int max) {
+		return top(parameterCounts, max);
+	}
+
+	/**
+	 * Returns the resource types that were most frequently changed. A type is counted once for each resource of that
+	 * type that was added, removed, or modified.
+	 *
+	 * @param max
+	 *            The maximum number of types to return
+	 * @return The types, most frequently changed first
+	 */
+	public List<Count> getMostChangedTypes(int max) {
+		return top(typeCounts, max);
+	}
+
+	/**
+	 * @return The number of nodes that only have a catalog in the old directory
+	 */
+	public int getRemovedNodeCount() {
+		return removedNodes.get();
+	}
+
+	/**
+	 * @return The number of nodes where the old and new catalogs are equal
+	 */
+	public int getUnchangedNodeCount() {
+		return unchangedNodes.get();
+	}
+
+	void record(CatalogDelta delta) {
+		if(delta.isEmpty()) {
+			unchangedNodes.incrementAndGet();
+			return;
+		}
+		changedNodes.incrementAndGet();
+		for(ResourceDelta rd : delta.getResourceDeltas()) {
+			CatalogResource r = rd.getNewResource() == null
+				? rd.getOldResource()
+				: rd.getNewResource();
+			String type = String.valueOf(r.getType());
+			increment(typeCounts, type);
+			for(ParameterDelta pd : rd.getParameterDeltas())
+				increment(parameterCounts, type + '.' + pd.getName());
+		}
+	}
+
+	void removedNode() {
+		removedNodes.incrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder bld = new StringBuilder();
+		bld.append("changed: ").append(getChangedNodeCount());
+		bld.append(", unchanged: ").append(getUnchangedNodeCount());
+		bld.append(", added: ").append(getAddedNodeCount());
+		bld.append(", removed: ").append(getRemovedNodeCount());
+		bld.append(", failed: ").append(getFailedNodeCount());
+		bld.append("\nmost changed types: ").append(getMostChangedTypes(10));
+		bld.append("\nmost changed parameters: ").append(getMostChangedParameters(10));
+		return bld.toString();
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The difference between two catalogs as computed by the {@link CatalogDiffer}. Only the resources and edges that
+ * differ are included, everything else is reported as counts. The indexes of the compared catalogs are available so
+ * that unchanged resources can be looked up when needed.
+ */
+public class CatalogDelta {
+	private final CatalogIndex oldIndex;
+
+	private final CatalogIndex newIndex;
+
+	private final List<ResourceDelta> resourceDeltas;
+
+	private final List<ResourceEdge> addedEdges;
+
+	private final List<ResourceEdge> removedEdges;
+
+	private final int unchangedResourceCount;
+
+	private final int unchangedEdgeCount;
+
+	CatalogDelta(CatalogIndex oldIndex, CatalogIndex newIndex, List<ResourceDelta> resourceDeltas, List<ResourceEdge> addedEdges,
+			List<ResourceEdge> removedEdges, int unchangedResourceCount, int unchangedEdgeCount) {
+		this.oldIndex = oldIndex;
+		this.newIndex = newIndex;
+		this.resourceDeltas = Collections.unmodifiableList(resourceDeltas);
+		this.addedEdges = Collections.unmodifiableList(addedEdges);
+		this.removedEdges = Collections.unmodifiableList(removedEdges);
+		this.unchangedResourceCount = unchangedResourceCount;
+		this.unchangedEdgeCount = unchangedEdgeCount;
+	}
+
+	/**
+	 * @return The edges that are only present in the new catalog
+	 */
+	public List<ResourceEdge> getAddedEdges() {
+		return addedEdges;
+	}
+
+	public CatalogIndex getNewIndex() {
+		return newIndex;
+	}
+
+	public CatalogIndex getOldIndex() {
+		return oldIndex;
+	}
+
+	/**
+	 * @return The edges that are only present in the old catalog
+	 */
+	public List<ResourceEdge> getRemovedEdges() {
+		return removedEdges;
+	}
+
+	/**
+	 * @return The resources that were added, removed, or modified
+	 */
+	public List<ResourceDelta> getResourceDeltas() {
+		return resourceDeltas;
+	}
+
+	public int getUnchangedEdgeCount() {
+		return unchangedEdgeCount;
+	}
+
+	public int getUnchangedResourceCount() {
+		return unchangedResourceCount;
+	}
+
+	/**
+	 * @return <code>true</code> if the two catalogs have the same resources and edges
+	 */
+	public boolean isEmpty() {
+		return resourceDeltas.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder bld = new StringBuilder();
+		for(ResourceDelta rd : resourceDeltas)
+			bld.append(rd).append('\n');
+		for(ResourceEdge e : addedEdges)
+			bld.append("ADDED ").append(e).append('\n');
+		for(ResourceEdge e : removedEdges)
+			bld.append("REMOVED ").append(e).append('\n');
+		bld.append(unchangedResourceCount).append(" unchanged resources, ");
+		bld.append(unchangedEdgeCount).append(" unchanged edges");
+		return bld.toString();
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.puppetlabs.geppetto.catalog.Catalog;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+import com.puppetlabs.geppetto.catalog.CatalogResourceParameter;
+import com.puppetlabs.geppetto.catalog.diff.CatalogIndex.Entry;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta.ParameterDelta;
+
+/**
+ * Computes the difference between two catalogs. Resources are matched on their case insensitive
+ * <code>type[title]</code> key and are considered modified when the fingerprints of their parameters differ. The
+ * parameters of a resource are only compared one by one once it is known that the resource was modified.
+ * Relationship metaparameters are not compared as parameters but as edges.
+ */
+public class CatalogDiffer {
+	private static final List<String> TRUE = Collections.singletonList("true");
+
+	private static void addFlagDelta(String name, boolean oldFlag, boolean newFlag, List<ParameterDelta> deltas) {
+		if(oldFlag != newFlag)
+			deltas.add(new ParameterDelta(name, oldFlag
+				? TRUE
+				: null, newFlag
+				? TRUE
+				: null));
+	}
+
+	/**
+	 * Computes the difference between two catalogs.
+	 *
+	 * @param oldCatalog
+	 *            The old catalog
+	 * @param newCatalog
+	 *            The new catalog
+	 * @return The difference
+	 */
+	public static CatalogDelta diff(Catalog oldCatalog, Catalog newCatalog) {
+		return diff(CatalogIndex.create(oldCatalog), CatalogIndex.create(newCatalog));
+	}
+
+	/**
+	 * Computes the difference between two indexed catalogs. This is a linear merge of the sorted indexes.
+	 *
+	 * @param oldIndex
+	 *            The index of the old catalog
+	 * @param newIndex
+	 *            The index of the new catalog
+	 * @return The difference
+	 */
+	public static CatalogDelta diff(CatalogIndex oldIndex, CatalogIndex newIndex) {
+		List<ResourceDelta> resourceDeltas = new ArrayList<ResourceDelta>();
+		Entry[] oldEntries = oldIndex.getEntries();
+		Entry[] newEntries = newIndex.getEntries();
+		int oldIdx = 0;
+		int newIdx = 0;
+		int unchangedResources = 0;
+		while(oldIdx < oldEntries.length || newIdx < newEntries.length) {
+			int cmp = oldIdx == oldEntries.length
+				? 1
+				: newIdx == newEntries.length
+					? -1
+					: CatalogIndex.compareHashes(oldEntries[oldIdx].key, newEntries[newIdx].key);
+			if(cmp < 0)
+				resourceDeltas.add(new ResourceDelta(oldEntries[oldIdx++].resource, null, null));
+			else if(cmp > 0)
+				resourceDeltas.add(new ResourceDelta(null, newEntries[newIdx++].resource, null));
+			else {
+				Entry oldEntry = oldEntries[oldIdx++];
+				Entry newEntry = newEntries[newIdx++];
+				if(oldEntry.fingerprint == newEntry.fingerprint)
+					++unchangedResources;
+				else
+					resourceDeltas.add(new ResourceDelta(oldEntry.resource, newEntry.resource, diffParameters(
+						oldEntry.resource, newEntry.resource)));
+			}
+		}
+
+		List<ResourceEdge> addedEdges = new ArrayList<ResourceEdge>();
+		List<ResourceEdge> removedEdges = new ArrayList<ResourceEdge>();
+		ResourceEdge[] oldEdges = oldIndex.getEdges();
+		ResourceEdge[] newEdges = newIndex.getEdges();
+		oldIdx = 0;
+		newIdx = 0;
+		int unchangedEdges = 0;
+		while(oldIdx < oldEdges.length || newIdx < newEdges.length) {
+			int cmp = oldIdx == oldEdges.length
+				? 1
+				: newIdx == newEdges.length
+					? -1
+					: CatalogIndex.compareHashes(oldEdges[oldIdx].getHash(), newEdges[newIdx].getHash());
+			if(cmp < 0)
+				removedEdges.add(oldEdges[oldIdx++]);
+			else if(cmp > 0)
+				addedEdges.add(newEdges[newIdx++]);
+			else {
+				++oldIdx;
+				++newIdx;
+				++unchangedEdges;
+			}
+		}
+		return new CatalogDelta(
+			oldIndex, newIndex, resourceDeltas, addedEdges, removedEdges, unchangedResources, unchangedEdges);
+	}
+
+	/**
+	 * Compares the parameters of two versions of a resource that are known to differ
+	 */
+	private static List<ParameterDelta> diffParameters(CatalogResource oldR, CatalogResource newR) {
+		Map<String, List<String>> oldParameters = new HashMap<String, List<String>>();
+		for(CatalogResourceParameter p : oldR.getParameters())
+			if(!CatalogIndex.isRelationship(p.getName()))
+				oldParameters.put(p.getName(), p.getValue());
+
+		List<ParameterDelta> deltas = new ArrayList<ParameterDelta>();
+		for(CatalogResourceParameter p : newR.getParameters()) {
+			String name = p.getName();
+			if(CatalogIndex.isRelationship(name))
+				continue;
+			List<String> newValue = p.getValue();
+			List<String> oldValue = oldParameters.remove(name);
+			if(!newValue.equals(oldValue))
+				deltas.add(new ParameterDelta(name, oldValue, newValue));
+		}
+		for(Map.Entry<String, List<String>> removed : oldParameters.entrySet())
+			deltas.add(new ParameterDelta(removed.getKey(), removed.getValue(), null));
+		addFlagDelta("exported", oldR.isExported(), newR.isExported(), deltas);
+		addFlagDelta("virtual", oldR.isVirtual(), newR.isVirtual(), deltas);
+		return deltas;
+	}
+
+	private CatalogDiffer() {
+	}
+}
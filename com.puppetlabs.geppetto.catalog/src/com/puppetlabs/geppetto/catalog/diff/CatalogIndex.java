@@ -0,0 +1,309 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.puppetlabs.geppetto.catalog.Catalog;
+import com.puppetlabs.geppetto.catalog.CatalogEdge;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+import com.puppetlabs.geppetto.catalog.CatalogResourceParameter;
+
+/**
+ * An immutable index of the resources and edges of a catalog that is used by the {@link CatalogDiffer}. Each resource
+ * is identified by a 64 bit hash of its case insensitive <code>type[title]</code> key and carries a 64 bit
+ * fingerprint of its parameters. Each edge, including the relationships declared using metaparameters, is identified
+ * by a 64 bit hash of its endpoints and label. Both are kept in arrays sorted on the hash so that two indexes can be
+ * compared in one linear pass.
+ * <p>
+ * Resources and edges with equal hashes are considered equal. Since the hashes are 64 bits wide, the probability of a
+ * false match is negligible even for catalogs with millions of resources.
+ * </p>
+ * <p>
+ * An index can be reused for any number of comparisons, e.g. when many catalogs are compared to the same baseline.
+ * </p>
+ */
+public class CatalogIndex {
+	static class Entry {
+		final long key;
+
+		final long fingerprint;
+
+		final CatalogResource resource;
+
+		Entry(long key, long fingerprint, CatalogResource resource) {
+			this.key = key;
+			this.fingerprint = fingerprint;
+			this.resource = resource;
+		}
+	}
+
+	private static final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry a, Entry b) {
+			return compareHashes(a.key, b.key);
+		}
+	};
+
+	private static final Comparator<ResourceEdge> edgeComparator = new Comparator<ResourceEdge>() {
+		@Override
+		public int compare(ResourceEdge a, ResourceEdge b) {
+			return compareHashes(a.getHash(), b.getHash());
+		}
+	};
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final long EXPORTED_FINGERPRINT = mix(hash(hash(FNV_OFFSET_BASIS, "exported"), "true"));
+
+	private static final long VIRTUAL_FINGERPRINT = mix(hash(hash(FNV_OFFSET_BASIS, "virtual"), "true"));
+
+	static int compareHashes(long a, long b) {
+		return a < b
+			? -1
+			: a == b
+				? 0
+				: 1;
+	}
+
+	/**
+	 * Creates an index for the given catalog. The catalog must not be modified while the index is in use.
+	 *
+	 * @param catalog
+	 *            The catalog to index
+	 * @return The created index
+	 */
+	public static CatalogIndex create(Catalog catalog) {
+		return new CatalogIndex(catalog);
+	}
+
+	/**
+	 * Removes entries with equal keys from a sorted array, keeping the last of them (the sort is stable so that is the
+	 * one that was last in the catalog).
+	 */
+	private static Entry[] dedupe(Entry[] entries) {
+		int top = entries.length;
+		int count = 0;
+		for(int idx = 0; idx < top; ++idx) {
+			if(idx + 1 < top && entries[idx + 1].key == entries[idx].key)
+				continue;
+			entries[count++] = entries[idx];
+		}
+		return count == top
+			? entries
+			: Arrays.copyOf(entries, count);
+	}
+
+	private static ResourceEdge[] dedupe(ResourceEdge[] edges) {
+		int top = edges.length;
+		int count = 0;
+		for(int idx = 0; idx < top; ++idx) {
+			if(count > 0 && edges[count - 1].getHash() == edges[idx].getHash())
+				continue;
+			edges[count++] = edges[idx];
+		}
+		return count == top
+			? edges
+			: Arrays.copyOf(edges, count);
+	}
+
+	/**
+	 * Computes the fingerprint of the parameters of a resource that are not relationship metaparameters. The
+	 * fingerprint is independent of the order of the parameters but not of the order of the values of a parameter.
+	 * The <code>exported</code> and <code>virtual</code> flags are treated as parameters.
+	 */
+	static long fingerprint(CatalogResource resource) {
+		long fingerprint = 0;
+		for(CatalogResourceParameter p : resource.getParameters()) {
+			String name = p.getName();
+			if(isRelationship(name))
+				continue;
+			long h = hash(FNV_OFFSET_BASIS, name);
+			for(String value : p.getValue()) {
+				h = (h ^ 0xff) * FNV_PRIME;
+				h = hash(h, value);
+			}
+			fingerprint += mix(h);
+		}
+		if(resource.isExported())
+			fingerprint += EXPORTED_FINGERPRINT;
+		if(resource.isVirtual())
+			fingerprint += VIRTUAL_FINGERPRINT;
+		return fingerprint;
+	}
+
+	/**
+	 * FNV-1a over the UTF-16 chars of the given string. A <code>null</code> string hashes as a single separator.
+	 */
+	private static long hash(long h, String s) {
+		if(s == null)
+			return (h ^ 0xfe) * FNV_PRIME;
+		for(int idx = 0, top = s.length(); idx < top; ++idx)
+			h = (h ^ s.charAt(idx)) * FNV_PRIME;
+		return h;
+	}
+
+	static long hashEdge(String source, String target, String label) {
+		long h = hashRef(source) * 31 + hashRef(target);
+		if(label != null)
+			h = mix(hash(h, label));
+		return mix(h);
+	}
+
+	private static long hashLowerCase(long h, String s) {
+		if(s == null)
+			return (h ^ 0xfe) * FNV_PRIME;
+		for(int idx = 0, top = s.length(); idx < top; ++idx)
+			h = (h ^ Character.toLowerCase(s.charAt(idx))) * FNV_PRIME;
+		return h;
+	}
+
+	/**
+	 * Hashes a resource reference on the form <code>Type[title]</code> without regard to case
+	 */
+	static long hashRef(String ref) {
+		return mix(hashLowerCase(FNV_OFFSET_BASIS, ref));
+	}
+
+	/**
+	 * Hashes the key of a resource so that it equals the hash of a reference to the resource
+	 */
+	static long hashResource(CatalogResource resource) {
+		long h = hashLowerCase(FNV_OFFSET_BASIS, resource.getType());
+		h = (h ^ '[') * FNV_PRIME;
+		h = hashLowerCase(h, resource.getTitle());
+		h = (h ^ ']') * FNV_PRIME;
+		return mix(h);
+	}
+
+	static boolean isRelationship(String parameterName) {
+		return "before".equals(parameterName) || "subscribe".equals(parameterName) || "require".equals(parameterName) ||
+				"notify".equals(parameterName);
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, used to spread the bits of the FNV hashes
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Creates a reference on the form <code>Type[title]</code> to the given resource
+	 *
+	 * @param resource
+	 *            The resource
+	 * @return The reference
+	 */
+	public static String refOf(CatalogResource resource) {
+		return resource.getType() + '[' + resource.getTitle() + ']';
+	}
+
+	private final Catalog catalog;
+
+	private final Entry[] entries;
+
+	private final ResourceEdge[] edges;
+
+	private CatalogIndex(Catalog catalog) {
+		this.catalog = catalog;
+
+		List<CatalogResource> resources = catalog.getResources();
+		int top = resources.size();
+		Entry[] allEntries = new Entry[top];
+		List<ResourceEdge> allEdges = new ArrayList<ResourceEdge>(catalog.getEdges().size());
+		for(int idx = 0; idx < top; ++idx) {
+			CatalogResource resource = resources.get(idx);
+			allEntries[idx] = new Entry(hashResource(resource), fingerprint(resource), resource);
+
+			String source = null;
+			for(CatalogResourceParameter p : resource.getParameters()) {
+				String name = p.getName();
+				if(!isRelationship(name))
+					continue;
+				if(source == null)
+					source = refOf(resource);
+				for(String target : p.getValue())
+					allEdges.add(new ResourceEdge(source, target, name));
+			}
+		}
+		for(CatalogEdge e : catalog.getEdges())
+			allEdges.add(new ResourceEdge(e.getSource(), e.getTarget(), null));
+
+		Arrays.sort(allEntries, entryComparator);
+		entries = dedupe(allEntries);
+
+		ResourceEdge[] edgeArray = allEdges.toArray(new ResourceEdge[allEdges.size()]);
+		Arrays.sort(edgeArray, edgeComparator);
+		edges = dedupe(edgeArray);
+	}
+
+	public Catalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * @return The number of distinct edges, including relationships declared using metaparameters
+	 */
+	public int getEdgeCount() {
+		return edges.length;
+	}
+
+	ResourceEdge[] getEdges() {
+		return edges;
+	}
+
+	Entry[] getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Finds the resource that a reference on the form <code>Type[title]</code> refers to. The lookup is case
+	 * insensitive.
+	 *
+	 * @param ref
+	 *            The resource reference
+	 * @return The resource or <code>null</code> if the catalog has no such resource
+	 */
+	public CatalogResource getResource(String ref) {
+		long key = hashRef(ref);
+		int low = 0;
+		int high = entries.length - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareHashes(entries[mid].key, key);
+			if(cmp < 0)
+				low = mid + 1;
+			else if(cmp > 0)
+				high = mid - 1;
+			else
+				return entries[mid].resource;
+		}
+		return null;
+	}
+
+	/**
+	 * @return The number of distinct resources
+	 */
+	public int getResourceCount() {
+		return entries.length;
+	}
+}
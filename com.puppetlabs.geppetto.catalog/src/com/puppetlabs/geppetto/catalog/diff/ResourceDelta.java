@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+
+/**
+ * Describes how a resource differs between two catalogs.
+ */
+public class ResourceDelta {
+	public enum Kind {
+		ADDED, MODIFIED, REMOVED
+	}
+
+	/**
+	 * Describes how a parameter differs between two versions of a resource. The <code>exported</code> and
+	 * <code>virtual</code> flags are reported as parameters with the value <code>true</code>.
+	 */
+	public static class ParameterDelta {
+		private final String name;
+
+		private final List<String> oldValue;
+
+		private final List<String> newValue;
+
+		ParameterDelta(String name, List<String> oldValue, List<String> newValue) {
+			this.name = name;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return The value in the new resource or <code>null</code> if the parameter was removed
+		 */
+		public List<String> getNewValue() {
+			return newValue;
+		}
+
+		/**
+		 * @return The value in the old resource or <code>null</code> if the parameter was added
+		 */
+		public List<String> getOldValue() {
+			return oldValue;
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + oldValue + " => " + newValue;
+		}
+	}
+
+	private final CatalogResource oldResource;
+
+	private final CatalogResource newResource;
+
+	private final List<ParameterDelta> parameterDeltas;
+
+	ResourceDelta(CatalogResource oldResource, CatalogResource newResource, List<ParameterDelta> parameterDeltas) {
+		this.oldResource = oldResource;
+		this.newResource = newResource;
+		this.parameterDeltas = parameterDeltas == null
+			? Collections.<ParameterDelta> emptyList()
+			: Collections.unmodifiableList(parameterDeltas);
+	}
+
+	public Kind getKind() {
+		return oldResource == null
+			? Kind.ADDED
+			: newResource == null
+				? Kind.REMOVED
+				: Kind.MODIFIED;
+	}
+
+	/**
+	 * @return The resource in the new catalog or <code>null</code> if the resource was removed
+	 */
+	public CatalogResource getNewResource() {
+		return newResource;
+	}
+
+	/**
+	 * @return The resource in the old catalog or <code>null</code> if the resource was added
+	 */
+	public CatalogResource getOldResource() {
+		return oldResource;
+	}
+
+	/**
+	 * @return The parameters that differ. Always empty unless the kind is {@link Kind#MODIFIED}
+	 */
+	public List<ParameterDelta> getParameterDeltas() {
+		return parameterDeltas;
+	}
+
+	/**
+	 * @return A reference on the form <code>Type[title]</code> to the resource
+	 */
+	public String getRef() {
+		return CatalogIndex.refOf(newResource == null
+			? oldResource
+			: newResource);
+	}
+
+	@Override
+	public String toString() {
+		return getKind() + " " + getRef() + (parameterDeltas.isEmpty()
+			? ""
+			: " " + parameterDeltas);
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.diff;
+
+/**
+ * An edge between two resources of a catalog. The edge is either one of the edges listed in the catalog, or a
+ * relationship declared by one of the metaparameters <code>before</code>, <code>notify</code>, <code>require</code>
+ * or <code>subscribe</code>. The endpoints are resource references on the form <code>Type[title]</code>.
+ * <p>
+ * Two edges are equal when their labels are equal and their endpoints are equal when compared without regard to case.
+ * </p>
+ */
+public class ResourceEdge {
+	private final String source;
+
+	private final String target;
+
+	private final String label;
+
+	private final long hash;
+
+	ResourceEdge(String source, String target, String label) {
+		this.source = source;
+		this.target = target;
+		this.label = label;
+		this.hash = CatalogIndex.hashEdge(source, target, label);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+		if(!(o instanceof ResourceEdge))
+			return false;
+		ResourceEdge e = (ResourceEdge) o;
+		return hash == e.hash && source.equalsIgnoreCase(e.source) && target.equalsIgnoreCase(e.target) && (label == null
+			? e.label == null
+			: label.equals(e.label));
+	}
+
+	long getHash() {
+		return hash;
+	}
+
+	/**
+	 * @return The name of the relationship metaparameter or <code>null</code> if this edge is one of the catalog edges
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return A reference to the source resource
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * @return A reference to the target resource
+	 */
+	public String getTarget() {
+		return target;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * @return <code>true</code> if this edge stems from a relationship metaparameter
+	 */
+	public boolean isRelationship() {
+		return label != null;
+	}
+
+	@Override
+	public String toString() {
+		return label == null
+			? source + " -> " + target
+			: source + " -" + label + "-> " + target;
+	}
+}
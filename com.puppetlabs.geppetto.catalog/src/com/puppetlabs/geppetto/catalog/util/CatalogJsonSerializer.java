@@ -12,15 +12,18 @@ package com.puppetlabs.geppetto.catalog.util;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.eclipse.emf.common.util.EList;
 
+import com.google.common.base.Charsets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -32,6 +35,8 @@ import com.google.gson.JsonSerializer;
 import com.google.gson.reflect.TypeToken;
 import com.puppetlabs.geppetto.catalog.Catalog;
 import com.puppetlabs.geppetto.catalog.CatalogEdge;
+import com.puppetlabs.geppetto.catalog.CatalogFactory;
+import com.puppetlabs.geppetto.catalog.CatalogMetadata;
 import com.puppetlabs.geppetto.catalog.CatalogResource;
 import com.puppetlabs.geppetto.catalog.CatalogResourceParameter;
 import com.puppetlabs.geppetto.catalog.impl.CatalogEdgeImpl;
@@ -67,50 +72,139 @@ public class CatalogJsonSerializer {
 		}
 	}
 
+	/**
+	 * Adds everything it visits to a catalog
+	 */
+	private static class CatalogBuilder extends CatalogVisitor {
+		private final Catalog catalog = CatalogFactory.eINSTANCE.createCatalog();
+
+		private final Set<String> resourceTypes;
+
+		CatalogBuilder(Set<String> resourceTypes) {
+			this.resourceTypes = resourceTypes;
+		}
+
+		@Override
+		public void visitClass(String name) {
+			catalog.getClasses().add(name);
+		}
+
+		@Override
+		public void visitEdge(CatalogEdge edge) {
+			catalog.getEdges().add(edge);
+		}
+
+		@Override
+		public void visitMetadata(CatalogMetadata metadata) {
+			catalog.setMetadata(metadata);
+		}
+
+		@Override
+		public void visitName(String name) {
+			catalog.setName(name);
+		}
+
+		@Override
+		public void visitResource(CatalogResource resource) {
+			catalog.getResources().add(resource);
+		}
+
+		@Override
+		public boolean visitResourceType(String type) {
+			return resourceTypes == null || resourceTypes.contains(type);
+		}
+
+		@Override
+		public void visitTag(String tag) {
+			catalog.getTags().add(tag);
+		}
+
+		@Override
+		public void visitVersion(String version) {
+			catalog.setVersion(version);
+		}
+	}
+
+	/**
+	 * Returns the Gson instance used when serializing the catalog model. The instance is shared and thread safe.
+	 */
 	public static Gson getGSon() {
-		return gsonBuilder.create();
+		return gson;
 	}
 
 	/**
 	 * Loads a Catalog model from a catalog JSON file.
 	 */
 	public static Catalog load(File jsonFile) throws IOException {
-		Reader reader = new BufferedReader(new FileReader(jsonFile));
-		try {
-			Gson gson = getGSon();
-			CatalogImpl md = gson.fromJson(reader, CatalogImpl.class);
-			return md;
-		}
-		finally {
-			StreamUtil.close(reader);
-		}
+		return load(jsonFile, null);
+	}
+
+	/**
+	 * Loads a Catalog model from a catalog JSON file. Only resources of the given types are included.
+	 *
+	 * @param jsonFile
+	 *            The UTF-8 encoded catalog file
+	 * @param resourceTypes
+	 *            The resource types to include or <code>null</code> to include all resources
+	 */
+	public static Catalog load(File jsonFile, Set<String> resourceTypes) throws IOException {
+		CatalogBuilder builder = new CatalogBuilder(resourceTypes);
+		visit(jsonFile, builder);
+		return builder.catalog;
 	}
 
 	/**
 	 * Loads a Catalog model from a catalog JSON input stream.
 	 */
 	public static Catalog load(InputStream jsonStream) throws IOException {
-		Reader reader = new BufferedReader(new InputStreamReader(jsonStream));
-		try {
-			Gson gson = getGSon();
-			CatalogImpl md = gson.fromJson(reader, CatalogImpl.class);
-			return md;
-		}
-		finally {
-			StreamUtil.close(reader);
-		}
+		CatalogBuilder builder = new CatalogBuilder(null);
+		visit(jsonStream, builder);
+		return builder.catalog;
 	}
 
 	/**
 	 * Loads a Catalog model from a catalog JSON string.
 	 */
 	public static Catalog load(String jsonString) throws IOException {
-		Gson gson = getGSon();
-		CatalogImpl md = gson.fromJson(jsonString, CatalogImpl.class);
-		return md;
+		CatalogBuilder builder = new CatalogBuilder(null);
+		new CatalogStreamReader().read(new StringReader(jsonString), builder);
+		return builder.catalog;
+	}
+
+	/**
+	 * Streams a catalog JSON file to a visitor without building a Catalog model.
+	 *
+	 * @param jsonFile
+	 *            The UTF-8 encoded catalog file
+	 * @param visitor
+	 *            The visitor that receives the parts of the catalog
+	 * @see CatalogStreamReader
+	 */
+	public static void visit(File jsonFile, CatalogVisitor visitor) throws IOException {
+		visit(new FileInputStream(jsonFile), visitor);
+	}
+
+	/**
+	 * Streams a catalog JSON input stream to a visitor without building a Catalog model. The stream is closed when
+	 * this method returns.
+	 *
+	 * @param jsonStream
+	 *            The UTF-8 encoded catalog stream
+	 * @param visitor
+	 *            The visitor that receives the parts of the catalog
+	 * @see CatalogStreamReader
+	 */
+	public static void visit(InputStream jsonStream, CatalogVisitor visitor) throws IOException {
+		Reader reader = new BufferedReader(new InputStreamReader(jsonStream, Charsets.UTF_8));
+		try {
+			new CatalogStreamReader().read(reader, visitor);
+		}
+		finally {
+			StreamUtil.close(reader);
+		}
 	}
 
-	private static final GsonBuilder gsonBuilder;
+	private static final Gson gson;
 
 	static {
 		GsonBuilder bld = new GsonBuilder();
@@ -147,6 +241,6 @@ public class CatalogJsonSerializer {
 		bld.registerTypeAdapter(new TypeToken<EList<CatalogResourceParameter>>() {
 		}.getType(), new EListSerializer<CatalogResourceParameter>());
 
-		gsonBuilder = bld;
+		gson = bld.create();
 	}
 }
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.puppetlabs.geppetto.catalog.CatalogEdge;
+import com.puppetlabs.geppetto.catalog.CatalogFactory;
+import com.puppetlabs.geppetto.catalog.CatalogMetadata;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+import com.puppetlabs.geppetto.catalog.CatalogResourceParameter;
+
+/**
+ * Reads a catalog JSON document token by token and passes its parts to a {@link CatalogVisitor}. No JSON tree is
+ * created and only one resource at a time is held in memory (unless the visitor keeps them).
+ * <p>
+ * Strings that are repeated throughout a catalog, i.e. resource types, file paths, tags, class names, parameter names
+ * and edge endpoints, are interned in a map owned by the reader. Reading several catalogs with the same reader
+ * therefore lets the catalogs share those strings. The reader is not thread safe.
+ * </p>
+ * <p>
+ * Strings are converted the same way as the Gson adapters of the catalog model does it, i.e. empty strings become
+ * <code>null</code>, a <code>null</code> parameter value becomes <code>"(null)"</code> and a parameter value that is
+ * a hash becomes <code>"DATA"</code>.
+ * </p>
+ */
+public class CatalogStreamReader {
+	private final Map<String, String> strings = new HashMap<String, String>();
+
+	private String intern(String value) {
+		if(value == null)
+			return null;
+		String interned = strings.get(value);
+		if(interned == null) {
+			strings.put(value, value);
+			interned = value;
+		}
+		return interned;
+	}
+
+	/**
+	 * Reads a catalog from the given reader. The reader is not closed.
+	 *
+	 * @param reader
+	 *            The reader to read the JSON document from
+	 * @param visitor
+	 *            The visitor that receives the parts of the catalog
+	 * @throws IOException
+	 *             if the document could not be read or is not valid JSON
+	 * @throws IllegalArgumentException
+	 *             if the document is not of 'Catalog' type
+	 * @throws IllegalStateException
+	 *             if the document 'data' is not an object or if some other element has an unexpected JSON type
+	 */
+	public void read(Reader reader, CatalogVisitor visitor) throws IOException {
+		JsonReader json = new JsonReader(reader);
+		json.setLenient(true);
+		String documentType = null;
+		json.beginObject();
+		while(json.hasNext()) {
+			String key = json.nextName();
+			if("document_type".equals(key))
+				documentType = readString(json);
+			else if("metadata".equals(key))
+				readMetadata(json, visitor);
+			else if("data".equals(key))
+				readData(json, visitor);
+			else
+				json.skipValue();
+		}
+		json.endObject();
+
+		if(!"Catalog".equals(documentType))
+			throw new IllegalArgumentException("JSON document must be of 'Catalog' type");
+	}
+
+	private boolean readBoolean(JsonReader json) throws IOException {
+		switch(json.peek()) {
+			case BOOLEAN:
+				return json.nextBoolean();
+			case NULL:
+				json.nextNull();
+				return false;
+			default:
+				return Boolean.parseBoolean(json.nextString());
+		}
+	}
+
+	private void readData(JsonReader json, CatalogVisitor visitor) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return;
+		}
+		if(json.peek() != JsonToken.BEGIN_OBJECT)
+			throw new IllegalStateException("Document 'data' is not a single object");
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String key = json.nextName();
+			if("name".equals(key))
+				visitor.visitName(readString(json));
+			else if("version".equals(key))
+				visitor.visitVersion(readString(json));
+			else if("tags".equals(key)) {
+				json.beginArray();
+				while(json.hasNext())
+					visitor.visitTag(intern(readValue(json)));
+				json.endArray();
+			}
+			else if("classes".equals(key)) {
+				json.beginArray();
+				while(json.hasNext())
+					visitor.visitClass(intern(readValue(json)));
+				json.endArray();
+			}
+			else if("resources".equals(key)) {
+				json.beginArray();
+				while(json.hasNext())
+					readResource(json, visitor);
+				json.endArray();
+			}
+			else if("edges".equals(key)) {
+				json.beginArray();
+				while(json.hasNext())
+					visitor.visitEdge(readEdge(json));
+				json.endArray();
+			}
+			else
+				json.skipValue();
+		}
+		json.endObject();
+	}
+
+	private CatalogEdge readEdge(JsonReader json) throws IOException {
+		CatalogEdge edge = CatalogFactory.eINSTANCE.createCatalogEdge();
+		json.beginObject();
+		while(json.hasNext()) {
+			String key = json.nextName();
+			if("source".equals(key))
+				edge.setSource(intern(readString(json)));
+			else if("target".equals(key))
+				edge.setTarget(intern(readString(json)));
+			else
+				json.skipValue();
+		}
+		json.endObject();
+		return edge;
+	}
+
+	private void readMetadata(JsonReader json, CatalogVisitor visitor) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return;
+		}
+		CatalogMetadata metadata = CatalogFactory.eINSTANCE.createCatalogMetadata();
+		json.beginObject();
+		while(json.hasNext()) {
+			if("api_version".equals(json.nextName()))
+				metadata.setApi_version(readString(json));
+			else
+				json.skipValue();
+		}
+		json.endObject();
+		visitor.visitMetadata(metadata);
+	}
+
+	private void readParameters(JsonReader json, EList<CatalogResourceParameter> parameters) throws IOException {
+		json.beginObject();
+		while(json.hasNext()) {
+			CatalogResourceParameter rp = CatalogFactory.eINSTANCE.createCatalogResourceParameter();
+			rp.setName(intern(json.nextName()));
+			EList<String> values = rp.getValue();
+			switch(json.peek()) {
+				case BEGIN_ARRAY:
+					json.beginArray();
+					while(json.hasNext())
+						values.add(readValue(json));
+					json.endArray();
+					break;
+				case NULL:
+					json.nextNull();
+					values.add("(null)");
+					break;
+				case BEGIN_OBJECT:
+					json.skipValue();
+					values.add("DATA"); // don't know how to deserialize in this case, could be anything
+					break;
+				default:
+					values.add(readValue(json));
+			}
+			parameters.add(rp);
+		}
+		json.endObject();
+	}
+
+	private void readResource(JsonReader json, CatalogVisitor visitor) throws IOException {
+		CatalogResource resource = CatalogFactory.eINSTANCE.createCatalogResource();
+		boolean typeSeen = false;
+		boolean wanted = true;
+		json.beginObject();
+		while(json.hasNext()) {
+			String key = json.nextName();
+			if(!wanted) {
+				json.skipValue();
+				continue;
+			}
+			if("type".equals(key)) {
+				String type = intern(readString(json));
+				resource.setType(type);
+				typeSeen = true;
+				wanted = visitor.visitResourceType(type);
+			}
+			else if("title".equals(key))
+				resource.setTitle(readString(json));
+			else if("file".equals(key))
+				resource.setFile(intern(readString(json)));
+			else if("line".equals(key))
+				resource.setLine(readString(json));
+			else if("exported".equals(key))
+				resource.setExported(readBoolean(json));
+			else if("virtual".equals(key))
+				resource.setVirtual(readBoolean(json));
+			else if("tags".equals(key)) {
+				EList<String> tags = resource.getTags();
+				json.beginArray();
+				while(json.hasNext())
+					tags.add(intern(readValue(json)));
+				json.endArray();
+			}
+			else if("parameters".equals(key))
+				readParameters(json, resource.getParameters());
+			else
+				json.skipValue();
+		}
+		json.endObject();
+
+		if(!typeSeen)
+			wanted = visitor.visitResourceType(null);
+		if(wanted)
+			visitor.visitResource(resource);
+	}
+
+	/**
+	 * Reads a scalar where empty strings are converted to <code>null</code>
+	 */
+	private String readString(JsonReader json) throws IOException {
+		String value = readValue(json);
+		return value == null || value.length() == 0
+			? null
+			: value;
+	}
+
+	/**
+	 * Reads a scalar as a string. Hashes and arrays are skipped and returned as <code>"DATA"</code>.
+	 */
+	private String readValue(JsonReader json) throws IOException {
+		switch(json.peek()) {
+			case NULL:
+				json.nextNull();
+				return null;
+			case BOOLEAN:
+				return Boolean.toString(json.nextBoolean());
+			case BEGIN_OBJECT:
+			case BEGIN_ARRAY:
+				json.skipValue();
+				return "DATA";
+			default:
+				return json.nextString();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.catalog.util;
+
+import com.puppetlabs.geppetto.catalog.CatalogEdge;
+import com.puppetlabs.geppetto.catalog.CatalogMetadata;
+import com.puppetlabs.geppetto.catalog.CatalogResource;
+
+/**
+ * Receives the parts of a catalog from a {@link CatalogStreamReader} in the order that they appear in the JSON
+ * document. The resources and edges passed to the visitor are not contained in a catalog, so a visitor that does not
+ * keep them allows them to be garbage collected as soon as the visit method returns.
+ * <p>
+ * All methods have empty default implementations.
+ * </p>
+ */
+public abstract class CatalogVisitor {
+	/**
+	 * Called for each name in the <code>classes</code> array of the catalog
+	 *
+	 * @param name
+	 *            The class name
+	 */
+	public void visitClass(String name) {
+	}
+
+	/**
+	 * Called for each edge of the catalog
+	 *
+	 * @param edge
+	 *            The edge
+	 */
+	public void visitEdge(CatalogEdge edge) {
+	}
+
+	/**
+	 * Called when the catalog metadata has been read
+	 *
+	 * @param metadata
+	 *            The metadata
+	 */
+	public void visitMetadata(CatalogMetadata metadata) {
+	}
+
+	/**
+	 * Called when the name of the catalog has been read
+	 *
+	 * @param name
+	 *            The name or <code>null</code> if the name is empty
+	 */
+	public void visitName(String name) {
+	}
+
+	/**
+	 * Called for each resource that has a type accepted by {@link #visitResourceType(String)}
+	 *
+	 * @param resource
+	 *            The resource
+	 */
+	public void visitResource(CatalogResource resource) {
+	}
+
+	/**
+	 * Called as soon as the type of a resource is known. When this method returns <code>false</code>, the remaining
+	 * properties of the resource are skipped without being converted and the resource is not passed to
+	 * {@link #visitResource(CatalogResource)}.
+	 *
+	 * @param type
+	 *            The resource type or <code>null</code> if the resource has an empty type
+	 * @return <code>true</code> if resources of the given type should be visited. The default is <code>true</code>
+	 */
+	public boolean visitResourceType(String type) {
+		return true;
+	}
+
+	/**
+	 * Called for each tag of the catalog
+	 *
+	 * @param tag
+	 *            The tag
+	 */
+	public void visitTag(String tag) {
+	}
+
+	/**
+	 * Called when the version of the catalog has been read
+	 *
+	 * @param version
+	 *            The version or <code>null</code> if the version is empty
+	 */
+	public void visitVersion(String version) {
+	}
+}
@@ -0,0 +1,17 @@
+package com.puppetlabs.geppetto.common.tracer.tests;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * All Tracer Tests.
+ */
+@SuiteClasses({
+// @fmtOff
+	DefaultMetricsTest.class
+	// @fmtOn
+})
+@RunWith(Suite.class)
+public class AllTests {
+}
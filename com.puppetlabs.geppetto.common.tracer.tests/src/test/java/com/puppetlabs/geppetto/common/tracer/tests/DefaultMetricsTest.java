@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.puppetlabs.geppetto.common.tracer.DefaultMetrics;
+import com.puppetlabs.geppetto.common.tracer.ICounter;
+import com.puppetlabs.geppetto.common.tracer.IHistogram;
+import com.puppetlabs.geppetto.common.tracer.ITimer;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary.Entry;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary.Kind;
+import com.puppetlabs.geppetto.common.tracer.NullMetrics;
+
+/**
+ * Unit tests for DefaultMetrics and NullMetrics.
+ */
+public class DefaultMetricsTest {
+	private static void assertEntry(Entry entry, Kind kind, long count, long total, long min, long max, long p50, long p90, long p99) {
+		assertEquals("kind", kind, entry.getKind());
+		assertEquals("count", count, entry.getCount());
+		assertEquals("total", total, entry.getTotal());
+		assertEquals("min", min, entry.getMin());
+		assertEquals("max", max, entry.getMax());
+		assertEquals("p50", p50, entry.getP50());
+		assertEquals("p90", p90, entry.getP90());
+		assertEquals("p99", p99, entry.getP99());
+	}
+
+	@Test
+	public void concurrentRecording() throws Exception {
+		DefaultMetrics metrics = new DefaultMetrics();
+		final ICounter counter = metrics.getCounter("counter");
+		final IHistogram histogram = metrics.getHistogram("histogram");
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; ++t) {
+			final int offset = t * 1000;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for(int idx = 1; idx <= 1000; ++idx) {
+						counter.increment();
+						histogram.record(offset + idx);
+					}
+				}
+			});
+		}
+		for(Thread thread : threads)
+			thread.start();
+		for(Thread thread : threads)
+			thread.join();
+
+		MetricsSummary summary = metrics.getSummary();
+		assertEquals(4000, summary.getEntry("counter").getTotal());
+		Entry entry = summary.getEntry("histogram");
+		assertEquals(4000, entry.getCount());
+		assertEquals(4000L * 4001 / 2, entry.getTotal());
+		assertEquals(1, entry.getMin());
+		assertEquals(4000, entry.getMax());
+	}
+
+	@Test
+	public void counter() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		ICounter counter = metrics.getCounter("counter");
+		assertSame("The same name should give the same counter", counter, metrics.getCounter("counter"));
+		counter.increment();
+		counter.increment();
+		counter.add(40);
+		assertEntry(metrics.getSummary().getEntry("counter"), Kind.COUNTER, 42, 42, 0, 0, 0, 0, 0);
+	}
+
+	@Test
+	public void emptyHistogram() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		metrics.getHistogram("histogram");
+		assertEntry(metrics.getSummary().getEntry("histogram"), Kind.HISTOGRAM, 0, 0, 0, 0, 0, 0, 0);
+		assertEquals(0.0, metrics.getSummary().getEntry("histogram").getMean(), 0.0);
+	}
+
+	@Test
+	public void histogram() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		IHistogram histogram = metrics.getHistogram("histogram");
+		for(int value = 1; value <= 100; ++value)
+			histogram.record(value);
+
+		// The percentiles are the upper bounds of the power of two buckets, limited by the maximum
+		Entry entry = metrics.getSummary().getEntry("histogram");
+		assertEntry(entry, Kind.HISTOGRAM, 100, 5050, 1, 100, 63, 100, 100);
+		assertEquals(50.5, entry.getMean(), 0.0);
+	}
+
+	@Test
+	public void histogramOfZeroAndNegativeValues() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		IHistogram histogram = metrics.getHistogram("histogram");
+		histogram.record(0);
+		histogram.record(-5);
+		histogram.record(0);
+		histogram.record(1000);
+
+		// Negative values are recorded as zero
+		assertEntry(metrics.getSummary().getEntry("histogram"), Kind.HISTOGRAM, 4, 1000, 0, 1000, 0, 1000, 1000);
+	}
+
+	@Test
+	public void nullMetrics() {
+		NullMetrics metrics = NullMetrics.INSTANCE;
+		metrics.getCounter("counter").increment();
+		metrics.getHistogram("histogram").record(10);
+		ITimer timer = metrics.getTimer("timer");
+		timer.stop(timer.start());
+		assertFalse(metrics.isEnabled());
+		assertTrue(metrics.getSummary().isEmpty());
+	}
+
+	@Test
+	public void percentiles() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		IHistogram histogram = metrics.getHistogram("histogram");
+		for(int idx = 0; idx < 90; ++idx)
+			histogram.record(10);
+		for(int idx = 0; idx < 9; ++idx)
+			histogram.record(100);
+		histogram.record(5000);
+
+		// 10 is in [8, 16), 100 is in [64, 128) and 5000 is the maximum
+		assertEntry(metrics.getSummary().getEntry("histogram"), Kind.HISTOGRAM, 100, 90 * 10 + 9 * 100 + 5000, 10, 5000, 15, 15,
+			127);
+	}
+
+	@Test
+	public void reset() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		ICounter counter = metrics.getCounter("counter");
+		IHistogram histogram = metrics.getHistogram("histogram");
+		ITimer timer = metrics.getTimer("timer");
+		counter.add(5);
+		histogram.record(500);
+		timer.stop(timer.start());
+
+		metrics.reset();
+		MetricsSummary summary = metrics.getSummary();
+		assertEquals("Instruments should remain after a reset", 3, summary.getEntries().size());
+		assertEntry(summary.getEntry("counter"), Kind.COUNTER, 0, 0, 0, 0, 0, 0, 0);
+		assertEntry(summary.getEntry("histogram"), Kind.HISTOGRAM, 0, 0, 0, 0, 0, 0, 0);
+		assertEntry(summary.getEntry("timer"), Kind.TIMER, 0, 0, 0, 0, 0, 0, 0);
+
+		// Instruments obtained before the reset keep recording into the metrics
+		counter.increment();
+		histogram.record(3);
+		summary = metrics.getSummary();
+		assertEntry(summary.getEntry("counter"), Kind.COUNTER, 1, 1, 0, 0, 0, 0, 0);
+		assertEntry(summary.getEntry("histogram"), Kind.HISTOGRAM, 1, 3, 3, 3, 3, 3, 3);
+	}
+
+	@Test
+	public void summary() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		metrics.getTimer("c");
+		metrics.getCounter("a");
+		metrics.getHistogram("b");
+		MetricsSummary summary = metrics.getSummary();
+		List<String> names = new ArrayList<String>();
+		for(Entry entry : summary.getEntries())
+			names.add(entry.getName());
+		assertEquals("Entries should be sorted on name", "[a, b, c]", names.toString());
+		assertNull(summary.getEntry("d"));
+		assertEquals(3, summary.toString().split("\n").length);
+		assertTrue(new DefaultMetrics().getSummary().isEmpty());
+	}
+
+	@Test
+	public void timer() throws Exception {
+		DefaultMetrics metrics = new DefaultMetrics();
+		ITimer timer = metrics.getTimer("timer");
+		assertSame("The same name should give the same timer", timer, metrics.getTimer("timer"));
+		long start = timer.start();
+		Thread.sleep(5);
+		timer.stop(start);
+		timer.stop(timer.start());
+
+		Entry entry = metrics.getSummary().getEntry("timer");
+		assertEquals(Kind.TIMER, entry.getKind());
+		assertEquals(2, entry.getCount());
+		assertTrue("The sleep should be timed in nanoseconds", entry.getMax() >= 5000000);
+		assertTrue(entry.getMin() <= entry.getMax());
+		assertEquals(entry.getMax(), entry.getP99());
+		assertTrue(entry.getTotal() >= entry.getMax());
+	}
+
+	@Test
+	public void typeMismatch() {
+		DefaultMetrics metrics = new DefaultMetrics();
+		metrics.getCounter("name");
+		try {
+			metrics.getTimer("name");
+			fail("A counter should not be returned as a timer");
+		}
+		catch(IllegalArgumentException e) {
+		}
+	}
+}
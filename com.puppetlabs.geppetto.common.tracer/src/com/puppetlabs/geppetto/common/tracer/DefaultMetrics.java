@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.inject.Singleton;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary.Entry;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary.Kind;
+
+/**
+ * Thread safe metrics that keep all instruments in memory. Histograms and timers use one bucket per power of two so
+ * recording a value never allocates.
+ */
+@Singleton
+public class DefaultMetrics implements IMetrics {
+	private static class Counter implements ICounter {
+		private final AtomicLong value = new AtomicLong();
+
+		@Override
+		public void add(long delta) {
+			value.addAndGet(delta);
+		}
+
+		@Override
+		public void increment() {
+			value.incrementAndGet();
+		}
+
+		void reset() {
+			value.set(0);
+		}
+
+		Entry snapshot(String name) {
+			long v = value.get();
+			return new Entry(name, Kind.COUNTER, v, v, 0, 0, 0, 0, 0);
+		}
+	}
+
+	private static class Histogram implements IHistogram {
+		/**
+		 * Bucket zero holds the value zero and bucket <code>n</code> holds values in the range
+		 * <code>[2<sup>n-1</sup>, 2<sup>n</sup>)</code>
+		 */
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+		private final AtomicLong total = new AtomicLong();
+
+		private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+		private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+		private long percentile(long[] counts, long n, int percent, long maxValue) {
+			long rank = (n * percent + 99) / 100;
+			long seen = 0;
+			for(int idx = 0; idx < counts.length; ++idx) {
+				seen += counts[idx];
+				if(seen >= rank)
+					return Math.min(idx == 0
+						? 0
+						: (1L << idx) - 1, maxValue);
+			}
+			return maxValue;
+		}
+
+		@Override
+		public void record(long value) {
+			if(value < 0)
+				value = 0;
+			buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+			total.addAndGet(value);
+
+			long current;
+			while(value < (current = min.get()))
+				if(min.compareAndSet(current, value))
+					break;
+			while(value > (current = max.get()))
+				if(max.compareAndSet(current, value))
+					break;
+		}
+
+		void reset() {
+			for(int idx = 0; idx < buckets.length(); ++idx)
+				buckets.set(idx, 0);
+			total.set(0);
+			min.set(Long.MAX_VALUE);
+			max.set(Long.MIN_VALUE);
+		}
+
+		Entry snapshot(String name, Kind kind) {
+			long[] counts = new long[buckets.length()];
+			long n = 0;
+			for(int idx = 0; idx < counts.length; ++idx)
+				n += counts[idx] = buckets.get(idx);
+			if(n == 0)
+				return new Entry(name, kind, 0, 0, 0, 0, 0, 0, 0);
+
+			long maxValue = max.get();
+			return new Entry(name, kind, n, total.get(), min.get(), maxValue, percentile(counts, n, 50, maxValue), percentile(
+				counts, n, 90, maxValue), percentile(counts, n, 99, maxValue));
+		}
+	}
+
+	private static class Timer implements ITimer {
+		private final Histogram histogram = new Histogram();
+
+		@Override
+		public long start() {
+			return System.nanoTime();
+		}
+
+		@Override
+		public void stop(long start) {
+			histogram.record(System.nanoTime() - start);
+		}
+	}
+
+	private final ConcurrentMap<String, Object> instruments = new ConcurrentHashMap<String, Object>();
+
+	@Override
+	public ICounter getCounter(String name) {
+		return getInstrument(name, Counter.class);
+	}
+
+	@Override
+	public IHistogram getHistogram(String name) {
+		return getInstrument(name, Histogram.class);
+	}
+
+	private <T> T getInstrument(String name, Class<T> type) {
+		Object instrument = instruments.get(name);
+		if(instrument == null) {
+			Object created;
+			if(type == Counter.class)
+				created = new Counter();
+			else if(type == Histogram.class)
+				created = new Histogram();
+			else
+				created = new Timer();
+			instrument = instruments.putIfAbsent(name, created);
+			if(instrument == null)
+				instrument = created;
+		}
+		if(!type.isInstance(instrument))
+			throw new IllegalArgumentException("The metric '" + name + "' is not a " + type.getSimpleName().toLowerCase());
+		return type.cast(instrument);
+	}
+
+	@Override
+	public MetricsSummary getSummary() {
+		List<Entry> entries = new ArrayList<Entry>(instruments.size());
+		for(Map.Entry<String, Object> instrument : instruments.entrySet()) {
+			String name = instrument.getKey();
+			Object value = instrument.getValue();
+			if(value instanceof Counter)
+				entries.add(((Counter) value).snapshot(name));
+			else if(value instanceof Histogram)
+				entries.add(((Histogram) value).snapshot(name, Kind.HISTOGRAM));
+			else
+				entries.add(((Timer) value).histogram.snapshot(name, Kind.TIMER));
+		}
+		return new MetricsSummary(entries);
+	}
+
+	@Override
+	public ITimer getTimer(String name) {
+		return getInstrument(name, Timer.class);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void reset() {
+		for(Object instrument : instruments.values()) {
+			if(instrument instanceof Counter)
+				((Counter) instrument).reset();
+			else if(instrument instanceof Histogram)
+				((Histogram) instrument).reset();
+			else
+				((Timer) instrument).histogram.reset();
+		}
+	}
+}
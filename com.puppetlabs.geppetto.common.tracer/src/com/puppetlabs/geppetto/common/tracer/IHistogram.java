@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+/**
+ * A named distribution of values obtained from {@link IMetrics}.
+ */
+public interface IHistogram {
+	/**
+	 * Records one value. Negative values are recorded as zero.
+	 *
+	 * @param value
+	 *            The value to record
+	 */
+	public void record(long value);
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+/**
+ * Interface for collecting metrics on hot paths. Instruments should be obtained once, typically when the instrumented
+ * object is injected, and then kept in a field so that no lookup is made on the hot path.
+ * <p>
+ * The {@link NullMetrics} implementation is used unless metrics have been requested. Its instruments do nothing and
+ * allocate nothing.
+ * </p>
+ */
+public interface IMetrics {
+
+	public ICounter getCounter(String name);
+
+	public IHistogram getHistogram(String name);
+
+	/**
+	 * @return A summary of all instruments that have been obtained from this instance
+	 */
+	public MetricsSummary getSummary();
+
+	public ITimer getTimer(String name);
+
+	/**
+	 * @return <code>true</code> if the instruments obtained from this instance record anything
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Discards everything recorded so far. Instruments that have been obtained remain valid and continue to record
+	 * into this instance. Values that are recorded while the reset is in progress may be lost.
+	 */
+	public void reset();
+}
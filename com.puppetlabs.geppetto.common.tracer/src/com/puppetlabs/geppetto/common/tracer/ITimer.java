@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+/**
+ * A named latency histogram obtained from {@link IMetrics}. A timer is used like this:
+ *
+ * <pre>
+ * long start = timer.start();
+ * try {
+ * 	...
+ * }
+ * finally {
+ * 	timer.stop(start);
+ * }
+ * </pre>
+ */
+public interface ITimer {
+	/**
+	 * @return The value to pass to {@link #stop(long)}
+	 */
+	public long start();
+
+	/**
+	 * Records the time elapsed since the call to {@link #start()} that returned <code>start</code>.
+	 *
+	 * @param start
+	 *            The value returned by {@link #start()}
+	 */
+	public void stop(long start);
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the instruments of an {@link IMetrics} instance. The entries are sorted on name.
+ */
+public class MetricsSummary {
+	/**
+	 * The recorded state of one instrument. Timer values are in nanoseconds. The percentiles are estimates that never
+	 * are less than the actual percentile and never exceed the maximum.
+	 */
+	public static class Entry {
+		private final String name;
+
+		private final Kind kind;
+
+		private final long count;
+
+		private final long total;
+
+		private final long min;
+
+		private final long max;
+
+		private final long p50;
+
+		private final long p90;
+
+		private final long p99;
+
+		public Entry(String name, Kind kind, long count, long total, long min, long max, long p50, long p90, long p99) {
+			this.name = name;
+			this.kind = kind;
+			this.count = count;
+			this.total = total;
+			this.min = min;
+			this.max = max;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+		}
+
+		private void append(StringBuilder bld) {
+			if(kind == Kind.COUNTER) {
+				bld.append(String.format("%-40s %-9s %12d", name, kind.label, count));
+				return;
+			}
+			double scale = kind == Kind.TIMER
+				? 1000000.0
+				: 1.0;
+			String unit = kind == Kind.TIMER
+				? " ms"
+				: "";
+			bld.append(String.format(
+				"%-40s %-9s %12d total=%.1f%s mean=%.3f%s p50=%.3f%s p90=%.3f%s p99=%.3f%s max=%.3f%s", name, kind.label, count,
+				total / scale, unit, getMean() / scale, unit, p50 / scale, unit, p90 / scale, unit, p99 / scale, unit, max / scale, unit));
+		}
+
+		/**
+		 * @return The number of increments of a counter, or the number of recorded values
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return count == 0
+				? 0.0
+				: (double) total / count;
+		}
+
+		public long getMin() {
+			return min;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getP50() {
+			return p50;
+		}
+
+		public long getP90() {
+			return p90;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+
+		/**
+		 * @return The sum of all recorded values, or the value of a counter
+		 */
+		public long getTotal() {
+			return total;
+		}
+	}
+
+	public enum Kind {
+		COUNTER("counter"), HISTOGRAM("histogram"), TIMER("timer");
+
+		private final String label;
+
+		private Kind(String label) {
+			this.label = label;
+		}
+	}
+
+	public static final MetricsSummary EMPTY = new MetricsSummary(Collections.<Entry> emptyList());
+
+	private final List<Entry> entries;
+
+	public MetricsSummary(List<Entry> entries) {
+		List<Entry> sorted = new ArrayList<Entry>(entries);
+		Collections.sort(sorted, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) {
+				return a.getName().compareTo(b.getName());
+			}
+		});
+		this.entries = Collections.unmodifiableList(sorted);
+	}
+
+	/**
+	 * @param name
+	 *            The name of the instrument
+	 * @return The entry for the instrument or <code>null</code> if no instrument with the given name was used
+	 */
+	public Entry getEntry(String name) {
+		for(Entry entry : entries)
+			if(entry.getName().equals(name))
+				return entry;
+		return null;
+	}
+
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Returns the summary as a table with one line per instrument.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder bld = new StringBuilder();
+		for(Entry entry : entries) {
+			if(bld.length() > 0)
+				bld.append('\n');
+			entry.append(bld);
+		}
+		return bld.toString();
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.common.tracer;
+
+/**
+ * Metrics that record nothing.
+ */
+public class NullMetrics implements IMetrics {
+	public static final NullMetrics INSTANCE = new NullMetrics();
+
+	private static final ICounter NULL_COUNTER = new ICounter() {
+		@Override
+		public void add(long delta) {
+		}
+
+		@Override
+		public void increment() {
+		}
+	};
+
+	private static final IHistogram NULL_HISTOGRAM = new IHistogram() {
+		@Override
+		public void record(long value) {
+		}
+	};
+
+	private static final ITimer NULL_TIMER = new ITimer() {
+		@Override
+		public long start() {
+			return 0;
+		}
+
+		@Override
+		public void stop(long start) {
+		}
+	};
+
+	private NullMetrics() {
+	}
+
+	@Override
+	public ICounter getCounter(String name) {
+		return NULL_COUNTER;
+	}
+
+	@Override
+	public IHistogram getHistogram(String name) {
+		return NULL_HISTOGRAM;
+	}
+
+	@Override
+	public MetricsSummary getSummary() {
+		return MetricsSummary.EMPTY;
+	}
+
+	@Override
+	public ITimer getTimer(String name) {
+		return NULL_TIMER;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	@Override
+	public void reset() {
+	}
+}
@@ -9,7 +9,8 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @SuiteClasses({
 // @fmtOff
-	DependencyTest.class
+	DependencyTest.class,
+	MetadataRepositoryTest.class
 	// @fmtOn
 })
 @RunWith(Suite.class)
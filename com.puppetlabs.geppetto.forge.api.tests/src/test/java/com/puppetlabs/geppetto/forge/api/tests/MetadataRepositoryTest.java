@@ -0,0 +1,395 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.forge.api.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.forge.client.ForgeHttpModule;
+import com.puppetlabs.geppetto.forge.client.GsonModule;
+import com.puppetlabs.geppetto.forge.model.Constants;
+import com.puppetlabs.geppetto.forge.model.Dependency;
+import com.puppetlabs.geppetto.forge.model.Metadata;
+import com.puppetlabs.geppetto.forge.model.MetadataRepository;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.semver.Version;
+import com.puppetlabs.geppetto.semver.VersionRange;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Resolves dependencies against a local stub of the Forge v3 releases endpoint. Asserts that concurrent fetching
+ * yields the same result as fetching one module at a time and that cached release metadata is revalidated, reused
+ * between sessions, and usable offline.
+ */
+public class MetadataRepositoryTest {
+	private static final int PAGE_SIZE = 2;
+
+	private static final int MODULE_COUNT = 24;
+
+	private static Dependency createDependency(String name, String range) {
+		Dependency dep = new Dependency();
+		dep.setName(ModuleName.fromString(name));
+		dep.setVersionRequirement(VersionRange.create(range));
+		return dep;
+	}
+
+	private static Set<String> describe(Collection<Metadata> releases) {
+		Set<String> result = new TreeSet<String>();
+		for(Metadata release : releases)
+			result.add(release.getName().toString() + ':' + release.getVersion());
+		return result;
+	}
+
+	private static Set<String> describeDependencies(Collection<Dependency> dependencies) {
+		Set<String> result = new TreeSet<String>();
+		for(Dependency dep : dependencies)
+			result.add(dep.getName().toString() + ' ' + dep.getVersionRequirement());
+		return result;
+	}
+
+	private static String moduleName(int idx) {
+		return "test-module" + idx;
+	}
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private final Map<String, List<String>> releasesPerModule = Maps.newHashMap();
+
+	private final ConcurrentMap<String, AtomicInteger> fetchesPerModule = Maps.newConcurrentMap();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	private void addRelease(String name, String version, String... dependencies) {
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\"metadata\":{\"name\":\"").append(name).append("\",\"version\":\"").append(version);
+		bld.append("\",\"dependencies\":[");
+		for(int idx = 0; idx < dependencies.length; ++idx) {
+			if(idx > 0)
+				bld.append(',');
+			bld.append("{\"name\":\"").append(dependencies[idx]).append("\",\"version_requirement\":\">=1.0.0\"}");
+		}
+		bld.append("]}}");
+		List<String> releases = releasesPerModule.get(name);
+		if(releases == null) {
+			releases = Lists.newArrayList();
+			releasesPerModule.put(name, releases);
+		}
+		releases.add(bld.toString());
+	}
+
+	private MetadataRepository createRepository(final int maxConcurrentRequests) {
+		return createRepository(maxConcurrentRequests, new AbstractModule() {
+			@Override
+			protected void configure() {
+			}
+		});
+	}
+
+	private MetadataRepository createRepository(final int maxConcurrentRequests, final Module cacheModule) {
+		final String baseURL = "http://localhost:" + server.getAddress().getPort();
+		return Guice.createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				install(GsonModule.INSTANCE);
+				install(new ForgeHttpModule() {
+					@Override
+					protected String doGetBaseURL() {
+						return baseURL;
+					}
+				});
+				ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+				connectionManager.setDefaultMaxPerRoute(maxConcurrentRequests);
+				bind(HttpClient.class).toInstance(new DefaultHttpClient(connectionManager));
+				bindConstant().annotatedWith(Names.named(Constants.MAX_CONCURRENT_REQUESTS_NAME)).to(maxConcurrentRequests);
+				install(cacheModule);
+			}
+		}).getInstance(MetadataRepository.class);
+	}
+
+	private MetadataRepository createRepository(final File cacheLocation, final long timeToLive, final boolean offline) {
+		return createRepository(4, new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(File.class).annotatedWith(Names.named(Constants.METADATA_CACHE_LOCATION_NAME)).toInstance(cacheLocation);
+				bindConstant().annotatedWith(Names.named(Constants.METADATA_CACHE_TTL_NAME)).to(timeToLive);
+				bindConstant().annotatedWith(Names.named(Constants.OFFLINE_NAME)).to(offline);
+			}
+		});
+	}
+
+	private Set<String> deepResolve(MetadataRepository repository, Collection<Dependency> deps, Set<Dependency> unresolved)
+			throws IOException {
+		Set<Metadata> result = Sets.newHashSet();
+		repository.prefetch(deps);
+		for(Dependency dep : deps)
+			result.addAll(repository.deepResolve(dep, unresolved));
+		return describe(result);
+	}
+
+	private void respond(HttpExchange exchange) throws IOException {
+		Map<String, String> params = Maps.newHashMap();
+		String query = exchange.getRequestURI().getQuery();
+		if(query != null)
+			for(String param : query.split("&")) {
+				int eq = param.indexOf('=');
+				params.put(param.substring(0, eq), param.substring(eq + 1));
+			}
+
+		String module = params.get("module");
+		List<String> releases = releasesPerModule.get(module);
+		if(releases == null)
+			releases = Collections.emptyList();
+		String etag = "\"" + module + '-' + releases.size() + "\"";
+		if(params.get("offset") == null) {
+			fetchesPerModule.putIfAbsent(module, new AtomicInteger());
+			fetchesPerModule.get(module).incrementAndGet();
+			if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+		}
+
+		int offset = params.containsKey("offset")
+			? Integer.parseInt(params.get("offset"))
+			: 0;
+		int limit = params.containsKey("limit")
+			? Integer.parseInt(params.get("limit"))
+			: PAGE_SIZE;
+		int end = Math.min(offset + limit, releases.size());
+
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\"pagination\":{\"limit\":").append(limit).append(",\"offset\":").append(offset);
+		bld.append(",\"total\":").append(releases.size()).append("},\"results\":[");
+		for(int idx = offset; idx < end; ++idx) {
+			if(idx > offset)
+				bld.append(',');
+			bld.append(releases.get(idx));
+		}
+		bld.append("]}");
+
+		byte[] body = bld.toString().getBytes(Constants.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", Constants.CONTENT_TYPE_JSON);
+		exchange.getResponseHeaders().add("ETag", etag);
+		exchange.sendResponseHeaders(200, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	@Test
+	public void cachedMetadataIsRevalidatedAndUsableOffline() throws Exception {
+		List<Dependency> deps = Lists.newArrayList(createDependency(moduleName(0), ">=1.0.0"));
+		Dependency uncached = createDependency("test-uncached", ">=1.0.0");
+		File cacheLocation = Files.createTempDirectory("geppetto-metadata-").toFile();
+		try {
+			Set<String> expected = deepResolve(createRepository(4), deps, Sets.<Dependency> newHashSet());
+			fetchesPerModule.clear();
+
+			assertEquals("Initial cached resolution", expected, deepResolve(
+				createRepository(cacheLocation, 60000L, false), deps, Sets.<Dependency> newHashSet()));
+			assertEquals("Nothing should be cached yet", 0, notModified.get());
+			assertTrue("Modules should have been written to the cache", cacheLocation.list().length >= fetchesPerModule.size());
+
+			// A new session with an expired time to live must revalidate and get the same result
+			fetchesPerModule.clear();
+			assertEquals("Revalidated resolution", expected, deepResolve(
+				createRepository(cacheLocation, 0L, false), deps, Sets.<Dependency> newHashSet()));
+			int requestCount = 0;
+			for(AtomicInteger count : fetchesPerModule.values())
+				requestCount += count.get();
+			assertTrue("Modules should be revalidated", requestCount > 0);
+			assertEquals("All modules should be unmodified", requestCount, notModified.get());
+
+			// Within the time to live, the server should not be contacted at all
+			fetchesPerModule.clear();
+			assertEquals("Fresh resolution", expected, deepResolve(
+				createRepository(cacheLocation, 60000L, false), deps, Sets.<Dependency> newHashSet()));
+			assertTrue("No modules should be fetched", fetchesPerModule.isEmpty());
+
+			// Offline, the server is not needed for cached modules
+			server.stop(0);
+			MetadataRepository offline = createRepository(cacheLocation, 0L, true);
+			assertEquals("Offline resolution", expected, deepResolve(offline, deps, Sets.<Dependency> newHashSet()));
+			assertNotNull(offline.resolve(deps.get(0)));
+			try {
+				offline.resolve(uncached);
+				fail("Resolving a module that is not cached should fail when offline");
+			}
+			catch(IOException e) {
+				// Expected
+			}
+		}
+		finally {
+			FileUtils.rmR(cacheLocation);
+		}
+	}
+
+	@Test
+	public void concurrentPrefetchesShareRequestLimit() throws Exception {
+		final MetadataRepository repository = createRepository(2);
+		Thread[] threads = new Thread[2];
+		for(int t = 0; t < threads.length; ++t) {
+			final List<Dependency> deps = Lists.newArrayList();
+			for(int idx = t; idx < MODULE_COUNT; idx += threads.length)
+				deps.add(createDependency(moduleName(idx), ">=1.0.0"));
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					repository.prefetch(deps);
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		assertTrue("Modules should be fetched concurrently", maxInFlight.get() > 1);
+		assertTrue("Concurrent prefetches should not exceed the limit together", maxInFlight.get() <= 2);
+		for(int idx = 0; idx < MODULE_COUNT; ++idx)
+			assertNotNull("Module " + moduleName(idx) + " should be fetched", fetchesPerModule.get(moduleName(idx)));
+	}
+
+	@Test
+	public void parallelResolutionEqualsSequential() throws Exception {
+		List<Dependency> deps = Lists.newArrayList();
+		for(int idx = 0; idx < MODULE_COUNT; idx += 4)
+			deps.add(createDependency(moduleName(idx), ">=1.0.0"));
+		deps.add(createDependency("test-missing", ">=1.0.0"));
+
+		Set<Dependency> sequentialUnresolved = Sets.newHashSet();
+		Set<String> sequential = deepResolve(createRepository(1), deps, sequentialUnresolved);
+		assertEquals("Sequential fetching should have one request in flight", 1, maxInFlight.get());
+
+		fetchesPerModule.clear();
+		maxInFlight.set(0);
+		Set<Dependency> parallelUnresolved = Sets.newHashSet();
+		Set<String> parallel = deepResolve(createRepository(4), deps, parallelUnresolved);
+
+		assertEquals("Parallel resolution should find the same releases", sequential, parallel);
+		assertEquals(
+			"Parallel resolution should find the same unresolved dependencies", describeDependencies(sequentialUnresolved),
+			describeDependencies(parallelUnresolved));
+		assertTrue("Missing module should be unresolved", describeDependencies(parallelUnresolved).contains("test-missing >=1.0.0"));
+		assertTrue("Modules should be fetched concurrently", maxInFlight.get() > 1);
+		assertTrue("In flight requests should not exceed the limit", maxInFlight.get() <= 4);
+		for(Map.Entry<String, AtomicInteger> entry : fetchesPerModule.entrySet())
+			assertEquals("Module " + entry.getKey() + " should be fetched once", 1, entry.getValue().get());
+	}
+
+	@Test
+	public void resolveReturnsHighestMatch() throws Exception {
+		// The Forge does not list releases in version order
+		String name = "test-unordered";
+		addRelease(name, "1.1.0");
+		addRelease(name, "2.0.0");
+		addRelease(name, "1.0.0");
+		addRelease(name, "1.5.0");
+
+		MetadataRepository repository = createRepository(1);
+		assertEquals("Highest match", "2.0.0", repository.resolve(createDependency(name, ">=1.0.0")).getVersion().toString());
+		assertEquals("Highest match in range", "1.5.0", repository.resolve(createDependency(name, "<2.0.0")).getVersion().toString());
+		assertEquals("Exact match", "1.1.0", repository.resolve(ModuleName.fromString(name), Version.create("1.1.0")).getVersion().toString());
+		assertNull("No match", repository.resolve(createDependency(name, ">=3.0.0")));
+		assertEquals("Deep resolution", Collections.singleton(name + ":1.5.0"), describe(repository.deepResolve(
+			createDependency(name, "<2.0.0"), Sets.<Dependency> newHashSet())));
+	}
+
+	@Before
+	public void startServer() throws IOException {
+		// Each module has three releases so that the list is paginated. The latest release depends on the next two
+		// modules which makes the dependency graph several levels deep with shared dependencies.
+		for(int idx = 0; idx < MODULE_COUNT; ++idx) {
+			String name = moduleName(idx);
+			addRelease(name, "1.0.0");
+			addRelease(name, "1.1.0", moduleName((idx + 1) % MODULE_COUNT));
+			if(idx + 2 < MODULE_COUNT)
+				addRelease(name, "1.2.0", moduleName(idx + 1), moduleName(idx + 2));
+			else
+				addRelease(name, "1.2.0", "test-missing");
+		}
+
+		serverExecutor = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/v3/releases", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int current = inFlight.incrementAndGet();
+				synchronized(maxInFlight) {
+					if(current > maxInFlight.get())
+						maxInFlight.set(current);
+				}
+				try {
+					// Simulate latency so that concurrent requests overlap
+					Thread.sleep(20);
+					respond(exchange);
+				}
+				catch(InterruptedException e) {
+					exchange.sendResponseHeaders(500, -1);
+				}
+				finally {
+					inFlight.decrementAndGet();
+				}
+			}
+		});
+		server.setExecutor(serverExecutor);
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+}
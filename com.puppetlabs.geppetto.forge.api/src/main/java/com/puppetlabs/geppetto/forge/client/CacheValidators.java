@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.forge.client;
+
+import com.google.gson.annotations.Expose;
+
+/**
+ * The HTTP validators (<code>ETag</code> and <code>Last-Modified</code>) of a cached response. The validators are sent
+ * with a conditional request and updated from the response when the content has changed.
+ */
+public class CacheValidators {
+	@Expose
+	private String etag;
+
+	@Expose
+	private String lastModified;
+
+	public CacheValidators() {
+	}
+
+	public CacheValidators(CacheValidators other) {
+		if(other != null) {
+			etag = other.etag;
+			lastModified = other.lastModified;
+		}
+	}
+
+	/**
+	 * @return The value of the <code>ETag</code> header or <code>null</code> if the server didn't provide one
+	 */
+	public String getETag() {
+		return etag;
+	}
+
+	/**
+	 * @return The value of the <code>Last-Modified</code> header or <code>null</code> if the server didn't provide one
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @return <code>true</code> if neither an <code>ETag</code> nor a <code>Last-Modified</code> is known
+	 */
+	public boolean isEmpty() {
+		return etag == null && lastModified == null;
+	}
+
+	public void setETag(String etag) {
+		this.etag = etag;
+	}
+
+	public void setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+	}
+}
@@ -22,7 +22,7 @@ import java.util.Map;
  */
 public interface ForgeClient {
 	/**
-	 * Cleanly abort the currently executing request. This method does nothing if there is
+	 * Cleanly abort the currently executing requests. This method does nothing if there is
 	 * no executing request.
 	 */
 	void abortCurrentRequest();
@@ -103,6 +103,26 @@ public interface ForgeClient {
 	 */
 	<V> V getBaseRelative(String urlStr, Map<String, String> params, Type type) throws IOException;
 
+	/**
+	 * Executes a conditional HTTP GET request using the v3 API. The request includes the <code>If-None-Match</code> and
+	 * <code>If-Modified-Since</code> headers that corresponds to the given <code>validators</code>. When the server
+	 * responds with new content, the validators are updated from the response.
+	 *
+	 * @param urlStr
+	 *            The URL of the request
+	 * @param params
+	 *            Parameters to include in the URL
+	 * @param type
+	 *            The expected type of the result
+	 * @param validators
+	 *            The validators of the cached response. Updated when the content has changed.
+	 * @return An object of the expected type or <code>null</code> if the server responded that the content has not
+	 *         been modified
+	 * @throws IOException
+	 *             if the request could not be completed
+	 */
+	<V> V getIfModified(String urlStr, Map<String, String> params, Type type, CacheValidators validators) throws IOException;
+
 	/**
 	 * Executes a HTTP GET request using the legacy v1 API. The http response is expected to be a JSON representation of
 	 * an object of the specified <code>type</code>. The object is parsed and returned.
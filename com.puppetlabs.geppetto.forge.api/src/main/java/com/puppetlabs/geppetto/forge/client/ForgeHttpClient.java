@@ -25,9 +25,12 @@ import java.lang.reflect.Type;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
@@ -58,7 +61,8 @@ import com.puppetlabs.geppetto.forge.client.Authenticator.AuthResponse;
 import com.puppetlabs.geppetto.forge.model.Constants;
 
 /**
- * Class responsible for all request and response processing
+ * Class responsible for all request and response processing. Requests may be executed concurrently from several threads
+ * provided that the injected {@link HttpClient} uses a thread safe connection manager.
  */
 public class ForgeHttpClient implements Constants, ForgeClient {
 	static InputStream getStream(HttpEntity entity) throws IOException {
@@ -103,22 +107,20 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 
 	private String userAgent = USER_AGENT;
 
-	private transient String credentials;
+	private transient volatile String credentials;
 
-	private transient HttpRequestBase currentRequest;
+	private final transient Set<HttpRequestBase> activeRequests = new HashSet<HttpRequestBase>();
 
 	@Override
 	public synchronized void abortCurrentRequest() {
-		if(currentRequest != null) {
-			currentRequest.abort();
-			currentRequest = null;
-		}
+		for(HttpRequestBase request : activeRequests)
+			request.abort();
+		activeRequests.clear();
 	}
 
-	private synchronized void abortRequest() {
-		if(currentRequest != null)
-			currentRequest.abort();
-		currentRequest = null;
+	private synchronized void abortRequest(HttpRequestBase request) {
+		request.abort();
+		activeRequests.remove(request);
 	}
 
 	protected void assignJSONContent(HttpEntityEnclosingRequestBase request, Object params) {
@@ -130,7 +132,7 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 	}
 
 	@Override
-	public void authenticate() throws IOException {
+	public synchronized void authenticate() throws IOException {
 		if(credentials == null && authenticator != null) {
 			AuthResponse auth = authenticator.authenticate(httpClient);
 			this.credentials = "Bearer " + auth.getToken();
@@ -204,7 +206,7 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 			});
 		}
 		finally {
-			endRequest();
+			endRequest(request);
 		}
 	}
 
@@ -216,14 +218,14 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 
 	@Override
 	public InputStream download(String urlStr, Map<String, String> params) throws IOException {
-		HttpGet request = createGetRequest(v3URL + urlStr, params);
+		final HttpGet request = createGetRequest(v3URL + urlStr, params);
 		configureRequest(request);
 		startRequest(request);
 		HttpResponse response = httpClient.execute(request);
 		StatusLine statusLine = response.getStatusLine();
 		int code = statusLine.getStatusCode();
 		if(code != HttpStatus.SC_OK) {
-			abortRequest();
+			abortRequest(request);
 			throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
 		}
 
@@ -231,7 +233,7 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 			@Override
 			public void close() throws IOException {
 				super.close();
-				endRequest();
+				endRequest(request);
 			}
 		};
 	}
@@ -246,8 +248,8 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 		doDownload(v2URL + urlStr, params, output);
 	}
 
-	private synchronized void endRequest() {
-		currentRequest = null;
+	private synchronized void endRequest(HttpRequestBase request) {
+		activeRequests.remove(request);
 	}
 
 	protected <V> V executeRequest(final HttpRequestBase request, final Type type) throws IOException {
@@ -256,7 +258,7 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 			return httpClient.execute(request, new JSonResponseHandler<V>(gson, type));
 		}
 		finally {
-			endRequest();
+			endRequest(request);
 		}
 	}
 
@@ -270,6 +272,42 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 		return doGet(baseURL + urlStr, params, type);
 	}
 
+	@Override
+	public <V> V getIfModified(String urlStr, Map<String, String> params, Type type, final CacheValidators validators)
+			throws IOException {
+		HttpGet request = createGetRequest(v3URL + urlStr, params);
+		configureRequest(request);
+		if(validators.getETag() != null)
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, validators.getETag());
+		if(validators.getLastModified() != null)
+			request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, validators.getLastModified());
+
+		startRequest(request);
+		try {
+			return httpClient.execute(request, new JSonResponseHandler<V>(gson, type) {
+				@Override
+				public V handleResponse(HttpResponse response) throws ClientProtocolException, IOException {
+					if(response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+						return null;
+
+					V result = super.handleResponse(response);
+					Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+					Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+					validators.setETag(etag == null
+						? null
+						: etag.getValue());
+					validators.setLastModified(lastModified == null
+						? null
+						: lastModified.getValue());
+					return result;
+				}
+			});
+		}
+		finally {
+			endRequest(request);
+		}
+	}
+
 	@Override
 	public <V> V getV1(String urlStr, Map<String, String> params, Type type) throws IOException {
 		return doGet(v1URL + urlStr, params, type);
@@ -352,9 +390,7 @@ public class ForgeHttpClient implements Constants, ForgeClient {
 	}
 
 	private synchronized void startRequest(HttpRequestBase request) {
-		if(currentRequest != null)
-			currentRequest.abort();
-		currentRequest = request;
+		activeRequests.add(request);
 	}
 
 	/**
@@ -109,6 +109,84 @@ public interface Constants {
 	 */
 	String PE_AUTH_TOKEN = "pe-auth-token";
 
+	/**
+	 * Injection name for the maximum number of requests that the dependency resolver will have in flight at the same
+	 * time
+	 */
+	String MAX_CONCURRENT_REQUESTS_NAME = "forge.client.max.concurrent.requests"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of concurrent requests used when no value has been bound to
+	 * {@link #MAX_CONCURRENT_REQUESTS_NAME}
+	 */
+	int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+	/**
+	 * Injection name for the maximum number of module archives that are uploaded at the same time when several
+	 * modules are published
+	 */
+	String MAX_CONCURRENT_UPLOADS_NAME = "forge.client.max.concurrent.uploads"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of concurrent uploads used when no value has been bound to
+	 * {@link #MAX_CONCURRENT_UPLOADS_NAME}. Modules are published one at a time by default.
+	 */
+	int DEFAULT_MAX_CONCURRENT_UPLOADS = 1;
+
+	/**
+	 * Injection name for the number of times that an upload is retried after a transient failure
+	 */
+	String UPLOAD_RETRY_COUNT_NAME = "forge.client.upload.retry.count"; //$NON-NLS-1$
+
+	/**
+	 * The number of retries used when no value has been bound to {@link #UPLOAD_RETRY_COUNT_NAME}
+	 */
+	int DEFAULT_UPLOAD_RETRY_COUNT = 2;
+
+	/**
+	 * Injection name for the number of milliseconds to wait before the first retry of an upload. The delay is doubled
+	 * for each subsequent retry.
+	 */
+	String UPLOAD_RETRY_DELAY_NAME = "forge.client.upload.retry.delay"; //$NON-NLS-1$
+
+	/**
+	 * The initial retry delay used when no value has been bound to {@link #UPLOAD_RETRY_DELAY_NAME}
+	 */
+	long DEFAULT_UPLOAD_RETRY_DELAY = 1000L;
+
+	/**
+	 * Injection name for the directory where release metadata is cached between sessions. Release metadata is only
+	 * cached in memory when no directory is bound.
+	 */
+	String METADATA_CACHE_LOCATION_NAME = "forge.metadata.cache.location"; //$NON-NLS-1$
+
+	/**
+	 * Injection name for the number of milliseconds that cached release metadata is used without asking the server
+	 * if it has been modified
+	 */
+	String METADATA_CACHE_TTL_NAME = "forge.metadata.cache.ttl"; //$NON-NLS-1$
+
+	/**
+	 * The time to live used when no value has been bound to {@link #METADATA_CACHE_TTL_NAME}
+	 */
+	long DEFAULT_METADATA_CACHE_TTL = 60L * 60L * 1000L;
+
+	/**
+	 * Injection name for the maximum number of modules for which release metadata is kept in memory
+	 */
+	String METADATA_CACHE_SIZE_NAME = "forge.metadata.cache.size"; //$NON-NLS-1$
+
+	/**
+	 * The number of modules kept in memory when no value has been bound to {@link #METADATA_CACHE_SIZE_NAME}
+	 */
+	int DEFAULT_METADATA_CACHE_SIZE = 1000;
+
+	/**
+	 * Injection name for a boolean that, when <code>true</code>, makes the release metadata repository use cached
+	 * metadata only, regardless of its age, and never contact the server
+	 */
+	String OFFLINE_NAME = "forge.offline"; //$NON-NLS-1$
+
 	/**
 	 * Injection name for credentials
 	 */
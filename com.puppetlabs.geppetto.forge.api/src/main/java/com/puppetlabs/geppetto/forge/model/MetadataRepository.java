@@ -22,7 +22,8 @@ import com.puppetlabs.geppetto.semver.Version;
 public interface MetadataRepository {
 	/**
 	 * Perform a deep resolution to get all modules in the transitive scope that
-	 * extends from the given <code>depenency</code>.
+	 * extends from the given <code>depenency</code>. Modules are fetched one at a time unless they have been fetched
+	 * by a preceding call to {@link #prefetch(Collection)}.
 	 *
 	 * @param dependency
 	 *            The root of the transitive scope to resolve
@@ -33,7 +34,19 @@ public interface MetadataRepository {
 	Collection<Metadata> deepResolve(Dependency dependency, Set<Dependency> unresolvedCollector) throws IOException;
 
 	/**
-	 * Return the best candidate for the given dependency
+	 * Fetch the releases of all modules in the transitive scope of the given <code>dependencies</code> so that
+	 * subsequent resolutions can be performed without waiting for one module at a time. This method does not alter the
+	 * outcome of a resolution. Modules that cannot be fetched are silently skipped.
+	 *
+	 * @param dependencies
+	 *            The roots of the transitive scope
+	 */
+	void prefetch(Collection<Dependency> dependencies);
+
+	/**
+	 * Return the best candidate for the given dependency. The best candidate is the release with the highest version
+	 * that matches the version requirement of the dependency, regardless of the order in which the Forge lists the
+	 * releases.
 	 *
 	 * @param dependency
 	 * @return The release that is the best match for the dependency or <code>null</code> if no match was found
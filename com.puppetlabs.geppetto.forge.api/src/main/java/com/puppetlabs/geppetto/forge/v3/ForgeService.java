@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import com.puppetlabs.geppetto.forge.client.CacheValidators;
 import com.puppetlabs.geppetto.forge.model.Entity;
 import com.puppetlabs.geppetto.forge.v3.model.PaginatedResult;
 
@@ -153,6 +154,27 @@ public interface ForgeService<T extends Entity, I> {
 	 */
 	PaginatedResult<T> list(Query<T> query, SortBy<T> sortBy, PaginationInfo pagination, boolean includeDeleted) throws IOException;
 
+	/**
+	 * Same as {@link #list(Query, SortBy, PaginationInfo, boolean)} but the request is conditional and will return
+	 * <code>null</code> when the server reports that the result has not been modified since the response that the
+	 * <code>validators</code> were obtained from.
+	 *
+	 * @param query
+	 *            The query or <code>null</code> for all elements.
+	 * @param sortBy
+	 *            The sort order or <code>null</code> for default order.
+	 * @param pagination
+	 *            The pagination info from a previous search or <code>null</code> for the first one.
+	 * @param includeDeleted
+	 *            Set to <code>true</code> to include deleted entries.
+	 * @param validators
+	 *            The validators of a previous response. Updated when the result has been modified.
+	 * @return The result or <code>null</code> if it has not been modified
+	 * @throws IOException
+	 */
+	PaginatedResult<T> listIfModified(Query<T> query, SortBy<T> sortBy, PaginationInfo pagination, boolean includeDeleted,
+			CacheValidators validators) throws IOException;
+
 	/**
 	 * Returns result that corresponds to the given <code>query</code> and <code>sortBy</code>.
 	 *
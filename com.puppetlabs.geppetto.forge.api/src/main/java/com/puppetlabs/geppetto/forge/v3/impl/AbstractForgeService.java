@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.google.inject.Inject;
+import com.puppetlabs.geppetto.forge.client.CacheValidators;
 import com.puppetlabs.geppetto.forge.client.ForgeClient;
 import com.puppetlabs.geppetto.forge.model.Entity;
 import com.puppetlabs.geppetto.forge.v3.ForgeService;
@@ -85,6 +86,22 @@ public abstract class AbstractForgeService<T extends Entity, I> implements Forge
 
 	abstract void addIdSegment(StringBuilder bld, I id);
 
+	private Map<String, String> createListParams(Query<T> query, SortBy<T> sortBy, PaginationInfo pagination, boolean includeDeleted) {
+		if(!(includeDeleted || query != null || sortBy != null || pagination != null))
+			return Collections.emptyMap();
+
+		Map<String, String> params = new HashMap<String, String>();
+		if(query != null)
+			query.append(params);
+		if(sortBy != null)
+			sortBy.append(params);
+		if(pagination != null)
+			pagination.append(params);
+		if(includeDeleted)
+			params.put("show_deleted", "1");
+		return params;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.puppetlabs.geppetto.forge.v3.ForgeService#get(I)
 	 */
@@ -113,21 +130,14 @@ public abstract class AbstractForgeService<T extends Entity, I> implements Forge
 	 */
 	@Override
 	public PaginatedResult<T> list(Query<T> query, SortBy<T> sortBy, PaginationInfo pagination, boolean includeDeleted) throws IOException {
-		Map<String, String> params;
-		if(includeDeleted || query != null || sortBy != null || pagination != null) {
-			params = new HashMap<String, String>();
-			if(query != null)
-				query.append(params);
-			if(sortBy != null)
-				sortBy.append(params);
-			if(pagination != null)
-				pagination.append(params);
-			if(includeDeleted)
-				params.put("show_deleted", "1");
-		}
-		else
-			params = Collections.emptyMap();
-		return client.get(getEndpointSegment(), params, getPaginatedResultType());
+		return client.get(getEndpointSegment(), createListParams(query, sortBy, pagination, includeDeleted), getPaginatedResultType());
+	}
+
+	@Override
+	public PaginatedResult<T> listIfModified(Query<T> query, SortBy<T> sortBy, PaginationInfo pagination, boolean includeDeleted,
+			CacheValidators validators) throws IOException {
+		return client.getIfModified(
+			getEndpointSegment(), createListParams(query, sortBy, pagination, includeDeleted), getPaginatedResultType(), validators);
 	}
 
 	@Override
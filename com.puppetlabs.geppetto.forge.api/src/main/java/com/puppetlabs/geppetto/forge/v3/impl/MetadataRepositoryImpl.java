@@ -11,7 +11,6 @@
 package com.puppetlabs.geppetto.forge.v3.impl;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -20,18 +19,29 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.puppetlabs.geppetto.forge.client.CacheValidators;
+import com.puppetlabs.geppetto.forge.model.Constants;
 import com.puppetlabs.geppetto.forge.model.Dependency;
 import com.puppetlabs.geppetto.forge.model.Metadata;
 import com.puppetlabs.geppetto.forge.model.MetadataRepository;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
-import com.puppetlabs.geppetto.forge.v3.ProgressMonitor;
+import com.puppetlabs.geppetto.forge.v3.PaginationInfo;
 import com.puppetlabs.geppetto.forge.v3.Releases;
-import com.puppetlabs.geppetto.forge.v3.Visitor;
+import com.puppetlabs.geppetto.forge.v3.impl.ReleaseMetadataCache.Entry;
+import com.puppetlabs.geppetto.forge.v3.model.PaginatedResult;
 import com.puppetlabs.geppetto.forge.v3.model.Release;
 import com.puppetlabs.geppetto.semver.Version;
+import com.puppetlabs.geppetto.semver.VersionIndex;
 import com.puppetlabs.geppetto.semver.VersionRange;
 
 /**
@@ -137,15 +147,38 @@ public class MetadataRepositoryImpl implements MetadataRepository {
 		}
 	}
 
-	// TODO: Keeping everything in memory is of course not ideal. Should use a local
-	// file cache or similar
-	private final Map<ModuleName, Metadata[]> releasesPerModule = new HashMap<ModuleName, Metadata[]>();
-
 	private static final Metadata[] emptyReleaseArray = new Metadata[0];
 
+	/**
+	 * The number of seconds that an idle fetch thread is kept alive
+	 */
+	private static final long FETCH_THREAD_KEEP_ALIVE = 30;
+
+	private static final ThreadFactory fetchThreadFactory = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "Forge release fetcher");
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private static Metadata getBestMatch(VersionIndex<Metadata> candidates, Dependency dependency) {
+		return candidates.findBestMatch(dependency.getVersionRequirement());
+	}
+
 	@Inject
 	private Releases releases;
 
+	@Inject
+	private ReleaseMetadataCache releaseCache;
+
+	@Inject(optional = true)
+	@Named(Constants.MAX_CONCURRENT_REQUESTS_NAME)
+	private int maxConcurrentRequests = Constants.DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+	private ExecutorService fetchExecutor;
+
 	@Override
 	public Collection<Metadata> deepResolve(Dependency dependency, Set<Dependency> unresolvedCollector) throws IOException {
 		Map<ModuleName, Resolution> resolutionCollector = new HashMap<ModuleName, Resolution>();
@@ -160,6 +193,130 @@ public class MetadataRepositoryImpl implements MetadataRepository {
 		return prune(dependency, releases);
 	}
 
+	/**
+	 * Fetches the releases of all given modules. At most {@link #maxConcurrentRequests} modules are fetched at the same
+	 * time. Failures are ignored since a module that is not cached will be fetched again by the resolution.
+	 *
+	 * @param names
+	 *            The modules to fetch
+	 * @throws InterruptedException
+	 */
+	private void fetchAll(List<ModuleName> names) throws InterruptedException {
+		if(names.size() < 2 || maxConcurrentRequests < 2) {
+			for(ModuleName name : names)
+				try {
+					getReleases(name);
+				}
+				catch(IOException e) {
+					// Retried by the resolution
+				}
+			return;
+		}
+
+		List<Callable<VersionIndex<Metadata>>> fetches = new ArrayList<Callable<VersionIndex<Metadata>>>(names.size());
+		for(final ModuleName name : names)
+			fetches.add(new Callable<VersionIndex<Metadata>>() {
+				@Override
+				public VersionIndex<Metadata> call() throws IOException {
+					return getReleases(name);
+				}
+			});
+
+		getFetchExecutor().invokeAll(fetches);
+	}
+
+	/**
+	 * Returns the executor that fetches releases. The executor is shared by all prefetches made by this repository so
+	 * that the total number of requests in flight never exceeds {@link #maxConcurrentRequests}. Its threads are
+	 * discarded when they have been idle for a while.
+	 *
+	 * @return The executor
+	 */
+	private synchronized ExecutorService getFetchExecutor() {
+		if(fetchExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				maxConcurrentRequests, maxConcurrentRequests, FETCH_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), fetchThreadFactory);
+			executor.allowCoreThreadTimeOut(true);
+			fetchExecutor = executor;
+		}
+		return fetchExecutor;
+	}
+
+	/**
+	 * Returns the releases of the given module. Cached releases are used when they are fresh or when the repository is
+	 * offline. Stale releases are revalidated using a conditional request and are also used when the server cannot be
+	 * reached.
+	 *
+	 * @param name
+	 *            The name of the module
+	 * @return The releases of the module indexed on their version
+	 * @throws IOException
+	 *             if the releases are not cached and could not be fetched
+	 */
+	private VersionIndex<Metadata> getReleases(ModuleName name) throws IOException {
+		Entry entry = releaseCache.get(name);
+		if(entry != null && (releaseCache.isOffline() || releaseCache.isFresh(entry)))
+			return entry.getIndex();
+
+		if(releaseCache.isOffline())
+			throw new IOException("The releases of module " + name + " are not cached and the Forge cannot be contacted in offline mode");
+
+		try {
+			return refreshCache(name, entry).getIndex();
+		}
+		catch(IOException e) {
+			if(entry == null)
+				throw e;
+			return entry.getIndex();
+		}
+	}
+
+	private boolean needsFetch(ModuleName name) {
+		if(releaseCache.isOffline())
+			return false;
+		Entry entry = releaseCache.get(name);
+		return entry == null || !releaseCache.isFresh(entry);
+	}
+
+	/**
+	 * The scope is traversed breadth first and the releases of all modules found at the same depth are fetched
+	 * concurrently. The traversal follows the dependencies of the best match for each dependency.
+	 */
+	@Override
+	public void prefetch(Collection<Dependency> dependencies) {
+		Set<Dependency> seen = new HashSet<Dependency>();
+		Set<ModuleName> requested = new HashSet<ModuleName>();
+		List<Dependency> level = new ArrayList<Dependency>(dependencies);
+		try {
+			while(!level.isEmpty()) {
+				List<ModuleName> names = new ArrayList<ModuleName>();
+				for(Dependency dependency : level) {
+					ModuleName name = dependency.getName();
+					if(requested.add(name) && needsFetch(name))
+						names.add(name);
+				}
+				fetchAll(names);
+
+				List<Dependency> nextLevel = new ArrayList<Dependency>();
+				for(Dependency dependency : level) {
+					Entry entry = releaseCache.get(dependency.getName());
+					Metadata bestMatch = entry == null
+						? null
+						: getBestMatch(entry.getIndex(), dependency);
+					if(bestMatch != null)
+						for(Dependency child : bestMatch.getDependencies())
+							if(seen.add(child))
+								nextLevel.add(child);
+				}
+				level = nextLevel;
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Prunes the collection <code>releases</code> so that it only contains releases that
 	 * can be reached from the transitive scope rooted by <code>dependency</code>.
@@ -191,40 +348,57 @@ public class MetadataRepositoryImpl implements MetadataRepository {
 	}
 
 	public Metadata[] refreshCache(ModuleName fullName) throws IOException {
-		final List<Metadata> rlist = new ArrayList<Metadata>();
-		try {
-			releases.accept(new Releases.OfModule(fullName), null, false, new Visitor<Release>() {
-				@Override
-				public void visit(Release release, ProgressMonitor monitor) {
-					rlist.add(release.getMetadata());
-				}
-			}, null);
+		return refreshCache(fullName, releaseCache.get(fullName)).getReleases();
+	}
+
+	/**
+	 * Fetches the releases of the given module from the Forge and caches them. When a cached <code>entry</code> is
+	 * given, the first page is requested conditionally and the cached releases are kept if the server reports that
+	 * they have not been modified.
+	 *
+	 * @param fullName
+	 *            The name of the module
+	 * @param entry
+	 *            The currently cached entry or <code>null</code>
+	 * @return The cached entry
+	 * @throws IOException
+	 */
+	private Entry refreshCache(ModuleName fullName, Entry entry) throws IOException {
+		Releases.OfModule query = new Releases.OfModule(fullName);
+		CacheValidators validators = entry == null
+			? new CacheValidators()
+			: new CacheValidators(entry.getValidators());
+
+		PaginatedResult<Release> page = releases.listIfModified(query, null, null, false, validators);
+		if(page == null) {
+			// Not modified
+			Entry revalidated = new Entry(entry.getReleases(), validators, System.currentTimeMillis());
+			releaseCache.put(fullName, revalidated);
+			return revalidated;
 		}
-		catch(InvocationTargetException e) {
-			// Never thrown
+
+		List<Metadata> rlist = new ArrayList<Metadata>(page.getTotal());
+		for(;;) {
+			for(Release release : page.getResults())
+				rlist.add(release.getMetadata());
+			PaginationInfo next = page.getNext();
+			if(next == null)
+				break;
+			page = releases.list(query, null, next, false);
 		}
+
 		int sz = rlist.size();
 		Metadata[] releaseArray = sz == 0
 			? emptyReleaseArray
 			: rlist.toArray(new Metadata[sz]);
-		releasesPerModule.put(fullName, releaseArray);
-		return releaseArray;
+		Entry refreshed = new Entry(releaseArray, validators, System.currentTimeMillis());
+		releaseCache.put(fullName, refreshed);
+		return refreshed;
 	}
 
 	@Override
 	public Metadata resolve(Dependency dependency) throws IOException {
-		VersionRange vReq = dependency.getVersionRequirement();
-		Metadata[] candidates = releasesPerModule.get(dependency.getName());
-		if(candidates == null)
-			candidates = refreshCache(dependency.getName());
-
-		int idx = candidates.length;
-		while(--idx >= 0) {
-			Metadata release = candidates[idx];
-			if(vReq == null || vReq.isIncluded(release.getVersion()))
-				return release;
-		}
-		return null;
+		return getBestMatch(getReleases(dependency.getName()), dependency);
 	}
 
 	private void resolve(Dependency dependency, Set<Dependency> seen, Map<ModuleName, Resolution> resolutionCollector,
@@ -277,21 +451,9 @@ public class MetadataRepositoryImpl implements MetadataRepository {
 
 	private Resolution resolveAll(Dependency dependency) throws IOException {
 		VersionRange vReq = dependency.getVersionRequirement();
-		Metadata[] candidates = releasesPerModule.get(dependency.getName());
-		if(candidates == null)
-			candidates = refreshCache(dependency.getName());
-		int idx = candidates.length;
-		ArrayList<Metadata> matchingReleases = null;
-		while(--idx >= 0) {
-			Metadata release = candidates[idx];
-			if(vReq == null || vReq.isIncluded(release.getVersion())) {
-				if(matchingReleases == null)
-					matchingReleases = new ArrayList<Metadata>();
-				matchingReleases.add(release);
-			}
-		}
-		if(matchingReleases != null)
-			return new Resolution(vReq, matchingReleases);
-		return null;
+		List<Metadata> matchingReleases = getReleases(dependency.getName()).findAll(vReq);
+		if(matchingReleases.isEmpty())
+			return null;
+		return new Resolution(vReq, new ArrayList<Metadata>(matchingReleases));
 	}
 }
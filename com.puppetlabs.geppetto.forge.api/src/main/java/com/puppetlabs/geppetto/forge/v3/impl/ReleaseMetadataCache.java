@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.forge.v3.impl;
+
+import static com.puppetlabs.geppetto.forge.model.Constants.UTF_8;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.puppetlabs.geppetto.common.annotations.Nullable;
+import com.puppetlabs.geppetto.forge.client.CacheValidators;
+import com.puppetlabs.geppetto.forge.model.Constants;
+import com.puppetlabs.geppetto.forge.model.Metadata;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.semver.Version;
+import com.puppetlabs.geppetto.semver.VersionIndex;
+
+/**
+ * A cache of the releases of modules. Recently used modules are kept in memory and, when a location has been bound to
+ * {@link Constants#METADATA_CACHE_LOCATION_NAME}, all modules are also stored on disk so that they survive between
+ * sessions. Each entry holds the HTTP validators of the response that it was created from so that a stale entry can
+ * be revalidated using a conditional request.
+ */
+@Singleton
+public class ReleaseMetadataCache {
+	static class Entry {
+		@Expose
+		private Metadata[] releases;
+
+		@Expose
+		private CacheValidators validators;
+
+		@Expose
+		private long validated;
+
+		private transient VersionIndex<Metadata> index;
+
+		Entry(Metadata[] releases, CacheValidators validators, long validated) {
+			this.releases = releases;
+			this.validators = validators;
+			this.validated = validated;
+		}
+
+		/**
+		 * @return The releases of the module indexed on their version. The index is created on first access
+		 */
+		VersionIndex<Metadata> getIndex() {
+			VersionIndex<Metadata> idx = index;
+			if(idx == null) {
+				Map<Version, Metadata> byVersion = new HashMap<Version, Metadata>(releases.length * 2);
+				for(Metadata release : releases)
+					byVersion.put(release.getVersion(), release);
+				index = idx = new VersionIndex<Metadata>(byVersion);
+			}
+			return idx;
+		}
+
+		Metadata[] getReleases() {
+			return releases;
+		}
+
+		long getValidated() {
+			return validated;
+		}
+
+		CacheValidators getValidators() {
+			return validators;
+		}
+
+		boolean isValid() {
+			if(releases == null)
+				return false;
+			for(Metadata release : releases)
+				if(release == null || release.getVersion() == null)
+					return false;
+			return true;
+		}
+	}
+
+	private static final String CACHE_FILE_SUFFIX = ".json";
+
+	@Inject(optional = true)
+	@Nullable
+	@Named(Constants.METADATA_CACHE_LOCATION_NAME)
+	private File location;
+
+	@Inject(optional = true)
+	@Named(Constants.METADATA_CACHE_TTL_NAME)
+	private long timeToLive = Constants.DEFAULT_METADATA_CACHE_TTL;
+
+	@Inject(optional = true)
+	@Named(Constants.METADATA_CACHE_SIZE_NAME)
+	private int maxEntriesInMemory = Constants.DEFAULT_METADATA_CACHE_SIZE;
+
+	@Inject(optional = true)
+	@Named(Constants.OFFLINE_NAME)
+	private boolean offline;
+
+	@Inject
+	private Gson gson;
+
+	private final Map<ModuleName, Entry> entries = new LinkedHashMap<ModuleName, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ModuleName, Entry> eldest) {
+			return size() > maxEntriesInMemory;
+		}
+	};
+
+	/**
+	 * Returns the cached entry for the given module. The entry is read from disk when it is not found in memory.
+	 *
+	 * @param name
+	 *            The name of the module
+	 * @return The entry or <code>null</code> if the module is not cached
+	 */
+	Entry get(ModuleName name) {
+		synchronized(entries) {
+			Entry entry = entries.get(name);
+			if(entry != null)
+				return entry;
+		}
+
+		Entry entry = read(name);
+		if(entry != null)
+			synchronized(entries) {
+				entries.put(name, entry);
+			}
+		return entry;
+	}
+
+	private File getFile(ModuleName name) {
+		return location == null
+			? null
+			: new File(location, name.toString('-') + CACHE_FILE_SUFFIX);
+	}
+
+	/**
+	 * @param entry
+	 *            The entry to check
+	 * @return <code>true</code> if the entry was validated within the time to live
+	 */
+	boolean isFresh(Entry entry) {
+		return System.currentTimeMillis() - entry.getValidated() < timeToLive;
+	}
+
+	/**
+	 * @return <code>true</code> if cached entries should be used regardless of their age
+	 */
+	boolean isOffline() {
+		return offline;
+	}
+
+	/**
+	 * Adds or replaces the entry for the given module in memory and on disk. Failure to write the entry to disk is
+	 * ignored since the entry can be fetched again.
+	 *
+	 * @param name
+	 *            The name of the module
+	 * @param entry
+	 *            The entry to cache
+	 */
+	void put(ModuleName name, Entry entry) {
+		synchronized(entries) {
+			entries.put(name, entry);
+		}
+		File file = getFile(name);
+		if(file != null)
+			try {
+				write(file, entry);
+			}
+			catch(IOException e) {
+				file.delete();
+			}
+	}
+
+	private Entry read(ModuleName name) {
+		File file = getFile(name);
+		if(file == null || !file.isFile())
+			return null;
+
+		try(Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8)) {
+			Entry entry = gson.fromJson(reader, Entry.class);
+			if(entry != null && entry.isValid())
+				return entry;
+		}
+		catch(IOException | JsonParseException e) {
+			// Treated as a cache miss
+		}
+		return null;
+	}
+
+	private void write(File file, Entry entry) throws IOException {
+		File dir = file.getParentFile();
+		if(!(dir.isDirectory() || dir.mkdirs()))
+			throw new IOException("Unable to create directory " + dir);
+
+		// Write to a temporary file first so that concurrent readers never see a partially written entry
+		File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		try {
+			try(Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), UTF_8)) {
+				gson.toJson(entry, writer);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			tmp.delete();
+		}
+	}
+}
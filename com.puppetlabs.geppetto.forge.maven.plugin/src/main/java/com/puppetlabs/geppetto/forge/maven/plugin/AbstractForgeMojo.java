@@ -95,6 +95,13 @@ public abstract class AbstractForgeMojo extends AbstractMojo {
 	@Parameter(defaultValue = "${session}", readonly = true)
 	private MavenSession session;
 
+	/**
+	 * The number of modules that are packaged or published concurrently when the modules root contains more than
+	 * one module
+	 */
+	@Parameter(property = "forge.workers", defaultValue = "1")
+	private int workers;
+
 	private transient File baseDir;
 
 	private transient File buildDir;
@@ -266,5 +273,9 @@ public abstract class AbstractForgeMojo extends AbstractMojo {
 		return injector.getInstance(ValidationService.class);
 	}
 
+	protected int getWorkers() {
+		return Math.max(1, workers);
+	}
+
 	protected abstract void invoke(Diagnostic result) throws Exception;
 }
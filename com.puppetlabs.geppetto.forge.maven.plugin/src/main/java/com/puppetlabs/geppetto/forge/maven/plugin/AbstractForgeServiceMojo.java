@@ -16,11 +16,14 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 
+import com.google.inject.AbstractModule;
 import com.google.inject.Module;
+import com.google.inject.name.Names;
 import com.puppetlabs.geppetto.diagnostic.Diagnostic;
 import com.puppetlabs.geppetto.forge.ForgeService;
 import com.puppetlabs.geppetto.forge.client.ForgeHttpModule;
 import com.puppetlabs.geppetto.forge.impl.ForgeServiceModule;
+import com.puppetlabs.geppetto.forge.model.Constants;
 
 public abstract class AbstractForgeServiceMojo extends AbstractForgeMojo {
 	/**
@@ -29,6 +32,16 @@ public abstract class AbstractForgeServiceMojo extends AbstractForgeMojo {
 	@Parameter(property = "forge.serviceURL", defaultValue = "https://forgeapi.puppetlabs.com/")
 	private String serviceURL;
 
+	/**
+	 * The number of seconds that release metadata obtained from the Puppet ForgeAPI server is used without asking the
+	 * server if it has been modified
+	 */
+	@Parameter(property = "forge.metadataCacheTTL", defaultValue = "3600")
+	private long metadataCacheTTL;
+
+	@Parameter(defaultValue = "${settings.offline}", readonly = true)
+	private boolean offline;
+
 	@Override
 	protected void addModules(Diagnostic diagnostic, List<Module> modules) {
 		super.addModules(diagnostic, modules);
@@ -39,6 +52,14 @@ public abstract class AbstractForgeServiceMojo extends AbstractForgeMojo {
 			}
 		});
 		modules.add(new ForgeServiceModule());
+		modules.add(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bindConstant().annotatedWith(Names.named(Constants.METADATA_CACHE_TTL_NAME)).to(metadataCacheTTL * 1000L);
+				bindConstant().annotatedWith(Names.named(Constants.OFFLINE_NAME)).to(offline);
+				bindConstant().annotatedWith(Names.named(Constants.MAX_CONCURRENT_UPLOADS_NAME)).to(getWorkers());
+			}
+		});
 	}
 
 	@Override
@@ -20,7 +20,14 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugins.annotations.Component;
@@ -41,9 +48,57 @@ public class Package extends AbstractForgeMojo {
 	@Component
 	private RepositorySystem repositorySystem;
 
+	/**
+	 * Builds all modules into the given directory using the configured number of workers. The diagnostics from each
+	 * build are added to the <code>result</code> in the order of the module roots.
+	 */
+	private void buildAll(Collection<File> moduleRoots, final File destination, Diagnostic result) throws Exception {
+		int workers = Math.min(getWorkers(), moduleRoots.size());
+		if(workers <= 1) {
+			for(File moduleRoot : moduleRoots)
+				buildForge(moduleRoot, destination, null, null, result);
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Diagnostic> moduleResults = new ArrayList<Diagnostic>(moduleRoots.size());
+			List<Future<File>> builds = new ArrayList<Future<File>>(moduleRoots.size());
+			for(final File moduleRoot : moduleRoots) {
+				final Diagnostic moduleResult = new Diagnostic();
+				moduleResults.add(moduleResult);
+				builds.add(executor.submit(new Callable<File>() {
+					@Override
+					public File call() throws Exception {
+						return buildForge(moduleRoot, destination, null, null, moduleResult);
+					}
+				}));
+			}
+
+			int top = builds.size();
+			for(int idx = 0; idx < top; ++idx) {
+				try {
+					builds.get(idx).get();
+				}
+				catch(ExecutionException e) {
+					Throwable cause = e.getCause();
+					if(cause instanceof Exception)
+						throw (Exception) cause;
+					throw e;
+				}
+				finally {
+					result.addChildren(moduleResults.get(idx).getChildren());
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private File buildForge(File moduleSource, File destination, Metadata[] resultingMetadata, byte[][] resultingMD5, Diagnostic result)
 			throws IOException {
-		return getForgeUtil().build(moduleSource, destination, null, resultingMetadata, resultingMD5, result);
+		return getForgeUtil().buildArchive(moduleSource, destination, null, resultingMetadata, resultingMD5, result);
 	}
 
 	@Override
@@ -95,8 +150,7 @@ public class Package extends AbstractForgeMojo {
 				result.addChild(new Diagnostic(ERROR, PACKAGE, "Unable to create directory" + builtModules.getPath()));
 				return;
 			}
-			for(File moduleRoot : moduleRoots)
-				buildForge(moduleRoot, builtModules, null, null, result);
+			buildAll(moduleRoots, builtModules, result);
 		}
 	}
 }
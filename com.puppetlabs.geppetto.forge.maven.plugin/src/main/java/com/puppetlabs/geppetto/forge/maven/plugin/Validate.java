@@ -31,6 +31,9 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.name.Names;
+import com.puppetlabs.geppetto.common.tracer.DefaultMetrics;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary;
+import com.puppetlabs.geppetto.common.tracer.NullMetrics;
 import com.puppetlabs.geppetto.diagnostic.Diagnostic;
 import com.puppetlabs.geppetto.diagnostic.FileDiagnostic;
 import com.puppetlabs.geppetto.forge.Forge;
@@ -46,6 +49,7 @@ import com.puppetlabs.geppetto.puppetlint.PuppetLintService;
 import com.puppetlabs.geppetto.validation.FileType;
 import com.puppetlabs.geppetto.validation.ValidationOptions;
 import com.puppetlabs.geppetto.validation.ValidationService;
+import com.puppetlabs.geppetto.validation.runner.BuildResult;
 import com.puppetlabs.geppetto.validation.runner.IEncodingProvider;
 import com.puppetlabs.geppetto.validation.runner.PPDiagnosticsSetup;
 import com.puppetlabs.geppetto.validation.runner.ValidationModule;
@@ -193,6 +197,13 @@ public class Validate extends AbstractForgeServiceMojo {
 	@Parameter(property = "forge.validation.interpolatedNonBraceEnclosedHyphens", defaultValue = "WARNING")
 	private ValidationPreference interpolatedNonBraceEnclosedHyphens = WARNING;
 
+	/**
+	 * Collect metrics for the linker, the validator and resource loading and print a summary when the validation has
+	 * completed.
+	 */
+	@Parameter(property = "forge.validation.metrics", defaultValue = "false")
+	private boolean metrics = false;
+
 	/**
 	 * How to validate a missing 'default' in switch type expressions i.e. 'case' and 'selector'
 	 */
@@ -217,6 +228,20 @@ public class Validate extends AbstractForgeServiceMojo {
 	@Parameter(property = "forge.validation.selectorDefaultShouldAppearLast", defaultValue = "IGNORE")
 	private ValidationPreference selectorDefaultShouldAppearLast = IGNORE;
 
+	/**
+	 * The number of threads to use when loading and validating manifests. Manifests are always linked by the calling
+	 * thread. A value of 1 means that all validation is performed by the calling thread.
+	 */
+	@Parameter(property = "forge.validation.threadCount", defaultValue = "1")
+	private int threadCount = 1;
+
+	/**
+	 * Directory where the outcome of validating manifests is cached between builds. Unchanged manifests that do not
+	 * reference changed exports are not linked and validated again. No cache is used when this is not set.
+	 */
+	@Parameter(property = "forge.validation.cacheDirectory")
+	private File validationCacheDirectory;
+
 	/**
 	 * How to validate unbraced interpolation.
 	 */
@@ -528,7 +553,9 @@ public class Validate extends AbstractForgeServiceMojo {
 					bind(File.class).annotatedWith(Names.named(Forge.CACHE_LOCATION)).toInstance(new File(cacheLocation));
 				}
 			});
-		modules.add(new ValidationModule());
+		modules.add(new ValidationModule(metrics
+			? new DefaultMetrics()
+			: NullMetrics.INSTANCE));
 	}
 
 	private Diagnostic convertPuppetLintDiagnostic(File moduleRoot, Issue issue) {
@@ -565,7 +592,10 @@ public class Validate extends AbstractForgeServiceMojo {
 			importedModuleLocations = Collections.emptyList();
 
 		ValidationOptions options = getValidationOptions(moduleLocations, importedModuleLocations);
-		getValidationService().validate(result, options, getModulesDir(), new NullProgressMonitor());
+		BuildResult buildResult = getValidationService().validate(result, options, getModulesDir(), new NullProgressMonitor());
+		MetricsSummary summary = buildResult.getMetricsSummary();
+		if(summary != null && !summary.isEmpty())
+			getLog().info("Validation metrics:\n" + summary);
 	}
 
 	@Override
@@ -609,6 +639,8 @@ public class Validate extends AbstractForgeServiceMojo {
 		options.setSearchPath(getSearchPath(moduleLocations, importedModuleLocations));
 		options.setProblemsAdvisor(potentialProblemsAdvisor);
 		options.setModuleValidationAdvisor(moduleValidationAdvisor);
+		options.setThreadCount(threadCount);
+		options.setCacheDirectory(validationCacheDirectory);
 		return options;
 	}
 
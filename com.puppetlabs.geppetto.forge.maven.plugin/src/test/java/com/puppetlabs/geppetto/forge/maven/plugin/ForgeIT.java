@@ -32,6 +32,7 @@ import com.puppetlabs.geppetto.semver.VersionRange;
 // @fmtOff
 @SuiteClasses({
 	ValidateTestMojo.class,
+	PackageTestMojo.class,
 //	PublishTestMojo.class,
 //	RepublishTestMojo.class,
 //	ValidateTest2Mojo.class,
@@ -0,0 +1,42 @@
+package com.puppetlabs.geppetto.forge.maven.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.forge.model.VersionedName;
+import com.puppetlabs.geppetto.forge.util.ModuleUtils;
+
+public class PackageTestMojo extends AbstractForgeTestMojo {
+	private String[] packageAll(Package pkg, int workers) throws Exception {
+		mojoRule.setVariableValueToObject(pkg, "workers", Integer.valueOf(workers));
+		File builtModules = new File(pkg.getBuildDir(), "builtModules");
+		FileUtils.rmR(builtModules);
+		pkg.execute();
+		String[] archives = builtModules.list();
+		assertTrue("No modules were built", archives != null);
+		Arrays.sort(archives);
+		return archives;
+	}
+
+	@Test
+	public void packageAllConcurrently() throws Exception {
+		String[] expected = new String[3];
+		int idx = 0;
+		for(VersionedName release : new VersionedName[] { ForgeIT.testModuleA, ForgeIT.testModuleB, ForgeIT.testModuleC }) {
+			StringBuilder bld = new StringBuilder();
+			ModuleUtils.buildFileNameWithExtension(release.getModuleName(), release.getVersion(), bld);
+			expected[idx++] = bld.toString();
+		}
+		Arrays.sort(expected);
+
+		Package pkg = getMojo(ForgeIT.TEST_MODULES_DIR, "package");
+		assertEquals("Unexpected modules built one at a time", Arrays.asList(expected), Arrays.asList(packageAll(pkg, 1)));
+		assertEquals("Unexpected modules built concurrently", Arrays.asList(expected), Arrays.asList(packageAll(pkg, 3)));
+	}
+}
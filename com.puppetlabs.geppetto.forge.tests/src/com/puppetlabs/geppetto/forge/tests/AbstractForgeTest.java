@@ -22,6 +22,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.util.Modules;
 import com.puppetlabs.geppetto.common.util.BundleAccess;
 import com.puppetlabs.geppetto.forge.Cache;
 import com.puppetlabs.geppetto.forge.Forge;
@@ -42,6 +43,18 @@ public class AbstractForgeTest {
 
 	private static File basedir;
 
+	/**
+	 * Creates an injector with the same bindings as the one used by {@link #getForge()} and friends, except for the
+	 * bindings of <code>overrides</code> that replace them.
+	 *
+	 * @param overrides
+	 *            The overriding bindings
+	 * @return The new injector
+	 */
+	public static Injector createInjector(Module overrides) {
+		return commonInjector.createChildInjector(Modules.override(getForgeModules()).with(overrides));
+	}
+
 	public static void delete(File fileOrDir) throws IOException {
 		File[] children = fileOrDir.listFiles();
 		if(children != null)
@@ -91,26 +104,30 @@ public class AbstractForgeTest {
 		return getInjector().getInstance(Gson.class);
 	}
 
+	private static Module[] getForgeModules() {
+		Module testBindings = new AbstractModule() {
+			@Override
+			protected void configure() {
+				try {
+					bind(File.class).annotatedWith(named(Forge.CACHE_LOCATION)).toInstance(getTestOutputFolder("cachefolder", true));
+				}
+				catch(IOException e) {
+					fail(e.getMessage());
+				}
+			}
+		};
+		return new Module[] { GsonModule.INSTANCE, new ForgeHttpModule() {
+			@Override
+			protected String doGetBaseURL() {
+				return System.getProperty("testForgeServiceURL", TEST_FORGE_URI);
+			}
+		}, new ForgeServiceModule(), new ForgeModule(), testBindings };
+	}
+
 	private synchronized static Injector getInjector() {
 		if(injector == null) {
-			Module testBindings = new AbstractModule() {
-				@Override
-				protected void configure() {
-					try {
-						bind(File.class).annotatedWith(named(Forge.CACHE_LOCATION)).toInstance(getTestOutputFolder("cachefolder", true));
-					}
-					catch(IOException e) {
-						fail(e.getMessage());
-					}
-				}
-			};
 			try {
-				injector = commonInjector.createChildInjector(GsonModule.INSTANCE, new ForgeHttpModule() {
-					@Override
-					protected String doGetBaseURL() {
-						return System.getProperty("testForgeServiceURL", TEST_FORGE_URI);
-					}
-				}, new ForgeServiceModule(), new ForgeModule(), testBindings);
+				injector = commonInjector.createChildInjector(getForgeModules());
 			}
 			catch(Exception e) {
 				e.printStackTrace();
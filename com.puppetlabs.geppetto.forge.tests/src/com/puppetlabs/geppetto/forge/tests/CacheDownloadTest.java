@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.forge.tests;
+
+import static com.google.inject.name.Names.named;
+import static com.puppetlabs.geppetto.diagnostic.Diagnostic.WARNING;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.forge.Cache;
+import com.puppetlabs.geppetto.forge.Forge;
+import com.puppetlabs.geppetto.forge.client.CacheValidators;
+import com.puppetlabs.geppetto.forge.model.Constants;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.forge.model.VersionedName;
+import com.puppetlabs.geppetto.forge.util.ChecksumUtils;
+import com.puppetlabs.geppetto.forge.v3.PaginationInfo;
+import com.puppetlabs.geppetto.forge.v3.ProgressMonitor;
+import com.puppetlabs.geppetto.forge.v3.Releases;
+import com.puppetlabs.geppetto.forge.v3.SortBy;
+import com.puppetlabs.geppetto.forge.v3.Visitor;
+import com.puppetlabs.geppetto.forge.v3.model.PaginatedResult;
+import com.puppetlabs.geppetto.forge.v3.model.Release;
+import com.puppetlabs.geppetto.semver.Version;
+
+/**
+ * Tests the download of releases into a {@link Cache} against file and release services that serve generated content
+ * instead of contacting the Forge.
+ */
+public class CacheDownloadTest extends AbstractForgeTest {
+	/**
+	 * Serves generated content for each release and records the downloads.
+	 */
+	private static class RecordingFiles implements com.puppetlabs.geppetto.forge.v3.Files {
+		private final Map<VersionedName, AtomicInteger> downloads = new HashMap<VersionedName, AtomicInteger>();
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		private final AtomicInteger maxActive = new AtomicInteger();
+
+		private final CountDownLatch allStarted;
+
+		RecordingFiles(int expectedConcurrentDownloads) {
+			allStarted = new CountDownLatch(expectedConcurrentDownloads);
+		}
+
+		@Override
+		public InputStream download(VersionedName release) throws IOException {
+			return new ByteArrayInputStream(getContent(release));
+		}
+
+		@Override
+		public void download(VersionedName release, OutputStream output) throws IOException {
+			int current = active.incrementAndGet();
+			try {
+				synchronized(this) {
+					AtomicInteger count = downloads.get(release);
+					if(count == null) {
+						count = new AtomicInteger();
+						downloads.put(release, count);
+					}
+					count.incrementAndGet();
+					if(current > maxActive.get())
+						maxActive.set(current);
+				}
+
+				// Wait until the expected number of downloads are running. Downloads that are made one at a time
+				// will time out here instead.
+				allStarted.countDown();
+				try {
+					allStarted.await(10, TimeUnit.SECONDS);
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				output.write(getContent(release));
+			}
+			finally {
+				active.decrementAndGet();
+			}
+		}
+
+		synchronized int getDownloads(VersionedName release) {
+			AtomicInteger count = downloads.get(release);
+			return count == null
+				? 0
+				: count.get();
+		}
+	}
+
+	/**
+	 * Provides the checksums of the releases. Releases without a checksum cannot be obtained from this service.
+	 */
+	private static class StubReleases implements Releases {
+		private final Map<VersionedName, String> checksums = new HashMap<VersionedName, String>();
+
+		@Override
+		public void abortCurrentRequest() {
+		}
+
+		@Override
+		public void accept(Query<Release> query, SortBy<Release> sortBy, boolean includeDeleted, Visitor<Release> visitor,
+				ProgressMonitor progressMonitor) throws IOException, InvocationTargetException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Release get(URI uri) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public synchronized Release get(VersionedName id) throws IOException {
+			String checksum = checksums.get(id);
+			if(checksum == null)
+				throw new IOException("Release " + id + " not found");
+			Release release = new Release();
+			release.setFileMD5(checksum);
+			return release;
+		}
+
+		@Override
+		public PaginatedResult<Release> list(Query<Release> query, SortBy<Release> sortBy, PaginationInfo pagination,
+				boolean includeDeleted) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Release> listAll(Query<Release> query, SortBy<Release> sortBy, boolean includeDeleted) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public PaginatedResult<Release> listIfModified(Query<Release> query, SortBy<Release> sortBy, PaginationInfo pagination,
+				boolean includeDeleted, CacheValidators validators) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		synchronized void setChecksum(VersionedName release, String checksum) {
+			checksums.put(release, checksum);
+		}
+	}
+
+	private static void assertNoLeftovers(File cacheDir) {
+		for(String name : cacheDir.list())
+			assertFalse("Leftover file " + name, name.endsWith(".lock") || name.endsWith(".part"));
+	}
+
+	private static byte[] getContent(VersionedName release) {
+		return ("Content of " + release).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String getMD5(VersionedName release) {
+		return ChecksumUtils.toHexString(ChecksumUtils.getMessageDigest().digest(getContent(release)));
+	}
+
+	private static VersionedName release(String name, String version) {
+		return new VersionedName(ModuleName.fromString(name), Version.fromString(version));
+	}
+
+	private Cache createCache(final RecordingFiles files, final StubReleases releases, final File cacheDir, final int maxConcurrentDownloads) {
+		return createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(com.puppetlabs.geppetto.forge.v3.Files.class).toInstance(files);
+				bind(Releases.class).toInstance(releases);
+				bind(File.class).annotatedWith(named(Forge.CACHE_LOCATION)).toInstance(cacheDir);
+				bindConstant().annotatedWith(named(Constants.MAX_CONCURRENT_REQUESTS_NAME)).to(maxConcurrentDownloads);
+			}
+		}).getInstance(Cache.class);
+	}
+
+	@Test
+	public void checksumMismatch() throws Exception {
+		VersionedName release = release("geppetto-corrupt", "1.0.0");
+		RecordingFiles files = new RecordingFiles(1);
+		StubReleases releases = new StubReleases();
+		releases.setChecksum(release, getMD5(release("geppetto-other", "1.0.0")));
+		File cacheDir = getTestOutputFolder("cache-checksum-mismatch", true);
+		Cache cache = createCache(files, releases, cacheDir, 1);
+
+		try {
+			cache.retrieve(release.getModuleName(), release.getVersion());
+			fail("A download that does not match its checksum should be rejected");
+		}
+		catch(IOException e) {
+			assertTrue("Unexpected message: " + e.getMessage(), e.getMessage().startsWith("Checksum mismatch"));
+		}
+		for(String name : cacheDir.list())
+			assertFalse("Rejected download was cached as " + name, name.endsWith(".tar.gz"));
+
+		// The rejected file is downloaded again on the next request
+		releases.setChecksum(release, getMD5(release));
+		File file = cache.retrieve(release.getModuleName(), release.getVersion());
+		assertArrayEquals("Unexpected content", getContent(release), Files.readAllBytes(file.toPath()));
+		assertEquals("Unexpected number of downloads", 2, files.getDownloads(release));
+		assertNoLeftovers(cacheDir);
+	}
+
+	@Test
+	public void retrieveAllConcurrently() throws Exception {
+		List<VersionedName> toRetrieve = Arrays.asList(
+			release("geppetto-a", "1.0.0"), release("geppetto-b", "1.2.0"), release("geppetto-c", "2.0.0"));
+		RecordingFiles files = new RecordingFiles(3);
+		StubReleases releases = new StubReleases();
+		for(VersionedName release : toRetrieve)
+			releases.setChecksum(release, getMD5(release));
+		File cacheDir = getTestOutputFolder("cache-retrieve-all", true);
+		Cache cache = createCache(files, releases, cacheDir, 3);
+
+		Diagnostic result = new Diagnostic();
+		List<File> retrieved = cache.retrieveAll(toRetrieve, result);
+		assertEquals("Unexpected warnings: " + result, 0, result.getChildren().size());
+		assertEquals("Downloads were not made concurrently", 3, files.maxActive.get());
+		assertEquals("Unexpected number of files", toRetrieve.size(), retrieved.size());
+		for(int idx = 0; idx < toRetrieve.size(); ++idx) {
+			VersionedName release = toRetrieve.get(idx);
+			assertArrayEquals(
+				"Files are not returned in the order of the releases", getContent(release),
+				Files.readAllBytes(retrieved.get(idx).toPath()));
+		}
+		assertNoLeftovers(cacheDir);
+
+		// Cached files are not downloaded again
+		assertEquals("Cached files should be reused", retrieved, cache.retrieveAll(toRetrieve, result));
+		for(VersionedName release : toRetrieve)
+			assertEquals("Unexpected number of downloads of " + release, 1, files.getDownloads(release));
+	}
+
+	@Test
+	public void unverifiedDownload() throws Exception {
+		VersionedName verified = release("geppetto-verified", "1.0.0");
+		VersionedName unverified = release("geppetto-unverified", "1.0.0");
+		RecordingFiles files = new RecordingFiles(1);
+		StubReleases releases = new StubReleases();
+		releases.setChecksum(verified, getMD5(verified));
+		File cacheDir = getTestOutputFolder("cache-unverified", true);
+		Cache cache = createCache(files, releases, cacheDir, 2);
+
+		Diagnostic result = new Diagnostic();
+		List<File> retrieved = cache.retrieveAll(Arrays.asList(verified, unverified), result);
+		assertArrayEquals("Unexpected content", getContent(unverified), Files.readAllBytes(retrieved.get(1).toPath()));
+
+		List<Diagnostic> warnings = new ArrayList<Diagnostic>(result.getChildren());
+		assertEquals("Expected one warning: " + result, 1, warnings.size());
+		assertEquals(WARNING, warnings.get(0).getSeverity());
+		assertTrue("Warning should name the release", warnings.get(0).getMessage().contains(unverified.toString()));
+		assertNoLeftovers(cacheDir);
+	}
+}
@@ -22,6 +22,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	ForgeUtilTest.class,
 	ForgeTest.class,
 	ForgeServiceTest.class,
+	PublishTest.class,
+	CacheDownloadTest.class,
 	MetadataTest.class,
 	ModuleUtilsTest.class,
 	TypeTest.class,
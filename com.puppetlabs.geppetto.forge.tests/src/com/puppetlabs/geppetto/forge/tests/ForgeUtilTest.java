@@ -14,15 +14,27 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -77,6 +89,72 @@ public class ForgeUtilTest extends AbstractForgeTest {
 		}
 	}
 
+	@Test
+	public void buildArchive() throws Exception {
+		File installFolder = getTestOutputFolder("apache-archive-install", true);
+		File copyResultFolder = getTestOutputFolder("apache-archive-copy-result", true);
+		File resultFolder = getTestOutputFolder("apache-archive-result", true);
+		FileUtils.cpR(getTestData("puppetlabs-apache"), installFolder, FileUtils.DEFAULT_FILE_FILTER, false, true);
+		fixture.build(installFolder, copyResultFolder, null, null, null, new Diagnostic());
+
+		Metadata[] mdHandle = new Metadata[1];
+		byte[][] md5Handle = new byte[1][];
+		File builtArchive = fixture.buildArchive(installFolder, resultFolder, null, mdHandle, md5Handle, new Diagnostic());
+		Metadata md = mdHandle[0];
+		String archiveName = md.getName().toString() + '-' + md.getVersion();
+		assertEquals("Unexpected archive", new File(resultFolder, archiveName + ".tar.gz"), builtArchive);
+		assertTrue("No MD5 was computed", md5Handle[0] != null);
+		assertFalse("Module was copied", new File(resultFolder, archiveName).exists());
+
+		File unpackFolder = getTestOutputFolder("apache-archive-unpack-result", true);
+		TarUtils.unpackGZ(new FileInputStream(builtArchive), unpackFolder, false);
+		File unpackedModule = new File(unpackFolder, archiveName);
+		assertTrue("Archive doesn't contain the expected top folder", unpackedModule.isDirectory());
+		assertTrue("Unexpected changes", fixture.changes(unpackedModule, null).isEmpty());
+
+		Map<String, byte[]> expected = fixture.loadJSONChecksums(new File(new File(copyResultFolder, archiveName),
+			Forge.CHECKSUMS_JSON_NAME));
+		Map<String, byte[]> actual = fixture.loadJSONChecksums(new File(unpackedModule, Forge.CHECKSUMS_JSON_NAME));
+		assertEquals("Checksummed files differ", expected.keySet(), actual.keySet());
+		for(Map.Entry<String, byte[]> entry : expected.entrySet())
+			assertTrue("Checksum of " + entry.getKey() + " differs", Arrays.equals(entry.getValue(), actual.get(entry.getKey())));
+	}
+
+	@Test
+	public void buildArchiveWithSymlinks() throws Exception {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+		String testModule = "puppetlabs-vcsrepo-1.0.1";
+		File installFolder = getTestOutputFolder("symlink-archive-install", true);
+		File copyResultFolder = getTestOutputFolder("symlink-archive-copy-result", true);
+		File resultFolder = getTestOutputFolder("symlink-archive-result", true);
+		FileUtils.cpR(getTestData(testModule), installFolder, FileUtils.DEFAULT_FILE_FILTER, false, true);
+		Files.createSymbolicLink(new File(installFolder, "README.link").toPath(), Paths.get("README.markdown"));
+		Files.createSymbolicLink(new File(installFolder, "examples.link").toPath(), Paths.get("examples"));
+		fixture.build(installFolder, copyResultFolder, null, null, null, new Diagnostic());
+
+		Metadata[] mdHandle = new Metadata[1];
+		File builtArchive = fixture.buildArchive(installFolder, resultFolder, null, mdHandle, null, new Diagnostic());
+		Metadata md = mdHandle[0];
+		String archiveName = md.getName().toString() + '-' + md.getVersion();
+
+		File unpackFolder = getTestOutputFolder("symlink-archive-unpack-result", true);
+		TarUtils.unpackGZ(new FileInputStream(builtArchive), unpackFolder, false);
+		File unpackedModule = new File(unpackFolder, archiveName);
+		Path fileLink = new File(unpackedModule, "README.link").toPath();
+		Path dirLink = new File(unpackedModule, "examples.link").toPath();
+		assertTrue("File link was not archived as a link", Files.isSymbolicLink(fileLink));
+		assertEquals("Unexpected file link target", Paths.get("README.markdown"), Files.readSymbolicLink(fileLink));
+		assertTrue("Directory link was not archived as a link", Files.isSymbolicLink(dirLink));
+		assertEquals("Unexpected directory link target", Paths.get("examples"), Files.readSymbolicLink(dirLink));
+
+		Map<String, byte[]> expected = fixture.loadJSONChecksums(new File(new File(copyResultFolder, archiveName),
+			Forge.CHECKSUMS_JSON_NAME));
+		Map<String, byte[]> actual = fixture.loadJSONChecksums(new File(unpackedModule, Forge.CHECKSUMS_JSON_NAME));
+		assertEquals("Checksummed files differ", expected.keySet(), actual.keySet());
+		assertFalse("Link was checksummed", actual.containsKey("README.link"));
+	}
+
 	@Test
 	public void changes() throws Exception {
 		String testModule = "puppetlabs-vcsrepo-1.0.1";
@@ -158,4 +236,66 @@ public class ForgeUtilTest extends AbstractForgeTest {
 		fixture = getForgeUtil();
 	}
 
+	@Test
+	public void unpackGZ() throws Exception {
+		File installFolder = getTestOutputFolder("unpack-gz-install", true);
+		File resultFolder = getTestOutputFolder("unpack-gz-result", true);
+		File unpackFolder = getTestOutputFolder("unpack-gz-unpacked", true);
+		String testModule = "puppetlabs-vcsrepo-1.0.1";
+		File moduleFolder = new File(installFolder, testModule);
+		FileUtils.cpR(getTestData(testModule), moduleFolder, FileUtils.DEFAULT_FILE_FILTER, false, true);
+
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+		File metadataJSON = new File(moduleFolder, Forge.METADATA_JSON_NAME);
+		if(posix)
+			Files.setPosixFilePermissions(metadataJSON.toPath(), PosixFilePermissions.fromString("rwxr-x---"));
+
+		File archive = new File(resultFolder, testModule + ".tar.gz");
+		OutputStream output = new GZIPOutputStream(new FileOutputStream(archive));
+		try {
+			TarUtils.pack(moduleFolder, output, true);
+		}
+		finally {
+			StreamUtil.close(output);
+		}
+
+		TarUtils.unpackGZ(new FileInputStream(archive), unpackFolder, true);
+		File unpackedJSON = new File(unpackFolder, Forge.METADATA_JSON_NAME);
+		assertTrue("Unpacked archive lacks metadata.json", unpackedJSON.isFile());
+		assertTrue("Unpacked file differs from packed file",
+			Arrays.equals(Files.readAllBytes(metadataJSON.toPath()), Files.readAllBytes(unpackedJSON.toPath())));
+		if(posix)
+			assertEquals("Permissions were not preserved", "rwxr-x---",
+				PosixFilePermissions.toString(Files.getPosixFilePermissions(unpackedJSON.toPath())));
+	}
+
+	@Test
+	public void unpackTruncatedGZ() throws Exception {
+		File installFolder = getTestOutputFolder("unpack-truncated-gz-install", true);
+		File resultFolder = getTestOutputFolder("unpack-truncated-gz-result", true);
+		File unpackFolder = getTestOutputFolder("unpack-truncated-gz-unpacked", true);
+		String testModule = "puppetlabs-vcsrepo-1.0.1";
+		File moduleFolder = new File(installFolder, testModule);
+		FileUtils.cpR(getTestData(testModule), moduleFolder, FileUtils.DEFAULT_FILE_FILTER, false, true);
+
+		ByteArrayOutputStream bld = new ByteArrayOutputStream();
+		OutputStream output = new GZIPOutputStream(bld);
+		try {
+			TarUtils.pack(moduleFolder, output, true);
+		}
+		finally {
+			StreamUtil.close(output);
+		}
+
+		// Cut the archive in the middle so that the tar reader sees a premature end of input
+		byte[] archive = bld.toByteArray();
+		byte[] truncated = Arrays.copyOf(archive, archive.length / 2);
+		try {
+			TarUtils.unpackGZ(new ByteArrayInputStream(truncated), unpackFolder, true);
+			fail("Unpack of a truncated archive did not fail");
+		}
+		catch(EOFException e) {
+			// Expected
+		}
+	}
 }
@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.forge.tests;
+
+import static com.google.inject.name.Names.named;
+import static com.puppetlabs.geppetto.diagnostic.Diagnostic.ERROR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipException;
+
+import org.apache.http.client.HttpResponseException;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.forge.Forge;
+import com.puppetlabs.geppetto.forge.ForgeService;
+import com.puppetlabs.geppetto.forge.model.Constants;
+import com.puppetlabs.geppetto.forge.model.Dependency;
+import com.puppetlabs.geppetto.forge.model.Metadata;
+import com.puppetlabs.geppetto.forge.model.MetadataRepository;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.forge.v2.model.Release;
+import com.puppetlabs.geppetto.forge.v2.service.ReleaseService;
+import com.puppetlabs.geppetto.semver.Version;
+
+/**
+ * Tests publishing of several modules against a release service that records the uploads instead of performing them.
+ */
+public class PublishTest extends AbstractForgeTest {
+	/**
+	 * A repository where no module has been published
+	 */
+	private static class EmptyRepository implements MetadataRepository {
+		@Override
+		public Collection<Metadata> deepResolve(Dependency dependency, Set<Dependency> unresolvedCollector) {
+			unresolvedCollector.add(dependency);
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void prefetch(Collection<Dependency> dependencies) {
+		}
+
+		@Override
+		public Metadata resolve(Dependency dependency) {
+			return null;
+		}
+
+		@Override
+		public Metadata resolve(ModuleName name, Version version) {
+			return null;
+		}
+	}
+
+	private static class RecordingReleaseService implements ReleaseService {
+		private final Map<String, LinkedList<IOException>> failures = new HashMap<String, LinkedList<IOException>>();
+
+		private final List<String> attempts = new ArrayList<String>();
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		private final AtomicInteger maxActive = new AtomicInteger();
+
+		private final CountDownLatch allStarted;
+
+		RecordingReleaseService(int expectedConcurrentUploads) {
+			allStarted = new CountDownLatch(expectedConcurrentUploads);
+		}
+
+		@Override
+		public void abortCurrentRequest() {
+		}
+
+		@Override
+		public Release create(String owner, String name, String notes, InputStream gzipFile, long fileSize) throws IOException {
+			int current = active.incrementAndGet();
+			try {
+				synchronized(this) {
+					attempts.add(name);
+					if(current > maxActive.get())
+						maxActive.set(current);
+				}
+
+				// Wait until the expected number of uploads are running. Uploads that are made one at a time will
+				// time out here instead.
+				allStarted.countDown();
+				try {
+					allStarted.await(10, TimeUnit.SECONDS);
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				IOException failure;
+				synchronized(this) {
+					LinkedList<IOException> moduleFailures = failures.get(name);
+					failure = moduleFailures == null
+						? null
+						: moduleFailures.poll();
+				}
+				if(failure != null)
+					throw failure;
+				return new Release();
+			}
+			finally {
+				active.decrementAndGet();
+			}
+		}
+
+		synchronized void failWith(String name, IOException... exceptions) {
+			failures.put(name, new LinkedList<IOException>(Arrays.asList(exceptions)));
+		}
+
+		synchronized int getAttempts(String name) {
+			return Collections.frequency(attempts, name);
+		}
+	}
+
+	private static List<String> getUploadedNames(Diagnostic result) {
+		List<String> uploaded = new ArrayList<String>();
+		for(Diagnostic d : result.getChildren()) {
+			String msg = d.getMessage();
+			if(msg.endsWith(" has been uploaded"))
+				uploaded.add(msg);
+		}
+		return uploaded;
+	}
+
+	private File[] buildModules(Forge forge, String testName, String... names) throws IOException {
+		File sourceFolder = getTestOutputFolder(testName + "-source", true);
+		File resultFolder = getTestOutputFolder(testName + "-result", true);
+		File[] archives = new File[names.length];
+		for(int idx = 0; idx < names.length; ++idx) {
+			File moduleFolder = new File(sourceFolder, names[idx]);
+			new File(moduleFolder, "manifests").mkdirs();
+			try (PrintStream md = new PrintStream(new FileOutputStream(new File(moduleFolder, Forge.METADATA_JSON_NAME)), false, "UTF-8")) {
+				md.print("{\n  \"name\": \"geppetto-" + names[idx] + "\",\n  \"version\": \"1.0.0\",\n  \"author\": \"geppetto\",\n" +
+					"  \"license\": \"Apache-2.0\",\n  \"summary\": \"Publish test\",\n  \"source\": \"http://example.com\",\n" +
+					"  \"dependencies\": []\n}\n");
+			}
+			try (PrintStream init = new PrintStream(new FileOutputStream(new File(moduleFolder, "manifests/init.pp")), false, "UTF-8")) {
+				init.print("class " + names[idx] + " {\n}\n");
+			}
+			Diagnostic result = new Diagnostic();
+			archives[idx] = forge.buildArchive(moduleFolder, resultFolder, null, null, null, result);
+			assertTrue("Unable to build " + names[idx], result.getSeverity() < ERROR && archives[idx] != null);
+		}
+		return archives;
+	}
+
+	private Injector createPublishInjector(final ReleaseService releaseService, final int maxConcurrentUploads) {
+		return createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(ReleaseService.class).toInstance(releaseService);
+				bind(MetadataRepository.class).toInstance(new EmptyRepository());
+				bindConstant().annotatedWith(named(Constants.MAX_CONCURRENT_UPLOADS_NAME)).to(maxConcurrentUploads);
+				bindConstant().annotatedWith(named(Constants.UPLOAD_RETRY_COUNT_NAME)).to(2);
+				bindConstant().annotatedWith(named(Constants.UPLOAD_RETRY_DELAY_NAME)).to(1L);
+			}
+		});
+	}
+
+	@Test
+	public void publishAllConcurrently() throws Exception {
+		RecordingReleaseService releaseService = new RecordingReleaseService(3);
+		Injector injector = createPublishInjector(releaseService, 3);
+		File[] archives = buildModules(injector.getInstance(Forge.class), "publish-concurrently", "pub_a", "pub_b", "pub_c");
+
+		Diagnostic result = new Diagnostic();
+		injector.getInstance(ForgeService.class).publishAll(archives, false, result);
+		assertTrue("Publishing failed: " + result, result.getSeverity() < ERROR);
+		assertEquals("Uploads were not made concurrently", 3, releaseService.maxActive.get());
+
+		// The outcome is reported in the order of the archives regardless of the order of completion
+		List<String> expected = new ArrayList<String>();
+		for(File archive : archives)
+			expected.add("Module file " + archive.getName() + " has been uploaded");
+		assertEquals("Unexpected order of results", expected, getUploadedNames(result));
+	}
+
+	@Test
+	public void publishDoesNotRetryPermanentFailures() throws Exception {
+		RecordingReleaseService releaseService = new RecordingReleaseService(1);
+		releaseService.failWith("fail_a", new ZipException("invalid entry size"));
+		releaseService.failWith("fail_b", new HttpResponseException(403, "Forbidden"));
+		Injector injector = createPublishInjector(releaseService, 1);
+		Forge forge = injector.getInstance(Forge.class);
+		ForgeService forgeService = injector.getInstance(ForgeService.class);
+
+		for(File archive : buildModules(forge, "publish-no-retry", "fail_a", "fail_b")) {
+			Diagnostic result = new Diagnostic();
+			forgeService.publishAll(new File[] { archive }, false, result);
+			assertEquals("Publishing of " + archive.getName() + " should fail", ERROR, result.getSeverity());
+		}
+		assertEquals("Corrupt archive was retried", 1, releaseService.getAttempts("fail_a"));
+		assertEquals("Rejected request was retried", 1, releaseService.getAttempts("fail_b"));
+	}
+
+	@Test
+	public void publishRetriesAreLimited() throws Exception {
+		RecordingReleaseService releaseService = new RecordingReleaseService(1);
+		releaseService.failWith("retry_b", new HttpResponseException(500, "Internal Server Error"), new HttpResponseException(
+			429, "Too Many Requests"), new HttpResponseException(502, "Bad Gateway"));
+		Injector injector = createPublishInjector(releaseService, 1);
+		File[] archives = buildModules(injector.getInstance(Forge.class), "publish-retry-limit", "retry_b");
+
+		Diagnostic result = new Diagnostic();
+		injector.getInstance(ForgeService.class).publishAll(archives, false, result);
+		assertEquals("Publishing should fail after the last retry", ERROR, result.getSeverity());
+		assertEquals("Unexpected number of attempts", 3, releaseService.getAttempts("retry_b"));
+	}
+
+	@Test
+	public void publishRetriesTransientFailures() throws Exception {
+		RecordingReleaseService releaseService = new RecordingReleaseService(1);
+		releaseService.failWith("retry_a", new HttpResponseException(503, "Service Unavailable"), new ConnectException(
+			"Connection refused"));
+		Injector injector = createPublishInjector(releaseService, 1);
+		File[] archives = buildModules(injector.getInstance(Forge.class), "publish-retry", "retry_a");
+
+		Diagnostic result = new Diagnostic();
+		injector.getInstance(ForgeService.class).publishAll(archives, false, result);
+		assertTrue("Publishing failed: " + result, result.getSeverity() < ERROR);
+		assertEquals("Transient failures were not retried", 3, releaseService.getAttempts("retry_a"));
+		assertEquals("Module was not uploaded", 1, getUploadedNames(result).size());
+	}
+}
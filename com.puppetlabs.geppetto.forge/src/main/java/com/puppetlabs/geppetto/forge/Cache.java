@@ -12,8 +12,11 @@ package com.puppetlabs.geppetto.forge;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.forge.model.VersionedName;
 import com.puppetlabs.geppetto.semver.Version;
 
 /**
@@ -46,4 +49,18 @@ public interface Cache {
 	 * @throws IOException
 	 */
 	File retrieve(ModuleName qname, Version version) throws IOException;
+
+	/**
+	 * Retrieve the files for all given releases. Files that are not found
+	 * locally are downloaded concurrently.
+	 *
+	 * @param releases
+	 *            The releases to retrieve
+	 * @param result
+	 *            Receives warnings about downloads that could not be verified
+	 * @return The files in the same order as the releases
+	 * @throws IOException
+	 *             if any of the files could not be retrieved
+	 */
+	List<File> retrieveAll(List<VersionedName> releases, Diagnostic result) throws IOException;
 }
@@ -75,6 +75,32 @@ public interface Forge {
 	File build(File moduleSource, File destination, FileFilter filter, Metadata[] resultingMetadata, byte[][] resultingMD5,
 			Diagnostic result) throws IOException;
 
+	/**
+	 * Build a module for release directly into a gzipped tar file (.tar.gz) archive. The archive has the same content
+	 * as the one produced by {@link #build(File, File, FileFilter, Metadata[], byte[][], Diagnostic)} but no copy of
+	 * the module is created. Each file of the module is read once and the checksums are computed while the file is
+	 * written to the archive.
+	 *
+	 * @param moduleSource
+	 *            The module directory
+	 * @param destination
+	 *            The directory where the created archive will end up. Created if necessary.
+	 * @param filter
+	 *            The filter that is used for selecting the files. Can be null in which case the injected
+	 *            filter annotated by {@link Named @Named}({@link #MODULE_FILE_FILTER}) will be used.
+	 * @param resultingMetadata
+	 *            A one element array that will receive the resulting metadata. Can be <tt>null</tt>.
+	 * @param resultingMD5
+	 *            A one element array that will receive the resulting MD5 digest of the file. Can be <tt>null</tt>.
+	 * @param result
+	 *            diagnostics generated during extraction
+	 * @return The resulting gzipped tar file or <code>null</code> if extraction could not be performed. When that
+	 *         happens, the result will contain the reason.
+	 * @throws IOException
+	 */
+	File buildArchive(File moduleSource, File destination, FileFilter filter, Metadata[] resultingMetadata, byte[][] resultingMD5,
+			Diagnostic result) throws IOException;
+
 	/**
 	 * List modified files in an installed module
 	 *
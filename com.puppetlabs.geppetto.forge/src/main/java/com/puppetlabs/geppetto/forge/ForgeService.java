@@ -114,6 +114,13 @@ public interface ForgeService {
 	 * Publish all gzipped module tarballs found under <tt>builtModulesDir</tt>. Report progress on the
 	 * provided <tt>result</tt> diagnostic. The caller must check the severity of the <tt>result</tt> after this call
 	 * has completed.
+	 * <p>
+	 * The tarballs are uploaded one at a time and publishing stops at the first error unless a number greater than
+	 * one has been bound to {@link com.puppetlabs.geppetto.forge.model.Constants#MAX_CONCURRENT_UPLOADS_NAME}. In that
+	 * case, the tarballs are uploaded concurrently and all of them are attempted. The outcome of each upload is always
+	 * added to the <tt>result</tt> in the order of the given tarballs. Uploads that fail due to server or connection
+	 * problems are retried.
+	 * </p>
 	 *
 	 * @param moduleTarballs
 	 *            Module tarballs to be published.
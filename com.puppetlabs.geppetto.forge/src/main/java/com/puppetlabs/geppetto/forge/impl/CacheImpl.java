@@ -10,29 +10,62 @@
  */
 package com.puppetlabs.geppetto.forge.impl;
 
+import static com.puppetlabs.geppetto.diagnostic.Diagnostic.WARNING;
 import static com.puppetlabs.geppetto.forge.Forge.CACHE_LOCATION;
+import static com.puppetlabs.geppetto.forge.Forge.FORGE;
 import static com.puppetlabs.geppetto.forge.model.Constants.API_V2_URL_NAME;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.puppetlabs.geppetto.common.annotations.Nullable;
 import com.puppetlabs.geppetto.common.os.StreamUtil;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
 import com.puppetlabs.geppetto.forge.Cache;
+import com.puppetlabs.geppetto.forge.model.Constants;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
 import com.puppetlabs.geppetto.forge.model.VersionedName;
 import com.puppetlabs.geppetto.forge.util.ChecksumUtils;
 import com.puppetlabs.geppetto.forge.util.ModuleUtils;
 import com.puppetlabs.geppetto.forge.v3.Files;
+import com.puppetlabs.geppetto.forge.v3.Releases;
+import com.puppetlabs.geppetto.forge.v3.model.Release;
 import com.puppetlabs.geppetto.semver.Version;
 
+/**
+ * A cache that downloads each file to a temporary file, verifies it against the checksum published by the Forge, and
+ * then atomically renames it into place. A file lock next to the cached file makes processes that share the cache
+ * share one download. The lock file is removed when the download is done. A process that created a new lock file
+ * while the old one was removed may then download the same file again, which is harmless since the cached file is
+ * always replaced atomically.
+ */
 @Singleton
 class CacheImpl implements Cache {
+	private static final String LOCK_SUFFIX = ".lock";
+
+	private static final String PARTIAL_SUFFIX = ".part";
+
 	private static void delete(File fileOrDir) throws IOException {
 		File[] children = fileOrDir.listFiles();
 		if(children != null)
@@ -42,9 +75,25 @@ class CacheImpl implements Cache {
 			throw new IOException("Unable to delete " + fileOrDir);
 	}
 
+	private static boolean isComplete(File cachedFile) {
+		return cachedFile.isFile() && cachedFile.length() > 0;
+	}
+
 	@Inject
 	private Files files;
 
+	@Inject
+	private Releases releaseService;
+
+	@Inject(optional = true)
+	@Named(Constants.MAX_CONCURRENT_REQUESTS_NAME)
+	private int maxConcurrentDownloads = Constants.DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+	/**
+	 * File locks are held on behalf of the whole JVM so threads must also be serialized per file.
+	 */
+	private final ConcurrentMap<String, Object> downloadMonitors = new ConcurrentHashMap<String, Object>();
+
 	private transient String cacheKey;
 
 	@Inject(optional = true)
@@ -90,28 +139,163 @@ class CacheImpl implements Cache {
 		return location;
 	}
 
+	/**
+	 * Downloads the given release to a temporary file in the directory of <code>cachedFile</code>. The download is
+	 * verified against the MD5 checksum that the Forge provides for the release before it is renamed to
+	 * <code>cachedFile</code>. When no checksum can be obtained, the download is used without verification and a
+	 * warning is added to <code>result</code>.
+	 */
+	private void download(VersionedName release, File cachedFile, Diagnostic result) throws IOException {
+		String expectedMD5 = null;
+		String reason = "the Forge does not provide one";
+		try {
+			Release releaseInfo = releaseService.get(release);
+			if(releaseInfo != null)
+				expectedMD5 = releaseInfo.getFileMD5();
+		}
+		catch(IOException e) {
+			reason = e.getMessage();
+		}
+		if(expectedMD5 == null)
+			result.addChild(new Diagnostic(WARNING, FORGE, "Unable to obtain a checksum for " + release + " (" + reason +
+				"). The download will not be verified"));
+
+		File dir = cachedFile.getParentFile();
+		File tmp = File.createTempFile(cachedFile.getName(), PARTIAL_SUFFIX, dir);
+		try {
+			MessageDigest md = ChecksumUtils.getMessageDigest();
+			OutputStream output = new DigestOutputStream(new FileOutputStream(tmp), md);
+			try {
+				files.download(release, output);
+			}
+			finally {
+				StreamUtil.close(output);
+			}
+
+			if(tmp.length() == 0)
+				throw new IOException("Download of " + release + " produced an empty file");
+
+			if(expectedMD5 != null) {
+				String actualMD5 = ChecksumUtils.toHexString(md.digest());
+				if(!expectedMD5.equalsIgnoreCase(actualMD5))
+					throw new IOException("Checksum mismatch for " + release + ". Expected " + expectedMD5 + " but got " + actualMD5);
+			}
+
+			try {
+				java.nio.file.Files.move(tmp.toPath(), cachedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				java.nio.file.Files.move(tmp.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			tmp.delete();
+		}
+	}
+
+	private Object getDownloadMonitor(File cachedFile) {
+		String key = cachedFile.getAbsolutePath();
+		Object monitor = downloadMonitors.get(key);
+		if(monitor == null) {
+			Object newMonitor = new Object();
+			monitor = downloadMonitors.putIfAbsent(key, newMonitor);
+			if(monitor == null)
+				monitor = newMonitor;
+		}
+		return monitor;
+	}
+
+	/**
+	 * Warnings about downloads that could not be verified are discarded.
+	 */
 	@Override
 	public File retrieve(ModuleName qname, Version version) throws IOException {
+		return retrieve(qname, version, new Diagnostic());
+	}
+
+	private File retrieve(ModuleName qname, Version version, Diagnostic result) throws IOException {
 		// This cache assumes that all leaf names are unique so we don't want
 		// to preserve the folder structure
 		StringBuilder bld = new StringBuilder();
 		ModuleUtils.buildFileNameWithExtension(qname, version, bld);
 		File cachedFile = new File(getLocation(), bld.toString());
-		if(!cachedFile.exists() || cachedFile.length() == 0) {
-			File dir = cachedFile.getParentFile();
-			dir.mkdirs();
-			OutputStream output = new FileOutputStream(cachedFile);
+		if(isComplete(cachedFile))
+			return cachedFile;
+
+		File dir = cachedFile.getParentFile();
+		if(!(dir.isDirectory() || dir.mkdirs()))
+			throw new IOException("Unable to create directory " + dir);
+
+		synchronized(getDownloadMonitor(cachedFile)) {
+			File lockFile = new File(dir, cachedFile.getName() + LOCK_SUFFIX);
 			try {
-				files.download(new VersionedName(qname, version), output);
-			}
-			catch(IOException e) {
-				cachedFile.delete();
-				throw e;
+				try(FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+						FileLock lock = channel.lock()) {
+					// Another thread or process may have completed the download while we waited for the lock
+					if(!isComplete(cachedFile))
+						download(new VersionedName(qname, version), cachedFile, result);
+				}
 			}
 			finally {
-				StreamUtil.close(output);
+				lockFile.delete();
 			}
 		}
 		return cachedFile;
 	}
+
+	@Override
+	public List<File> retrieveAll(List<VersionedName> releases, Diagnostic result) throws IOException {
+		int top = releases.size();
+		List<Diagnostic> warnings = new ArrayList<Diagnostic>(top);
+		for(int idx = 0; idx < top; ++idx)
+			warnings.add(new Diagnostic());
+
+		List<File> files = new ArrayList<File>(top);
+		int nThreads = Math.min(top, maxConcurrentDownloads);
+		if(nThreads <= 1) {
+			for(int idx = 0; idx < top; ++idx) {
+				VersionedName release = releases.get(idx);
+				files.add(retrieve(release.getModuleName(), release.getVersion(), warnings.get(idx)));
+			}
+		}
+		else {
+			ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+			try {
+				List<Future<File>> downloads = new ArrayList<Future<File>>(top);
+				for(int idx = 0; idx < top; ++idx) {
+					final VersionedName release = releases.get(idx);
+					final Diagnostic releaseWarnings = warnings.get(idx);
+					downloads.add(executor.submit(new Callable<File>() {
+						@Override
+						public File call() throws IOException {
+							return retrieve(release.getModuleName(), release.getVersion(), releaseWarnings);
+						}
+					}));
+				}
+
+				for(Future<File> download : downloads)
+					files.add(download.get());
+			}
+			catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof IOException)
+					throw (IOException) cause;
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new IOException(cause);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Download interrupted", e);
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+
+		// Report the warnings in the order of the releases regardless of the order in which the downloads completed
+		for(Diagnostic releaseWarnings : warnings)
+			result.addChildren(releaseWarnings.getChildren());
+		return files;
+	}
 }
@@ -12,8 +12,10 @@ package com.puppetlabs.geppetto.forge.impl;
 
 import static com.puppetlabs.geppetto.diagnostic.Diagnostic.ERROR;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -25,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.security.DigestOutputStream;
@@ -36,11 +39,16 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
 import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -63,6 +71,145 @@ import com.puppetlabs.geppetto.semver.Version;
 
 @Singleton
 class ForgeImpl implements Forge {
+	/**
+	 * Writes a module archive in one pass over the module source. The checksum of each file is computed while the file
+	 * is written to the archive so that every file is read only once.
+	 */
+	private static class ModuleArchiveWriter {
+		private final OutputStream fileOut;
+
+		private final TarArchiveOutputStream tarOut;
+
+		private final FileFilter fileFilter;
+
+		private final String topFolder;
+
+		private final MessageDigest fileDigest = ChecksumUtils.getMessageDigest();
+
+		private final Map<String, byte[]> checksums = new TreeMap<String, byte[]>();
+
+		private final byte[] buffer = new byte[0x10000];
+
+		ModuleArchiveWriter(File archive, MessageDigest archiveDigest, FileFilter fileFilter, String topFolder) throws IOException {
+			fileOut = new FileOutputStream(archive);
+			OutputStream out = new GZIPOutputStream(new BufferedOutputStream(fileOut, buffer.length));
+			if(archiveDigest != null)
+				out = new DigestOutputStream(out, archiveDigest);
+			tarOut = new TarArchiveOutputStream(out);
+			tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			this.fileFilter = fileFilter;
+			this.topFolder = topFolder;
+		}
+
+		/**
+		 * Closes the archive file without finishing the archive
+		 */
+		void abort() {
+			StreamUtil.close(fileOut);
+		}
+
+		private void append(File file, String relativePath) throws IOException {
+			String entryName = topFolder + '/' + (File.separatorChar == '\\'
+				? relativePath.replace('\\', '/')
+				: relativePath);
+
+			// Symbolic links are archived as links, just like when the module is copied and packed. They have no
+			// checksum.
+			if(FileUtils.isSymlink(file)) {
+				String linkTarget = FileUtils.readSymbolicLink(file);
+				if(linkTarget != null) {
+					TarArchiveEntry entry = new TarArchiveEntry(entryName, TarConstants.LF_SYMLINK);
+					entry.setLinkName(linkTarget);
+					tarOut.putArchiveEntry(entry);
+					tarOut.closeArchiveEntry();
+				}
+				return;
+			}
+
+			File[] children = file.listFiles(fileFilter);
+			tarOut.putArchiveEntry(new TarArchiveEntry(file, entryName));
+			if(children != null) {
+				tarOut.closeArchiveEntry();
+				for(File child : children)
+					append(child, relativePath + File.separatorChar + child.getName());
+				return;
+			}
+
+			fileDigest.reset();
+			InputStream input = new FileInputStream(file);
+			try {
+				int cnt;
+				while((cnt = input.read(buffer)) > 0) {
+					fileDigest.update(buffer, 0, cnt);
+					tarOut.write(buffer, 0, cnt);
+				}
+			}
+			finally {
+				StreamUtil.close(input);
+			}
+			tarOut.closeArchiveEntry();
+
+			String name = file.getName();
+			if(!(CHECKSUMS_JSON_NAME.equals(name) || "REVISION".equals(name)))
+				checksums.put(relativePath, fileDigest.digest());
+		}
+
+		/**
+		 * Appends a file that is generated by the build to the top folder of the archive
+		 *
+		 * @param name
+		 *            The name of the file
+		 * @param content
+		 *            The content of the file
+		 * @param checksum
+		 *            <code>true</code> if the checksum of the file should be recorded
+		 */
+		void appendGenerated(String name, byte[] content, boolean checksum) throws IOException {
+			TarArchiveEntry entry = new TarArchiveEntry(topFolder + '/' + name);
+			entry.setSize(content.length);
+			entry.setModTime(System.currentTimeMillis());
+			tarOut.putArchiveEntry(entry);
+			tarOut.write(content);
+			tarOut.closeArchiveEntry();
+			if(checksum)
+				checksums.put(name, fileDigest.digest(content));
+		}
+
+		/**
+		 * Appends the accepted content of the module source below the top folder of the archive.
+		 *
+		 * @param moduleSource
+		 *            The module directory
+		 * @param skipMetadataJSON
+		 *            <code>true</code> if the metadata.json of the module source will be replaced with a generated one
+		 */
+		void appendModule(File moduleSource, boolean skipMetadataJSON) throws IOException {
+			tarOut.putArchiveEntry(new TarArchiveEntry(moduleSource, topFolder));
+			tarOut.closeArchiveEntry();
+			File[] children = moduleSource.listFiles(fileFilter);
+			if(children == null)
+				return;
+
+			for(File child : children) {
+				String name = child.getName();
+				if(CHECKSUMS_JSON_NAME.equals(name) || (skipMetadataJSON && METADATA_JSON_NAME.equals(name)))
+					continue;
+				append(child, name);
+			}
+		}
+
+		void close() throws IOException {
+			tarOut.close();
+		}
+
+		/**
+		 * @return The checksums of the appended files keyed by their path relative to the top folder
+		 */
+		Map<String, byte[]> getChecksums() {
+			return checksums;
+		}
+	}
+
 	@Inject
 	private ERB erb;
 
@@ -90,33 +237,12 @@ class ForgeImpl implements Forge {
 			fileFilter = moduleFileFilter;
 
 		File[] extractedFrom = new File[1];
-
-		Metadata md = createFromModuleDirectory(moduleSource, fileFilter, extractedFrom, result);
-		if(result.getSeverity() >= ERROR)
-			return null;
-
-		if(resultingMetadata != null)
-			resultingMetadata[0] = md;
-
+		Metadata md = getBuildMetadata(moduleSource, destination, fileFilter, extractedFrom, resultingMetadata, result);
 		if(md == null)
-			// Metadata could not be read. Errors are in result
 			return null;
 
-		for(File tst = destination; tst != null; tst = tst.getParentFile()) {
-			if(fileFilter.accept(tst))
-				// Destination folder might reside inside of the module when it
-				// has been excluded.
-				break;
-
-			if(tst.equals(moduleSource))
-				throw new IllegalArgumentException("Destination cannot reside within the module itself");
-		}
-
 		ModuleName fullName = md.getName();
 		Version ver = md.getVersion();
-		if(fullName == null || ver == null)
-			// Reason has been added to the Diagnostic result
-			return null;
 
 		/**
 		 * Copy the module to the location where it's being built. Ensure that it's
@@ -158,6 +284,60 @@ class ForgeImpl implements Forge {
 		return moduleArchive;
 	}
 
+	@Override
+	public File buildArchive(File moduleSource, File destination, FileFilter fileFilter, Metadata[] resultingMetadata,
+			byte[][] resultingMD5, Diagnostic result) throws IOException {
+		if(fileFilter == null)
+			fileFilter = moduleFileFilter;
+
+		File[] extractedFrom = new File[1];
+		Metadata md = getBuildMetadata(moduleSource, destination, fileFilter, extractedFrom, resultingMetadata, result);
+		if(md == null)
+			return null;
+
+		StringBuilder bld = new StringBuilder();
+		ModuleUtils.buildFileName(md.getName(), md.getVersion(), bld);
+		String fullNameWithVersion = bld.toString();
+		bld.append(".tar.gz");
+		String zipArchiveName = bld.toString();
+
+		if(!(destination.mkdirs() || destination.isDirectory()))
+			throw new IOException("Unable to create directory " + destination.getAbsolutePath());
+
+		// The metadata.json of the module is replaced unless it is the source of the metadata
+		byte[] generatedMetadata = extractedFrom[0].getName().equals(METADATA_JSON_NAME)
+			? null
+			: toJSONBytes(md);
+
+		File moduleArchive = new File(destination, zipArchiveName);
+		MessageDigest archiveDigest = resultingMD5 == null
+			? null
+			: ChecksumUtils.getMessageDigest();
+		ModuleArchiveWriter archiveWriter = new ModuleArchiveWriter(moduleArchive, archiveDigest, fileFilter, fullNameWithVersion);
+		boolean success = false;
+		try {
+			archiveWriter.appendModule(moduleSource, generatedMetadata != null);
+			if(generatedMetadata != null)
+				archiveWriter.appendGenerated(METADATA_JSON_NAME, generatedMetadata, true);
+
+			Checksums checksumsObj = new Checksums();
+			checksumsObj.setChecksums(archiveWriter.getChecksums());
+			archiveWriter.appendGenerated(CHECKSUMS_JSON_NAME, toJSONBytes(checksumsObj), false);
+			archiveWriter.close();
+			success = true;
+		}
+		finally {
+			if(!success) {
+				archiveWriter.abort();
+				moduleArchive.delete();
+			}
+		}
+
+		if(archiveDigest != null)
+			resultingMD5[0] = archiveDigest.digest();
+		return moduleArchive;
+	}
+
 	@Override
 	public List<File> changes(File path, FileFilter fileFilter) throws IOException {
 		if(fileFilter == null)
@@ -220,6 +400,42 @@ class ForgeImpl implements Forge {
 		}
 	}
 
+	/**
+	 * Obtains the metadata of a module that is about to be built and verifies that the module can be built into the
+	 * given destination.
+	 *
+	 * @return The metadata or <code>null</code> if the module cannot be built. The reason has then been added to the
+	 *         <code>result</code>
+	 */
+	private Metadata getBuildMetadata(File moduleSource, File destination, FileFilter fileFilter, File[] extractedFrom,
+			Metadata[] resultingMetadata, Diagnostic result) throws IOException {
+		Metadata md = createFromModuleDirectory(moduleSource, fileFilter, extractedFrom, result);
+		if(result.getSeverity() >= ERROR)
+			return null;
+
+		if(resultingMetadata != null)
+			resultingMetadata[0] = md;
+
+		if(md == null)
+			// Metadata could not be read. Errors are in result
+			return null;
+
+		for(File tst = destination; tst != null; tst = tst.getParentFile()) {
+			if(fileFilter.accept(tst))
+				// Destination folder might reside inside of the module when it
+				// has been excluded.
+				break;
+
+			if(tst.equals(moduleSource))
+				throw new IllegalArgumentException("Destination cannot reside within the module itself");
+		}
+
+		if(md.getName() == null || md.getVersion() == null)
+			// Reason has been added to the Diagnostic result
+			return null;
+		return md;
+	}
+
 	public List<MetadataExtractor> getMetadataExtractors() {
 		ArrayList<MetadataExtractor> extractors = new ArrayList<MetadataExtractor>(metadataExtractors);
 		Collections.sort(extractors, extractorComparator);
@@ -360,4 +576,19 @@ class ForgeImpl implements Forge {
 	public void saveModulefile(Metadata md, File moduleFile) throws IOException {
 		ModuleUtils.saveAsModulefile(md, moduleFile);
 	}
+
+	/**
+	 * Serializes the given object using the same encoding as when JSON files are saved
+	 */
+	private byte[] toJSONBytes(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(bytes);
+		try {
+			gson.toJson(object, writer);
+		}
+		finally {
+			StreamUtil.close(writer);
+		}
+		return bytes.toByteArray();
+	}
 }
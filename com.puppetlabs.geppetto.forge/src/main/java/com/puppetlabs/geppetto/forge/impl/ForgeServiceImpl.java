@@ -24,6 +24,9 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,9 +34,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.HttpResponseException;
 
 import com.google.inject.Inject;
@@ -47,10 +55,12 @@ import com.puppetlabs.geppetto.forge.Cache;
 import com.puppetlabs.geppetto.forge.Forge;
 import com.puppetlabs.geppetto.forge.ForgeService;
 import com.puppetlabs.geppetto.forge.client.ForgeException;
+import com.puppetlabs.geppetto.forge.model.Constants;
 import com.puppetlabs.geppetto.forge.model.Dependency;
 import com.puppetlabs.geppetto.forge.model.Metadata;
 import com.puppetlabs.geppetto.forge.model.MetadataRepository;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.forge.model.VersionedName;
 import com.puppetlabs.geppetto.forge.util.ModuleUtils;
 import com.puppetlabs.geppetto.forge.util.TarUtils;
 import com.puppetlabs.geppetto.forge.v2.service.ReleaseService;
@@ -60,6 +70,11 @@ import com.puppetlabs.geppetto.forge.v3.model.Module;
 import com.puppetlabs.geppetto.semver.VersionRange;
 
 class ForgeServiceImpl implements ForgeService {
+	/**
+	 * Status code used by servers that throttle requests. It is not defined in {@link HttpStatus}.
+	 */
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
 	@Inject
 	private Cache cache;
 
@@ -79,6 +94,18 @@ class ForgeServiceImpl implements ForgeService {
 	@Inject
 	private Forge forgeUtil;
 
+	@Inject(optional = true)
+	@Named(Constants.MAX_CONCURRENT_UPLOADS_NAME)
+	private int maxConcurrentUploads = Constants.DEFAULT_MAX_CONCURRENT_UPLOADS;
+
+	@Inject(optional = true)
+	@Named(Constants.UPLOAD_RETRY_COUNT_NAME)
+	private int uploadRetryCount = Constants.DEFAULT_UPLOAD_RETRY_COUNT;
+
+	@Inject(optional = true)
+	@Named(Constants.UPLOAD_RETRY_DELAY_NAME)
+	private long uploadRetryDelay = Constants.DEFAULT_UPLOAD_RETRY_DELAY;
+
 	@Override
 	public Collection<File> downloadDependencies(Iterable<Metadata> metadatas, File importedModulesDir, Diagnostic result)
 			throws IOException {
@@ -89,12 +116,25 @@ class ForgeServiceImpl implements ForgeService {
 				"Unable to resolve dependency: %s:%s", unresolved.getName(), unresolved.getVersionRequirement().toString())));
 
 		if(!releasesToDownload.isEmpty()) {
+			if(cache == null)
+				throw new UnsupportedOperationException(
+					"Unable to install since no module service is configured. Was a serviceURL provided in the preferences?");
+
+			// Download all releases up front so that the downloads can run in parallel
+			List<Metadata> releases = new ArrayList<Metadata>(releasesToDownload);
+			List<VersionedName> versionedNames = new ArrayList<VersionedName>(releases.size());
+			for(Metadata release : releases)
+				versionedNames.add(new VersionedName(release.getName(), release.getVersion()));
+			List<File> moduleFiles = cache.retrieveAll(versionedNames, result);
+
 			importedModulesDir.mkdirs();
 			List<File> importedModuleLocations = new ArrayList<File>();
 
 			StringBuilder bld = new StringBuilder("Installing dependent module ");
 			int pfxLen = bld.length();
-			for(Metadata release : releasesToDownload) {
+			int top = releases.size();
+			for(int idx = 0; idx < top; ++idx) {
+				Metadata release = releases.get(idx);
 				bld.setLength(pfxLen);
 				release.getName().toString(bld);
 				bld.append(':');
@@ -104,7 +144,7 @@ class ForgeServiceImpl implements ForgeService {
 				bld.setLength(0);
 				ModuleUtils.buildFileName(release.getName(), release.getVersion(), bld);
 				File moduleDir = new File(importedModulesDir, bld.toString());
-				install(release, moduleDir, true, false);
+				unpack(moduleFiles.get(idx), moduleDir, false);
 				importedModuleLocations.add(moduleDir);
 			}
 			return importedModuleLocations;
@@ -145,19 +185,19 @@ class ForgeServiceImpl implements ForgeService {
 			// Use module name as the default
 			destination = new File(destination, moduleName.getName());
 
-		if(destination.exists()) {
-			if(!force)
-				throw new IOException("Destination folder is not empty: " + destination.getAbsolutePath());
+		return unpack(cache.retrieve(moduleName, best.getVersion()), destination, force);
+	}
 
-			// Don't remove .project, .settings, .git, .svn, etc. if they are present.
-			FileUtils.rmR(destination, FileUtils.DEFAULT_EXCLUDES_MATCHER);
+	/**
+	 * Server errors, throttling, timeouts, and connections that are refused or dropped are considered transient. All
+	 * other problems, such as a corrupt archive, a local I/O error, or a rejected request, are not.
+	 */
+	private static boolean isTransient(IOException e) {
+		if(e instanceof HttpResponseException) {
+			int status = ((HttpResponseException) e).getStatusCode();
+			return status >= HttpStatus.SC_INTERNAL_SERVER_ERROR || status == SC_TOO_MANY_REQUESTS;
 		}
-
-		File moduleFile = cache.retrieve(moduleName, best.getVersion());
-
-		// Unpack closes its input.
-		TarUtils.unpack(new GZIPInputStream(new FileInputStream(moduleFile)), destination, true, null);
-		return forgeUtil.loadJSONMetadata(new File(destination, METADATA_JSON_NAME));
+		return e instanceof SocketTimeoutException || e instanceof ConnectException || e instanceof NoHttpResponseException;
 	}
 
 	@Override
@@ -205,29 +245,74 @@ class ForgeServiceImpl implements ForgeService {
 	}
 
 	@Override
-	public void publishAll(File[] builtModules, boolean dryRun, Diagnostic result) {
-		boolean noPublishingMade = true;
+	public void publishAll(File[] builtModules, final boolean dryRun, Diagnostic result) {
+		List<File> moduleArchives = new ArrayList<File>(builtModules.length);
 		for(File builtModule : builtModules) {
 			String name = builtModule.getName();
-			if(!(name.endsWith(".tar.gz") || name.endsWith(".tgz")))
-				continue;
+			if(name.endsWith(".tar.gz") || name.endsWith(".tgz"))
+				moduleArchives.add(builtModule);
+		}
 
-			try {
-				publish(builtModule, dryRun, result);
-				noPublishingMade = false;
-				continue;
-			}
-			catch(AlreadyPublishedException e) {
-				result.addChild(new Diagnostic(WARNING, PUBLISHER, e.getMessage()));
-				continue;
+		int top = moduleArchives.size();
+		List<Diagnostic> moduleResults = new ArrayList<Diagnostic>(top);
+		for(int idx = 0; idx < top; ++idx)
+			moduleResults.add(new Diagnostic());
+
+		boolean noPublishingMade = true;
+		if(maxConcurrentUploads <= 1 || top <= 1) {
+			for(int idx = 0; idx < top; ++idx) {
+				Diagnostic moduleResult = moduleResults.get(idx);
+				if(publishOne(moduleArchives.get(idx), dryRun, moduleResult))
+					noPublishingMade = false;
+				result.addChildren(moduleResult.getChildren());
+				if(moduleResult.getSeverity() >= ERROR)
+					return;
 			}
-			catch(ForgeException e) {
-				result.addChild(new Diagnostic(ERROR, PUBLISHER, e.getMessage()));
+		}
+		else {
+			// All modules are attempted. The outcome is reported per module in the order of the given archives
+			// regardless of the order in which the uploads complete.
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrentUploads, top));
+			try {
+				List<Future<Boolean>> published = new ArrayList<Future<Boolean>>(top);
+				for(int idx = 0; idx < top; ++idx) {
+					final File moduleArchive = moduleArchives.get(idx);
+					final Diagnostic moduleResult = moduleResults.get(idx);
+					published.add(executor.submit(new Callable<Boolean>() {
+						@Override
+						public Boolean call() {
+							return Boolean.valueOf(publishOne(moduleArchive, dryRun, moduleResult));
+						}
+					}));
+				}
+
+				boolean failed = false;
+				for(int idx = 0; idx < top; ++idx) {
+					Diagnostic moduleResult = moduleResults.get(idx);
+					try {
+						if(published.get(idx).get().booleanValue())
+							noPublishingMade = false;
+					}
+					catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+						executor.shutdownNow();
+						result.addChild(new ExceptionDiagnostic(ERROR, PUBLISHER, "Publishing was interrupted", e));
+						return;
+					}
+					catch(ExecutionException e) {
+						moduleResult.addChild(new ExceptionDiagnostic(ERROR, PUBLISHER, "Unable to publish module " +
+							moduleArchives.get(idx).getName(), e));
+					}
+					result.addChildren(moduleResult.getChildren());
+					if(moduleResult.getSeverity() >= ERROR)
+						failed = true;
+				}
+				if(failed)
+					return;
 			}
-			catch(Exception e) {
-				result.addChild(new ExceptionDiagnostic(ERROR, PUBLISHER, "Unable to publish module " + builtModule.getName(), e));
+			finally {
+				executor.shutdown();
 			}
-			return;
 		}
 
 		if(noPublishingMade) {
@@ -235,6 +320,65 @@ class ForgeServiceImpl implements ForgeService {
 		}
 	}
 
+	/**
+	 * Publishes one module archive and reports the outcome on <code>result</code>.
+	 *
+	 * @return <code>true</code> if the module was published
+	 */
+	private boolean publishOne(File moduleArchive, boolean dryRun, Diagnostic result) {
+		try {
+			publishWithRetry(moduleArchive, dryRun, result);
+			return true;
+		}
+		catch(AlreadyPublishedException e) {
+			result.addChild(new Diagnostic(WARNING, PUBLISHER, e.getMessage()));
+		}
+		catch(ForgeException e) {
+			result.addChild(new Diagnostic(ERROR, PUBLISHER, e.getMessage()));
+		}
+		catch(Exception e) {
+			result.addChild(new ExceptionDiagnostic(ERROR, PUBLISHER, "Unable to publish module " + moduleArchive.getName(), e));
+		}
+		return false;
+	}
+
+	/**
+	 * Publishes a module archive. Failures that are likely to be transient are retried with a delay that doubles
+	 * for each attempt. Each attempt reports to a diagnostic of its own and only the diagnostics of the last attempt
+	 * are added to <code>result</code>.
+	 */
+	private void publishWithRetry(File moduleArchive, boolean dryRun, Diagnostic result) throws IOException {
+		long delay = uploadRetryDelay;
+		for(int attempt = 0;; ++attempt) {
+			Diagnostic attemptResult = new Diagnostic();
+			boolean retry = false;
+			try {
+				publish(moduleArchive, dryRun, attemptResult);
+				return;
+			}
+			catch(IOException e) {
+				if(attempt >= uploadRetryCount || !isTransient(e) || Thread.currentThread().isInterrupted())
+					throw e;
+				retry = true;
+				result.addChild(new Diagnostic(INFO, PUBLISHER, "Upload of module file " + moduleArchive.getName() + " failed: " +
+					e.getMessage() + ". Retrying in " + delay + " ms"));
+			}
+			finally {
+				if(!retry)
+					result.addChildren(attemptResult.getChildren());
+			}
+
+			try {
+				Thread.sleep(delay);
+			}
+			catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Publishing of " + moduleArchive.getName() + " was interrupted");
+			}
+			delay *= 2;
+		}
+	}
+
 	@Override
 	public Set<Metadata> resolveDependencies(Iterable<Metadata> metadatas, Set<Dependency> unresolvedCollector) throws IOException {
 		// Resolve missing dependencies
@@ -261,9 +405,24 @@ class ForgeServiceImpl implements ForgeService {
 				throw new UnsupportedOperationException(
 					"Unable to resolve dependencies since no forge service is configured. Was a serviceURL provided in the preferences?");
 
+			metadataRepo.prefetch(deps);
 			for(Dependency dep : deps)
 				releasesToDownload.addAll(metadataRepo.deepResolve(dep, unresolvedCollector));
 		}
 		return releasesToDownload;
 	}
+
+	private Metadata unpack(File moduleFile, File destination, boolean force) throws IOException {
+		if(destination.exists()) {
+			if(!force)
+				throw new IOException("Destination folder is not empty: " + destination.getAbsolutePath());
+
+			// Don't remove .project, .settings, .git, .svn, etc. if they are present.
+			FileUtils.rmR(destination, FileUtils.DEFAULT_EXCLUDES_MATCHER);
+		}
+
+		// Unpack closes its input.
+		TarUtils.unpackGZ(new FileInputStream(moduleFile), destination, true);
+		return forgeUtil.loadJSONMetadata(new File(destination, METADATA_JSON_NAME));
+	}
 }
@@ -10,9 +10,14 @@
  */
 package com.puppetlabs.geppetto.forge.impl;
 
+import java.io.File;
+
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.name.Named;
 import com.puppetlabs.geppetto.forge.Cache;
 import com.puppetlabs.geppetto.forge.ForgeService;
+import com.puppetlabs.geppetto.forge.model.Constants;
 
 public class ForgeServiceModule extends AbstractModule {
 	@Override
@@ -20,4 +25,17 @@ public class ForgeServiceModule extends AbstractModule {
 		bind(ForgeService.class).to(ForgeServiceImpl.class);
 		bind(Cache.class).to(CacheImpl.class);
 	}
+
+	/**
+	 * Release metadata is cached in a subdirectory of the module cache so that it is removed by {@link Cache#clean()}
+	 *
+	 * @param cache
+	 *            The module cache
+	 * @return The directory where release metadata is cached
+	 */
+	@Provides
+	@Named(Constants.METADATA_CACHE_LOCATION_NAME)
+	File provideMetadataCacheLocation(Cache cache) {
+		return new File(cache.getLocation(), "metadata");
+	}
 }
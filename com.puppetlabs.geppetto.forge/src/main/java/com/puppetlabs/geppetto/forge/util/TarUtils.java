@@ -17,10 +17,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
@@ -115,6 +124,18 @@ public class TarUtils {
 					OsUtil.chmod(entry.getKey(), dirEntry.getKey().intValue(), files.toArray(new String[files.size()]));
 	}
 
+	private static void copy(InputStream in, File outFile, byte[] buffer) throws IOException {
+		OutputStream target = new FileOutputStream(outFile);
+		try {
+			int cnt;
+			while((cnt = in.read(buffer)) > 0)
+				target.write(buffer, 0, cnt);
+		}
+		finally {
+			StreamUtil.close(target);
+		}
+	}
+
 	private static <T> List<String> getFileList(Map<File, Map<T, List<String>>> map, File dir, T key) {
 		Map<T, List<String>> dirMap = map.get(dir);
 		if(dirMap == null)
@@ -126,6 +147,10 @@ public class TarUtils {
 		return files;
 	}
 
+	private static boolean isPosix() {
+		return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+	}
+
 	public static void pack(File sourceFolder, OutputStream output, boolean includeTopFolder) throws IOException {
 		pack(sourceFolder, output, null, includeTopFolder, null);
 	}
@@ -151,6 +176,14 @@ public class TarUtils {
 		getFileList(chmodMap, dir, mode).add(file);
 	}
 
+	private static void setPermissions(Path path, int mode) throws IOException {
+		Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+		for(int idx = 0; idx < PERMISSION_BITS.length; ++idx)
+			if((mode & (0400 >> idx)) != 0)
+				permissions.add(PERMISSION_BITS[idx]);
+		Files.setPosixFilePermissions(path, permissions);
+	}
+
 	private static List<List<String>> splitList(List<String> files, int limit) {
 		List<List<String>> result = new ArrayList<List<String>>();
 		int top = files.size();
@@ -183,7 +216,11 @@ public class TarUtils {
 	 */
 	public static void unpack(InputStream source, File targetFolder, boolean skipTopFolder, FileCatcher fileCatcher) throws IOException {
 		String topFolderName = null;
+		boolean posix = isPosix();
 		Map<File, Map<Integer, List<String>>> chmodMap = new HashMap<File, Map<Integer, List<String>>>();
+		List<Path> directories = new ArrayList<Path>();
+		List<Integer> directoryModes = new ArrayList<Integer>();
+		byte[] buffer = null;
 		TarArchiveInputStream in = new TarArchiveInputStream(source);
 		try {
 			TarArchiveEntry te = in.getNextTarEntry();
@@ -237,13 +274,23 @@ public class TarUtils {
 				else {
 					if(te.isDirectory()) {
 						outFile.mkdirs();
+						if(posix) {
+							// Applied when all entries are written since the mode might prevent writing to the directory
+							directories.add(outFile.toPath());
+							directoryModes.add(Integer.valueOf(te.getMode()));
+							continue;
+						}
 					}
 					else {
 						outFile.getParentFile().mkdirs();
-						OutputStream target = new FileOutputStream(outFile);
-						StreamUtil.copy(in, target);
-						target.close();
+						if(buffer == null)
+							buffer = new byte[COPY_BUFFER_SIZE];
+						copy(in, outFile, buffer);
 						outFile.setLastModified(te.getModTime().getTime());
+						if(posix) {
+							setPermissions(outFile.toPath(), te.getMode());
+							continue;
+						}
 					}
 					registerChmodFile(chmodMap, targetFolder, Integer.valueOf(te.getMode()), name);
 				}
@@ -252,8 +299,105 @@ public class TarUtils {
 		finally {
 			StreamUtil.close(in);
 		}
+
+		// Deepest directories first so that a parent never becomes read-only before its children are done
+		for(int idx = directories.size() - 1; idx >= 0; --idx)
+			setPermissions(directories.get(idx), directoryModes.get(idx).intValue());
 		chmod(chmodMap);
 	}
 
+	/**
+	 * Unpack the gzipped content read from <i>gzSource</i> into <i>targetFolder</i>. The content is inflated by a
+	 * separate thread so that decompression overlaps with the writing of the unpacked files.
+	 *
+	 * @param gzSource
+	 *            The input source. Must be in gzipped <i>TAR</i> format. This stream is closed by this method.
+	 * @param targetFolder
+	 *            The destination folder for the unpack.
+	 * @param skipTopFolder
+	 *            Set to <code>true</code> to unpack beneath the top folder
+	 *            of the archive. The archive must consist of one single folder and nothing else
+	 *            in order for this to work.
+	 * @throws IOException
+	 * @see #unpack(InputStream, File, boolean, FileCatcher)
+	 */
+	public static void unpackGZ(InputStream gzSource, File targetFolder, boolean skipTopFolder) throws IOException {
+		final InputStream inflater;
+		try {
+			inflater = new GZIPInputStream(gzSource, COPY_BUFFER_SIZE);
+		}
+		catch(IOException e) {
+			StreamUtil.close(gzSource);
+			throw e;
+		}
+
+		final PipedInputStream pipeIn = new PipedInputStream(PIPE_SIZE);
+		final PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+		final IOException[] inflaterError = new IOException[1];
+		Thread inflaterThread = new Thread("TarUtils inflater") {
+			@Override
+			public void run() {
+				try {
+					byte[] buffer = new byte[COPY_BUFFER_SIZE];
+					int cnt;
+					while((cnt = inflater.read(buffer)) > 0) {
+						try {
+							pipeOut.write(buffer, 0, cnt);
+						}
+						catch(IOException e) {
+							// The unpack has closed the pipe. Either it reached the end of the archive or it failed
+							// on its own
+							break;
+						}
+					}
+				}
+				catch(IOException e) {
+					inflaterError[0] = e;
+				}
+				finally {
+					StreamUtil.close(inflater);
+					StreamUtil.close(pipeOut);
+				}
+			}
+		};
+		inflaterThread.setDaemon(true);
+		inflaterThread.start();
+
+		IOException unpackError = null;
+		try {
+			// Unpack closes its input which in turn makes the inflater stop if the unpack ends prematurely
+			unpack(pipeIn, targetFolder, skipTopFolder, null);
+		}
+		catch(IOException e) {
+			unpackError = e;
+		}
+
+		try {
+			inflaterThread.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// The inflater only records errors from reading the gzipped source. Such an error means that the archive is
+		// corrupt or truncated, even when the unpack succeeded on the partial content that it was given.
+		if(inflaterError[0] != null) {
+			if(unpackError != null)
+				inflaterError[0].addSuppressed(unpackError);
+			throw inflaterError[0];
+		}
+		if(unpackError != null)
+			throw unpackError;
+	}
+
+	private static final PosixFilePermission[] PERMISSION_BITS = {
+			PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE,
+			PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+			PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE };
+
+	private static final int COPY_BUFFER_SIZE = 0x10000;
+
+	private static final int PIPE_SIZE = 0x40000;
+
 	private static final int MAX_FILES_PER_COMMAND = 20;
 }
@@ -20,18 +20,19 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 
 import com.google.common.base.Function;
-import com.google.common.base.Predicates;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Sets.SetView;
 import com.puppetlabs.geppetto.catalog.Catalog;
-import com.puppetlabs.geppetto.catalog.CatalogEdge;
 import com.puppetlabs.geppetto.catalog.CatalogResource;
 import com.puppetlabs.geppetto.catalog.CatalogResourceParameter;
+import com.puppetlabs.geppetto.catalog.diff.CatalogDelta;
+import com.puppetlabs.geppetto.catalog.diff.CatalogDiffer;
+import com.puppetlabs.geppetto.catalog.diff.ResourceDelta;
+import com.puppetlabs.geppetto.catalog.diff.ResourceEdge;
 import com.puppetlabs.graph.ICancel;
 import com.puppetlabs.graph.IGraphElement;
 import com.puppetlabs.graph.ILabeledGraphElement;
@@ -102,6 +103,39 @@ public class CatalogDeltaGraphProducer extends AbstractCatalogGraphProducer impl
 
 	private static Function<IGraphElement, ILabelTemplate> markAdded = new MarkerFunction(GT);
 
+	private void addEdge(RootGraph g, ResourceEdge re, String deltaStyle, Function<IGraphElement, ILabelTemplate> marker,
+			CatalogDelta delta, IPath oldRoot, IPath newRoot, Map<String, Vertex> vertexMap) {
+		Vertex source = getVertex(g, re.getSource(), delta, oldRoot, newRoot, vertexMap);
+		Vertex target = getVertex(g, re.getTarget(), delta, oldRoot, newRoot, vertexMap);
+		String aName = re.getLabel();
+		String style;
+		if(aName == null) {
+			aName = "";
+			style = STYLE_ResourceEdge;
+		}
+		else if("subscribe".equals(aName))
+			style = CatalogGraphStyles.STYLE_SubscribeEdge;
+		else if("before".equals(aName))
+			style = CatalogGraphStyles.STYLE_BeforeEdge;
+		else if("notify".equals(aName))
+			style = CatalogGraphStyles.STYLE_NotifyEdge;
+		else
+			style = CatalogGraphStyles.STYLE_RequireEdge;
+		Edge e = new Edge(aName, style, source, target);
+		e.addStyleClass(deltaStyle);
+		e.setStyles(getStyles().labelFormat(getStyles().labelTemplate(marker)));
+		g.addEdge(e);
+	}
+
+	private Vertex addResourceVertex(RootGraph g, CatalogResource oldR, IPath oldRoot, CatalogResource newR, IPath newRoot) {
+		Vertex v = new Vertex("", STYLE_Resource);
+		String computedStyle[] = new String[1];
+		v.setStyles(labelStyleForResource(oldR, oldRoot, newR, newRoot, computedStyle));
+		v.addStyleClass(computedStyle[0]);
+		g.addVertex(v);
+		return v;
+	}
+
 	private PropertyDeltaInfo computePropertyRows(CatalogResource oldR, CatalogResource newR, List<LabelRow> labelRows) {
 		final PropertyDeltaInfo result = new PropertyDeltaInfo();
 		final Function<IGraphElement, Boolean> renderMarkerColumnFunc = new Function<IGraphElement, Boolean>() {
@@ -154,6 +188,7 @@ public class CatalogDeltaGraphProducer extends AbstractCatalogGraphProducer impl
 			// if two different values (can only happen if two resources were given)
 			if(values.size() > 1) {
 				styleClass = STYLE_Modified;
+				result.modifiedCount++;
 				String valueOld = oldProperties.get(propertyName);
 				labelRows.add(getStyles().labelRow(STYLE_ResourcePropertyRow, //
 					createResourcePropertyMarker(LT, STYLE_Removed, renderMarkerColumnFunc), //
@@ -224,111 +259,25 @@ public class CatalogDeltaGraphProducer extends AbstractCatalogGraphProducer impl
 		);
 	}
 
-	private void createVertexesFor(Iterable<CatalogResource> resources, //
-			Map<String, Vertex> vertexMap, //
-			Map<CatalogResource, Vertex> resourceVertexMap, //
-			Map<Vertex, CatalogResource> catalogMap) {
-		for(CatalogResource r : resources) {
-			Vertex v = createVertexFor(r);
-			vertexMap.put(keyOf(r), v);
-			resourceVertexMap.put(r, v);
-			catalogMap.put(v, r);
-		}
-
-	}
-
-	private Vertex createVertexFor(CatalogResource resource) {
-		Vertex v = new Vertex("", STYLE_Resource);
-		return v;
-	}
-
-	private void edgesForCatalogEdges(Iterable<CatalogEdge> catalogEdges, //
-			Map<String, Vertex> vertexMap, //
-			Map<String, Edge> edgeMap, //
-			Set<String> edges) {
-		for(CatalogEdge e : catalogEdges) {
-			Vertex source = vertexMap.get(e.getSource().toLowerCase());
-			Vertex target = vertexMap.get(e.getTarget().toLowerCase());
-			Edge edge = new Edge("", STYLE_ResourceEdge, source, target);
-			final String key = keyOf(e);
-			edgeMap.put(key, edge);
-			edges.add(key);
-		}
-	}
-
-	private void edgesForResources(RootGraph g, Iterable<CatalogResource> resources, Map<CatalogResource, Vertex> resourceVertexMap, //
-			Map<String, Vertex> vertexMap, //
-			Map<String, Edge> edgeMap, //
-			Set<String> edges) {
-		for(CatalogResource r : resources) {
-			final String sourceKey = keyOf(r);
-			final Vertex source = vertexMap.get(sourceKey);
-			for(CatalogResourceParameter p : Iterables.filter(getParameterIterable(r), Predicates.not(regularParameterPredicate))) {
-				String aName = p.getName();
-				String style = null;
-				if("subscribe".equals(aName))
-					style = CatalogGraphStyles.STYLE_SubscribeEdge;
-				else if("before".equals(aName))
-					style = CatalogGraphStyles.STYLE_BeforeEdge;
-				else if("notify".equals(aName))
-					style = CatalogGraphStyles.STYLE_NotifyEdge;
-				else
-					style = CatalogGraphStyles.STYLE_RequireEdge;
-				for(String targetRef : p.getValue()) {
-					final String targetKey = targetRef.toLowerCase();
-					Vertex target = vertexMap.get(targetKey);
-					if(target == null) {
-						target = createVertexForMissingResource(targetRef);
-						vertexMap.put(targetKey, target); // keep it if there are more references
-						g.addVertex(target);
-					}
-
-					Edge edge = new Edge(aName, style, source, target);
-					String key = sourceKey + "-" + aName + "-" + targetKey;
-					edgeMap.put(key, edge);
-					edges.add(key);
-
-				}
-			}
-		}
-	}
-
-	private void generateEdgeDelta(RootGraph g, Set<String> edges, Map<String, Edge> oldEdgeMap, Map<String, Edge> newEdgeMap) {
-		for(String key : edges) {
-			boolean inOld = oldEdgeMap.containsKey(key);
-			boolean inNew = newEdgeMap.containsKey(key);
-
-			Edge e = null;
-			if(inOld && inNew) {
-				e = oldEdgeMap.get(key);
-				e.addStyleClass(STYLE_UnModified);
-			}
-			else if(inOld) {
-				e = oldEdgeMap.get(key);
-				e.addStyleClass(STYLE_Removed);
-				e.setStyles(getStyles().labelFormat(getStyles().labelTemplate(markRemoved)));
-			}
-			else {
-				e = newEdgeMap.get(key);
-				e.addStyleClass(STYLE_Added);
-				e.setStyles(getStyles().labelFormat(getStyles().labelTemplate(markAdded)));
+	/**
+	 * Returns the vertex for the referenced resource. A resource that is unchanged has no vertex until it is found to be
+	 * the endpoint of an added or removed edge. It is then added to the graph as context.
+	 */
+	private Vertex getVertex(RootGraph g, String ref, CatalogDelta delta, IPath oldRoot, IPath newRoot, Map<String, Vertex> vertexMap) {
+		String key = ref.toLowerCase();
+		Vertex v = vertexMap.get(key);
+		if(v == null) {
+			CatalogResource oldR = delta.getOldIndex().getResource(ref);
+			CatalogResource newR = delta.getNewIndex().getResource(ref);
+			if(oldR == null && newR == null) {
+				v = createVertexForMissingResource(ref);
+				g.addVertex(v);
 			}
-			g.addEdge(e);
+			else
+				v = addResourceVertex(g, oldR, oldRoot, newR, newRoot);
+			vertexMap.put(key, v); // keep it if there are more references
 		}
-	}
-
-	private String keyOf(CatalogEdge e) {
-		return e.getSource().toLowerCase() + "-" + e.getTarget().toLowerCase();
-
-	}
-
-	private String keyOf(CatalogResource r) {
-		StringBuilder builder = new StringBuilder();
-		builder.append(r.getType().toLowerCase());
-		builder.append("[");
-		builder.append(r.getTitle().toLowerCase());
-		builder.append("]");
-		return builder.toString();
+		return v;
 	}
 
 	private StyleSet labelStyleForResource(CatalogResource oldR, IPath oldRoot, CatalogResource newR, IPath newRoot, String[] resultingStyle) {
@@ -482,7 +431,9 @@ public class CatalogDeltaGraphProducer extends AbstractCatalogGraphProducer impl
 	}
 
 	/**
-	 * Produces the graph data structure (RootGraph, Vertexes, Edges).
+	 * Produces the graph data structure (RootGraph, Vertexes, Edges). Only the delta is rendered, i.e. added, removed
+	 * and modified resources, and added and removed edges. Unchanged resources are only rendered when they are the
+	 * endpoint of an added or removed edge.
 	 */
 	private RootGraph produceRootGraph(ICancel cancel, String title, Catalog oldCatalog, IPath oldRoot, Catalog newCatalog, IPath newRoot) {
 
@@ -493,64 +444,15 @@ public class CatalogDeltaGraphProducer extends AbstractCatalogGraphProducer impl
 		// catalog.getClasses(); // list of classnames
 		// catalog.getTags(); // don't know if these have any value...
 
-		Map<String, Vertex> oldVertexMap = Maps.newHashMap();
-		Map<String, Vertex> newVertexMap = Maps.newHashMap();
-		Map<CatalogResource, Vertex> oldResourceVertexMap = Maps.newHashMap();
-		Map<CatalogResource, Vertex> newResourceVertexMap = Maps.newHashMap();
-		Map<Vertex, CatalogResource> catalogMap = Maps.newHashMap();
-
-		// create all vertexes for old
-		createVertexesFor(oldCatalog.getResources(), oldVertexMap, oldResourceVertexMap, catalogMap);
-
-		// create all vertexes for new
-		createVertexesFor(newCatalog.getResources(), newVertexMap, newResourceVertexMap, catalogMap);
-
-		// compute Venn set
-		Set<String> oldKeys = oldVertexMap.keySet();
-		Set<String> newKeys = newVertexMap.keySet();
-		SetView<String> inBoth = Sets.intersection(oldKeys, newKeys);
-		SetView<String> removedInNew = Sets.difference(oldKeys, newKeys);
-		SetView<String> addedInNew = Sets.difference(newKeys, oldKeys);
-		Map<String, Vertex> resultingVertexMap = Maps.newHashMap();
-
-		for(String s : removedInNew) {
-			Vertex v = oldVertexMap.get(s);
-			v.addStyleClass(STYLE_Removed);
-			v.setStyles(labelStyleForResource(catalogMap.get(v), oldRoot, null, null, new String[1]));
-			resultingVertexMap.put(s, v);
-			g.addVertex(v);
-		}
-		for(String s : addedInNew) {
-			Vertex v = newVertexMap.get(s);
-			v.addStyleClass(STYLE_Added);
-			v.setStyles(labelStyleForResource(null, null, catalogMap.get(v), newRoot, new String[1]));
-			resultingVertexMap.put(s, v);
-			g.addVertex(v);
-		}
-		for(String s : inBoth) {
-			Vertex vOld = oldVertexMap.get(s);
-			Vertex vNew = newVertexMap.get(s);
-
-			Vertex v = new Vertex("", STYLE_Resource);
-			String computedStyle[] = new String[1];
-			v.setStyles(labelStyleForResource(catalogMap.get(vOld), oldRoot, catalogMap.get(vNew), newRoot, computedStyle));
-			v.addStyleClass(computedStyle[0]);
-			resultingVertexMap.put(s, v);
-			g.addVertex(v);
-		}
-
-		// Process Edges
-		Map<String, Edge> oldEdgeMap = Maps.newHashMap();
-		Map<String, Edge> newEdgeMap = Maps.newHashMap();
-		Set<String> edges = Sets.newHashSet();
-
-		edgesForCatalogEdges(oldCatalog.getEdges(), resultingVertexMap, oldEdgeMap, edges);
-		edgesForResources(g, oldCatalog.getResources(), oldResourceVertexMap, resultingVertexMap, oldEdgeMap, edges);
-
-		edgesForCatalogEdges(newCatalog.getEdges(), resultingVertexMap, newEdgeMap, edges);
-		edgesForResources(g, newCatalog.getResources(), newResourceVertexMap, resultingVertexMap, newEdgeMap, edges);
+		CatalogDelta delta = CatalogDiffer.diff(oldCatalog, newCatalog);
+		Map<String, Vertex> vertexMap = Maps.newHashMap();
+		for(ResourceDelta rd : delta.getResourceDeltas())
+			vertexMap.put(rd.getRef().toLowerCase(), addResourceVertex(g, rd.getOldResource(), oldRoot, rd.getNewResource(), newRoot));
 
-		generateEdgeDelta(g, edges, oldEdgeMap, newEdgeMap);
+		for(ResourceEdge re : delta.getRemovedEdges())
+			addEdge(g, re, STYLE_Removed, markRemoved, delta, oldRoot, newRoot, vertexMap);
+		for(ResourceEdge re : delta.getAddedEdges())
+			addEdge(g, re, STYLE_Added, markAdded, delta, oldRoot, newRoot, vertexMap);
 
 		return g;
 	}
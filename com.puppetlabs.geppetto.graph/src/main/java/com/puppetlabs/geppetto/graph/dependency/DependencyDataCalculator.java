@@ -49,6 +49,7 @@ import com.puppetlabs.geppetto.semver.VersionRange;
 import com.puppetlabs.geppetto.validation.runner.AllModulesState;
 import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
 import com.puppetlabs.geppetto.validation.runner.BuildResult;
+import com.puppetlabs.geppetto.validation.runner.ContainerPathIndex;
 import com.puppetlabs.geppetto.validation.runner.MetadataInfo;
 import com.puppetlabs.graph.ICancel;
 import com.puppetlabs.graph.ICancel.NullIndicator;
@@ -285,6 +286,10 @@ public class DependencyDataCalculator implements DependencyGraphStyles, Dependen
 
 	private ModuleNodeData pptpNode;
 
+	private final ContainerPathIndex moduleDirectories = new ContainerPathIndex();
+
+	private final Map<String, ModuleNodeData> moduleDirectoryNodes = Maps.newHashMap();
+
 	private File root;
 
 	public static final DiagnosticType DEPENDENCY_DATA_CALCULATOR = new DiagnosticType(
@@ -292,15 +297,13 @@ public class DependencyDataCalculator implements DependencyGraphStyles, Dependen
 
 	private ModuleNodeData _file2Module(File f, Map<File, ModuleNodeData> index) {
 		String path = f.getPath();
-		ModuleNodeData md;
 		if(path.endsWith(MODULEFILE_NAME) || path.endsWith(METADATA_JSON_NAME))
-			md = index.get(f);
-		else {
-			md = index.get(new File(path + '/' + MODULEFILE_NAME));
-			if(md == null)
-				md = index.get(new File(path + '/' + METADATA_JSON_NAME));
-		}
-		return md;
+			return index.get(f);
+
+		String moduleDirectory = moduleDirectories.getContainer(path);
+		return moduleDirectory == null
+			? null
+			: moduleDirectoryNodes.get(moduleDirectory);
 	}
 
 	private void addEdgeHref(ModuleNodeData a, ModuleNodeData b, GraphElement... elements) {
@@ -411,6 +414,14 @@ public class DependencyDataCalculator implements DependencyGraphStyles, Dependen
 			if(!(m.getKey() instanceof ModuleName)) {
 				MetadataInfo mi = (MetadataInfo) m.getKey();
 				fileIndex.put(mi.getFile(), m.getValue());
+
+				// a Modulefile takes precedence over a metadata.json in the same directory
+				String moduleDirectory = mi.getFile().getParent();
+				if(moduleDirectory != null &&
+					(!moduleDirectoryNodes.containsKey(moduleDirectory) || MODULEFILE_NAME.equals(mi.getFile().getName()))) {
+					moduleDirectories.add(moduleDirectory);
+					moduleDirectoryNodes.put(moduleDirectory, m.getValue());
+				}
 			}
 		}
 		Map<File, Multimap<File, Export>> ambiguities = exportData.getAmbiguityMap();
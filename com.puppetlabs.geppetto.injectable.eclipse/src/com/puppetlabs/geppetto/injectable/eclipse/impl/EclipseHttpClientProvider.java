@@ -15,10 +15,13 @@ import javax.inject.Named;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.params.ConnManagerPNames;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpConnectionParams;
@@ -31,6 +34,11 @@ import com.puppetlabs.geppetto.common.annotations.Nullable;
 import com.puppetlabs.geppetto.injectable.eclipse.Activator;
 
 public class EclipseHttpClientProvider implements Provider<HttpClient> {
+	/**
+	 * The number of connections per route used when no value has been bound to
+	 * {@link ConnManagerPNames#MAX_CONNECTIONS_PER_ROUTE}
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
 
 	@Inject(optional = true)
 	@Nullable
@@ -42,6 +50,11 @@ public class EclipseHttpClientProvider implements Provider<HttpClient> {
 	@Named(CoreConnectionPNames.SO_TIMEOUT)
 	private Integer soTimeout;
 
+	@Inject(optional = true)
+	@Nullable
+	@Named(ConnManagerPNames.MAX_CONNECTIONS_PER_ROUTE)
+	private Integer maxConnectionsPerRoute;
+
 	@Inject(optional = true)
 	@Nullable
 	private SSLSocketFactory sslSocketFactory;
@@ -54,12 +67,20 @@ public class EclipseHttpClientProvider implements Provider<HttpClient> {
 		if(soTimeout != null)
 			HttpConnectionParams.setSoTimeout(params, soTimeout.intValue());
 
-		DefaultHttpClient httpClient = new DefaultHttpClient(params);
+		int maxPerRoute = maxConnectionsPerRoute == null
+			? DEFAULT_MAX_CONNECTIONS_PER_ROUTE
+			: maxConnectionsPerRoute.intValue();
 
-		final SchemeRegistry schemeRegistry = httpClient.getConnectionManager().getSchemeRegistry();
+		final SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
 		if(sslSocketFactory != null)
 			schemeRegistry.register(new Scheme("https", 443, sslSocketFactory));
 
+		// A pooling connection manager is needed since requests may be executed concurrently
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		connectionManager.setMaxTotal(Math.max(maxPerRoute, connectionManager.getMaxTotal()));
+		DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, params);
+
 		httpClient.setRoutePlanner(new ProxiedRoutePlanner(schemeRegistry));
 		for(IProxyData proxyData : Activator.getInstance().getProxyService().getProxyData()) {
 			String user = proxyData.getUserId();
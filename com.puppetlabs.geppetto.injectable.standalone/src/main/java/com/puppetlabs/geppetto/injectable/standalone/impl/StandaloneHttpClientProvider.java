@@ -4,9 +4,13 @@ import com.puppetlabs.geppetto.common.annotations.Nullable;
 import javax.inject.Named;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.params.ConnManagerPNames;
 import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpConnectionParams;
@@ -15,7 +19,15 @@ import org.apache.http.params.HttpParams;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+/**
+ * Provides a client that uses a pool of connections so that it can be shared by concurrent requests.
+ */
 public class StandaloneHttpClientProvider implements Provider<HttpClient> {
+	/**
+	 * The number of connections per route used when no value has been bound to
+	 * {@link ConnManagerPNames#MAX_CONNECTIONS_PER_ROUTE}
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
 
 	@Inject(optional = true)
 	@Nullable
@@ -27,6 +39,11 @@ public class StandaloneHttpClientProvider implements Provider<HttpClient> {
 	@Named(CoreConnectionPNames.SO_TIMEOUT)
 	private Integer soTimeout;
 
+	@Inject(optional = true)
+	@Nullable
+	@Named(ConnManagerPNames.MAX_CONNECTIONS_PER_ROUTE)
+	private Integer maxConnectionsPerRoute;
+
 	@Inject
 	private SSLSocketFactory sslSocketFactory;
 
@@ -38,8 +55,15 @@ public class StandaloneHttpClientProvider implements Provider<HttpClient> {
 		if(soTimeout != null)
 			HttpConnectionParams.setSoTimeout(params, soTimeout.intValue());
 
-		DefaultHttpClient httpClient = new DefaultHttpClient(params);
-		httpClient.getConnectionManager().getSchemeRegistry().register(new Scheme("https", 443, sslSocketFactory));
-		return httpClient;
+		int maxPerRoute = maxConnectionsPerRoute == null
+			? DEFAULT_MAX_CONNECTIONS_PER_ROUTE
+			: maxConnectionsPerRoute.intValue();
+
+		SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
+		schemeRegistry.register(new Scheme("https", 443, sslSocketFactory));
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		connectionManager.setMaxTotal(Math.max(maxPerRoute, connectionManager.getMaxTotal()));
+		return new DefaultHttpClient(connectionManager, params);
 	}
 }
@@ -0,0 +1,17 @@
+package com.puppetlabs.geppetto.module.dsl.tests;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * All Module DSL Tests.
+ */
+@SuiteClasses({
+// @fmtOff
+	DependencyGraphTest.class
+	// @fmtOn
+})
+@RunWith(Suite.class)
+public class AllTests {
+}
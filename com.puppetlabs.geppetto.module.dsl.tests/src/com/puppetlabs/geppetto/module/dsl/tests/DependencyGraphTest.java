@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.module.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.eclipse.xtext.validation.Issue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.inject.Injector;
+import com.puppetlabs.geppetto.module.dsl.ModuleStandaloneSetup;
+import com.puppetlabs.geppetto.module.dsl.validation.ModuleDependencyGraphAdapter;
+import com.puppetlabs.geppetto.module.dsl.validation.ModuleDiagnostics;
+
+/**
+ * Tests the circular and duplicate dependency checks of the module validator. Each check is made once with a
+ * dependency graph that is created per validation and once with a graph that is shared through a
+ * {@link ModuleDependencyGraphAdapter}. Both must report the same issues.
+ */
+public class DependencyGraphTest {
+	private static Injector injector;
+
+	private static String circular(String... chain) {
+		StringBuilder bld = new StringBuilder("Circular dependency: [");
+		for(String name : chain) {
+			bld.append(QualifiedName.create("test", name));
+			bld.append(" -> ");
+		}
+		bld.append(QualifiedName.create("test", chain[0]));
+		bld.append(']');
+		return bld.toString();
+	}
+
+	/**
+	 * @param name
+	 *            The name of the module without owner
+	 * @param dependencies
+	 *            The names of the modules that the module depends on
+	 * @return The name followed by the dependencies
+	 */
+	private static String[] module(String name, String... dependencies) {
+		String[] result = new String[dependencies.length + 1];
+		result[0] = name;
+		System.arraycopy(dependencies, 0, result, 1, dependencies.length);
+		return result;
+	}
+
+	private static String issue(String module, String message) {
+		return module + ": " + message;
+	}
+
+	private static String metadataJSON(String[] module) {
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\n  \"name\": \"test-").append(module[0]).append("\",\n");
+		bld.append("  \"version\": \"1.0.0\",\n  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n");
+		bld.append("  \"summary\": \"Test module\",\n  \"source\": \"http://example.com\",\n");
+		bld.append("  \"dependencies\": [");
+		for(int idx = 1; idx < module.length; ++idx) {
+			if(idx > 1)
+				bld.append(',');
+			bld.append("\n    { \"name\": \"test-").append(module[idx]).append("\", \"version_requirement\": \">= 1.0.0\" }");
+		}
+		bld.append("\n  ]\n}\n");
+		return bld.toString();
+	}
+
+	@BeforeClass
+	public static void setUp() {
+		injector = new ModuleStandaloneSetup().createInjectorAndDoEMFRegistration();
+	}
+
+	private void assertIssues(String issueCode, List<String> expected, String[]... modules) throws IOException {
+		expected = Lists.newArrayList(expected);
+		Collections.sort(expected);
+		assertEquals("Unexpected issues with a graph per validation", expected, validate(false, issueCode, modules));
+		assertEquals("Unexpected issues with a shared graph", expected, validate(true, issueCode, modules));
+	}
+
+	@Test
+	public void cycle() throws Exception {
+		assertIssues(ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Lists.newArrayList(
+			issue("a", circular("a", "b")), issue("b", circular("b", "a"))), module("a", "b"), module("b", "a"));
+	}
+
+	@Test
+	public void dependenciesOutsideCycle() throws Exception {
+		// c depends on the cycle, the cycle depends on d, and d and e form a chain without a cycle
+		assertIssues(ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Lists.newArrayList(
+			issue("a", circular("a", "b")), issue("b", circular("b", "a"))), module("a", "b", "d"), module("b", "a"),
+			module("c", "a"), module("d", "e"), module("e"));
+	}
+
+	@Test
+	public void duplicateDeclarations() throws Exception {
+		String duplicate = "Dependency to 'test-b' is declared more than once";
+		String[][] modules = { module("a", "b", "c", "b"), module("b"), module("c") };
+		assertIssues(
+			ModuleDiagnostics.ISSUE__DEPENDENCY_DECLARED_MORE_THAN_ONCE,
+			Lists.newArrayList(issue("a", duplicate), issue("a", duplicate)), modules);
+		assertIssues(ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Collections.<String> emptyList(), modules);
+	}
+
+	@Test
+	public void noCycle() throws Exception {
+		assertIssues(
+			ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Collections.<String> emptyList(), module("a", "b", "c"), module("b", "c"),
+			module("c"));
+	}
+
+	@Test
+	public void selfDependency() throws Exception {
+		assertIssues(ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Lists.newArrayList(issue("d", circular("d"))), module("d", "d"));
+	}
+
+	@Test
+	public void threeModuleCycle() throws Exception {
+		assertIssues(ModuleDiagnostics.ISSUE__CIRCULAR_DEPENDENCY, Lists.newArrayList(
+			issue("a", circular("a", "b", "c")), issue("b", circular("b", "c", "a")), issue("c", circular("c", "a", "b"))),
+			module("a", "b"), module("b", "c"), module("c", "a"));
+	}
+
+	/**
+	 * Loads the given modules into one resource set and validates them.
+	 *
+	 * @return The sorted issues with the given code, each one prefixed with the name of the module where it was found
+	 */
+	private List<String> validate(boolean sharedGraph, String issueCode, String[]... modules) throws IOException {
+		XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
+		List<Resource> resources = Lists.newArrayList();
+		for(String[] module : modules) {
+			Resource r = resourceSet.createResource(URI.createFileURI("/modules/" + module[0] + "/metadata.json"));
+			r.load(new ByteArrayInputStream(metadataJSON(module).getBytes(Charsets.UTF_8)), null);
+			resources.add(r);
+		}
+		EcoreUtil.resolveAll(resourceSet);
+		if(sharedGraph)
+			ModuleDependencyGraphAdapter.install(resourceSet);
+
+		IResourceValidator validator = injector.getInstance(IResourceValidator.class);
+		List<String> result = Lists.newArrayList();
+		for(int idx = 0; idx < modules.length; ++idx)
+			for(Issue issue : validator.validate(resources.get(idx), CheckMode.ALL, CancelIndicator.NullImpl)) {
+				assertFalse("Unexpected error: " + issue, issue.getSeverity() == Severity.ERROR);
+				if(issueCode.equals(issue.getCode()))
+					result.add(issue(modules[idx][0], issue.getMessage()));
+			}
+		Collections.sort(result);
+		return result;
+	}
+}
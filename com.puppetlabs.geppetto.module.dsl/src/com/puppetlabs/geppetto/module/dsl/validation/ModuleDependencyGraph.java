@@ -0,0 +1,154 @@
+package com.puppetlabs.geppetto.module.dsl.validation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedName;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.puppetlabs.geppetto.module.dsl.ModuleUtil;
+import com.puppetlabs.geppetto.module.dsl.metadata.JsonMetadata;
+
+/**
+ * The graph of resolved dependencies between modules. Modules are identified by name in the same way as in the
+ * circular dependency check of the {@link ModuleJavaValidator}. The strongly connected components of the graph are
+ * computed once when the graph is created so that the question whether two modules are part of the same dependency
+ * cycle is answered by a lookup.
+ */
+public class ModuleDependencyGraph {
+	/**
+	 * Creates the graph of all modules in the resource set of the given metadata and all modules that they depend on.
+	 *
+	 * @param moduleUtil
+	 *            Utility used for obtaining names and resolved dependencies
+	 * @param metadata
+	 *            Metadata that is included even if it is not contained in a resource set
+	 * @return The graph
+	 */
+	public static ModuleDependencyGraph create(ModuleUtil moduleUtil, JsonMetadata metadata) {
+		List<JsonMetadata> roots = Lists.newArrayList(metadata);
+		Resource resource = metadata.eResource();
+		ResourceSet resourceSet = resource == null
+			? null
+			: resource.getResourceSet();
+		if(resourceSet != null)
+			for(Resource r : Lists.newArrayList(resourceSet.getResources()))
+				if(r.isLoaded())
+					for(EObject root : r.getContents())
+						if(root instanceof JsonMetadata)
+							roots.add((JsonMetadata) root);
+		return new ModuleDependencyGraph(moduleUtil, roots);
+	}
+
+	private final Map<QualifiedName, Set<QualifiedName>> dependencies = Maps.newHashMap();
+
+	private final Map<QualifiedName, Integer> components = Maps.newHashMap();
+
+	// State used during the computation of the components
+	private int nextIndex;
+
+	private final Map<QualifiedName, Integer> indexes = Maps.newHashMap();
+
+	private final Map<QualifiedName, Integer> lowLinks = Maps.newHashMap();
+
+	private final Deque<QualifiedName> stack = new LinkedList<QualifiedName>();
+
+	/**
+	 * Creates the graph of the given metadata and all modules that they depend on.
+	 *
+	 * @param moduleUtil
+	 *            Utility used for obtaining names and resolved dependencies
+	 * @param roots
+	 *            The metadata to start from
+	 */
+	public ModuleDependencyGraph(ModuleUtil moduleUtil, Iterable<JsonMetadata> roots) {
+		Set<JsonMetadata> seen = Sets.newIdentityHashSet();
+		Deque<JsonMetadata> work = new ArrayDeque<JsonMetadata>();
+		for(JsonMetadata root : roots)
+			work.add(root);
+		while(!work.isEmpty()) {
+			JsonMetadata md = work.removeFirst();
+			if(!seen.add(md))
+				continue;
+			QualifiedName name = moduleUtil.getName(md);
+			Set<QualifiedName> deps = null;
+			if(name != null) {
+				deps = dependencies.get(name);
+				if(deps == null) {
+					deps = Sets.newHashSet();
+					dependencies.put(name, deps);
+				}
+			}
+			for(JsonMetadata dep : moduleUtil.getResolvedDependencies(md)) {
+				work.addLast(dep);
+				if(deps != null) {
+					QualifiedName depName = moduleUtil.getName(dep);
+					if(depName != null)
+						deps.add(depName);
+				}
+			}
+		}
+
+		for(QualifiedName name : dependencies.keySet())
+			if(!indexes.containsKey(name))
+				strongConnect(name);
+		indexes.clear();
+		lowLinks.clear();
+	}
+
+	/**
+	 * Answers whether the two modules belong to the same strongly connected component, i.e. if each module depends
+	 * directly or indirectly on the other. Modules that are unknown to this graph are conservatively considered to be
+	 * in the same component as any other module.
+	 *
+	 * @param a
+	 *            The name of one module
+	 * @param b
+	 *            The name of the other module
+	 * @return <code>true</code> if the modules can be part of the same dependency cycle
+	 */
+	public boolean isSameComponent(QualifiedName a, QualifiedName b) {
+		if(a.equals(b))
+			return true;
+		Integer ac = components.get(a);
+		Integer bc = components.get(b);
+		return ac == null || bc == null || ac.equals(bc);
+	}
+
+	/**
+	 * Tarjan's algorithm. Assigns the component of the given name and all names in the same component.
+	 */
+	private void strongConnect(QualifiedName name) {
+		Integer index = Integer.valueOf(nextIndex++);
+		indexes.put(name, index);
+		lowLinks.put(name, index);
+		stack.push(name);
+		for(QualifiedName dep : dependencies.get(name)) {
+			if(!dependencies.containsKey(dep))
+				continue;
+			if(!indexes.containsKey(dep)) {
+				strongConnect(dep);
+				lowLinks.put(name, Math.min(lowLinks.get(name), lowLinks.get(dep)));
+			}
+			else if(!components.containsKey(dep))
+				// On the stack
+				lowLinks.put(name, Math.min(lowLinks.get(name), indexes.get(dep)));
+		}
+		if(lowLinks.get(name).equals(index)) {
+			QualifiedName member;
+			do {
+				member = stack.pop();
+				components.put(member, index);
+			} while(!member.equals(name));
+		}
+	}
+}
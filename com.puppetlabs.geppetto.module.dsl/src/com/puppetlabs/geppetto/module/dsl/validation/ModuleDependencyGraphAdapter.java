@@ -0,0 +1,88 @@
+package com.puppetlabs.geppetto.module.dsl.validation;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import com.puppetlabs.geppetto.module.dsl.ModuleUtil;
+import com.puppetlabs.geppetto.module.dsl.metadata.JsonMetadata;
+
+/**
+ * A ResourceSet adapter that holds the {@link ModuleDependencyGraph} of the modules in the resource set. Installing
+ * this adapter on a resource set is a promise that the dependencies between the modules will not change unless
+ * resources are added to or removed from the set (or {@link #invalidate()} is called). This is true for batch
+ * validation, but not for an interactive environment where metadata is edited.
+ * <p>
+ * All methods are thread safe.
+ * </p>
+ */
+public class ModuleDependencyGraphAdapter extends AdapterImpl {
+	/**
+	 * Returns the adapter installed on the given resource set.
+	 *
+	 * @param resourceSet
+	 *            The resource set or <code>null</code>
+	 * @return The installed adapter or <code>null</code> if no adapter has been installed
+	 */
+	public static ModuleDependencyGraphAdapter get(ResourceSet resourceSet) {
+		if(resourceSet != null)
+			for(Adapter a : resourceSet.eAdapters())
+				if(a instanceof ModuleDependencyGraphAdapter)
+					return (ModuleDependencyGraphAdapter) a;
+		return null;
+	}
+
+	/**
+	 * Installs an adapter on the given resource set unless one is already installed.
+	 *
+	 * @param resourceSet
+	 *            The resource set that will share the dependency graph between its resources
+	 * @return The installed adapter
+	 */
+	public static ModuleDependencyGraphAdapter install(ResourceSet resourceSet) {
+		ModuleDependencyGraphAdapter adapter = get(resourceSet);
+		if(adapter == null) {
+			adapter = new ModuleDependencyGraphAdapter();
+			resourceSet.eAdapters().add(adapter);
+		}
+		else
+			adapter.invalidate();
+		return adapter;
+	}
+
+	private ModuleDependencyGraph graph;
+
+	/**
+	 * Returns the dependency graph of the resource set. The graph is created when no graph exists.
+	 *
+	 * @param moduleUtil
+	 *            Utility used when creating the graph
+	 * @param metadata
+	 *            Metadata contained in the resource set
+	 * @return The graph
+	 */
+	public synchronized ModuleDependencyGraph getGraph(ModuleUtil moduleUtil, JsonMetadata metadata) {
+		if(graph == null)
+			graph = ModuleDependencyGraph.create(moduleUtil, metadata);
+		return graph;
+	}
+
+	/**
+	 * Discards the graph. Must be called when the content of a resource in the resource set has changed.
+	 */
+	public synchronized void invalidate() {
+		graph = null;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ModuleDependencyGraphAdapter.class;
+	}
+
+	@Override
+	public void notifyChanged(Notification msg) {
+		if(msg.getFeatureID(ResourceSet.class) == ResourceSet.RESOURCE_SET__RESOURCES)
+			invalidate();
+	}
+}
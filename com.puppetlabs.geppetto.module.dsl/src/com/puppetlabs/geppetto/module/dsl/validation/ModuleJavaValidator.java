@@ -22,6 +22,8 @@ import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
 import org.eclipse.xtext.validation.Check;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
@@ -47,6 +49,8 @@ import com.puppetlabs.geppetto.semver.VersionRange;
 
 @Singleton
 public class ModuleJavaValidator extends AbstractModuleJavaValidator implements ModuleDiagnostics {
+	private static final String DUPLICATE_DEPENDENCIES_KEY = ModuleJavaValidator.class.getName() + ".duplicateDependencies";
+
 	@Inject
 	private ModuleUtil moduleUtil;
 
@@ -58,8 +62,13 @@ public class ModuleJavaValidator extends AbstractModuleJavaValidator implements
 			throw new ModuleName.BadNameSyntaxException();
 	}
 
+	/**
+	 * Reports every path that leads back to the first module of the chain. Modules that are not in the same strongly
+	 * connected component as the first module cannot lead back to it so they are marked as visited without being
+	 * traversed.
+	 */
 	private void checkCircularDependencies(JsonMetadata ref, JsonDependency origin, Set<QualifiedName> visited,
-			LinkedList<QualifiedName> chain) {
+			LinkedList<QualifiedName> chain, ModuleDependencyGraph graph) {
 		QualifiedName refName = moduleUtil.getName(ref);
 		if(refName == null)
 			return;
@@ -67,10 +76,10 @@ public class ModuleJavaValidator extends AbstractModuleJavaValidator implements
 		if(chain.getFirst().equals(refName))
 			circularDependencyError(origin, chain);
 		else {
-			if(visited.add(refName)) {
+			if(visited.add(refName) && graph.isSameComponent(chain.getFirst(), refName)) {
 				chain.addLast(refName);
 				for(JsonMetadata refMd : moduleUtil.getResolvedDependencies(ref))
-					checkCircularDependencies(refMd, origin, visited, chain);
+					checkCircularDependencies(refMd, origin, visited, chain, graph);
 				chain.removeLast();
 			}
 		}
@@ -100,21 +109,19 @@ public class ModuleJavaValidator extends AbstractModuleJavaValidator implements
 						error(e.getMessage(), dependency, Literals.JSON_OBJECT__PAIRS, ISSUE__INVALID_MODULE_NAME);
 					}
 			}
-			List<JsonDependency> deps = moduleUtil.getDependencies(moduleUtil.getOwnerMetadata(dependency));
-			for(JsonDependency otherDep : deps)
-				if(otherDep != dependency && name.equals(moduleUtil.getRawName(otherDep))) {
-					ValidationPreference vp = validationAdvisor.getDependencyDeclaredMoreThanOnce();
-					if(vp != IGNORE) {
-						EObject dc = dependency.eContainer();
-						int idx = deps.indexOf(dependency);
-						String msg = String.format("Dependency to '%s' is declared more than once", name);
-						if(vp == WARNING)
-							warning(msg, dc, Literals.JSON_ARRAY__VALUE, idx, ISSUE__DEPENDENCY_DECLARED_MORE_THAN_ONCE);
-						else
-							error(msg, dc, Literals.JSON_ARRAY__VALUE, idx, ISSUE__DEPENDENCY_DECLARED_MORE_THAN_ONCE);
-					}
-					break;
+			JsonMetadata owner = moduleUtil.getOwnerMetadata(dependency);
+			if(getDuplicateDependencyNames(owner).contains(name)) {
+				ValidationPreference vp = validationAdvisor.getDependencyDeclaredMoreThanOnce();
+				if(vp != IGNORE) {
+					EObject dc = dependency.eContainer();
+					int idx = moduleUtil.getDependencies(owner).indexOf(dependency);
+					String msg = String.format("Dependency to '%s' is declared more than once", name);
+					if(vp == WARNING)
+						warning(msg, dc, Literals.JSON_ARRAY__VALUE, idx, ISSUE__DEPENDENCY_DECLARED_MORE_THAN_ONCE);
+					else
+						error(msg, dc, Literals.JSON_ARRAY__VALUE, idx, ISSUE__DEPENDENCY_DECLARED_MORE_THAN_ONCE);
 				}
+			}
 		}
 
 		if(range == null)
@@ -122,11 +129,16 @@ public class ModuleJavaValidator extends AbstractModuleJavaValidator implements
 				missingAttributeMessage("version_requirement") + ". All versions will be considered a match", dependency,
 				Literals.JSON_OBJECT__PAIRS, ISSUE__MISSING_REQUIRED_ATTRIBUTE);
 		else if(moduleUtil.isResolved(ref) && validationAdvisor.getCircularDependency() != IGNORE) {
-			LinkedList<QualifiedName> chain = Lists.newLinkedList();
-			QualifiedName depName = moduleUtil.getName(moduleUtil.getOwnerMetadata(dependency));
-			if(depName != null) {
-				chain.add(depName);
-				checkCircularDependencies(ref, dependency, new HashSet<QualifiedName>(), chain);
+			JsonMetadata owner = moduleUtil.getOwnerMetadata(dependency);
+			QualifiedName depName = moduleUtil.getName(owner);
+			QualifiedName refName = moduleUtil.getName(ref);
+			if(depName != null && refName != null) {
+				ModuleDependencyGraph graph = getDependencyGraph(owner);
+				if(graph.isSameComponent(depName, refName)) {
+					LinkedList<QualifiedName> chain = Lists.newLinkedList();
+					chain.add(depName);
+					checkCircularDependencies(ref, dependency, new HashSet<QualifiedName>(), chain, graph);
+				}
 			}
 		}
 	}
@@ -309,6 +321,60 @@ public class ModuleJavaValidator extends AbstractModuleJavaValidator implements
 			validationAdvisor.getCircularDependency(), dependency, Literals.JSON_OBJECT__PAIRS, ISSUE__CIRCULAR_DEPENDENCY, buf.toString());
 	}
 
+	/**
+	 * Returns the dependency graph shared by all metadata of the resource set when the resource set has a
+	 * {@link ModuleDependencyGraphAdapter}. Otherwise the graph is shared by all checks of the current validation.
+	 */
+	private ModuleDependencyGraph getDependencyGraph(JsonMetadata metadata) {
+		Resource resource = metadata.eResource();
+		ModuleDependencyGraphAdapter adapter = ModuleDependencyGraphAdapter.get(resource == null
+			? null
+			: resource.getResourceSet());
+		if(adapter != null)
+			return adapter.getGraph(moduleUtil, metadata);
+
+		Map<Object, Object> context = getContext();
+		if(context == null)
+			return ModuleDependencyGraph.create(moduleUtil, metadata);
+
+		ModuleDependencyGraph graph = (ModuleDependencyGraph) context.get(ModuleDependencyGraph.class);
+		if(graph == null) {
+			graph = ModuleDependencyGraph.create(moduleUtil, metadata);
+			context.put(ModuleDependencyGraph.class, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the names of the dependencies that are declared more than once by the given metadata. The names are
+	 * computed once per validation.
+	 */
+	private Set<String> getDuplicateDependencyNames(JsonMetadata metadata) {
+		Map<Object, Object> context = getContext();
+		@SuppressWarnings("unchecked")
+		Map<JsonMetadata, Set<String>> duplicatesPerMetadata = context == null
+			? null
+			: (Map<JsonMetadata, Set<String>>) context.get(DUPLICATE_DEPENDENCIES_KEY);
+		if(duplicatesPerMetadata == null) {
+			duplicatesPerMetadata = Maps.newHashMap();
+			if(context != null)
+				context.put(DUPLICATE_DEPENDENCIES_KEY, duplicatesPerMetadata);
+		}
+
+		Set<String> duplicates = duplicatesPerMetadata.get(metadata);
+		if(duplicates == null) {
+			Set<String> names = Sets.newHashSet();
+			duplicates = Sets.newHashSet();
+			for(JsonDependency dep : moduleUtil.getDependencies(metadata)) {
+				String name = moduleUtil.getRawName(dep);
+				if(name != null && !names.add(name))
+					duplicates.add(name);
+			}
+			duplicatesPerMetadata.put(metadata, duplicates);
+		}
+		return duplicates;
+	}
+
 	private void emptyAttributeError(JsonValue value, String key, ValidationPreference pref) {
 		warningOrError(pref, value, Literals.JSON_VALUE__VALUE, ISSUE__EMPTY_ATTRIBUTE, emptyAttributeMessage(key), key);
 	}
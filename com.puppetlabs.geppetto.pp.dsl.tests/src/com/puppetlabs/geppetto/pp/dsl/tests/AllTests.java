@@ -34,12 +34,19 @@ import org.junit.runners.Suite.SuiteClasses;
 	TestIssues3_0.class,
 	TestIssues3_5.class,
 	TestLinking.class,
+	TestExportedNamesIndex.class,
+	TestSearchPathIndex.class,
+	TestProposalIndex.class,
 	TestSemanticOneSpaceFormatter.class,
 	TestSemanticCssFormatter.class,
 	TestPPFormatting.class,
 	TestPPFormattingFailing.class,
 	TestFormatterUtils.class,
-	TestPptpResourceAsFile.class
+	TestDomCSS.class,
+	TestMeasurementCache.class,
+	TestCachedFormatting.class,
+	TestPptpResourceAsFile.class,
+	TestPptpModelCache.class
 	// @fmtOn
 })
 @RunWith(Suite.class)
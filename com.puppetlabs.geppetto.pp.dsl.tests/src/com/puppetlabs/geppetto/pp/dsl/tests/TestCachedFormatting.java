@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.serializer.ISerializer;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.inject.Binder;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.formatter.CSSDomFormatter;
+import com.puppetlabs.xtext.dommodel.formatter.DomNodeLayoutFeeder;
+import com.puppetlabs.xtext.dommodel.formatter.IDomModelFormatter;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
+import com.puppetlabs.xtext.dommodel.formatter.css.DomCSS;
+import com.puppetlabs.xtext.serializer.DomBasedSerializer;
+
+/**
+ * Tests that formatting produces the same result when the layouts reuse measurements from a {@link MeasurementCache}
+ * as when every measurement is made again.
+ */
+public class TestCachedFormatting extends AbstractPuppetTests {
+	/**
+	 * A formatter that caches measurements only when {@link TestCachedFormatting#cacheMeasurements} is set.
+	 */
+	public static class SwitchableCacheFormatter extends CSSDomFormatter {
+
+		@Inject
+		public SwitchableCacheFormatter(Provider<DomCSS> domProvider, DomNodeLayoutFeeder feeder) {
+			super(domProvider, feeder);
+		}
+
+		@Override
+		protected MeasurementCache createMeasurementCache() {
+			return cacheMeasurements
+				? super.createMeasurementCache()
+				: new UncachedMeasurements();
+		}
+	}
+
+	/**
+	 * A cache that measures every time.
+	 */
+	public static class UncachedMeasurements extends MeasurementCache {
+		@Override
+		public Measurement measure(IDomNode node, Object key, Function<IDomNode, Measurement> measurer) {
+			return measurer.apply(node);
+		}
+	}
+
+	public static boolean cacheMeasurements = true;
+
+	private static String nestedHash(int depth) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{ 'first key' => 'a value that is long enough to require a break', ");
+		builder.append("\"${name}-interpolated\" => $settings, $variable_key => [1, 2, 3], ");
+		builder.append("x => ");
+		if(depth > 0)
+			builder.append(nestedHash(depth - 1));
+		else
+			builder.append("'leaf'");
+		builder.append(", 'selected' => $::osfamily ? { 'RedHat' => 'httpd', /Debian|Ubuntu/ => 'apache2', default => ");
+		builder.append(depth > 0
+			? "{ 'nested in selector' => 1, 'k' => 2 }"
+			: "'other'");
+		builder.append(" } }");
+		return builder.toString();
+	}
+
+	private void assertCachedFormatting(String code) throws Exception {
+		XtextResource r = getResourceFromString(code);
+		cacheMeasurements = false;
+		String uncached;
+		try {
+			uncached = serializeFormatted(r.getContents().get(0));
+		}
+		finally {
+			cacheMeasurements = true;
+		}
+		String cached = serializeFormatted(r.getContents().get(0));
+		assertEquals("formatting with cached measurements should produce the same result", uncached, cached);
+
+		// and the formatted result is stable
+		r = getResourceFromString(cached);
+		assertEquals("formatting of formatted result should not change it", cached, serializeFormatted(r.getContents().get(0)));
+	}
+
+	@Override
+	public Module getTestModule() {
+		return new PPTestModule() {
+			@Override
+			public void configure(Binder binder) {
+				super.configure(binder);
+				binder.bind(ISerializer.class).to(DomBasedSerializer.class);
+				binder.bind(IDomModelFormatter.class).to(SwitchableCacheFormatter.class);
+			}
+		};
+	}
+
+	/**
+	 * Don't want to test serializer as this test is about formatting.
+	 */
+	@Override
+	protected boolean shouldTestSerializer(XtextResource resource) {
+		return false;
+	}
+
+	@Test
+	public void test_CaseWithNestedHashes() throws Exception {
+		String code = "case $::osfamily { 'RedHat', 'CentOS': { $a = " + nestedHash(2) + " } /Debian|Ubuntu/: { $b = " +
+				nestedHash(1) + " } default: { $c = { 'k' => 'v' } } }\n";
+		assertCachedFormatting(code);
+	}
+
+	@Test
+	public void test_HashKeys() throws Exception {
+		// keys that are not plain names are formatted when the key widths are measured
+		String code = "$a = { \"${name}-${title}\" => 1, $key => 2, 'a quoted key' => 3, bare => 4, " +
+				"\"a rather long double quoted key ${name}\" => 5, 'padding to make the hash too long for one line' => 6 }\n";
+		assertCachedFormatting(code);
+	}
+
+	@Test
+	public void test_NestedHashes() throws Exception {
+		assertCachedFormatting("$a = " + nestedHash(4) + "\n");
+	}
+
+	@Test
+	public void test_SelectorWithNestedHashes() throws Exception {
+		String code = "$a = $::osfamily ? { 'RedHat' => " + nestedHash(2) + ", /Debian|Ubuntu/ => " + nestedHash(1) +
+				", default => undef }\n";
+		assertCachedFormatting(code);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.IDomNode.NodeType;
+import com.puppetlabs.xtext.dommodel.impl.BaseDomNode;
+import com.puppetlabs.xtext.dommodel.impl.CompositeDomNode;
+import com.puppetlabs.xtext.dommodel.impl.LeafDomNode;
+import com.puppetlabs.xtext.dommodel.formatter.css.DomCSS;
+import com.puppetlabs.xtext.dommodel.formatter.css.Rule;
+import com.puppetlabs.xtext.dommodel.formatter.css.Select;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory.DedentStyle;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory.IndentStyle;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
+
+/**
+ * Tests that the rules and styles collected by a {@link DomCSS} are the same as when every rule is matched against
+ * every node.
+ */
+public class TestDomCSS {
+	private EObject grammarA;
+
+	private EObject grammarB;
+
+	private List<Rule> rules;
+
+	private DomCSS css;
+
+	private List<IDomNode> nodes;
+
+	private void add(CompositeDomNode parent, BaseDomNode child, NodeType nodeType, EObject grammarElement,
+			String text, Object... classifiers) {
+		child.setNodeType(nodeType);
+		child.setGrammarElement(grammarElement);
+		child.setText(text);
+		child.setClassifiers(true, classifiers);
+		parent.addChild(child);
+		nodes.add(child);
+	}
+
+	private void addRule(Select.Selector selector, int indent) {
+		Rule rule = new Rule(selector, StyleSet.withStyle(new IndentStyle(indent)));
+		rules.add(rule);
+		css.addRule(rule);
+	}
+
+	private List<Rule> matchAll(IDomNode node) {
+		List<Rule> result = Lists.newArrayList();
+		for(Rule rule : rules)
+			if(rule.matches(node))
+				result.add(rule);
+		Collections.sort(result, DomCSS.RULE_COMPARATOR);
+		return result;
+	}
+
+	@Before
+	public void setUp() {
+		grammarA = EcoreFactory.eINSTANCE.createEClass();
+		grammarB = EcoreFactory.eINSTANCE.createEClass();
+		rules = Lists.newArrayList();
+		css = new DomCSS();
+		nodes = Lists.newArrayList();
+
+		CompositeDomNode root = new CompositeDomNode();
+		root.setNodeType(NodeType.ACTION);
+		nodes.add(root);
+		CompositeDomNode block = new CompositeDomNode();
+		add(root, block, NodeType.ACTION, grammarA, null, "block");
+		add(block, new LeafDomNode(), NodeType.KEYWORD, grammarB, "{", "open");
+		add(block, new LeafDomNode(), NodeType.WHITESPACE, null, " ");
+		add(block, new LeafDomNode(), NodeType.TERMINAL, grammarA, "x", "open", "last");
+		add(block, new LeafDomNode(), NodeType.KEYWORD, grammarB, "}");
+		add(root, new LeafDomNode(), NodeType.COMMENT, null, "# done", "last");
+
+		addRule(Select.any(), 0);
+		addRule(Select.node(NodeType.KEYWORD), 1);
+		addRule(Select.node((Object) "open"), 2);
+		addRule(Select.grammar(grammarA, grammarB), 3);
+		addRule(Select.and(Select.node(NodeType.TERMINAL), Select.node((Object) "last")), 4);
+		addRule(Select.not(Select.node(NodeType.WHITESPACE)), 5);
+		addRule(Select.containment(Select.node((Object) "block"), Select.node(NodeType.KEYWORD)), 6);
+		addRule(Select.keyword("}"), 7);
+		addRule(Select.before(Select.whitespace(), Select.node(NodeType.TERMINAL)), 8);
+		addRule(Select.node(NodeType.COMMENT, "last"), 9);
+	}
+
+	@Test
+	public void collectRules() {
+		for(IDomNode node : nodes) {
+			List<Rule> collected = css.collectRules(node);
+
+			// The last collected rule is the instance rule of the node
+			assertEquals("StyleInNode", collected.remove(collected.size() - 1).getRuleName());
+			assertEquals(matchAll(node), collected);
+		}
+	}
+
+	@Test
+	public void collectStyles() {
+		for(IDomNode node : nodes) {
+			StyleSet expected = new StyleSet();
+			for(Rule rule : matchAll(node))
+				rule.collectStyles(expected);
+			assertEquals(
+				expected.getStyleValue(IndentStyle.class, node),
+				css.collectStyles(node).getStyleValue(IndentStyle.class, node));
+		}
+	}
+
+	@Test
+	public void instanceStyles() {
+		IDomNode open = nodes.get(2);
+		IDomNode close = nodes.get(5);
+		assertSame("Nodes matching the same rules should share styles", css.collectStyles(open), css.collectStyles(open));
+		assertNotSame(css.collectStyles(open), css.collectStyles(close));
+
+		open.getStyles().put(new DedentStyle(2));
+		StyleSet styles = css.collectStyles(open);
+		assertEquals(Integer.valueOf(2), styles.getStyleValue(DedentStyle.class, open));
+		assertNotSame("Nodes with instance styles should not share styles", styles, css.collectStyles(open));
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
+import com.puppetlabs.geppetto.pp.dsl.adapters.SharedExportsAdapter;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPExportedNamesIndex;
+import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
+
+/**
+ * Tests the shared index of exported names. The time it saves when linking is measured by the
+ * <code>ExportedNamesIndexBenchmark</code> in the benchmarks project.
+ */
+public class TestExportedNamesIndex {
+	private static IEObjectDescription createDescription(String path, EClass eClass, Map<String, String> userData,
+			String... segments) {
+		InternalEObject proxy = (InternalEObject) EcoreUtil.create(eClass);
+		proxy.eSetProxyURI(URI.createFileURI(path).appendFragment("/0"));
+		return EObjectDescription.create(QualifiedName.create(segments), proxy, userData);
+	}
+
+	private static IEObjectDescription createDescription(String path, String... segments) {
+		return createDescription(path, PPPackage.Literals.HOST_CLASS_DEFINITION, null, segments);
+	}
+
+	private static List<IEObjectDescription> createExports(int resourceCount, int exportCount) {
+		List<IEObjectDescription> exports = Lists.newArrayListWithCapacity(exportCount);
+		int exportsPerResource = exportCount / resourceCount;
+		for(int resourceIndex = 0; resourceIndex < resourceCount; ++resourceIndex) {
+			String path = resourcePath(resourceIndex);
+			for(int exportIndex = 0; exportIndex < exportsPerResource; ++exportIndex)
+				exports.add(createDescription(path, "module" + resourceIndex, "name" + exportIndex));
+		}
+		return exports;
+	}
+
+	private static String resourcePath(int resourceIndex) {
+		return "/modules/module" + resourceIndex + "/manifests/init.pp";
+	}
+
+	@Test
+	public void emptyNamesAreSkipped() {
+		PPExportedNamesIndex index = PPExportedNamesIndex.create(Collections.singletonList(createDescription("/a.pp")));
+		assertEquals("Empty names should not be indexed", 0, index.size());
+	}
+
+	@Test
+	public void indexIsSharedUntilResourcesChange() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		SharedExportsAdapter adapter = SharedExportsAdapter.install(resourceSet);
+		assertSame("The installed adapter should be found", adapter, SharedExportsAdapter.get(resourceSet));
+
+		List<IEObjectDescription> exports = createExports(2, 4);
+		List<String> handles = Lists.newArrayList("/modules/module0", "/modules/module1");
+		PPExportedNamesIndex index = adapter.getIndex(handles, exports);
+		assertSame("The index should be shared", index, adapter.getIndex(Lists.newArrayList(handles), exports));
+		assertNotSame(
+			"Other containers should have their own index", index,
+			adapter.getIndex(Collections.singletonList("/modules/module0"), exports));
+
+		resourceSet.getResources().add(new ResourceImpl(URI.createFileURI("/modules/module2/manifests/init.pp")));
+		assertNotSame("Adding a resource should invalidate the index", index, adapter.getIndex(handles, exports));
+	}
+
+	@Test
+	public void lookupKeepsOrder() {
+		IEObjectDescription a = createDescription("/a.pp", "a", "x");
+		IEObjectDescription b = createDescription("/b.pp", "b", "x");
+		IEObjectDescription c = createDescription("/c.pp", "c", "y");
+		IEObjectDescription d = createDescription("/d.pp", "x");
+		PPExportedNamesIndex index = PPExportedNamesIndex.create(Lists.newArrayList(a, c, b, d));
+		assertEquals(Lists.newArrayList(a, b, d), index.get("x"));
+		assertEquals(Lists.newArrayList(c), index.get("y"));
+		assertTrue(index.get("z").isEmpty());
+		assertEquals(Lists.newArrayList("x", "y"), Lists.newArrayList(index.lastSegments()));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	public void patternVariablesAndTypesAreSeparated() {
+		IEObjectDescription pattern = createDescription(
+			"/facts.rb", PPPackage.Literals.VARIABLE_EXPRESSION, ImmutableMap.of(PPDSLConstants.VARIABLE_PATTERN, "[0-9]+"),
+			"ipaddress_");
+		IEObjectDescription type = createDescription("/types.pptp", PPTPPackage.Literals.PUPPET_TYPE, null, "file");
+		IEObjectDescription clazz = createDescription("/a.pp", "file");
+		PPExportedNamesIndex index = PPExportedNamesIndex.create(Lists.newArrayList(pattern, type, clazz));
+		assertEquals(Collections.singletonList(pattern), index.getPatternVariables());
+		assertEquals(Collections.singletonList(type), index.getBuiltInTypes());
+		assertEquals(Lists.newArrayList(type, clazz), index.get("file"));
+		assertTrue("Pattern variables can not be found by name", index.get("ipaddress_").isEmpty());
+	}
+}
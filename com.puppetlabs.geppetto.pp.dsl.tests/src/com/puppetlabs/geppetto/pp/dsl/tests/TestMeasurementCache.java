@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.IDomNode.NodeType;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory.IndentStyle;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory.WidthStyle;
+import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
+import com.puppetlabs.xtext.dommodel.impl.CompositeDomNode;
+import com.puppetlabs.xtext.dommodel.impl.LeafDomNode;
+
+/**
+ * Tests that measurements in a {@link MeasurementCache} are reused only as long as the styles of the nodes in the tree
+ * of the measured node are unchanged.
+ */
+public class TestMeasurementCache {
+	private class CountingMeasurer implements Function<IDomNode, Measurement> {
+		private int count;
+
+		@Override
+		public Measurement apply(IDomNode node) {
+			++count;
+			int width = node.getText() == null
+				? 0
+				: node.getText().length();
+			return new Measurement(1, width, width, null);
+		}
+	}
+
+	private MeasurementCache cache;
+
+	private CompositeDomNode root;
+
+	private LeafDomNode leaf;
+
+	private CountingMeasurer measurer;
+
+	private void assertMeasured(int expectedCount) {
+		cache.measure(leaf, "key", measurer);
+		assertEquals(expectedCount, measurer.count);
+	}
+
+	@Test
+	public void changeDuringMeasurement() {
+		Function<IDomNode, Measurement> restyling = new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode node) {
+				node.getStyleClassifiers().add("measured");
+				return measurer.apply(node);
+			}
+		};
+		cache.measure(leaf, "key", restyling);
+		assertEquals(1, measurer.count);
+		assertMeasured(2);
+		assertMeasured(2);
+	}
+
+	@Test
+	public void classifierChange() {
+		assertMeasured(1);
+		leaf.getStyleClassifiers().add("first");
+		assertMeasured(2);
+		leaf.getStyleClassifiers().add("first");
+		assertMeasured(2);
+		root.getStyleClassifiers().remove("first");
+		assertMeasured(2);
+		leaf.getStyleClassifiers().remove("first");
+		assertMeasured(3);
+	}
+
+	@Test
+	public void nestedTreeChange() {
+		assertMeasured(1);
+
+		// a tree that was joined before it is added shares the count of the tree it is added to
+		CompositeDomNode other = new CompositeDomNode();
+		LeafDomNode otherLeaf = new LeafDomNode();
+		other.addChild(otherLeaf);
+		root.addChild(other);
+		assertMeasured(2);
+		otherLeaf.getStyles().put(new IndentStyle(1));
+		assertMeasured(3);
+	}
+
+	@Test
+	public void otherTreeChange() {
+		assertMeasured(1);
+		LeafDomNode other = new LeafDomNode();
+		other.getStyleClassifiers().add("other");
+		other.getStyles().put(new IndentStyle(1));
+		assertMeasured(1);
+	}
+
+	@Test
+	public void reuse() {
+		cache.measure(leaf, "key", measurer);
+		Measurement m = cache.measure(leaf, "key", measurer);
+		assertEquals(1, measurer.count);
+		assertSame(m, cache.measure(leaf, "key", measurer));
+		assertEquals(5, m.getWidth());
+
+		cache.measure(leaf, "other key", measurer);
+		cache.measure(root, "key", measurer);
+		assertEquals(3, measurer.count);
+	}
+
+	@Before
+	public void setUp() {
+		cache = new MeasurementCache();
+		measurer = new CountingMeasurer();
+		root = new CompositeDomNode();
+		root.setNodeType(NodeType.ACTION);
+		leaf = new LeafDomNode();
+		leaf.setNodeType(NodeType.TERMINAL);
+		leaf.setText("value");
+		root.addChild(leaf);
+	}
+
+	@Test
+	public void styleChange() {
+		assertMeasured(1);
+		leaf.getStyles().put(new IndentStyle(1));
+		assertMeasured(2);
+
+		// an equal style does not change the node
+		leaf.getStyles().put(new IndentStyle(1));
+		leaf.getStyles().add(StyleSet.withStyle(new IndentStyle(1)));
+		assertMeasured(2);
+
+		leaf.getStyles().add(StyleSet.withStyles(new IndentStyle(1), new WidthStyle(2)));
+		assertMeasured(3);
+
+		// styles that are not the styles of a node are not tracked
+		StyleSet.withStyles(new IndentStyle(3)).put(new WidthStyle(4));
+		assertMeasured(3);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void stylesAreUnmodifiable() {
+		leaf.getStyles().put(new IndentStyle(1));
+		leaf.getStyles().getStyles().clear();
+	}
+
+	@Test
+	public void treeChange() {
+		assertMeasured(1);
+
+		// a node from a tree that has seen more changes than the tree it is added to
+		CompositeDomNode other = new CompositeDomNode();
+		for(int i = 0; i < 10; ++i)
+			other.getStyles().put(new IndentStyle(i));
+		root.addChild(other);
+		assertMeasured(2);
+		other.getStyles().put(new IndentStyle(0));
+		assertMeasured(3);
+		assertMeasured(3);
+	}
+}
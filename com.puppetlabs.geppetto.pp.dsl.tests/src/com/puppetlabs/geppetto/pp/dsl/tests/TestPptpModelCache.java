@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.Test;
+
+import com.puppetlabs.geppetto.pp.dsl.target.PptpBinaryGenerator;
+import com.puppetlabs.geppetto.pp.dsl.target.PptpModelCache;
+import com.puppetlabs.geppetto.pp.dsl.target.PptpResourceFactory;
+import com.puppetlabs.geppetto.pp.dsl.target.PuppetTarget;
+
+/**
+ * Tests that the binary pptp images and the cached models have the same content as the XMI files.
+ */
+public class TestPptpModelCache extends AbstractPuppetTests {
+	private static Resource loadXMI(URI uri) throws Exception {
+		Resource xmi = new XMIResourceImpl(uri);
+		xmi.load(null);
+		return xmi;
+	}
+
+	@Test
+	public void binaryImageEqualsXMI() throws Exception {
+		URI uri = PuppetTarget.getDefault().getPlatformURI();
+		File pptpFile = File.createTempFile("puppet", ".pptp");
+		File binaryFile = new File(pptpFile.getPath() + PptpModelCache.BINARY_SUFFIX);
+		try {
+			InputStream input = URIConverter.INSTANCE.createInputStream(uri);
+			try {
+				Files.copy(input, pptpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				input.close();
+			}
+			PptpBinaryGenerator.generate(pptpFile, binaryFile);
+
+			Resource binary = new BinaryResourceImpl(URI.createFileURI(binaryFile.getAbsolutePath()));
+			binary.load(null);
+			assertTrue("Binary image differs from XMI", EcoreUtil.equals(loadXMI(uri).getContents(), binary.getContents()));
+		}
+		finally {
+			binaryFile.delete();
+			pptpFile.delete();
+		}
+	}
+
+	@Test
+	public void resourcesGetSeparateCopies() throws Exception {
+		URI uri = PuppetTarget.getDefault().getPlatformURI();
+		PptpResourceFactory factory = new PptpResourceFactory();
+		Resource first = factory.createResource(uri);
+		first.load(null);
+		Resource second = factory.createResource(uri);
+		second.load(null);
+
+		Resource xmi = loadXMI(uri);
+		assertEquals("Unexpected number of roots", 1, first.getContents().size());
+		assertNotSame("Resources share a model", first.getContents().get(0), second.getContents().get(0));
+		assertTrue("Cached model differs from XMI", EcoreUtil.equals(xmi.getContents(), first.getContents()));
+		EObject xmiElement = xmi.getContents().get(0).eContents().get(0);
+		EObject cachedElement = second.getContents().get(0).eContents().get(0);
+		assertEquals("Fragments differ", xmi.getURIFragment(xmiElement), second.getURIFragment(cachedElement));
+
+		Collection<EObject> copy = PptpModelCache.copyModel(uri);
+		assertTrue("Copy is attached to a resource", copy.iterator().next().eResource() == null);
+	}
+}
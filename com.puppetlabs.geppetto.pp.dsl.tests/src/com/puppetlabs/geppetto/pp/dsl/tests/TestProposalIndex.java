@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalIndex;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalsGenerator;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPExportedNamesIndex;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPQualifiedNameConverter;
+import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
+
+/**
+ * Tests that the proposal index finds the same candidates as a scan of all descriptions, and that the members used for
+ * attribute and provider proposals are found by the name of their definition or type. The time the index saves is
+ * measured by the <code>ProposalIndexBenchmark</code> in the benchmarks project.
+ */
+public class TestProposalIndex {
+	private static final String[] SYLLABLES = {
+			"ap", "ache", "con", "cat", "file", "serv", "ice", "user", "group", "mod", "ule", "ng", "inx", "my", "sql",
+			"post", "gres", "fire", "wall", "cron", "ntp", "ssh", "key", "repo", "pack", "age", "host", "vhost" };
+
+	private static IEObjectDescription createExport(IQualifiedNameConverter converter, String name, EClass eClass) {
+		InternalEObject proxy = (InternalEObject) EcoreUtil.create(eClass);
+		proxy.eSetProxyURI(URI.createFileURI("/modules/m/manifests/init.pp").appendFragment("/0"));
+		return EObjectDescription.create(converter.toQualifiedName(name), proxy);
+	}
+
+	private static List<IEObjectDescription> createExports(IQualifiedNameConverter converter, int count, Random random) {
+		List<IEObjectDescription> exports = Lists.newArrayListWithCapacity(count);
+		for(int idx = 0; idx < count; ++idx) {
+			InternalEObject proxy = (InternalEObject) EcoreUtil.create(PPPackage.Literals.HOST_CLASS_DEFINITION);
+			proxy.eSetProxyURI(URI.createFileURI("/modules/m" + idx + "/manifests/init.pp").appendFragment("/0"));
+			exports.add(EObjectDescription.create(converter.toQualifiedName(createName(random)), proxy));
+		}
+		return exports;
+	}
+
+	private static String createName(Random random) {
+		StringBuilder bld = new StringBuilder();
+		int segmentCount = 1 + random.nextInt(2);
+		for(int segment = 0; segment < segmentCount; ++segment) {
+			if(segment > 0)
+				bld.append("::");
+			int syllableCount = 1 + random.nextInt(3);
+			for(int syllable = 0; syllable < syllableCount; ++syllable)
+				bld.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return bld.toString();
+	}
+
+	/**
+	 * The candidate selection of the proposals generator applied to all descriptions.
+	 */
+	private static Set<IEObjectDescription> scan(String name, List<IEObjectDescription> exports, IQualifiedNameConverter converter) {
+		DoubleMetaphone encoder = new DoubleMetaphone();
+		String metaphoneName = encoder.encode(name);
+		Set<IEObjectDescription> result = Sets.newHashSet();
+		for(IEObjectDescription d : exports) {
+			String candidateName = converter.toString(d.getName());
+			if(StringUtils.getLevenshteinDistance(name, candidateName) <= PPProposalsGenerator.MAX_DISTANCE) {
+				result.add(d);
+				continue;
+			}
+			String candidateMetaphone = encoder.encode(candidateName);
+			if(candidateMetaphone.startsWith(metaphoneName) || candidateMetaphone.endsWith(metaphoneName))
+				result.add(d);
+		}
+		return result;
+	}
+
+	@Test
+	public void candidatesEqualScan() {
+		IQualifiedNameConverter converter = new PPQualifiedNameConverter();
+		Random random = new Random(4711);
+		List<IEObjectDescription> exports = createExports(converter, 2000, random);
+		PPProposalIndex index = PPProposalIndex.create(exports, converter);
+		assertTrue("Duplicate names should share an entry", index.size() <= exports.size());
+
+		for(int idx = 0; idx < 100; ++idx) {
+			String name = createName(random);
+			assertEquals("Candidates for " + name, scan(name, exports, converter),
+				Sets.newHashSet(index.getCandidates(name, PPProposalsGenerator.MAX_DISTANCE)));
+		}
+	}
+
+	@Test
+	public void membersOfOwner() {
+		IQualifiedNameConverter converter = new PPQualifiedNameConverter();
+		IEObjectDescription apache = createExport(converter, "apache", PPPackage.Literals.HOST_CLASS_DEFINITION);
+		IEObjectDescription vhost = createExport(converter, "apache::vhost", PPPackage.Literals.DEFINITION);
+		IEObjectDescription port = createExport(converter, "apache::vhost::port", PPPackage.Literals.DEFINITION_ARGUMENT);
+		IEObjectDescription docroot = createExport(converter, "apache::vhost::docroot", PPPackage.Literals.DEFINITION_ARGUMENT);
+		IEObjectDescription file = createExport(converter, "file", PPTPPackage.Literals.TYPE);
+		IEObjectDescription ensure = createExport(converter, "file::ensure", PPTPPackage.Literals.PROPERTY);
+		IEObjectDescription path = createExport(converter, "file::path", PPTPPackage.Literals.PARAMETER);
+		IEObjectDescription posix = createExport(converter, "file::posix", PPTPPackage.Literals.PROVIDER);
+		PPExportedNamesIndex index = PPExportedNamesIndex.create(Lists.newArrayList(
+			apache, vhost, port, file, ensure, path, posix, docroot));
+
+		assertEquals(Lists.newArrayList(port, docroot), index.getMembers(QualifiedName.create("apache", "vhost")));
+		assertEquals(Lists.newArrayList(ensure, path, posix), index.getMembers(QualifiedName.create("file")));
+		assertTrue("A definition is not a member of a class", index.getMembers(QualifiedName.create("apache")).isEmpty());
+		assertTrue(index.getMembers(QualifiedName.create("exec")).isEmpty());
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.junit.Test;
+
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPSearchPath;
+
+/**
+ * Tests that the search index computed for descriptions (and cached per resource) is the same as the index computed
+ * for the resource URI.
+ */
+public class TestSearchPathIndex {
+	private static final URI ROOT = URI.createFileURI("/tmp/root/");
+
+	private static IEObjectDescription createDescription(String path, String fragment) {
+		InternalEObject proxy = (InternalEObject) EcoreUtil.create(PPPackage.Literals.HOST_CLASS_DEFINITION);
+		proxy.eSetProxyURI(URI.createFileURI(path).appendFragment(fragment));
+		return EObjectDescription.create(QualifiedName.create("x"), proxy);
+	}
+
+	private static void assertSearchIndex(PPSearchPath searchPath, int expected, String relativePath) {
+		String path = "/tmp/root/" + relativePath;
+		assertEquals(relativePath, expected, searchPath.searchIndexOf(URI.createURI(relativePath)));
+
+		// Twice for the same resource to also hit the cache
+		assertEquals(relativePath, expected, searchPath.searchIndexOf(createDescription(path, "/0")));
+		assertEquals(relativePath, expected, searchPath.searchIndexOf(createDescription(path, "/1")));
+	}
+
+	@Test
+	public void searchIndexOfDescription() {
+		PPSearchPath searchPath = PPSearchPath.fromString(PPSearchPath.DEFAULT_PUPPET_PROJECT_PATH, ROOT, null, null);
+		assertSearchIndex(searchPath, 1, "lib/foo/bar.pp");
+		assertSearchIndex(searchPath, 2, "environments/production/foo.pp");
+		assertSearchIndex(searchPath, 3, "manifests/site.pp");
+		assertSearchIndex(searchPath, 4, "modules/foo/manifests/init.pp");
+		assertSearchIndex(searchPath, PPSearchPath.NOT_FOUND, "environments/test/foo.pp");
+		assertSearchIndex(searchPath, PPSearchPath.NOT_FOUND, "site.pp");
+		assertSearchIndex(searchPath, PPSearchPath.FOUND_IN_TPTP, "puppet/default.pptp");
+	}
+}
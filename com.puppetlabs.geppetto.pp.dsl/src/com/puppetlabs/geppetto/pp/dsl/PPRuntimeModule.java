@@ -31,8 +31,10 @@ import com.puppetlabs.geppetto.common.os.FileExcluderProvider;
 import com.puppetlabs.geppetto.common.os.IFileExcluder;
 import com.puppetlabs.geppetto.common.tracer.AbstractTracer.DefaultStringProvider;
 import com.puppetlabs.geppetto.common.tracer.DefaultTracer;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
 import com.puppetlabs.geppetto.common.tracer.IStringProvider;
 import com.puppetlabs.geppetto.common.tracer.ITracer;
+import com.puppetlabs.geppetto.common.tracer.NullMetrics;
 import com.puppetlabs.geppetto.injectable.CommonModuleProvider;
 import com.puppetlabs.geppetto.pp.dsl.formatting.PPCommentConfiguration;
 import com.puppetlabs.geppetto.pp.dsl.formatting.PPSemanticLayout;
@@ -110,6 +112,13 @@ public class PPRuntimeModule extends com.puppetlabs.geppetto.pp.dsl.AbstractPPRu
 		return PPLinker.class;
 	}
 
+	/**
+	 * Metrics are not collected unless a module that extends this module binds other metrics.
+	 */
+	public IMetrics bindIMetrics() {
+		return NullMetrics.INSTANCE;
+	}
+
 	/**
 	 * Handles FQN <-> String conversion and defines "::" as the separator.
 	 */
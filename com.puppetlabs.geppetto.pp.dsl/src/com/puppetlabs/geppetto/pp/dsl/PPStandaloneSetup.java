@@ -16,7 +16,6 @@ import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EPackage.Registry;
 import org.eclipse.emf.ecore.EValidator;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 
 import com.google.inject.Guice;
@@ -24,6 +23,7 @@ import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.puppetlabs.geppetto.pp.PPFactory;
 import com.puppetlabs.geppetto.pp.dsl.pptp.PptpRuntimeModule;
+import com.puppetlabs.geppetto.pp.dsl.target.PptpResourceFactory;
 
 /**
  * Initialization support for running Xtext languages
@@ -52,7 +52,7 @@ public class PPStandaloneSetup extends PPStandaloneSetupGenerated {
 
 		Map<String, Object> factoryMap = Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap();
 		if(!factoryMap.containsKey("pptp"))
-			factoryMap.put("pptp", new XMIResourceFactoryImpl());
+			factoryMap.put("pptp", new PptpResourceFactory());
 
 		EValidator.Registry.INSTANCE.remove(PPFactory.eINSTANCE.getPPPackage());
 
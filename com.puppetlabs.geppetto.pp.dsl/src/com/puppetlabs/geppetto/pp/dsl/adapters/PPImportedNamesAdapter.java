@@ -176,6 +176,7 @@ public class PPImportedNamesAdapter extends AdapterImpl {
 		importedNames = null;
 		unresolvedNames = null;
 		resolvedDescriptions = null;
+		ambigousDescriptions = null;
 	}
 
 	/**
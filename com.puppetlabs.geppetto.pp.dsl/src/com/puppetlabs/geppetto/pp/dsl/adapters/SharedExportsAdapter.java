@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.adapters;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.puppetlabs.geppetto.pp.dsl.linking.PPExportedNamesIndex;
+
+/**
+ * A ResourceSet adapter that holds {@link PPExportedNamesIndex} instances keyed by the list of visible container
+ * handles. Installing this adapter on a resource set is a promise that the index of the resource set will not change
+ * unless resources are added to or removed from the set (or {@link #invalidate()} is called). This is true for batch
+ * validation, but not for an interactive environment where the index is changed by a builder.
+ * <p>
+ * All methods are thread safe.
+ * </p>
+ */
+public class SharedExportsAdapter extends AdapterImpl {
+	/**
+	 * Returns the adapter installed on the given resource set.
+	 *
+	 * @param resourceSet
+	 *            The resource set or <code>null</code>
+	 * @return The installed adapter or <code>null</code> if no adapter has been installed
+	 */
+	public static SharedExportsAdapter get(ResourceSet resourceSet) {
+		if(resourceSet != null)
+			for(Adapter a : resourceSet.eAdapters())
+				if(a instanceof SharedExportsAdapter)
+					return (SharedExportsAdapter) a;
+		return null;
+	}
+
+	/**
+	 * Installs an adapter on the given resource set unless one is already installed.
+	 *
+	 * @param resourceSet
+	 *            The resource set that will share exported names between its resources
+	 * @return The installed adapter
+	 */
+	public static SharedExportsAdapter install(ResourceSet resourceSet) {
+		SharedExportsAdapter adapter = get(resourceSet);
+		if(adapter == null) {
+			adapter = new SharedExportsAdapter();
+			resourceSet.eAdapters().add(adapter);
+		}
+		else
+			adapter.invalidate();
+		return adapter;
+	}
+
+	private final Map<List<String>, PPExportedNamesIndex> indexes = Maps.newHashMap();
+
+	/**
+	 * Returns the index for the given container handles. The exports are only obtained and indexed when no index
+	 * exists for the given handles.
+	 *
+	 * @param visibleContainerHandles
+	 *            The handles of the visible containers
+	 * @param exports
+	 *            All exports found in the visible containers
+	 * @return The index
+	 */
+	public PPExportedNamesIndex getIndex(List<String> visibleContainerHandles, Iterable<IEObjectDescription> exports) {
+		synchronized(indexes) {
+			PPExportedNamesIndex index = indexes.get(visibleContainerHandles);
+			if(index == null) {
+				index = PPExportedNamesIndex.create(exports);
+				indexes.put(ImmutableList.copyOf(visibleContainerHandles), index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Discards all indexes. Must be called when the content of a resource in the resource set has changed.
+	 */
+	public void invalidate() {
+		synchronized(indexes) {
+			indexes.clear();
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == SharedExportsAdapter.class;
+	}
+
+	@Override
+	public void notifyChanged(Notification msg) {
+		if(msg.getFeatureID(ResourceSet.class) == ResourceSet.RESOURCE_SET__RESOURCES)
+			invalidate();
+	}
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.contentassist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * An immutable index used when searching for proposals for an unresolved name. The index finds the candidates that
+ * the {@link PPProposalsGenerator} would score without scanning all descriptions:
+ * <ul>
+ * <li>names within a given Levenshtein distance are found using a BK-tree</li>
+ * <li>names with a Double Metaphone encoding that starts or ends with the encoding of the wanted name are found
+ * using binary search in sorted arrays of encodings and reversed encodings</li>
+ * </ul>
+ * The index is intended to be created once for a set of exports and then shared between threads.
+ */
+public class PPProposalIndex {
+	/**
+	 * A node in the BK-tree. The children are indexed by their distance to the node.
+	 */
+	private static class Node {
+		private final int nameIndex;
+
+		private Node[] children;
+
+		Node(int nameIndex) {
+			this.nameIndex = nameIndex;
+		}
+
+		void add(Node node, int distance) {
+			if(children == null)
+				children = new Node[distance + 1];
+			else if(children.length <= distance)
+				children = Arrays.copyOf(children, distance + 1);
+			children[distance] = node;
+		}
+
+		Node getChild(int distance) {
+			return children == null || distance >= children.length
+				? null
+				: children[distance];
+		}
+	}
+
+	/**
+	 * Computes the Levenshtein distance between a fixed pattern and other strings. Patterns of up to 64 characters use
+	 * the bit-parallel algorithm of Myers (as formulated by Hyyr&ouml;), longer patterns use the classic dynamic
+	 * programming algorithm.
+	 */
+	private static class LevenshteinMatcher {
+		private final String pattern;
+
+		private final long[] asciiMasks;
+
+		private final Map<Character, Long> otherMasks;
+
+		private int[] previous;
+
+		private int[] current;
+
+		LevenshteinMatcher(String pattern) {
+			this.pattern = pattern;
+			int len = pattern.length();
+			if(len <= 64) {
+				asciiMasks = new long[128];
+				otherMasks = Maps.newHashMap();
+				for(int idx = 0; idx < len; ++idx) {
+					char c = pattern.charAt(idx);
+					long bit = 1L << idx;
+					if(c < 128)
+						asciiMasks[c] |= bit;
+					else {
+						Long mask = otherMasks.get(Character.valueOf(c));
+						otherMasks.put(Character.valueOf(c), Long.valueOf(mask == null
+							? bit
+							: mask.longValue() | bit));
+					}
+				}
+			}
+			else {
+				asciiMasks = null;
+				otherMasks = null;
+			}
+		}
+
+		/**
+		 * @return The distance or <code>bound + 1</code> if the distance is greater than <code>bound</code>
+		 */
+		int distance(String text, int bound) {
+			int m = pattern.length();
+			int n = text.length();
+			if(Math.abs(m - n) > bound)
+				return bound + 1;
+			if(m == 0)
+				return n;
+			return asciiMasks == null
+				? dynamicDistance(text, bound)
+				: myersDistance(text, bound);
+		}
+
+		private int dynamicDistance(String text, int bound) {
+			int m = pattern.length();
+			int n = text.length();
+			if(previous == null || previous.length <= n) {
+				previous = new int[n + 1];
+				current = new int[n + 1];
+			}
+			int[] prev = previous;
+			int[] curr = current;
+			for(int j = 0; j <= n; ++j)
+				prev[j] = j;
+
+			for(int i = 1; i <= m; ++i) {
+				char pc = pattern.charAt(i - 1);
+				curr[0] = i;
+				int rowMin = i;
+				for(int j = 1; j <= n; ++j) {
+					int cost = pc == text.charAt(j - 1)
+						? 0
+						: 1;
+					int d = Math.min(Math.min(curr[j - 1], prev[j]) + 1, prev[j - 1] + cost);
+					curr[j] = d;
+					if(d < rowMin)
+						rowMin = d;
+				}
+				if(rowMin > bound)
+					return bound + 1;
+				int[] swap = prev;
+				prev = curr;
+				curr = swap;
+			}
+			return prev[n];
+		}
+
+		private long getMask(char c) {
+			if(c < 128)
+				return asciiMasks[c];
+			Long mask = otherMasks.get(Character.valueOf(c));
+			return mask == null
+				? 0L
+				: mask.longValue();
+		}
+
+		private int myersDistance(String text, int bound) {
+			int m = pattern.length();
+			int n = text.length();
+			long last = 1L << (m - 1);
+			long pv = -1L;
+			long mv = 0L;
+			int score = m;
+			for(int j = 0; j < n; ++j) {
+				long eq = getMask(text.charAt(j));
+				long xv = eq | mv;
+				long xh = (((eq & pv) + pv) ^ pv) | eq;
+				long ph = mv | ~(xh | pv);
+				long mh = pv & xh;
+				if((ph & last) != 0)
+					++score;
+				else if((mh & last) != 0)
+					--score;
+
+				// The score can decrease by at most one for each remaining character
+				if(score - (n - j - 1) > bound)
+					return bound + 1;
+
+				ph = (ph << 1) | 1L;
+				mh <<= 1;
+				pv = mh | ~(xv | ph);
+				mv = ph & xv;
+			}
+			return score;
+		}
+	}
+
+	/**
+	 * Creates an index of the given descriptions.
+	 *
+	 * @param descriptions
+	 *            The descriptions to index
+	 * @param converter
+	 *            The converter used to obtain the name of a description
+	 * @return The created index
+	 */
+	public static PPProposalIndex create(Iterable<IEObjectDescription> descriptions, IQualifiedNameConverter converter) {
+		Map<String, List<IEObjectDescription>> perName = Maps.newLinkedHashMap();
+		for(IEObjectDescription d : descriptions) {
+			String name = converter.toString(d.getName());
+			List<IEObjectDescription> named = perName.get(name);
+			if(named == null)
+				perName.put(name, named = Lists.newArrayListWithCapacity(1));
+			named.add(d);
+		}
+		return new PPProposalIndex(perName);
+	}
+
+	private static String reverse(String s) {
+		return new StringBuilder(s).reverse().toString();
+	}
+
+	/**
+	 * Sorts the given keys and returns the indexes of the names in the order of the sorted keys.
+	 */
+	private static int[] sort(final String[] keys) {
+		Integer[] order = new Integer[keys.length];
+		for(int idx = 0; idx < order.length; ++idx)
+			order[idx] = Integer.valueOf(idx);
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return keys[a.intValue()].compareTo(keys[b.intValue()]);
+			}
+		});
+		int[] result = new int[order.length];
+		for(int idx = 0; idx < order.length; ++idx)
+			result[idx] = order[idx].intValue();
+		return result;
+	}
+
+	private final String[] names;
+
+	private final List<IEObjectDescription>[] descriptions;
+
+	private final String[] metaphones;
+
+	/**
+	 * Name indexes sorted on the metaphone of the name
+	 */
+	private final int[] metaphoneOrder;
+
+	private final String[] reversedMetaphones;
+
+	/**
+	 * Name indexes sorted on the reversed metaphone of the name
+	 */
+	private final int[] reversedMetaphoneOrder;
+
+	private final Node root;
+
+	@SuppressWarnings("unchecked")
+	private PPProposalIndex(Map<String, List<IEObjectDescription>> perName) {
+		int top = perName.size();
+		names = perName.keySet().toArray(new String[top]);
+		descriptions = perName.values().toArray(new List[top]);
+		metaphones = new String[top];
+		reversedMetaphones = new String[top];
+
+		DoubleMetaphone encoder = new DoubleMetaphone();
+		for(int idx = 0; idx < top; ++idx) {
+			String metaphone = encoder.encode(names[idx]);
+			if(metaphone == null)
+				metaphone = "";
+			metaphones[idx] = metaphone;
+			reversedMetaphones[idx] = reverse(metaphone);
+		}
+		metaphoneOrder = sort(metaphones);
+		reversedMetaphoneOrder = sort(reversedMetaphones);
+
+		Node rootNode = null;
+		for(int idx = 0; idx < top; ++idx) {
+			Node node = new Node(idx);
+			if(rootNode == null) {
+				rootNode = node;
+				continue;
+			}
+			LevenshteinMatcher matcher = new LevenshteinMatcher(names[idx]);
+			Node parent = rootNode;
+			for(;;) {
+				int distance = matcher.distance(names[parent.nameIndex], Integer.MAX_VALUE - 1);
+				Node child = parent.getChild(distance);
+				if(child == null) {
+					parent.add(node, distance);
+					break;
+				}
+				parent = child;
+			}
+		}
+		root = rootNode;
+	}
+
+	/**
+	 * Marks all names in <code>order</code> whose key starts with <code>prefix</code>
+	 */
+	private void collectPrefixed(String prefix, String[] keys, int[] order, BitSet found) {
+		int low = 0;
+		int high = order.length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(keys[order[mid]].compareTo(prefix) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		for(int idx = low; idx < order.length && keys[order[idx]].startsWith(prefix); ++idx)
+			found.set(order[idx]);
+	}
+
+	private void collectWithinDistance(String name, int maxDistance, BitSet found) {
+		if(root == null)
+			return;
+
+		LevenshteinMatcher matcher = new LevenshteinMatcher(name);
+		List<Node> queue = new ArrayList<Node>();
+		queue.add(root);
+		while(!queue.isEmpty()) {
+			Node node = queue.remove(queue.size() - 1);
+
+			// The exact distance is only needed if the node or one of its children can match
+			int bound = node.children == null
+				? maxDistance
+				: node.children.length - 1 + maxDistance;
+			int distance = matcher.distance(names[node.nameIndex], bound);
+			if(distance <= maxDistance)
+				found.set(node.nameIndex);
+			if(distance > bound || node.children == null)
+				continue;
+			int top = Math.min(distance + maxDistance, node.children.length - 1);
+			for(int childDistance = Math.max(0, distance - maxDistance); childDistance <= top; ++childDistance) {
+				Node child = node.children[childDistance];
+				if(child != null)
+					queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Returns the descriptions with a name that is within <code>maxDistance</code> from the given name, or that has
+	 * a Double Metaphone encoding that equals, starts with, or ends with the encoding of the given name. This is a
+	 * superset of the descriptions that are given a score by the proposals generator. The descriptions are returned
+	 * grouped by name in the order that the names were first added to the index.
+	 *
+	 * @param name
+	 *            The name to find candidates for
+	 * @param maxDistance
+	 *            The maximum Levenshtein distance between the given name and a candidate name
+	 * @return The candidates, possibly empty
+	 */
+	public List<IEObjectDescription> getCandidates(String name, int maxDistance) {
+		if(names.length == 0)
+			return Collections.emptyList();
+
+		BitSet found = new BitSet(names.length);
+		collectWithinDistance(name, maxDistance, found);
+
+		String metaphone = new DoubleMetaphone().encode(name);
+		if(metaphone != null) {
+			collectPrefixed(metaphone, metaphones, metaphoneOrder, found);
+			collectPrefixed(reverse(metaphone), reversedMetaphones, reversedMetaphoneOrder, found);
+		}
+
+		List<IEObjectDescription> result = Lists.newArrayList();
+		for(int idx = found.nextSetBit(0); idx >= 0; idx = found.nextSetBit(idx + 1))
+			result.addAll(descriptions[idx]);
+		return result;
+	}
+
+	/**
+	 * @return The number of distinct names in the index
+	 */
+	public int size() {
+		return names.length;
+	}
+}
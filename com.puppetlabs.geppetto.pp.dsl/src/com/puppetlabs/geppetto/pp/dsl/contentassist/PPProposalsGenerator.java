@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.codec.language.DoubleMetaphone;
@@ -24,7 +25,10 @@ import org.eclipse.xtext.naming.IQualifiedNameConverter;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.puppetlabs.geppetto.common.score.ScoreKeeper;
@@ -47,6 +51,11 @@ public class PPProposalsGenerator {
 
 		private String metaphoneName;
 
+		/**
+		 * The distance of each compared string. A sort compares each string many times.
+		 */
+		private final Map<String, Integer> distances = Maps.newHashMap();
+
 		PronunciationComparator(DoubleMetaphone encoder, String metaphoneReference) {
 			this.encoder = encoder;
 			this.metaphoneName = metaphoneReference;
@@ -54,10 +63,8 @@ public class PPProposalsGenerator {
 
 		@Override
 		public int compare(String a, String b) {
-			String am = encoder.encode(a);
-			String bm = encoder.encode(b);
-			int al = StringUtils.getLevenshteinDistance(metaphoneName, am);
-			int bl = StringUtils.getLevenshteinDistance(metaphoneName, bm);
+			int al = getDistance(a);
+			int bl = getDistance(b);
 			if(al == bl)
 				return 0;
 			return al < bl
@@ -65,8 +72,23 @@ public class PPProposalsGenerator {
 				: 1;
 		}
 
+		private int getDistance(String s) {
+			Integer distance = distances.get(s);
+			if(distance == null) {
+				distance = Integer.valueOf(StringUtils.getLevenshteinDistance(metaphoneName, encoder.encode(s)));
+				distances.put(s, distance);
+			}
+			return distance.intValue();
+		}
 	}
 
+	/**
+	 * The maximum distance between a name and a proposal for that name.
+	 *
+	 * @see PPProposalIndex#getCandidates(String, int)
+	 */
+	public static final int MAX_DISTANCE = 5;
+
 	protected final static EClass[] DEF_AND_TYPE_ARGUMENTS = { PPPackage.Literals.DEFINITION_ARGUMENT, PPTPPackage.Literals.TYPE_ARGUMENT };
 
 	protected final static EClass[] DEF_AND_TYPE = { PPTPPackage.Literals.TYPE, PPPackage.Literals.DEFINITION };
@@ -90,13 +112,29 @@ public class PPProposalsGenerator {
 	 */
 	public String[] computeAttributeProposals(final QualifiedName currentName, Collection<IEObjectDescription> descs,
 			PPSearchPath searchPath) {
+		return computeAttributeProposals(currentName, Functions.constant(descs), searchPath);
+	}
+
+	/**
+	 * Computes attribute proposals like {@link #computeAttributeProposals(QualifiedName, Collection, PPSearchPath)}
+	 * but without scanning all descriptions. The descriptions to consider for a class/definition are instead obtained
+	 * from the given function.
+	 *
+	 * @param currentName
+	 * @param typeAndMembers
+	 *            Produces the descriptions of the class/definition with the given name and of its arguments
+	 * @param searchPath
+	 * @return
+	 */
+	public String[] computeAttributeProposals(final QualifiedName currentName,
+			Function<QualifiedName, ? extends Iterable<IEObjectDescription>> typeAndMembers, PPSearchPath searchPath) {
 		if(currentName.getSegmentCount() < 2)
 			return new String[0];
 
 		final DoubleMetaphone encoder = new DoubleMetaphone();
 		final String metaphoneName = encoder.encode(currentName.getLastSegment());
 
-		Collection<String> proposals = generateAttributeCandidates(currentName, descs, searchPath);
+		Collection<String> proposals = generateAttributeCandidates(currentName, typeAndMembers, searchPath);
 		// propose all, but sort them based on likeness
 
 		String[] result = new String[proposals.size()];
@@ -164,8 +202,8 @@ public class PPProposalsGenerator {
 		if(currentName == null || currentName.length() < 1)
 			return new String[0];
 
-		// compute the 5 best matches and only accept if score <= 5
-		ScoreKeeper<IEObjectDescription> tracker = new ScoreKeeper<IEObjectDescription>(5, false, 5);
+		// compute the 5 best matches and only accept if score <= MAX_DISTANCE
+		ScoreKeeper<IEObjectDescription> tracker = new ScoreKeeper<IEObjectDescription>(5, false, MAX_DISTANCE);
 		// List<IEObjectDescription> metaphoneAlike = Lists.newArrayList();
 		final DoubleMetaphone encoder = new DoubleMetaphone();
 		final String metaphoneName = encoder.encode(currentName);
@@ -224,6 +262,11 @@ public class PPProposalsGenerator {
 
 	public Collection<String> generateAttributeCandidates(final QualifiedName currentName, Collection<IEObjectDescription> descs,
 			PPSearchPath searchPath) {
+		return generateAttributeCandidates(currentName, Functions.constant(descs), searchPath);
+	}
+
+	private Collection<String> generateAttributeCandidates(final QualifiedName currentName,
+			Function<QualifiedName, ? extends Iterable<IEObjectDescription>> typeAndMembers, PPSearchPath searchPath) {
 		// find candidate names
 		if(currentName.getSegmentCount() < 2)
 			return Collections.emptySet();
@@ -243,7 +286,7 @@ public class PPProposalsGenerator {
 
 			// find all that start with className and are properties or parameters
 			// also find the class/definition itself (possibly ambiguous).
-			for(IEObjectDescription d : descs) {
+			for(IEObjectDescription d : typeAndMembers.apply(prefix)) {
 				if(searchPath.searchIndexOf(d) == PPSearchPath.NOT_FOUND)
 					continue; // not visible
 				EClass ec = d.getEClass();
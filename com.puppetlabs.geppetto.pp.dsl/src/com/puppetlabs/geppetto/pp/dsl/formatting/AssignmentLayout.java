@@ -10,6 +10,7 @@
  */
 package com.puppetlabs.geppetto.pp.dsl.formatting;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -17,6 +18,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.Action;
 import org.eclipse.xtext.Keyword;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
@@ -31,6 +33,7 @@ import com.puppetlabs.xtext.dommodel.IDomNode;
 import com.puppetlabs.xtext.dommodel.formatter.DelegatingLayoutContext;
 import com.puppetlabs.xtext.dommodel.formatter.DomNodeLayoutFeeder;
 import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
 import com.puppetlabs.xtext.dommodel.formatter.css.Alignment;
 import com.puppetlabs.xtext.dommodel.formatter.css.IStyleFactory;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory.WidthStyle;
@@ -111,9 +114,6 @@ public class AssignmentLayout {
 
 		// while siblings are assignments, starting with the current one
 		for(IDomNode aeNode = node; aeNode != null && includeInSequence(aeNode); aeNode = aeNode.getNextSibling()) {
-			DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
-			TextFlow measuredFlow = new TextFlow(innerContext);
-
 			// iterate to format the LHS expression and measure, and find the = sign (which gets padded)
 			Iterator<IDomNode> itor = aeNode.treeIterator();
 			while(itor.hasNext()) {
@@ -123,7 +123,7 @@ public class AssignmentLayout {
 					continue;
 
 				// Measure assignment expression
-				feeder.sequence(n, measuredFlow, innerContext, new FirstLeafWithTextAndTheRest(), untilTheEnd);
+				Measurement measurement = measureLeftExpr(n, availableWidth, context);
 
 				// forward to = or += sign
 				while(itor.hasNext()) {
@@ -147,7 +147,7 @@ public class AssignmentLayout {
 				equalSignNodes.add(n);
 
 				// collect the width of the last selector entry's values
-				int lastLineWidth = measuredFlow.getWidthOfLastLine();
+				int lastLineWidth = measurement.getWidthOfLastLine();
 				clusters.add(lastLineWidth);
 				widths.add(lastLineWidth);
 				break;
@@ -164,6 +164,28 @@ public class AssignmentLayout {
 
 	}
 
+	/**
+	 * Measures the formatted left expression (excluding leading whitespace and comments) of an assignment.
+	 *
+	 * @param node
+	 *            the assignment or append expression action node
+	 * @param availableWidth
+	 * @param context
+	 * @return the measurement
+	 */
+	private Measurement measureLeftExpr(IDomNode node, final int availableWidth, final ILayoutContext context) {
+		Object key = Arrays.asList(FirstLeafWithTextAndTheRest.class, availableWidth);
+		return context.getMeasurementCache().measure(node, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode n) {
+				DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
+				TextFlow measuredFlow = new TextFlow(innerContext);
+				feeder.sequence(n, measuredFlow, innerContext, new FirstLeafWithTextAndTheRest(), untilTheEnd);
+				return new Measurement(measuredFlow, null);
+			}
+		});
+	}
+
 	/**
 	 * assign widths and alignment to the equal sign nodes
 	 *
@@ -10,10 +10,12 @@
  */
 package com.puppetlabs.geppetto.pp.dsl.formatting;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.xtext.RuleCall;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
@@ -28,6 +30,7 @@ import com.puppetlabs.xtext.dommodel.IDomNode;
 import com.puppetlabs.xtext.dommodel.formatter.DelegatingLayoutContext;
 import com.puppetlabs.xtext.dommodel.formatter.DomNodeLayoutFeeder;
 import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
 import com.puppetlabs.xtext.dommodel.formatter.css.Alignment;
 import com.puppetlabs.xtext.dommodel.formatter.css.IStyleFactory;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
@@ -116,22 +119,19 @@ public class CaseLayout {
 					continuedFlow.getIndentation();
 					availableWidth = currentMaxWidth - (continuedFlow.getIndentation() + 1) * continuedFlow.getIndentSize();
 				}
-				// used to measure output of formatted case values
-				// adjust its width to available width (and do not mark items consumed in the given context)
-				DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
-				TextFlow measuredFlow = new TextFlow(innerContext);
-				// visit all nodes in case until the colon is hit, and format the output to the measured flow
-				IDomNode colonNode = feeder.sequence(n, measuredFlow, innerContext, caseColonPredicate);
+				// visit all nodes in case until the colon is hit, and measure the formatted output
+				Measurement measurement = measureCaseValues(n, availableWidth, context);
+				IDomNode colonNode = measurement.getLastNode();
 				if(doCompaction && !n.getStyleClassifiers().contains(StatementStyle.COMPACTABLE))
 					allCompactable = false;
 
 				colonNodes.add(colonNode);
 
 				// collect the width of the last case's values
-				int lastLineWidth = measuredFlow.getWidthOfLastLine();
+				int lastLineWidth = measurement.getWidthOfLastLine();
 				if(!firstCaseSeen) {
 					// the space before the first case triggers case expression indentation of 1, this must be adjusted
-					lastLineWidth -= measuredFlow.getIndentSize();
+					lastLineWidth -= context.getIndentationInformation().getIndentString().length();
 				}
 				clusters.add(lastLineWidth);
 				widths.add(lastLineWidth);
@@ -153,17 +153,20 @@ public class CaseLayout {
 
 	private boolean compactable(List<IDomNode> colonNodes, List<Integer> remainingWidths, ILayoutContext context) {
 		// must measure each, stop if not all fits, otherwise prevent compaction
-		final Predicate<IDomNode> alwaysFalse = Predicates.<IDomNode> alwaysFalse();
 		for(int i = 0; i < colonNodes.size(); i++) {
 			IDomNode p = colonNodes.get(i).getParent();
 			IDomNode statements = DomModelUtils.nodeForGrammarElement(
 				p, grammarAccess.getCaseAccess().getStatementsExpressionListParserRuleCall_4_0());
-			DelegatingLayoutContext caseStatementContext = new DelegatingLayoutContext(context, remainingWidths.get(i));
-			TextFlow caseStatementFlow = new TextFlow(caseStatementContext);
-			if(statements != null)
-				feeder.sequence(statements, caseStatementFlow, caseStatementContext, new SkipInitialWhitespacePredicate(), alwaysFalse);
+			int remainingWidth = remainingWidths.get(i);
+			int height = 0;
+			int widthOfLastLine = 0;
+			if(statements != null) {
+				Measurement measurement = measureStatements(statements, remainingWidth, context);
+				height = measurement.getHeight();
+				widthOfLastLine = measurement.getWidthOfLastLine();
+			}
 			// only 1 line high and did not overflow
-			if(!(caseStatementFlow.getHeight() <= 1 && caseStatementFlow.getWidthOfLastLine() <= remainingWidths.get(i))) {
+			if(!(height <= 1 && widthOfLastLine <= remainingWidth)) {
 				return false;
 			}
 		}
@@ -223,4 +226,50 @@ public class CaseLayout {
 		}
 		return remainingWidths;
 	}
+
+	/**
+	 * Measures the values of a case, formatted to the given width. The last node of the measurement is the colon
+	 * node of the case.
+	 *
+	 * @param caseNode
+	 * @param availableWidth
+	 * @param context
+	 * @return the measurement
+	 */
+	private Measurement measureCaseValues(IDomNode caseNode, final int availableWidth, final ILayoutContext context) {
+		Object key = Arrays.asList(caseColonPredicate, availableWidth);
+		return context.getMeasurementCache().measure(caseNode, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode n) {
+				// used to measure output of formatted case values
+				// adjust its width to available width (and do not mark items consumed in the given context)
+				DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
+				TextFlow measuredFlow = new TextFlow(innerContext);
+				IDomNode colonNode = feeder.sequence(n, measuredFlow, innerContext, caseColonPredicate);
+				return new Measurement(measuredFlow, colonNode);
+			}
+		});
+	}
+
+	/**
+	 * Measures the statements of a case (excluding leading whitespace), formatted to the given width.
+	 *
+	 * @param statements
+	 * @param remainingWidth
+	 * @param context
+	 * @return the measurement
+	 */
+	private Measurement measureStatements(IDomNode statements, final int remainingWidth, final ILayoutContext context) {
+		Object key = Arrays.asList(SkipInitialWhitespacePredicate.class, remainingWidth);
+		return context.getMeasurementCache().measure(statements, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode n) {
+				DelegatingLayoutContext caseStatementContext = new DelegatingLayoutContext(context, remainingWidth);
+				TextFlow caseStatementFlow = new TextFlow(caseStatementContext);
+				feeder.sequence(
+					n, caseStatementFlow, caseStatementContext, new SkipInitialWhitespacePredicate(), Predicates.<IDomNode> alwaysFalse());
+				return new Measurement(caseStatementFlow, null);
+			}
+		});
+	}
 }
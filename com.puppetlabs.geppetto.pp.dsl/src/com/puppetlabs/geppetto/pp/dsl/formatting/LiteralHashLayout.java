@@ -11,6 +11,7 @@
 package com.puppetlabs.geppetto.pp.dsl.formatting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -18,6 +19,7 @@ import java.util.Map.Entry;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.AbstractElement;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
@@ -31,6 +33,7 @@ import com.puppetlabs.xtext.dommodel.IDomNode;
 import com.puppetlabs.xtext.dommodel.IDomNode.NodeType;
 import com.puppetlabs.xtext.dommodel.formatter.DelegatingLayoutContext;
 import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
 import com.puppetlabs.xtext.dommodel.formatter.css.Alignment;
 import com.puppetlabs.xtext.dommodel.formatter.css.IStyleFactory;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
@@ -108,22 +111,8 @@ public class LiteralHashLayout extends AbstractListLayout {
 						nextLeaf.getStyles().add(StyleSet.withStyles(styles.oneLineBreak()));
 				}
 				else if(ge == hashAccess.getKeyAssignmentExpressionParserRuleCall_0_0()) {
-					DelegatingLayoutContext keyContext = new DelegatingLayoutContext(context);
-					TextFlow keyFlow = new TextFlow(keyContext);
-					ArrayList<IDomNode> children = Lists.newArrayList(n.getChildren());
-					for(Iterator<IDomNode> subitor = children.iterator(); subitor.hasNext();) {
-						IDomNode x = subitor.next();
-						NodeType t = x.getNodeType();
-						if(t == NodeType.ACTION || t == NodeType.WHITESPACE) {
-							subitor.remove();
-							continue;
-						}
-						break; // first non whitespace or action
-					}
-					feeder.sequence(children, keyFlow, context);
-					previousKeyWidth = keyFlow.getWidthOfLastLine();
+					previousKeyWidth = measureKey(n, context).getWidthOfLastLine();
 					cluster.add(previousKeyWidth);
-					System.out.println("node= [" + keyFlow.getText() + "] width = " + previousKeyWidth);
 				}
 				else if(ge == hashAccess.getEqualsSignGreaterThanSignKeyword_1()) {
 					operatorNodes.put(n, previousKeyWidth);
@@ -134,4 +123,36 @@ public class LiteralHashLayout extends AbstractListLayout {
 		if(breakAndAlign)
 			assignAlignmentAndWidths(operatorNodes, cluster);
 	}
+
+	/**
+	 * Measures a hash key (excluding leading whitespace), formatted in a context that does not mark nodes consumed in
+	 * the given context.
+	 *
+	 * @param keyNode
+	 * @param context
+	 * @return the measurement
+	 */
+	private Measurement measureKey(IDomNode keyNode, final ILayoutContext context) {
+		Object key = Arrays.asList(
+			grammarAccess.getHashEntryAccess().getKeyAssignmentExpressionParserRuleCall_0_0(), context.getPreferredMaxWidth());
+		return context.getMeasurementCache().measure(keyNode, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode n) {
+				DelegatingLayoutContext keyContext = new DelegatingLayoutContext(context);
+				TextFlow keyFlow = new TextFlow(keyContext);
+				ArrayList<IDomNode> children = Lists.newArrayList(n.getChildren());
+				for(Iterator<IDomNode> subitor = children.iterator(); subitor.hasNext();) {
+					IDomNode x = subitor.next();
+					NodeType t = x.getNodeType();
+					if(t == NodeType.ACTION || t == NodeType.WHITESPACE) {
+						subitor.remove();
+						continue;
+					}
+					break; // first non whitespace or action
+				}
+				feeder.sequence(children, keyFlow, keyContext);
+				return new Measurement(keyFlow, null);
+			}
+		});
+	}
 }
@@ -10,11 +10,13 @@
  */
 package com.puppetlabs.geppetto.pp.dsl.formatting;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.xtext.ParserRule;
 import org.eclipse.xtext.RuleCall;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
@@ -25,6 +27,7 @@ import com.puppetlabs.xtext.dommodel.IDomNode;
 import com.puppetlabs.xtext.dommodel.formatter.DelegatingLayoutContext;
 import com.puppetlabs.xtext.dommodel.formatter.DomNodeLayoutFeeder;
 import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
 import com.puppetlabs.xtext.dommodel.formatter.css.Alignment;
 import com.puppetlabs.xtext.dommodel.formatter.css.IStyleFactory;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
@@ -97,20 +100,17 @@ public class SelectorLayout {
 					continuedFlow.getIndentation();
 					availableWidth = currentMaxWidth - (continuedFlow.getIndentation() + 1) * continuedFlow.getIndentSize();
 				}
-				// used to measure output of formatted selector entry values
-				// adjust its width to available width (and do not mark items consumed in the given context)
-				DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
-				TextFlow measuredFlow = new TextFlow(innerContext);
-				// visit all nodes in case until the colon is hit, and format the output to the measured flow
-				IDomNode fatCommaNode = feeder.sequence(n, measuredFlow, innerContext, caseFatCommaPredicate);
+				// visit all nodes in the entry until the fat comma is hit, and measure the formatted output
+				Measurement measurement = measureEntryValues(n, availableWidth, context);
+				IDomNode fatCommaNode = measurement.getLastNode();
 
 				fatCommaNodes.add(fatCommaNode);
 
 				// collect the width of the last selector entry's values
-				int lastLineWidth = measuredFlow.getWidthOfLastLine();
+				int lastLineWidth = measurement.getWidthOfLastLine();
 				if(!firstSelectoEntrySeen) {
 					// the space before the first entry triggers selector expression indentation of 1, this must be adjusted
-					lastLineWidth -= measuredFlow.getIndentSize();
+					lastLineWidth -= context.getIndentationInformation().getIndentString().length();
 				}
 				clusters.add(lastLineWidth);
 				widths.add(lastLineWidth);
@@ -152,4 +152,28 @@ public class SelectorLayout {
 					styles.width(2 + mw - w)));
 		}
 	}
+
+	/**
+	 * Measures the values of a selector entry, formatted to the given width. The last node of the measurement is the
+	 * fat comma node of the entry.
+	 *
+	 * @param entryNode
+	 * @param availableWidth
+	 * @param context
+	 * @return the measurement
+	 */
+	private Measurement measureEntryValues(IDomNode entryNode, final int availableWidth, final ILayoutContext context) {
+		Object key = Arrays.asList(caseFatCommaPredicate, availableWidth);
+		return context.getMeasurementCache().measure(entryNode, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode n) {
+				// used to measure output of formatted selector entry values
+				// adjust its width to available width (and do not mark items consumed in the given context)
+				DelegatingLayoutContext innerContext = new DelegatingLayoutContext(context, availableWidth);
+				TextFlow measuredFlow = new TextFlow(innerContext);
+				IDomNode fatCommaNode = feeder.sequence(n, measuredFlow, innerContext, caseFatCommaPredicate);
+				return new Measurement(measuredFlow, fatCommaNode);
+			}
+		});
+	}
 }
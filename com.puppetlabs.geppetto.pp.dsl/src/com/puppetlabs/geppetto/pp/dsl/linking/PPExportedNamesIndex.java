@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.linking;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.xtext.naming.IQualifiedNameConverter;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalIndex;
+import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
+
+/**
+ * An immutable index of exported descriptions keyed by the last segment of their qualified name. The index is
+ * created once for a set of visible containers and can then be shared between all resources that see the same
+ * containers (and between threads).
+ * <p>
+ * Pattern variables (descriptions having a {@link PPDSLConstants#VARIABLE_PATTERN} user data value) are kept in a
+ * separate list since they can not be found using a plain name lookup. Descriptions with an empty qualified name
+ * are skipped.
+ * </p>
+ */
+public class PPExportedNamesIndex {
+	/**
+	 * The classes of the descriptions that are found using {@link #getMembers(QualifiedName)}. Providers are type
+	 * arguments.
+	 */
+	private static final EClass[] MEMBER_CLASSES = { PPPackage.Literals.DEFINITION_ARGUMENT, PPTPPackage.Literals.TYPE_ARGUMENT };
+
+	/**
+	 * Checks if the given description is an argument of a definition or type, or a provider of a type.
+	 *
+	 * @param d
+	 *            The description to check
+	 * @return <code>true</code> if the description is a member of the definition or type named by all but the last
+	 *         segment of its qualified name
+	 */
+	public static boolean isMember(IEObjectDescription d) {
+		EClass eClass = d.getEClass();
+		for(EClass memberClass : MEMBER_CLASSES)
+			if(memberClass.isSuperTypeOf(eClass))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Creates an index of the given descriptions.
+	 *
+	 * @param descriptions
+	 *            The descriptions to index
+	 * @return The created index
+	 */
+	public static PPExportedNamesIndex create(Iterable<IEObjectDescription> descriptions) {
+		ImmutableListMultimap.Builder<String, IEObjectDescription> perLastSegment = ImmutableListMultimap.builder();
+		ImmutableList.Builder<IEObjectDescription> patternVariables = ImmutableList.builder();
+		ImmutableList.Builder<IEObjectDescription> builtInTypes = ImmutableList.builder();
+		for(IEObjectDescription d : descriptions) {
+			if(d.getQualifiedName().getSegmentCount() < 1)
+				continue;
+
+			// patterned based names are exceptional
+			if(d.getUserData(PPDSLConstants.VARIABLE_PATTERN) != null) {
+				patternVariables.add(d);
+				continue;
+			}
+			perLastSegment.put(d.getQualifiedName().getLastSegment(), d);
+			if(d.getEClass() == PPTPPackage.Literals.PUPPET_TYPE)
+				builtInTypes.add(d);
+		}
+		return new PPExportedNamesIndex(perLastSegment.build(), patternVariables.build(), builtInTypes.build());
+	}
+
+	private final ImmutableListMultimap<String, IEObjectDescription> perLastSegment;
+
+	private final ImmutableList<IEObjectDescription> patternVariables;
+
+	private final ImmutableList<IEObjectDescription> builtInTypes;
+
+	private PPProposalIndex proposalIndex;
+
+	private ImmutableListMultimap<QualifiedName, IEObjectDescription> perOwner;
+
+	private PPExportedNamesIndex(ImmutableListMultimap<String, IEObjectDescription> perLastSegment,
+			ImmutableList<IEObjectDescription> patternVariables, ImmutableList<IEObjectDescription> builtInTypes) {
+		this.perLastSegment = perLastSegment;
+		this.patternVariables = patternVariables;
+		this.builtInTypes = builtInTypes;
+	}
+
+	/**
+	 * Returns the descriptions whose qualified name ends with the given segment in the order they were added.
+	 *
+	 * @param lastSegment
+	 *            The last segment of the wanted names
+	 * @return The matching descriptions, possibly empty
+	 */
+	public List<IEObjectDescription> get(String lastSegment) {
+		return perLastSegment.get(lastSegment);
+	}
+
+	/**
+	 * @return All descriptions of the <code>PuppetType</code> class
+	 */
+	public List<IEObjectDescription> getBuiltInTypes() {
+		return builtInTypes;
+	}
+
+	/**
+	 * Returns the arguments and providers of the definition or type with the given name. The members are indexed on
+	 * first request since they are only needed when an attribute or a provider cannot be resolved.
+	 *
+	 * @param owner
+	 *            The qualified name of the definition or type
+	 * @return The members in the order they were added, possibly empty
+	 * @see #isMember(IEObjectDescription)
+	 */
+	public synchronized List<IEObjectDescription> getMembers(QualifiedName owner) {
+		if(perOwner == null) {
+			ImmutableListMultimap.Builder<QualifiedName, IEObjectDescription> bld = ImmutableListMultimap.builder();
+			for(IEObjectDescription d : perLastSegment.values())
+				if(d.getQualifiedName().getSegmentCount() > 1 && isMember(d))
+					bld.put(d.getQualifiedName().skipLast(1), d);
+			perOwner = bld.build();
+		}
+		return perOwner.get(owner);
+	}
+
+	/**
+	 * Returns the proposal index of the descriptions in this index. The proposal index is created on first request
+	 * since it is only needed when a name cannot be resolved.
+	 *
+	 * @param converter
+	 *            The converter used to obtain the name of a description
+	 * @return The proposal index
+	 */
+	public synchronized PPProposalIndex getProposalIndex(IQualifiedNameConverter converter) {
+		if(proposalIndex == null)
+			proposalIndex = PPProposalIndex.create(perLastSegment.values(), converter);
+		return proposalIndex;
+	}
+
+	/**
+	 * @return All descriptions of pattern variables
+	 */
+	public List<IEObjectDescription> getPatternVariables() {
+		return patternVariables;
+	}
+
+	/**
+	 * @return The distinct last segments in the order they were first added
+	 */
+	public Set<String> lastSegments() {
+		return perLastSegment.keySet();
+	}
+
+	/**
+	 * @return The number of indexed descriptions (pattern variables excluded)
+	 */
+	public int size() {
+		return perLastSegment.size();
+	}
+}
@@ -32,10 +32,14 @@ import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.containers.IAllContainersState;
+import org.eclipse.xtext.resource.containers.StateBasedContainerManager;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -43,6 +47,9 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import com.puppetlabs.geppetto.common.tracer.IHistogram;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
+import com.puppetlabs.geppetto.common.tracer.ITimer;
 import com.puppetlabs.geppetto.common.tracer.ITracer;
 import com.puppetlabs.geppetto.pp.AppendExpression;
 import com.puppetlabs.geppetto.pp.AssignmentExpression;
@@ -62,6 +69,9 @@ import com.puppetlabs.geppetto.pp.VariableExpression;
 import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
 import com.puppetlabs.geppetto.pp.dsl.StringUtils;
 import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapter;
+import com.puppetlabs.geppetto.pp.dsl.adapters.SharedExportsAdapter;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalIndex;
+import com.puppetlabs.geppetto.pp.dsl.contentassist.PPProposalsGenerator;
 import com.puppetlabs.geppetto.pp.dsl.linking.NameInScopeFilter.Match;
 import com.puppetlabs.geppetto.pp.dsl.linking.NameInScopeFilter.SearchStrategy;
 import com.puppetlabs.geppetto.pp.dsl.linking.PPSearchPath.ISearchPathProvider;
@@ -130,6 +140,18 @@ public class PPFinder {
 	private static final EClass[] PPTP_TYPE_AND_FUNC = {
 		PPTPPackage.Literals.PUPPET_TYPE, PPTPPackage.Literals.TYPE, PPTPPackage.Literals.FUNCTION };
 
+	/**
+	 * The name of the timer that records the time spent looking up names in the exports of all visible resources
+	 */
+	public static final String FIND_EXTERNAL_TIMER = "pp.finder.findExternal";
+
+	/**
+	 * The name of the histogram that records the number of descriptions found by each lookup in the exports
+	 */
+	public static final String FIND_EXTERNAL_CANDIDATES = "pp.finder.findExternal.candidates";
+
+	private static final PPExportedNamesIndex EMPTY_INDEX = PPExportedNamesIndex.create(Collections.<IEObjectDescription> emptyList());
+
 	static String getNameString(LiteralExpression expr) {
 		if(expr == null)
 			return null;
@@ -159,8 +181,24 @@ public class PPFinder {
 
 	private PPSearchPath searchPath;
 
+	/**
+	 * The (possibly dirty) exports of the current resource.
+	 */
 	private final Multimap<String, IEObjectDescription> exportedPerLastSegment = ArrayListMultimap.create();
 
+	/**
+	 * Exports from all visible containers. Descriptions of the current resource must be filtered out since they are
+	 * represented by {@link #exportedPerLastSegment}.
+	 */
+	private PPExportedNamesIndex visibleExports = EMPTY_INDEX;
+
+	private String pathToCurrent;
+
+	/**
+	 * Lazily computed merge of {@link #exportedPerLastSegment} and {@link #visibleExports}.
+	 */
+	private Multimap<String, IEObjectDescription> allExportedPerLastSegment;
+
 	/**
 	 * Access to the 'pp' services (container management and more).
 	 */
@@ -197,19 +235,39 @@ public class PPFinder {
 	@Inject
 	private PuppetTypeValidator typeValidator;
 
+	private ITimer findExternalTimer;
+
+	private IHistogram candidatesHistogram;
+
 	private Map<String, IEObjectDescription> metaCache;
 
 	private Map<String, IEObjectDescription> metaVarCache;
 
-	private final List<IEObjectDescription> exportedPatternVariables = Lists.newArrayList();
+	private final Predicate<IEObjectDescription> visibleExportFilter = new Predicate<IEObjectDescription>() {
+		@Override
+		public boolean apply(IEObjectDescription d) {
+			return isVisibleExport(d);
+		}
+	};
+
+	/**
+	 * Method used for injection. Should normally not be called explicitly
+	 *
+	 * @param metrics
+	 */
+	@Inject
+	public void injectMetrics(IMetrics metrics) {
+		findExternalTimer = metrics.getTimer(FIND_EXTERNAL_TIMER);
+		candidatesHistogram = metrics.getHistogram(FIND_EXTERNAL_CANDIDATES);
+	}
 
 	private void buildExportedObjectsIndex(IResourceDescription descr, IResourceDescriptions descriptionIndex) {
 		// The current (possibly dirty) exported resources
 		IResourceDescription dirty = resourceServiceProvider.getResourceDescriptionManager().getResourceDescription(resource);
-		String pathToCurrent = resource.getURI().path();
+		pathToCurrent = resource.getURI().path();
 
 		exportedPerLastSegment.clear();
-		exportedPatternVariables.clear();
+		allExportedPerLastSegment = null;
 
 		// add all (possibly dirty in global index)
 		// check for empty qualified names which may be present in case of syntax errors / while editing etc.
@@ -219,21 +277,11 @@ public class PPFinder {
 			if(d.getQualifiedName().getSegmentCount() >= 1)
 				exportedPerLastSegment.put(d.getQualifiedName().getLastSegment(), d);
 
-		// add all from global index, except those for current resource
-		EClass builtInTypeClass = PPTPPackage.Literals.PUPPET_TYPE;
-		for(IEObjectDescription d : getExportedObjects(descr, descriptionIndex))
-			if(!d.getEObjectURI().path().equals(pathToCurrent) && d.getQualifiedName().getSegmentCount() >= 1) {
-				// patterned based names are exceptional
-				if(d.getUserData(PPDSLConstants.VARIABLE_PATTERN) != null) {
-					exportedPatternVariables.add(d);
-				}
-				else {
-					String name = d.getQualifiedName().getLastSegment();
-					exportedPerLastSegment.put(name, d);
-					if(d.getEClass() == builtInTypeClass)
-						typeValidator.configureValidator(name, d);
-				}
-			}
+		// add all from global index, except those for current resource (they are filtered out on lookup)
+		visibleExports = getVisibleExportsIndex(descr, descriptionIndex);
+		for(IEObjectDescription d : visibleExports.getBuiltInTypes())
+			if(isVisibleExport(d))
+				typeValidator.configureValidator(d.getQualifiedName().getLastSegment(), d);
 	}
 
 	private void cacheMetaParameters(EObject scopeDetermeningObject) {
@@ -380,6 +428,19 @@ public class PPFinder {
 
 	private SearchResult findExternal(EObject scopeDetermeningObject, QualifiedName fqn, PPImportedNamesAdapter importedNames,
 			SearchStrategy matchingStrategy, EClass... eClasses) {
+		long start = findExternalTimer.start();
+		try {
+			SearchResult result = findExternalUntimed(scopeDetermeningObject, fqn, importedNames, matchingStrategy, eClasses);
+			candidatesHistogram.record(result.getRaw().size());
+			return result;
+		}
+		finally {
+			findExternalTimer.stop(start);
+		}
+	}
+
+	private SearchResult findExternalUntimed(EObject scopeDetermeningObject, QualifiedName fqn, PPImportedNamesAdapter importedNames,
+			SearchStrategy matchingStrategy, EClass[] eClasses) {
 		if(scopeDetermeningObject == null)
 			throw new IllegalArgumentException("scope determening object is null");
 		if(fqn == null)
@@ -431,14 +492,14 @@ public class PPFinder {
 			QualifiedName nameOfScope = getNameOfScope(scopeDetermeningObject);
 			for(IEObjectDescription objDesc : new NameInScopeFilter(matchingStrategy, //
 				matchingStrategy.matchStartsWith()
-					? exportedPerLastSegment.values()
-					: exportedPerLastSegment.get(fqn.getLastSegment()), //
+					? getAllExportedPerLastSegment().values()
+					: getExportedWithLastSegment(fqn.getLastSegment()), //
 				fqn, nameOfScope, eClasses))
 				targets.add(objDesc);
 
 			if(targets.size() == 0) {
 				// check the pattern variables
-				for(IEObjectDescription objDesc : exportedPatternVariables) {
+				for(IEObjectDescription objDesc : getExportedPatternVariableDescriptions()) {
 					String n = fqn.getLastSegment();
 					String on = objDesc.getName().getLastSegment();
 					if(n.startsWith(on) && Pattern.matches(objDesc.getUserData(PPDSLConstants.VARIABLE_PATTERN), n.substring(on.length())))
@@ -703,6 +764,25 @@ public class PPFinder {
 		return findVariables(scopeDetermeningObject, fqn, importedNames, Match.NO_OUTER_STARTS_WITH);
 	}
 
+	/**
+	 * Produces the merged view of the exports of the current resource and the visible exports of all other
+	 * resources. The view is computed on first request after a {@link #configure(Resource)} since it is only needed
+	 * when searching for names using a prefix, or when computing proposals.
+	 *
+	 * @return
+	 */
+	private Multimap<String, IEObjectDescription> getAllExportedPerLastSegment() {
+		if(allExportedPerLastSegment == null) {
+			Multimap<String, IEObjectDescription> all = ArrayListMultimap.create(exportedPerLastSegment);
+			for(String lastSegment : visibleExports.lastSegments())
+				for(IEObjectDescription d : visibleExports.get(lastSegment))
+					if(isVisibleExport(d))
+						all.put(lastSegment, d);
+			allExportedPerLastSegment = all;
+		}
+		return allExportedPerLastSegment;
+	}
+
 	public IEObjectDescription getExportByClass(String name, EClass... classes) {
 		for(IEObjectDescription export : getExportedPerLastSegment(name)) {
 			int len = classes.length;
@@ -729,7 +809,7 @@ public class PPFinder {
 	 * @return
 	 */
 	public Collection<IEObjectDescription> getExportedDescriptions() {
-		return Collections.unmodifiableCollection(exportedPerLastSegment.values());
+		return Collections.unmodifiableCollection(getAllExportedPerLastSegment().values());
 	}
 
 	/**
@@ -751,8 +831,29 @@ public class PPFinder {
 			}));
 	}
 
+	/**
+	 * Produces the index of all exports in the containers visible from the given resource description. The index
+	 * is shared with other resources seeing the same containers when the resource set has a
+	 * {@link SharedExportsAdapter} and the container manager is state based. Otherwise, a new index is created.
+	 *
+	 * @param descr
+	 * @param descriptionIndex
+	 * @return
+	 */
+	private PPExportedNamesIndex getVisibleExportsIndex(IResourceDescription descr, IResourceDescriptions descriptionIndex) {
+		SharedExportsAdapter sharedExports = SharedExportsAdapter.get(resource.getResourceSet());
+		if(sharedExports != null && manager instanceof StateBasedContainerManager) {
+			IAllContainersState state = ((StateBasedContainerManager) manager).getState(descriptionIndex);
+			String handle = state.getContainerHandle(descr.getURI());
+			if(handle != null)
+				return sharedExports.getIndex(
+					state.getVisibleContainerHandles(handle), getExportedObjects(descr, descriptionIndex));
+		}
+		return PPExportedNamesIndex.create(getExportedObjects(descr, descriptionIndex));
+	}
+
 	public Collection<IEObjectDescription> getExportedPatternVariableDescriptions() {
-		return Collections.unmodifiableCollection(exportedPatternVariables);
+		return Collections2.filter(visibleExports.getPatternVariables(), visibleExportFilter);
 	}
 
 	/**
@@ -762,13 +863,57 @@ public class PPFinder {
 	 * @return
 	 */
 	public Multimap<String, IEObjectDescription> getExportedPerLastSegement() {
-		return Multimaps.unmodifiableMultimap(exportedPerLastSegment);
+		return Multimaps.unmodifiableMultimap(getAllExportedPerLastSegment());
 	}
 
 	public Collection<IEObjectDescription> getExportedPerLastSegment(String name) {
-		return name == null
-			? Collections.<IEObjectDescription> emptyList()
-			: exportedPerLastSegment.get(StringUtils.toInitialLowerCase(name));
+		if(name == null)
+			return Collections.<IEObjectDescription> emptyList();
+		return getExportedWithLastSegment(StringUtils.toInitialLowerCase(name));
+	}
+
+	/**
+	 * Produces the exports of the current resource followed by the visible exports of other resources that have
+	 * the given last segment.
+	 *
+	 * @param lastSegment
+	 * @return
+	 */
+	private Collection<IEObjectDescription> getExportedWithLastSegment(String lastSegment) {
+		Collection<IEObjectDescription> own = exportedPerLastSegment.get(lastSegment);
+		List<IEObjectDescription> visible = visibleExports.get(lastSegment);
+		if(visible.isEmpty())
+			return own;
+
+		List<IEObjectDescription> result = Lists.newArrayListWithCapacity(own.size() + visible.size());
+		result.addAll(own);
+		for(IEObjectDescription d : visible)
+			if(isVisibleExport(d))
+				result.add(d);
+		return result;
+	}
+
+	/**
+	 * Produces the visible arguments and providers of the definition or type with the given name. The members from
+	 * the current resource come first and the members from other resources are taken from the shared index of visible
+	 * exports.
+	 *
+	 * @param owner
+	 *            The qualified name of the definition or type
+	 * @return The members, possibly empty
+	 * @see PPExportedNamesIndex#isMember(IEObjectDescription)
+	 */
+	public Collection<IEObjectDescription> getMembers(QualifiedName owner) {
+		List<IEObjectDescription> result = Lists.newArrayList();
+		for(IEObjectDescription d : exportedPerLastSegment.values()) {
+			QualifiedName name = d.getQualifiedName();
+			if(name.getSegmentCount() > 1 && PPExportedNamesIndex.isMember(d) && name.skipLast(1).equals(owner))
+				result.add(d);
+		}
+		for(IEObjectDescription d : visibleExports.getMembers(owner))
+			if(isVisibleExport(d))
+				result.add(d);
+		return result;
 	}
 
 	/**
@@ -787,6 +932,56 @@ public class PPFinder {
 		return QualifiedName.EMPTY;
 	}
 
+	/**
+	 * Produces the exports that might be proposed as a replacement for the given unresolved name. The result contains
+	 * all exports of the current resource and the visible exports that are close to the given name according to the
+	 * shared {@link PPProposalIndex}.
+	 *
+	 * @param name
+	 *            The unresolved name
+	 * @return The candidates to pass to the {@link PPProposalsGenerator}
+	 */
+	public Collection<IEObjectDescription> getProposalCandidates(String name) {
+		if(name == null || name.length() < 1)
+			return Collections.emptyList();
+
+		List<IEObjectDescription> result = Lists.newArrayList(exportedPerLastSegment.values());
+		for(IEObjectDescription d : visibleExports.getProposalIndex(converter).getCandidates(name, PPProposalsGenerator.MAX_DISTANCE))
+			if(isVisibleExport(d))
+				result.add(d);
+		return result;
+	}
+
+	/**
+	 * Produces the visible definitions and types with the given name followed by their members. This is what the
+	 * {@link PPProposalsGenerator} needs when computing attribute proposals for the definition or type.
+	 *
+	 * @param typeName
+	 *            The qualified name of the definition or type
+	 * @return The definitions, types and members, possibly empty
+	 * @see #getMembers(QualifiedName)
+	 */
+	public Collection<IEObjectDescription> getTypeAndMembers(QualifiedName typeName) {
+		List<IEObjectDescription> result = Lists.newArrayList();
+		if(typeName.getSegmentCount() > 0)
+			for(IEObjectDescription d : getExportedWithLastSegment(typeName.getLastSegment()))
+				if(d.getQualifiedName().equals(typeName))
+					result.add(d);
+		result.addAll(getMembers(typeName));
+		return result;
+	}
+
+	/**
+	 * Exports originating from the current resource are represented by its (possibly dirty) resource description
+	 * and must not be taken from the index of visible exports.
+	 *
+	 * @param d
+	 * @return
+	 */
+	private boolean isVisibleExport(IEObjectDescription d) {
+		return !d.getEObjectURI().path().equals(pathToCurrent);
+	}
+
 	private boolean isContainedInDefinition(EObject scoped) {
 		for(EObject o = scoped; o != null; o = o.eContainer())
 			if(o.eClass() == PPPackage.Literals.DEFINITION)
@@ -41,10 +41,13 @@ import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.name.Named;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
+import com.puppetlabs.geppetto.common.tracer.ITimer;
 import com.puppetlabs.geppetto.common.tracer.ITracer;
 import com.puppetlabs.geppetto.pp.AtExpression;
 import com.puppetlabs.geppetto.pp.AttributeOperation;
@@ -102,6 +105,10 @@ import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
  * Handles special linking of ResourceExpression, ResourceBody and Function references.
  */
 public class PPResourceLinker implements IPPDiagnostics {
+	/**
+	 * The name of the timer that records the time spent in {@link #link(EObject, IMessageAcceptor, boolean)}
+	 */
+	public static final String LINK_TIMER = "pp.linker.link";
 
 	private static String proposalIssue(String issue, String[] proposals) {
 		if(proposals == null || proposals.length == 0)
@@ -157,6 +164,18 @@ public class PPResourceLinker implements IPPDiagnostics {
 	@Inject
 	private Provider<IValidationAdvisor> validationAdvisorProvider;
 
+	private ITimer linkTimer;
+
+	/**
+	 * Gives the attribute proposals access to the indexed definitions, types and arguments
+	 */
+	private final Function<QualifiedName, Collection<IEObjectDescription>> typeAndMembers = new Function<QualifiedName, Collection<IEObjectDescription>>() {
+		@Override
+		public Collection<IEObjectDescription> apply(QualifiedName typeName) {
+			return ppFinder.getTypeAndMembers(typeName);
+		}
+	};
+
 	private void _link(CollectExpression o, LinkContext ctx) {
 		classifier.classify(o);
 		ClassifierAdapter adapter = ClassifierAdapterFactory.eINSTANCE.adapt(o);
@@ -263,7 +282,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 
 			// ... and finally, if there was neither a type nor a definition reference
 			String[] proposals = proposer.computeProposals(
-				parentString, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), CLASS_AND_TYPE);
+				parentString, ppFinder.getProposalCandidates(parentString), ctx.getSearchPath(), CLASS_AND_TYPE);
 			ctx.acceptError("Unknown class: '" + parentString + "'", o, //
 				PPPackage.Literals.HOST_CLASS_DEFINITION__PARENT, proposalIssue(ISSUE__RESOURCE_UNKNOWN_TYPE, proposals), //
 				proposals);
@@ -336,7 +355,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 				ctx.acceptWarning("Found outside search path: '" + name + "'", o, ISSUE__NOT_ON_PATH);
 			else {
 				String[] proposals = proposer.computeProposals(
-					name, ppFinder.getExportedDescriptions(), true, ctx.getSearchPath(), PPFinder.DEF_AND_TYPE);
+					name, ppFinder.getProposalCandidates(name), true, ctx.getSearchPath(), PPFinder.DEF_AND_TYPE);
 				ctx.acceptError("Unknown type: '" + name + "'", o, proposalIssue(ISSUE__UNKNOWN_TYPE, proposals), proposals);
 			}
 		}
@@ -429,7 +448,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 				CrossReferenceAdapter.clear(o.getNameExpr());
 
 				String[] proposals = proposer.computeProposals(
-					className, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), CLASS_AND_TYPE);
+					className, ppFinder.getProposalCandidates(className), ctx.getSearchPath(), CLASS_AND_TYPE);
 				ctx.acceptError("Unknown class: '" + className + "'", o, //
 					PPPackage.Literals.RESOURCE_BODY__NAME_EXPR, proposalIssue(ISSUE__RESOURCE_UNKNOWN_TYPE, proposals), //
 					proposals);
@@ -672,7 +691,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 						PPPackage.Literals.ATTRIBUTE_OPERATION__KEY, ISSUE__RESOURCE_DEPRECATED_NAME_ALIAS);
 					continue;
 				}
-				String[] proposals = proposer.computeAttributeProposals(fqn, ppFinder.getExportedDescriptions(), ctx.getSearchPath());
+				String[] proposals = proposer.computeAttributeProposals(fqn, typeAndMembers, ctx.getSearchPath());
 				ctx.acceptError(
 					"Unknown attribute: '" + key + "' in definition: '" + desc.getName() + "'", ao,
 					PPPackage.Literals.ATTRIBUTE_OPERATION__KEY, proposalIssue(ISSUE__RESOURCE_UNKNOWN_PROPERTY, proposals), proposals);
@@ -755,7 +774,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 							CrossReferenceAdapter.clear(pe);
 
 							String[] proposals = proposer.computeProposals(
-								className, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), CLASS_AND_TYPE);
+								className, ppFinder.getProposalCandidates(className), ctx.getSearchPath(), CLASS_AND_TYPE);
 							String issueCode = proposalIssue(ISSUE__RESOURCE_UNKNOWN_TYPE, proposals);
 							if(param instanceof ExprList) {
 								ctx.acceptError("Unknown class: '" + className + "'", //
@@ -853,7 +872,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 							CrossReferenceAdapter.clear(pe);
 
 							String[] p = proposer.computeProposals(
-								className, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), CLASS_AND_TYPE);
+								className, ppFinder.getProposalCandidates(className), ctx.getSearchPath(), CLASS_AND_TYPE);
 							ctx.acceptError(
 								"Unknown class: '" + className + "'", o, //
 								PPPackage.Literals.PARAMETERIZED_EXPRESSION__PARAMETERS, parameterIndex,
@@ -916,7 +935,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 			);
 			return; // sort of ok
 		}
-		String[] proposals = proposer.computeProposals(name, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), FUNC);
+		String[] proposals = proposer.computeProposals(name, ppFinder.getProposalCandidates(name), ctx.getSearchPath(), FUNC);
 		ctx.acceptError("Unknown function: '" + name + "'", nameExpr, //
 			proposalIssue(ISSUE__UNKNOWN_FUNCTION_REFERENCE, proposals), //
 			proposals);
@@ -951,9 +970,9 @@ public class PPResourceLinker implements IPPDiagnostics {
 		String typeName = providerName.getFirstSegment();
 		PPSearchPath searchPath = ctx.getSearchPath();
 		List<String> proposalLists = Lists.newArrayList();
-		for(IEObjectDescription d : ppFinder.getExportedDescriptions()) {
+		for(IEObjectDescription d : ppFinder.getMembers(QualifiedName.create(typeName))) {
 			QualifiedName pn = d.getQualifiedName();
-			if(typeName.equals(pn.getFirstSegment()) && PPTPPackage.Literals.PROVIDER.isSuperTypeOf(d.getEClass()) &&
+			if(PPTPPackage.Literals.PROVIDER.isSuperTypeOf(d.getEClass()) &&
 				searchPath.searchIndexOf(d) != PPSearchPath.NOT_FOUND)
 				proposalLists.add(pn.getLastSegment());
 		}
@@ -1101,7 +1120,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 				// Add unresolved info at resource level
 				addUnresolved(importedNames, resourceTypeName, NodeModelUtils.findActualNodeFor(reference));
 				String[] proposals = proposer.computeProposals(
-					resourceTypeName, ppFinder.getExportedDescriptions(), upperCaseProposals, ctx.getSearchPath(), DEF_AND_TYPE);
+					resourceTypeName, ppFinder.getProposalCandidates(resourceTypeName), upperCaseProposals, ctx.getSearchPath(), DEF_AND_TYPE);
 				ctx.acceptError("Unknown resource type: '" + resourceTypeName + "'", reference,
 				// PPPackage.Literals.RESOURCE_EXPRESSION__RESOURCE_EXPR, //
 				proposalIssue(ISSUE__RESOURCE_UNKNOWN_TYPE, proposals), //
@@ -1156,7 +1175,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 							ISSUE__NOT_ON_PATH);
 					continue each_top; // ok, found
 				}
-				String[] proposals = proposer.computeProposals(name, ppFinder.getExportedDescriptions(), ctx.getSearchPath(), FUNC);
+				String[] proposals = proposer.computeProposals(name, ppFinder.getProposalCandidates(name), ctx.getSearchPath(), FUNC);
 				ctx.acceptError(
 					"Unknown function: '" + name + "'", s, PPPackage.Literals.LITERAL_NAME_OR_REFERENCE__VALUE,
 					proposalIssue(ISSUE__UNKNOWN_FUNCTION_REFERENCE, proposals), //
@@ -1269,13 +1288,7 @@ public class PPResourceLinker implements IPPDiagnostics {
 		return result;
 	}
 
-	/**
-	 * Link all resources in the model
-	 *
-	 * @param model
-	 * @param acceptor
-	 */
-	public void link(EObject model, IMessageAcceptor acceptor, boolean profileThis) {
+	private void doLink(EObject model, IMessageAcceptor acceptor, boolean profileThis) {
 		ppFinder.configure(model);
 		Resource resource = model.eResource();
 
@@ -1412,6 +1425,32 @@ public class PPResourceLinker implements IPPDiagnostics {
 
 	}
 
+	/**
+	 * Method used for injection. Should normally not be called explicitly
+	 *
+	 * @param metrics
+	 */
+	@Inject
+	public void injectMetrics(IMetrics metrics) {
+		linkTimer = metrics.getTimer(LINK_TIMER);
+	}
+
+	/**
+	 * Link all resources in the model
+	 *
+	 * @param model
+	 * @param acceptor
+	 */
+	public void link(EObject model, IMessageAcceptor acceptor, boolean profileThis) {
+		long start = linkTimer.start();
+		try {
+			doLink(model, acceptor, profileThis);
+		}
+		finally {
+			linkTimer.stop(start);
+		}
+	}
+
 	private void purgeHostClassResult(List<IEObjectDescription> result) {
 		if(!result.isEmpty()) {
 			Iterator<IEObjectDescription> iter = result.iterator();
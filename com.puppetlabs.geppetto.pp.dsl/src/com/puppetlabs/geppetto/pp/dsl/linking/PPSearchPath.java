@@ -15,15 +15,16 @@ import static com.puppetlabs.geppetto.common.Strings.trimToNull;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.resource.IEObjectDescription;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * notes:
@@ -128,6 +129,12 @@ public class PPSearchPath {
 
 	private final List<IPath> searchPath;
 
+	/**
+	 * Search index per resource URI. The index only depends on the path of the resource so it is computed once and
+	 * then reused for all descriptions exported from the same resource.
+	 */
+	private final Map<URI, Integer> searchIndexCache = Maps.newConcurrentMap();
+
 	private PPSearchPath(List<IPath> p, URI rootDirectory) {
 		this.searchPath = p;
 		this.rootDirectory = rootDirectory;
@@ -163,11 +170,26 @@ public class PPSearchPath {
 		return true;
 	}
 
+	/**
+	 * Computes the path position of the resource that contains the described object. The result is cached per
+	 * resource URI.
+	 *
+	 * @param d
+	 *            The description of the object
+	 * @return search path index >= 0 or one of the negative values {@link #FOUND_IN_TPTP} or {@link #NOT_FOUND}
+	 * @see #searchIndexOf(URI)
+	 */
 	public int searchIndexOf(IEObjectDescription d) {
-		URI uri = EcoreUtil.getURI(d.getEObjectOrProxy());
-		if(uri.isFile())
-			uri = uri.deresolve(rootDirectory);
-		return searchIndexOf(uri);
+		URI resourceURI = d.getEObjectURI().trimFragment();
+		Integer idx = searchIndexCache.get(resourceURI);
+		if(idx == null) {
+			URI uri = resourceURI;
+			if(uri.isFile())
+				uri = uri.deresolve(rootDirectory);
+			idx = Integer.valueOf(searchIndexOf(uri));
+			searchIndexCache.put(resourceURI, idx);
+		}
+		return idx.intValue();
 	}
 
 	/**
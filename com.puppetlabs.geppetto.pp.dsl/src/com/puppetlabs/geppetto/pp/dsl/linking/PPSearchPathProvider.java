@@ -30,16 +30,25 @@ public class PPSearchPathProvider implements ISearchPathProvider, IConfigurableP
 
 	private String manifestDir;
 
+	private PPSearchPath searchPath;
+
 	@Override
-	public void configure(URI rootDirectory, String path, String environment, String manifestDir) {
+	public synchronized void configure(URI rootDirectory, String path, String environment, String manifestDir) {
 		this.rootDirectory = rootDirectory;
 		this.path = path;
 		this.environment = environment;
 		this.manifestDir = manifestDir;
+		this.searchPath = null;
 	}
 
+	/**
+	 * Returns the same search path for all resources until the provider is reconfigured. This allows the search
+	 * path to cache the computed search index of each resource.
+	 */
 	@Override
-	public PPSearchPath get(Resource r) {
-		return PPSearchPath.fromString(path, rootDirectory, environment, manifestDir);
+	public synchronized PPSearchPath get(Resource r) {
+		if(searchPath == null)
+			searchPath = PPSearchPath.fromString(path, rootDirectory, environment, manifestDir);
+		return searchPath;
 	}
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.target;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
+
+/**
+ * Generates the binary images of pptp files that are used by the {@link PptpModelCache}. The build runs this class
+ * on the pptp files in the output directory.
+ */
+public class PptpBinaryGenerator {
+	/**
+	 * Generates a binary image for each pptp file in the given directories.
+	 *
+	 * @param args
+	 *            The directories that contain the pptp files
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			System.err.println("Usage: PptpBinaryGenerator <directory> ...");
+			System.exit(1);
+		}
+
+		EPackage.Registry.INSTANCE.put(PPTPPackage.eNS_URI, PPTPPackage.eINSTANCE);
+		for(String arg : args) {
+			File[] pptpFiles = new File(arg).listFiles(new FileFilter() {
+				@Override
+				public boolean accept(File file) {
+					return file.isFile() && file.getName().endsWith(".pptp");
+				}
+			});
+			if(pptpFiles == null)
+				throw new IOException("Not a directory: " + arg);
+			for(File pptpFile : pptpFiles)
+				generate(pptpFile, new File(pptpFile.getPath() + PptpModelCache.BINARY_SUFFIX));
+		}
+	}
+
+	/**
+	 * Loads a pptp file and saves its model as an EMF binary resource.
+	 *
+	 * @param pptpFile
+	 *            The XMI file to read
+	 * @param binaryFile
+	 *            The file to write
+	 */
+	public static void generate(File pptpFile, File binaryFile) throws IOException {
+		URI uri = URI.createFileURI(pptpFile.getAbsolutePath());
+		Resource xmi = new XMIResourceImpl(uri);
+		xmi.load(null);
+
+		Resource binary = new BinaryResourceImpl(uri);
+		binary.getContents().addAll(xmi.getContents());
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(binaryFile));
+		try {
+			binary.save(output, null);
+		}
+		finally {
+			output.close();
+		}
+	}
+}
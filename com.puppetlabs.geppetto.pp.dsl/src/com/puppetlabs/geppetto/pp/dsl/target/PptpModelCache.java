@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.target;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * A process wide cache of the models of the pptp resources that are bundled with Geppetto. Each model is loaded once
+ * and is then kept unmodified. Resources obtain a copy of the model since an object can only be contained in one
+ * resource.
+ * <p>
+ * A model is loaded from the binary image that is generated by {@link PptpBinaryGenerator} at build time when such an
+ * image is found next to the XMI file. The XMI file is used otherwise.
+ * </p>
+ */
+public class PptpModelCache {
+	/**
+	 * The suffix that is appended to the name of a pptp file to form the name of its binary image
+	 */
+	public static final String BINARY_SUFFIX = ".bin";
+
+	private static final Map<URI, List<EObject>> models = new HashMap<URI, List<EObject>>();
+
+	/**
+	 * Returns a copy of the model of the pptp resource appointed by the given URI.
+	 *
+	 * @param uri
+	 *            The URI of the pptp resource
+	 * @return The root objects of the copy
+	 * @throws IOException
+	 *             If the model could not be loaded
+	 */
+	public static Collection<EObject> copyModel(URI uri) throws IOException {
+		List<EObject> model = getModel(uri);
+		synchronized(model) {
+			return EcoreUtil.copyAll(model);
+		}
+	}
+
+	/**
+	 * @param uri
+	 *            The URI of a pptp resource
+	 * @return The URI of the binary image of the resource
+	 */
+	public static URI getBinaryURI(URI uri) {
+		return uri.trimSegments(1).appendSegment(uri.lastSegment() + BINARY_SUFFIX);
+	}
+
+	private static List<EObject> getModel(URI uri) throws IOException {
+		synchronized(models) {
+			List<EObject> model = models.get(uri);
+			if(model == null) {
+				model = loadModel(uri);
+				models.put(uri, model);
+			}
+			return model;
+		}
+	}
+
+	private static List<EObject> loadModel(URI uri) throws IOException {
+		URIConverter converter = URIConverter.INSTANCE;
+		URI binaryURI = getBinaryURI(uri);
+		Resource resource;
+		if(converter.exists(binaryURI, null)) {
+			resource = new BinaryResourceImpl(uri);
+			InputStream input = converter.createInputStream(binaryURI);
+			try {
+				resource.load(input, null);
+			}
+			finally {
+				input.close();
+			}
+		}
+		else {
+			resource = new XMIResourceImpl(uri);
+			resource.load(null);
+		}
+		return Collections.unmodifiableList(new ArrayList<EObject>(resource.getContents()));
+	}
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.pp.dsl.target;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * A pptp resource. The content of the pptp resources that are bundled with Geppetto is copied from the
+ * {@link PptpModelCache} instead of being parsed each time the resource is loaded.
+ */
+public class PptpResource extends XMIResourceImpl {
+	public PptpResource(URI uri) {
+		super(uri);
+	}
+
+	@Override
+	protected void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		if(PptpResourceUtil.isBundled(getURI()))
+			getContents().addAll(PptpModelCache.copyModel(getURI()));
+		else
+			super.doLoad(inputStream, options);
+	}
+}
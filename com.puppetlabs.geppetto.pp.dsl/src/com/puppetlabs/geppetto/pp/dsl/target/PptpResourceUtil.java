@@ -11,6 +11,9 @@
 package com.puppetlabs.geppetto.pp.dsl.target;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.emf.common.util.URI;
 
@@ -18,6 +21,8 @@ import org.eclipse.emf.common.util.URI;
  * Utility class to obtain pptp resource URIs
  */
 public class PptpResourceUtil {
+	private static final Set<URI> bundledURIs = Collections.newSetFromMap(new ConcurrentHashMap<URI, Boolean>());
+
 	/**
 	 * Returns a URI suitable to load the pptp with a call to {@link #loadResource(URI)}.
 	 * Currently, returns {@link #getPuppet_2_7_19()}.
@@ -36,6 +41,17 @@ public class PptpResourceUtil {
 		URL resource = PptpResourceUtil.class.getResource(pathAsString);
 		if(resource == null)
 			throw new IllegalStateException("Couldn't find resource on classpath. Path was '" + pathAsString + "'");
-		return URI.createURI(resource.toString(), true);
+		URI uri = URI.createURI(resource.toString(), true);
+		bundledURIs.add(uri);
+		return uri;
+	}
+
+	/**
+	 * @param uri
+	 *            The URI to check
+	 * @return <code>true</code> if the URI appoints a pptp that is bundled with Geppetto and hence never changes
+	 */
+	public static boolean isBundled(URI uri) {
+		return bundledURIs.contains(uri);
 	}
 }
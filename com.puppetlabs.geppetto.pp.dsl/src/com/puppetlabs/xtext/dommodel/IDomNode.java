@@ -291,6 +291,14 @@ public interface IDomNode {
 	 */
 	public Set<Object> getStyleClassifiers();
 
+	/**
+	 * Returns a count that changes whenever a style or a style classifier of a node in the tree that this node belongs
+	 * to is changed, or when the tree is changed by adding a node to it. Nodes of the same tree return the same count.
+	 *
+	 * @return the count of style modifications of the tree of this node
+	 */
+	public long getStyleModificationCount();
+
 	/**
 	 * A DomNode may have an associated StyleSet; styles applicable only to this node that match with the
 	 * highest specificity.
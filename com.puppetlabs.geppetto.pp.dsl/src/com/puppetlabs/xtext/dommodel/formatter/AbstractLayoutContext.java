@@ -29,6 +29,8 @@ public abstract class AbstractLayoutContext implements ILayoutContext {
 
 	protected Set<IDomNode> consumed = Sets.newHashSet();
 
+	private MeasurementCache measurementCache;
+
 	@Override
 	public abstract DomCSS getCSS();
 
@@ -41,6 +43,16 @@ public abstract class AbstractLayoutContext implements ILayoutContext {
 	@Override
 	public abstract ILineSeparatorInformation getLineSeparatorInformation();
 
+	/**
+	 * This default implementation returns a cache that is created on first request
+	 */
+	@Override
+	public MeasurementCache getMeasurementCache() {
+		if(measurementCache == null)
+			measurementCache = new MeasurementCache();
+		return measurementCache;
+	}
+
 	/**
 	 * This default implementation returns 132
 	 */
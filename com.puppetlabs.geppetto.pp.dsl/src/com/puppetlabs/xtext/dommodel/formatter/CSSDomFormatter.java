@@ -54,6 +54,16 @@ public class CSSDomFormatter implements IDomModelFormatter {
 		this.layoutFeeder = layoutFeeder;
 	}
 
+	/**
+	 * Creates the cache of measurements used during one format run. A derived class may override this method to
+	 * configure how measurements are cached.
+	 *
+	 * @return a new measurement cache
+	 */
+	protected MeasurementCache createMeasurementCache() {
+		return new MeasurementCache();
+	}
+
 	@Override
 	public ReplaceRegion format(IDomNode dom, ITextRegion regionToFormat, IFormattingContext formattingContext) {
 		return format(dom, regionToFormat, formattingContext, ISerializationDiagnostic.EXCEPTION_THROWING_ACCEPTOR);
@@ -64,6 +74,7 @@ public class CSSDomFormatter implements IDomModelFormatter {
 			final Acceptor errors) {
 
 		final DomCSS css = cssProvider.get();
+		final MeasurementCache measurementCache = createMeasurementCache();
 		ILayoutContext layoutContext = new AbstractLayoutContext() {
 
 			@Override
@@ -86,6 +97,11 @@ public class CSSDomFormatter implements IDomModelFormatter {
 				return formattingContext.getLineSeparatorInformation();
 			}
 
+			@Override
+			public MeasurementCache getMeasurementCache() {
+				return measurementCache;
+			}
+
 			@Override
 			public int getPreferredMaxWidth() {
 				return formattingContext.getPreferredMaxWidth();
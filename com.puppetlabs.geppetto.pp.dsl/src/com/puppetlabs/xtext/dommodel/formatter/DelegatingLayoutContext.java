@@ -62,6 +62,11 @@ public class DelegatingLayoutContext extends AbstractLayoutContext {
 		return delegate.getLineSeparatorInformation();
 	}
 
+	@Override
+	public MeasurementCache getMeasurementCache() {
+		return delegate.getMeasurementCache();
+	}
+
 	@Override
 	public int getPreferredMaxWidth() {
 		return this.preferredMaxWidth;
@@ -55,6 +55,11 @@ public interface ILayoutManager extends ILayout {
 		@Override
 		public ILineSeparatorInformation getLineSeparatorInformation();
 
+		/**
+		 * @return the cache of measurements made while formatting
+		 */
+		public MeasurementCache getMeasurementCache();
+
 		/**
 		 * @return the text region to format (or null for "everything").
 		 */
@@ -10,16 +10,19 @@
  */
 package com.puppetlabs.xtext.dommodel.formatter;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.xtext.AbstractElement;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.puppetlabs.geppetto.common.stats.IntegerCluster;
 import com.puppetlabs.xtext.dommodel.IDomNode;
 import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.dommodel.formatter.MeasurementCache.Measurement;
 import com.puppetlabs.xtext.dommodel.formatter.css.Alignment;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleFactory;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
@@ -74,29 +77,40 @@ public class LayoutUtils {
 	@Inject
 	DomNodeLayoutFeeder feeder;
 
-	public boolean fitsOnSameLine(IDomNode node, AbstractElement startGrammarElement, AbstractElement untilGrammarElement, ITextFlow flow,
-			ILayoutContext context) {
-		DelegatingLayoutContext dlc = new DelegatingLayoutContext(context);
-		MeasuredTextFlow continuedFlow = new MeasuredTextFlow((MeasuredTextFlow) flow);
+	public boolean fitsOnSameLine(IDomNode node, final AbstractElement startGrammarElement, final AbstractElement untilGrammarElement,
+			ITextFlow flow, final ILayoutContext context) {
+		final MeasuredTextFlow continuedFlow = new MeasuredTextFlow((MeasuredTextFlow) flow);
 
-		// advance to first token to measure (there may be pending whitespace to newline output at the start of the node).
-		if(startGrammarElement != null)
-			for(IDomNode n : node.getChildren()) {
-				if(n.getGrammarElement() == startGrammarElement)
-					break;
-				feeder.sequence(n, continuedFlow, dlc);
+		// the measurement is made in a new context, and is therefore only determined by the node, the grammar elements,
+		// the state of the flow, and the width
+		Object key = Arrays.asList(
+			startGrammarElement, untilGrammarElement, continuedFlow.getMeasurementState(), context.getPreferredMaxWidth());
+		Measurement m = context.getMeasurementCache().measure(node, key, new Function<IDomNode, Measurement>() {
+			@Override
+			public Measurement apply(IDomNode node) {
+				DelegatingLayoutContext dlc = new DelegatingLayoutContext(context);
+
+				// advance to first token to measure (there may be pending whitespace to newline output at the start of the node).
+				if(startGrammarElement != null)
+					for(IDomNode n : node.getChildren()) {
+						if(n.getGrammarElement() == startGrammarElement)
+							break;
+						feeder.sequence(n, continuedFlow, dlc);
+					}
+				// take start measure
+				// if flow is empty the first output char will give it height 1
+				int h0 = Math.max(1, continuedFlow.getHeight());
+				for(IDomNode n : node.getChildren()) {
+					feeder.sequence(n, continuedFlow, dlc);
+					if(untilGrammarElement != null && n.getGrammarElement() == untilGrammarElement)
+						break;
+				}
+				int h1 = continuedFlow.getHeight();
+				return new Measurement(h1 - h0, continuedFlow.getWidth(), continuedFlow.getWidthOfLastLine(), null);
 			}
-		// take start measure
-		// if flow is empty the first output char will give it height 1
-		int h0 = Math.max(1, continuedFlow.getHeight());
-		for(IDomNode n : node.getChildren()) {
-			feeder.sequence(n, continuedFlow, dlc);
-			if(untilGrammarElement != null && n.getGrammarElement() == untilGrammarElement)
-				break;
-		}
-		int h1 = continuedFlow.getHeight();
+		});
 		// if output causes break (height increases), or at edge (the '{' will not fit).
-		return h1 <= h0 && continuedFlow.getWidthOfLastLine() < continuedFlow.getPreferredMaxWidth();
+		return m.getHeight() <= 0 && m.getWidthOfLastLine() < continuedFlow.getPreferredMaxWidth();
 	}
 
 	/**
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.xtext.dommodel.formatter;
+
+import com.google.common.base.Function;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.formatter.ILayoutManager.ILayoutContext;
+import com.puppetlabs.xtext.textflow.ITextFlow;
+
+/**
+ * <p>
+ * A cache of the measurements that layouts make by formatting a node to a throwaway text flow. One cache is used for
+ * the duration of a format run, see {@link ILayoutContext#getMeasurementCache()}.
+ * </p>
+ * <p>
+ * Formatting a node may change the styles and the style classifiers of nodes, and such changes may change the outcome
+ * of a measurement. A measurement is therefore only reused as long as no style or style classifier of a node has
+ * changed in the tree of the measured node since it was made, and a measurement that itself changed styles or style
+ * classifiers is not kept at all. Changes are tracked per tree, see {@link IDomNode#getStyleModificationCount()}.
+ * </p>
+ */
+public class MeasurementCache {
+	/**
+	 * The metrics of a text flow that a node was formatted to.
+	 */
+	public static class Measurement {
+		private final int height;
+
+		private final int width;
+
+		private final int widthOfLastLine;
+
+		private final IDomNode lastNode;
+
+		/**
+		 * @param height
+		 *            The number of lines that the measured node added to the flow
+		 * @param width
+		 *            The width of the flow
+		 * @param widthOfLastLine
+		 *            The width of the last line of the flow
+		 * @param lastNode
+		 *            The node returned from {@link DomNodeLayoutFeeder} when the measured node was sequenced
+		 */
+		public Measurement(int height, int width, int widthOfLastLine, IDomNode lastNode) {
+			this.height = height;
+			this.width = width;
+			this.widthOfLastLine = widthOfLastLine;
+			this.lastNode = lastNode;
+		}
+
+		/**
+		 * Creates a measurement of a flow that was empty before the measured node was formatted to it.
+		 *
+		 * @param flow
+		 * @param lastNode
+		 *            The node returned from {@link DomNodeLayoutFeeder} when the measured node was sequenced
+		 */
+		public Measurement(ITextFlow flow, IDomNode lastNode) {
+			this(flow.getHeight(), flow.getWidth(), flow.getWidthOfLastLine(), lastNode);
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public IDomNode getLastNode() {
+			return lastNode;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getWidthOfLastLine() {
+			return widthOfLastLine;
+		}
+	}
+
+	private static class Entry {
+		final Measurement measurement;
+
+		final long modificationCount;
+
+		Entry(Measurement measurement, long modificationCount) {
+			this.measurement = measurement;
+			this.modificationCount = modificationCount;
+		}
+	}
+
+	private final Table<IDomNode, Object, Entry> measurements = HashBasedTable.create();
+
+	/**
+	 * Returns the measurement of the given node that was made with an equal key, or if there is no such measurement,
+	 * obtains one from the given measurer.
+	 *
+	 * @param node
+	 *            The node to measure
+	 * @param key
+	 *            Identifies what is measured and the flow and indentation that the node is measured in. Measurements
+	 *            of the same node with equal keys must be interchangeable.
+	 * @param measurer
+	 *            Function that measures the node if needed
+	 * @return The measurement
+	 */
+	public Measurement measure(IDomNode node, Object key, Function<IDomNode, Measurement> measurer) {
+		long count = node.getStyleModificationCount();
+		Entry entry = measurements.get(node, key);
+		if(entry != null && entry.modificationCount == count)
+			return entry.measurement;
+
+		Measurement measurement = measurer.apply(node);
+		if(node.getStyleModificationCount() == count)
+			measurements.put(node, key, new Entry(measurement, count));
+		else if(entry != null)
+			measurements.remove(node, key);
+		return measurement;
+	}
+}
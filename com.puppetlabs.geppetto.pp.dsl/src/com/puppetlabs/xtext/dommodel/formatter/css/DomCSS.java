@@ -15,6 +15,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.puppetlabs.xtext.dommodel.IDomNode;
 
@@ -24,6 +26,16 @@ import com.puppetlabs.xtext.dommodel.IDomNode;
 public class DomCSS {
 	ArrayList<Rule> cssRules;
 
+	/**
+	 * Index of the rules. Created when needed and discarded when rules are added.
+	 */
+	private volatile RuleIndex ruleIndex;
+
+	/**
+	 * The style sets collected for nodes without an instance style, keyed by the rules that matched the node.
+	 */
+	private final ConcurrentMap<List<Rule>, StyleSet> styleSets = new ConcurrentHashMap<List<Rule>, StyleSet>();
+
 	/**
 	 * Comparator that compares specificity of two rules, and if specificity is equal, the rule with
 	 * lower index is considered to be 'before'.
@@ -87,6 +99,8 @@ public class DomCSS {
 			: rule;
 		rule.setDomCSS(this);
 		cssRules.add(rule);
+		ruleIndex = null;
+		styleSets.clear();
 	}
 
 	/**
@@ -142,33 +156,47 @@ public class DomCSS {
 	 * @return - a list of matching Rules for the given node
 	 */
 	public List<Rule> collectRules(IDomNode node) {
-		ArrayList<Rule> matches = new ArrayList<Rule>(5); // guessing on size
+		List<Rule> matches = getRuleIndex().match(node);
 
 		// if element has a style map, add a (matched) rule for it
-		if(node.getStyles() != null)
-			matches.add(new Rule(new Select.Instance(node), node.getStyles()).withRuleName("StyleInNode"));
-		for(Rule r : cssRules)
-			if(r.matches(node))
-				matches.add(r);
-		Collections.sort(matches, RULE_COMPARATOR);
+		if(node.getStyles() != null) {
+			Rule instanceRule = new Rule(new Select.Instance(node), node.getStyles()).withRuleName("StyleInNode");
+			int top = matches.size();
+			if(top == 0 || matches.get(top - 1).getSpecificity() < instanceRule.getSpecificity())
+				// The matches are already ordered and the instance rule is the most specific
+				matches.add(instanceRule);
+			else {
+				matches.add(0, instanceRule);
+				Collections.sort(matches, RULE_COMPARATOR);
+			}
+		}
 		return matches;
 	}
 
 	/**
 	 * Collects the style applicable to the given node. (The styles from all matching rules are reduced to a
-	 * resulting style set).
+	 * resulting style set). The style set of a node without instance styles is shared with all other nodes that
+	 * are matched by the same rules and must not be modified.
 	 *
 	 * @param context
 	 * @param element
 	 * @return a style set with all collected styles
 	 */
 	public StyleSet collectStyles(IDomNode element) {
-		StyleSetWithTracking result = new StyleSetWithTracking();
-		for(Rule r : collectRules(element)) {
-			result.setSource(r);
-			r.collectStyles(result);
+		StyleSet instanceStyles = element.getStyles();
+		if(instanceStyles != null && !instanceStyles.getStyles().isEmpty())
+			return createStyleSet(collectRules(element));
+
+		// An empty instance style does not contribute to the result
+
+		List<Rule> rules = getRuleIndex().match(element);
+		StyleSet result = styleSets.get(rules);
+		if(result == null) {
+			result = createStyleSet(rules);
+			StyleSet existing = styleSets.putIfAbsent(rules, result);
+			if(existing != null)
+				result = existing;
 		}
-		result.setSource(null); // just in case something else manipulates this set
 		return result;
 	}
 
@@ -184,6 +212,25 @@ public class DomCSS {
 			s.visit(node, collector);
 	}
 
+	private StyleSet createStyleSet(List<Rule> rules) {
+		StyleSetWithTracking result = new StyleSetWithTracking();
+		for(Rule r : rules) {
+			result.setSource(r);
+			r.collectStyles(result);
+		}
+		result.setSource(null); // just in case something else manipulates this set
+		return result;
+	}
+
+	private RuleIndex getRuleIndex() {
+		RuleIndex index = ruleIndex;
+		if(index == null) {
+			index = new RuleIndex(cssRules);
+			ruleIndex = index;
+		}
+		return index;
+	}
+
 	/**
 	 * Returns the style sheet index of the given rule.
 	 *
@@ -143,6 +143,15 @@ public final class Rule implements Cloneable {
 		return ruleName;
 	}
 
+	/**
+	 * Return the selector of the rule.
+	 *
+	 * @return the selector
+	 */
+	Select.Selector getSelector() {
+		return selector;
+	}
+
 	/**
 	 * Return the specificity of the rule's selector.
 	 *
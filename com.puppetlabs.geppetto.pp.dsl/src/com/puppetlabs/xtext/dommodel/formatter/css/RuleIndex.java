@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.xtext.dommodel.formatter.css;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.IDomNode.NodeType;
+
+/**
+ * An index of the rules of a {@link DomCSS}. The rules are kept in the order defined by {@link DomCSS#RULE_COMPARATOR}
+ * and each rule is placed in buckets keyed by a property that a node must have for the rule to match; a grammar
+ * element, a style classifier, or a node type. Only the rules in the buckets of the properties of a node and the rules
+ * that could not be placed in a bucket are matched against the node.
+ */
+class RuleIndex {
+	/**
+	 * A property that a node must have for a selector to match.
+	 */
+	private static class Discriminator {
+		private final Set<EObject> grammarElements;
+
+		private final Object styleClassifier;
+
+		private final Set<NodeType> nodeTypes;
+
+		/**
+		 * Lower is more discriminating
+		 */
+		private final int cost;
+
+		private Discriminator(Set<EObject> grammarElements, Object styleClassifier, Set<NodeType> nodeTypes, int cost) {
+			this.grammarElements = grammarElements;
+			this.styleClassifier = styleClassifier;
+			this.nodeTypes = nodeTypes;
+			this.cost = cost;
+		}
+	}
+
+	private static final int[] NO_RULES = new int[0];
+
+	/**
+	 * Returns the most discriminating property that a node must have for the given selector to match.
+	 *
+	 * @return The discriminator or <code>null</code> if the selector does not require a property that is indexed
+	 */
+	private static Discriminator getDiscriminator(Select.Selector selector) {
+		if(selector instanceof Select.GrammarSelector)
+			return new Discriminator(((Select.GrammarSelector) selector).getGrammarElements(), null, null, 0);
+
+		if(selector instanceof Select.NodeSelector) {
+			Select.NodeSelector nodeSelector = (Select.NodeSelector) selector;
+			Set<Object> styleClassifiers = nodeSelector.getStyleClassifiers();
+			if(!styleClassifiers.isEmpty())
+				return new Discriminator(null, styleClassifiers.iterator().next(), null, 1);
+			Set<NodeType> nodeTypes = nodeSelector.getNodeTypes();
+			return nodeTypes.size() < NodeType.numberOfValues
+				? new Discriminator(null, null, nodeTypes, 1 + nodeTypes.size())
+				: null;
+		}
+
+		if(selector instanceof Select.And) {
+			Discriminator best = null;
+			for(Select.Selector s : ((Select.And) selector).getSelectors()) {
+				Discriminator d = getDiscriminator(s);
+				if(d != null && (best == null || d.cost < best.cost))
+					best = d;
+			}
+			return best;
+		}
+		return null;
+	}
+
+	private static void setAll(BitSet bits, int[] positions) {
+		if(positions != null)
+			for(int position : positions)
+				bits.set(position);
+	}
+
+	private static <K> Map<K, int[]> toArrays(ListMultimap<K, Integer> buckets) {
+		Map<K, int[]> result = Maps.newHashMap();
+		for(Map.Entry<K, Collection<Integer>> entry : buckets.asMap().entrySet())
+			result.put(entry.getKey(), Ints.toArray(entry.getValue()));
+		return result;
+	}
+
+	private final Rule[] rules;
+
+	private final int[] unindexed;
+
+	private final Map<EObject, int[]> byGrammarElement;
+
+	private final Map<Object, int[]> byStyleClassifier;
+
+	private final int[][] byNodeType;
+
+	/**
+	 * @param cssRules
+	 *            The rules of the style sheet in the order they were added
+	 */
+	RuleIndex(List<Rule> cssRules) {
+		final int top = cssRules.size();
+		final int[] specificities = new int[top];
+		Integer[] order = new Integer[top];
+		for(int idx = 0; idx < top; ++idx) {
+			specificities[idx] = cssRules.get(idx).getSpecificity();
+			order[idx] = Integer.valueOf(idx);
+		}
+
+		// Same order as the RULE_COMPARATOR but without looking up the index of each rule
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int as = specificities[a.intValue()];
+				int bs = specificities[b.intValue()];
+				if(as != bs)
+					return as < bs
+						? -1
+						: 1;
+				return a.compareTo(b);
+			}
+		});
+
+		rules = new Rule[top];
+		List<Integer> unindexedList = new ArrayList<Integer>();
+		ListMultimap<EObject, Integer> grammarBuckets = ArrayListMultimap.create();
+		ListMultimap<Object, Integer> classifierBuckets = ArrayListMultimap.create();
+		ListMultimap<NodeType, Integer> nodeTypeBuckets = ArrayListMultimap.create();
+		for(int position = 0; position < top; ++position) {
+			Rule rule = cssRules.get(order[position].intValue());
+			rules[position] = rule;
+			Integer p = Integer.valueOf(position);
+			Discriminator d = getDiscriminator(rule.getSelector());
+			if(d == null)
+				unindexedList.add(p);
+			else if(d.grammarElements != null)
+				for(EObject grammarElement : d.grammarElements)
+					grammarBuckets.put(grammarElement, p);
+			else if(d.styleClassifier != null)
+				classifierBuckets.put(d.styleClassifier, p);
+			else
+				for(NodeType nodeType : d.nodeTypes)
+					nodeTypeBuckets.put(nodeType, p);
+		}
+
+		unindexed = Ints.toArray(unindexedList);
+		byGrammarElement = toArrays(grammarBuckets);
+		byStyleClassifier = toArrays(classifierBuckets);
+		NodeType[] nodeTypes = NodeType.values();
+		byNodeType = new int[nodeTypes.length][];
+		for(NodeType nodeType : nodeTypes) {
+			List<Integer> bucket = nodeTypeBuckets.get(nodeType);
+			byNodeType[nodeType.ordinal()] = bucket.isEmpty()
+				? NO_RULES
+				: Ints.toArray(bucket);
+		}
+	}
+
+	/**
+	 * Returns the rules that match the given node in order of specificity (lowest first). Rules with the same
+	 * specificity are ordered on their index in the style sheet.
+	 *
+	 * @param node
+	 *            The node to match
+	 * @return A new list of matching rules
+	 */
+	List<Rule> match(IDomNode node) {
+		BitSet candidates = new BitSet(rules.length);
+		setAll(candidates, unindexed);
+		NodeType nodeType = node.getNodeType();
+		if(nodeType != null)
+			setAll(candidates, byNodeType[nodeType.ordinal()]);
+		if(!byGrammarElement.isEmpty())
+			setAll(candidates, byGrammarElement.get(node.getGrammarElement()));
+		if(!byStyleClassifier.isEmpty()) {
+			Set<Object> styleClassifiers = node.getStyleClassifiers();
+			if(styleClassifiers != null)
+				for(Object styleClassifier : styleClassifiers)
+					setAll(candidates, byStyleClassifier.get(styleClassifier));
+		}
+
+		ArrayList<Rule> matches = new ArrayList<Rule>(5); // guessing on size
+		for(int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+			Rule rule = rules[position];
+			if(rule.matches(node))
+				matches.add(rule);
+		}
+		return matches;
+	}
+}
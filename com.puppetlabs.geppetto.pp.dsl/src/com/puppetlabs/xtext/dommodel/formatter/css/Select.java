@@ -59,6 +59,10 @@ public class Select {
 			return true;
 		}
 
+		Selector[] getSelectors() {
+			return selectors;
+		}
+
 		@Override
 		public int getSpecificity() {
 			if(specificity != 0)
@@ -229,6 +233,10 @@ public class Select {
 			return matchGrammar.equals(((GrammarSelector) selector).matchGrammar);
 		}
 
+		Set<EObject> getGrammarElements() {
+			return matchGrammar;
+		}
+
 		@Override
 		public int getSpecificity() {
 			return GRAMMARSPECIFICITY;
@@ -463,6 +471,10 @@ public class Select {
 			return true;
 		}
 
+		Set<NodeType> getNodeTypes() {
+			return matchingNodeTypes;
+		}
+
 		@Override
 		public int getSpecificity() {
 			if(specificity > 0)
@@ -492,6 +504,10 @@ public class Select {
 			return specificity;
 		}
 
+		Set<Object> getStyleClassifiers() {
+			return matchingClassifiers;
+		}
+
 		@Override
 		public boolean matches(IDomNode node) {
 			if(node == null)
@@ -13,6 +13,7 @@ package com.puppetlabs.xtext.dommodel.formatter.css;
 import java.util.Set;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.puppetlabs.xtext.dommodel.IDomNode;
@@ -52,6 +53,22 @@ public class StyleFactory implements IStyleFactory {
 			return function != null;
 		}
 
+		/**
+		 * Returns true if the given style is of the same class as this style and has the same fixed value and node
+		 * types. Styles that compute their value using a function are only the same as themselves.
+		 *
+		 * @param other
+		 * @return true if the given style can be used instead of this style
+		 */
+		boolean isSameAs(IStyle<?> other) {
+			if(other == this)
+				return true;
+			if(other == null || other.getClass() != getClass())
+				return false;
+			AbstractStyle<?> o = (AbstractStyle<?>) other;
+			return function == null && o.function == null && Objects.equal(value, o.value) && Objects.equal(types, o.types);
+		}
+
 		protected void setTypes(Set<NodeType> types) {
 			this.types = types;
 		}
@@ -92,10 +92,14 @@ public class StyleSet {
 		return x.cast(styleMap.get(x));
 	}
 
+	/**
+	 * @return An unmodifiable view of the styles in this set. Use {@link #put(IStyle)} or {@link #add(StyleSet)} to
+	 *         change the set
+	 */
 	public Collection<IStyle<?>> getStyles() {
 		if(styleMap == null)
 			return Collections.emptyList();
-		return styleMap.values();
+		return Collections.unmodifiableCollection(styleMap.values());
 	}
 
 	/**
@@ -152,6 +156,39 @@ public class StyleSet {
 			: style;
 	}
 
+	/**
+	 * Returns true if adding the given style set to this set would change the styles of this set. A style
+	 * does not change this set if this set already has the same style, or a style of the same class with the
+	 * same fixed value.
+	 *
+	 * @param map
+	 * @return true if this set would change
+	 */
+	public boolean isChangedBy(StyleSet map) {
+		if(map == null || map.styleMap == null)
+			return false;
+		for(IStyle<?> style : map.styleMap.values())
+			if(isChangedBy(style))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns true if putting the given style in this set would change the styles of this set.
+	 *
+	 * @see #isChangedBy(StyleSet)
+	 * @param style
+	 * @return true if this set would change
+	 */
+	public boolean isChangedBy(IStyle<?> style) {
+		IStyle<?> existing = styleMap == null
+			? null
+			: styleMap.get(style.getClass());
+		if(existing == style)
+			return false;
+		return !(existing instanceof StyleFactory.AbstractStyle && ((StyleFactory.AbstractStyle<?>) existing).isSameAs(style));
+	}
+
 	/**
 	 * Put a style in the map - overwrite any existing entry for this style.
 	 *
@@ -10,6 +10,7 @@
  */
 package com.puppetlabs.xtext.dommodel.impl;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -18,15 +19,46 @@ import java.util.Set;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.nodemodel.INode;
 
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.ForwardingSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.puppetlabs.xtext.dommodel.IDomNode;
+import com.puppetlabs.xtext.dommodel.formatter.css.IStyle;
 import com.puppetlabs.xtext.dommodel.formatter.css.StyleSet;
 
 /**
  * Abstract implementation of IDomNode
  */
 public abstract class AbstractDomNode implements IDomNode {
+	/**
+	 * A count of style modifications shared by the nodes of a tree. When a tree is added to another tree its counter
+	 * is forwarded to the counter of the other tree. The nodes of the added tree then find the shared counter through
+	 * the forwarding and do not need to walk to the root.
+	 */
+	private static class ModificationCounter {
+		private long count;
+
+		private ModificationCounter forward;
+
+		/**
+		 * @return The counter that this counter is forwarded to, or this counter if it is not forwarded
+		 */
+		ModificationCounter resolve() {
+			ModificationCounter counter = this;
+			while(counter.forward != null)
+				counter = counter.forward;
+
+			// forward the chain directly to the result so that the next lookup is short
+			for(ModificationCounter c = this; c != counter;) {
+				ModificationCounter next = c.forward;
+				c.forward = counter;
+				c = next;
+			}
+			return counter;
+		}
+	}
+
 	private static class ParentIterator implements Iterator<IDomNode> {
 		private IDomNode current;
 
@@ -52,9 +84,95 @@ public abstract class AbstractDomNode implements IDomNode {
 
 	}
 
+	/**
+	 * A set of style classifiers that reports changes to the tree of the node, see
+	 * {@link AbstractDomNode#getStyleModificationCount()}.
+	 */
+	private class StyleClassifierSet extends ForwardingSet<Object> {
+		private final Set<Object> delegate = Sets.newHashSet();
+
+		@Override
+		public boolean add(Object element) {
+			return changed(super.add(element));
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends Object> collection) {
+			return changed(super.addAll(collection));
+		}
+
+		private boolean changed(boolean changed) {
+			if(changed)
+				stylesChanged();
+			return changed;
+		}
+
+		@Override
+		public void clear() {
+			changed(!isEmpty());
+			super.clear();
+		}
+
+		@Override
+		protected Set<Object> delegate() {
+			return delegate;
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			final Iterator<Object> iterator = super.iterator();
+			return new ForwardingIterator<Object>() {
+				@Override
+				protected Iterator<Object> delegate() {
+					return iterator;
+				}
+
+				@Override
+				public void remove() {
+					super.remove();
+					changed(true);
+				}
+			};
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			return changed(super.remove(object));
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> collection) {
+			return changed(super.removeAll(collection));
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> collection) {
+			return changed(super.retainAll(collection));
+		}
+	}
+
+	/**
+	 * A style set that reports changes to the tree of the node, see {@link AbstractDomNode#getStyleModificationCount()}.
+	 */
+	private class NodeStyleSet extends StyleSet {
+		@Override
+		public StyleSet add(StyleSet map) {
+			if(isChangedBy(map))
+				stylesChanged();
+			return super.add(map);
+		}
+
+		@Override
+		public void put(IStyle<?> style) {
+			if(isChangedBy(style))
+				stylesChanged();
+			super.put(style);
+		}
+	}
+
 	protected IDomNode parentNode;
 
-	private Set<Object> styleClassifiers = Sets.newHashSet();
+	private Set<Object> styleClassifiers = new StyleClassifierSet();
 
 	// private Set<Object> nonModifiableStyleClassifiers = Collections.unmodifiableSet(styleClassifiers);
 
@@ -62,7 +180,12 @@ public abstract class AbstractDomNode implements IDomNode {
 
 	protected IDomNode.NodeType nodeType = null;
 
-	private StyleSet styles = new StyleSet();
+	private StyleSet styles = new NodeStyleSet();
+
+	/**
+	 * The number of style changes in the tree of this node, shared with the other nodes of the tree
+	 */
+	private ModificationCounter styleModificationCounter = new ModificationCounter();
 
 	@Override
 	public List<IDomNode> getChildren() {
@@ -124,6 +247,18 @@ public abstract class AbstractDomNode implements IDomNode {
 		return styleClassifiers;
 	}
 
+	private ModificationCounter getStyleModificationCounter() {
+		return styleModificationCounter = styleModificationCounter.resolve();
+	}
+
+	/**
+	 * This implementation returns the count shared by all nodes of the tree that this node belongs to.
+	 */
+	@Override
+	public long getStyleModificationCount() {
+		return getStyleModificationCounter().count;
+	}
+
 	@Override
 	public StyleSet getStyles() {
 		return styles;
@@ -164,8 +299,33 @@ public abstract class AbstractDomNode implements IDomNode {
 		this.nodeType = nodeType;
 	}
 
+	/**
+	 * Sets the parent of this node. The tree of this node then shares the count of style modifications of the tree
+	 * that it is added to and the count is advanced past the counts of both trees, see
+	 * {@link #getStyleModificationCount()}. A node that is moved out of a tree keeps sharing the count of that tree
+	 * which can only cause more changes to be reported.
+	 *
+	 * @param node
+	 *            The new parent
+	 */
 	public void setParent(IDomNode node) {
 		parentNode = node;
+		ModificationCounter counter = getStyleModificationCounter();
+		if(node instanceof AbstractDomNode) {
+			ModificationCounter parentCounter = ((AbstractDomNode) node).getStyleModificationCounter();
+			if(parentCounter != counter) {
+				parentCounter.count = Math.max(parentCounter.count, counter.count);
+				counter.forward = parentCounter;
+				counter = parentCounter;
+			}
+		}
+		++counter.count;
 	}
 
+	/**
+	 * Advances the count of style modifications of the tree that this node belongs to.
+	 */
+	protected void stylesChanged() {
+		++getStyleModificationCounter().count;
+	}
 }
@@ -10,6 +10,8 @@
  */
 package com.puppetlabs.xtext.textflow;
 
+import java.util.Arrays;
+
 import com.google.inject.Inject;
 import com.puppetlabs.xtext.dommodel.formatter.context.IFormattingContext;
 
@@ -190,6 +192,22 @@ public class MeasuredTextFlow extends AbstractTextFlow {
 		return lastUsedIndent / indentSize;
 	}
 
+	/**
+	 * Returns a snapshot of the state that determines how this flow measures content appended to it. Two flows of
+	 * the same class with equal snapshots produce the same measurements for the same appended content.
+	 *
+	 * @return a value that can be used as (part of) a key
+	 */
+	public Object getMeasurementState() {
+		String run = currentRun == null
+			? null
+			: currentRun.toString();
+		return Arrays.<Object> asList(
+			indent, lineSeparator, indentSize, indentChar, wrapIndentSize, preferredMaxWidth, lastWasBreak, lastWasSpace,
+			numberOfBreaks, currentLineWidth, maxWidth, lastLineWidth, lastUsedIndent, run, pendingIndent, indentFirstLine,
+			indentAtRunStart);
+	}
+
 	protected int getPendingIndent() {
 		return pendingIndent;
 	}
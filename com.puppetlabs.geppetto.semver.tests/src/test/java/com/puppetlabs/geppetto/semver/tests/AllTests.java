@@ -10,7 +10,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
 // @fmtOff
 	VersionTest.class,
-	VersionRangeTest.class
+	VersionRangeTest.class,
+	VersionIndexTest.class
 	// @fmtOn
 })
 @RunWith(Suite.class)
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.semver.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.puppetlabs.geppetto.semver.Version;
+import com.puppetlabs.geppetto.semver.VersionIndex;
+import com.puppetlabs.geppetto.semver.VersionRange;
+
+/**
+ * Unit tests for VersionIndex.
+ */
+public class VersionIndexTest {
+	private static final String[] VERSIONS = {
+		"3.2.0", "0.1.6", "1.0.0", "2.0.0-rc1", "2.0.0", "2.1.3", "1.2.0", "4.0.0", "1.0.0", "2.0.1" };
+
+	private static final String[] RANGES = {
+		">=0.0.0", "1.0.0", "1.x", "2.x", ">=1.0.0 <2.0.0", ">1.0.0 <=2.0.0", ">2.0.0-", "<2.0.0", "<=0.1.6", ">4.0.0", "~2.0.0",
+		"1.1.x", "2.0.0-rc1", "1.0.0 - 2.0.0" };
+
+	private static List<Version> versions() {
+		List<Version> versions = new ArrayList<Version>();
+		for(String v : VERSIONS)
+			versions.add(Version.create(v));
+		return versions;
+	}
+
+	@Test
+	public void findAll() {
+		VersionIndex<Version> index = VersionIndex.create(versions());
+		assertEquals(9, index.size());
+		for(String r : RANGES) {
+			VersionRange range = VersionRange.create(r);
+			List<Version> expected = new ArrayList<Version>();
+			for(Version v : index)
+				if(range.isIncluded(v))
+					expected.add(v);
+			assertEquals(r, expected, index.findAll(range));
+			assertEquals(r, range.findBestMatch(versions()), index.findBestMatch(range));
+		}
+		assertEquals(index.size(), index.findAll(null).size());
+	}
+
+	@Test
+	public void findBestMatch() {
+		Map<Version, String> releases = new HashMap<Version, String>();
+		for(Version v : versions())
+			releases.put(v, "release-" + v);
+		VersionIndex<String> index = new VersionIndex<String>(releases);
+		assertEquals("release-2.1.3", index.findBestMatch(VersionRange.create("2.x")));
+		assertEquals("release-4.0.0", index.findBestMatch(null));
+		assertEquals("release-4.0.0", index.getLatest());
+		assertEquals("release-1.2.0", index.get(Version.create("1.2.0")));
+		assertNull(index.get(Version.create("1.2.1")));
+		assertNull(index.findBestMatch(VersionRange.create(">4.0.0")));
+		assertEquals(
+			Version.create("2.1.3"), VersionRange.create("2.x").findBestMatch(VersionIndex.create(versions())));
+	}
+
+	@Test
+	public void sorted() {
+		List<Version> sorted = new ArrayList<Version>();
+		for(Version v : VersionIndex.create(versions()))
+			sorted.add(v);
+		for(int idx = 1; idx < sorted.size(); ++idx)
+			assertTrue(sorted.get(idx - 1).compareTo(sorted.get(idx)) < 0);
+		assertEquals(Arrays.asList(Version.create("2.0.0-rc1"), Version.create("2.0.0")), sorted.subList(3, 5));
+		assertTrue(VersionIndex.create(new ArrayList<Version>()).findAll(VersionRange.ALL_INCLUSIVE).isEmpty());
+	}
+}
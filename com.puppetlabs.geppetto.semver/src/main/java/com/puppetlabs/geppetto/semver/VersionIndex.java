@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.semver;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * An immutable collection of elements, such as the releases of a module, that is sorted on the {@link Version} of each
+ * element. The elements that are included in a {@link VersionRange} are found using a binary search on the bounds of
+ * the range so the cost of a lookup is logarithmic in the number of elements rather than linear.
+ * </p>
+ * The index iterates over its elements in ascending version order.
+ *
+ * @param <T>
+ *            The type of the indexed elements
+ */
+public class VersionIndex<T> implements Iterable<T> {
+	/**
+	 * Creates an index of the given versions where each version is its own element.
+	 *
+	 * @param versions
+	 *            The versions to index. Duplicates are ignored
+	 * @return The index
+	 */
+	public static VersionIndex<Version> create(Collection<Version> versions) {
+		Version[] sorted = versions.toArray(new Version[versions.size()]);
+		Arrays.sort(sorted);
+		int top = 0;
+		for(int idx = 0; idx < sorted.length; ++idx)
+			if(top == 0 || !sorted[top - 1].equals(sorted[idx]))
+				sorted[top++] = sorted[idx];
+		if(top < sorted.length)
+			sorted = Arrays.copyOf(sorted, top);
+		return new VersionIndex<Version>(sorted, sorted);
+	}
+
+	private final Version[] versions;
+
+	private final Object[] elements;
+
+	/**
+	 * Creates an index of the values of the given map.
+	 *
+	 * @param entries
+	 *            A map from the version of each element to the element.
+	 */
+	public VersionIndex(Map<Version, ? extends T> entries) {
+		int top = entries.size();
+		versions = entries.keySet().toArray(new Version[top]);
+		Arrays.sort(versions);
+		elements = new Object[top];
+		for(int idx = 0; idx < top; ++idx)
+			elements[idx] = entries.get(versions[idx]);
+	}
+
+	private VersionIndex(Version[] versions, Object[] elements) {
+		this.versions = versions;
+		this.elements = elements;
+	}
+
+	/**
+	 * Returns all elements that are included in the given range.
+	 *
+	 * @param range
+	 *            The range to match or <code>null</code> to match all elements
+	 * @return The matching elements in ascending version order. Possibly empty but never <code>null</code>
+	 */
+	public List<T> findAll(VersionRange range) {
+		if(range == null)
+			return subList(0, elements.length);
+		int lower = lowerBound(range);
+		int upper = upperBound(range);
+		return lower < upper
+			? subList(lower, upper)
+			: Collections.<T> emptyList();
+	}
+
+	/**
+	 * Returns the element with the highest version that is included in the given range.
+	 *
+	 * @param range
+	 *            The range to match or <code>null</code> to match all elements
+	 * @return The best match or <code>null</code> if no element is included in the range
+	 */
+	public T findBestMatch(VersionRange range) {
+		int upper = range == null
+			? elements.length
+			: upperBound(range);
+		if(upper == 0 || range != null && upper <= lowerBound(range))
+			return null;
+		return get(upper - 1);
+	}
+
+	/**
+	 * @param version
+	 *            The version to find
+	 * @return The element with the given version or <code>null</code> if no such element exists
+	 */
+	public T get(Version version) {
+		int idx = Arrays.binarySearch(versions, version);
+		return idx < 0
+			? null
+			: get(idx);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T get(int idx) {
+		return (T) elements[idx];
+	}
+
+	/**
+	 * @return The element with the highest version or <code>null</code> if the index is empty
+	 */
+	public T getLatest() {
+		return elements.length == 0
+			? null
+			: get(elements.length - 1);
+	}
+
+	/**
+	 * @return <code>true</code> if the index has no elements
+	 */
+	public boolean isEmpty() {
+		return elements.length == 0;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return subList(0, elements.length).iterator();
+	}
+
+	/**
+	 * Returns the index of the first version that is included by the lower bound of the range
+	 */
+	private int lowerBound(VersionRange range) {
+		int idx = Arrays.binarySearch(versions, range.getMinVersion());
+		if(idx < 0)
+			return -(idx + 1);
+		return range.isMinIncluded()
+			? idx
+			: idx + 1;
+	}
+
+	/**
+	 * @return The number of elements in the index
+	 */
+	public int size() {
+		return elements.length;
+	}
+
+	private List<T> subList(final int from, final int to) {
+		return new AbstractList<T>() {
+			@Override
+			public T get(int idx) {
+				if(idx < 0 || idx >= size())
+					throw new IndexOutOfBoundsException(Integer.toString(idx));
+				return VersionIndex.this.get(from + idx);
+			}
+
+			@Override
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(versions);
+	}
+
+	/**
+	 * Returns the index of the first version that is beyond the upper bound of the range
+	 */
+	private int upperBound(VersionRange range) {
+		int idx = Arrays.binarySearch(versions, range.getMaxVersion());
+		if(idx < 0)
+			return -(idx + 1);
+		return range.isMaxIncluded()
+			? idx + 1
+			: idx;
+	}
+}
@@ -422,13 +422,18 @@ public class VersionRange implements Serializable {
 
 	/**
 	 * Scans the provided collection of candidates and returns the highest version
-	 * that is included in this range.
+	 * that is included in this range. A {@link VersionIndex} is searched instead of
+	 * scanned.
 	 *
 	 * @param candidateVersions
 	 *            The collection of candidate versions
 	 * @return The best match or <tt>null</tt> if no match was found
 	 */
+	@SuppressWarnings("unchecked")
 	public Version findBestMatch(Iterable<Version> candidateVersions) {
+		if(candidateVersions instanceof VersionIndex)
+			return ((VersionIndex<Version>) candidateVersions).findBestMatch(this);
+
 		Version best = null;
 		for(Version candidate : candidateVersions)
 			if((best == null || candidate.compareTo(best) > 0) && isIncluded(candidate))
@@ -21,7 +21,13 @@ import org.junit.runners.Suite.SuiteClasses;
 	// TestStackhammerDemo.class, requires stackhammer-demo repo to be present
 	TestParsing.class,
 	TestRakefileScanning.class,
-	TestForgeModules.class
+	TestForgeModules.class,
+	TestParallelValidation.class,
+	TestContainerPathIndex.class,
+	TestValidationCache.class,
+	TestValidationSession.class,
+	TestBuildResultCodec.class,
+	TestAllModulesState.class
 	// @fmtOn
 })
 public class AllValidationTests {
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
+import org.junit.Test;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ClassDescription;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
+
+/**
+ * Asserts the precedence and order of the class and parameter queries of the {@link AllModulesState}, and that the
+ * queries given visible exports of the state are answered by its shared index.
+ */
+public class TestAllModulesState {
+	private static class TestExport implements Export {
+		private static final long serialVersionUID = 1L;
+
+		private final EClass eClass;
+
+		private final File file;
+
+		private final String name;
+
+		private final String parentName;
+
+		TestExport(EClass eClass, File file, String name, String parentName) {
+			this.eClass = eClass;
+			this.file = file;
+			this.name = name;
+			this.parentName = parentName;
+		}
+
+		@Override
+		public String getDefaultValueText() {
+			return null;
+		}
+
+		@Override
+		public EClass getEClass() {
+			return eClass;
+		}
+
+		@Override
+		public File getFile() {
+			return file;
+		}
+
+		@Override
+		public String getLastNameSegment() {
+			int idx = name.lastIndexOf("::");
+			return idx < 0
+				? name
+				: name.substring(idx + 2);
+		}
+
+		@Override
+		public int getLength() {
+			return 0;
+		}
+
+		@Override
+		public int getLine() {
+			return -1;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getNameWithoutLastSegment() {
+			int idx = name.lastIndexOf("::");
+			return idx < 0
+				? ""
+				: name.substring(0, idx);
+		}
+
+		@Override
+		public String getParentName() {
+			return parentName;
+		}
+
+		@Override
+		public int getStart() {
+			return -1;
+		}
+	}
+
+	private static final File ROOT = new File("/env");
+
+	private static final File MODULE_A = new File(ROOT, "modules/a");
+
+	private static final File MODULE_B = new File(ROOT, "modules/b");
+
+	private static final File NODE = new File(ROOT, "roles/node");
+
+	private static Export hostClass(File module, String name, String parentName) {
+		return new TestExport(PPPackage.Literals.HOST_CLASS_DEFINITION, module, name, parentName);
+	}
+
+	private static Export parameter(File module, String name) {
+		return new TestExport(PPPackage.Literals.DEFINITION_ARGUMENT, module, name, null);
+	}
+
+	private static List<String> names(Iterable<Export> exports) {
+		List<String> result = Lists.newArrayList();
+		for(Export e : exports)
+			result.add(e.getName());
+		return result;
+	}
+
+	@Test
+	public void duplicateClassFirstWins() {
+		AllModulesState state = new AllModulesState();
+		state.setRoot(ROOT);
+		Export first = hostClass(MODULE_A, "dup", null);
+		Export second = hostClass(MODULE_A, "dup", null);
+		state.addExports(MODULE_A, Lists.newArrayList(first, parameter(MODULE_A, "dup::x"), second));
+
+		Iterable<Export> visibleExports = state.getAllExported();
+		assertSame("The first class should be found", first, state.findExportedClass("dup", visibleExports));
+		List<ClassDescription> classes = state.getClassDescriptions(visibleExports);
+		assertEquals("Duplicates should be described once", 1, classes.size());
+		assertSame("The first class should be described", first, classes.get(0).getExportedClass());
+
+		// the same precedence applies when the exports are not obtained from the state
+		List<Export> copy = Lists.newArrayList(visibleExports);
+		assertSame("The first class should be found", first, state.findExportedClass("dup", copy));
+		assertSame("The first class should be described", first, state.getClassDescriptions(copy).get(0).getExportedClass());
+	}
+
+	@Test
+	public void classesInOrderOfFirstAppearance() {
+		AllModulesState state = new AllModulesState();
+		state.setRoot(ROOT);
+		state.addExports(MODULE_A, Lists.newArrayList(
+			hostClass(MODULE_A, "c", null), hostClass(MODULE_A, "a", null), hostClass(MODULE_A, "b", null),
+			hostClass(MODULE_A, "a", null)));
+
+		List<String> names = Lists.newArrayList();
+		for(ClassDescription d : state.getClassDescriptions(state.getVisibleExports(MODULE_A)))
+			names.add(d.getExportedClass().getName());
+		assertEquals(Lists.newArrayList("c", "a", "b"), names);
+	}
+
+	@Test
+	public void ownParametersHideInherited() {
+		AllModulesState state = new AllModulesState();
+		state.setRoot(ROOT);
+		state.addExports(MODULE_A, Lists.newArrayList(
+			hostClass(MODULE_A, "base", null), parameter(MODULE_A, "base::p"), parameter(MODULE_A, "base::q")));
+		state.addExports(MODULE_B, Lists.newArrayList(hostClass(MODULE_B, "derived", "base"), parameter(MODULE_B, "derived::p")));
+
+		Iterable<Export> visibleExports = state.getVisibleExports(MODULE_B);
+		Export derived = state.findExportedClass("derived", visibleExports);
+		assertEquals(
+			"Own parameters should come first and hide inherited ones", Lists.newArrayList("derived::p", "base::q"),
+			names(state.getParameters(derived, visibleExports)));
+		assertEquals(Lists.newArrayList("p", "q"), Lists.newArrayList(state.getParameterNames(derived, visibleExports)));
+	}
+
+	@Test
+	public void restrictedVisibility() {
+		AllModulesState state = new AllModulesState();
+		state.setRoot(ROOT);
+		state.addExports(MODULE_A, Collections.singletonList(hostClass(MODULE_A, "a", null)));
+		state.addExports(MODULE_B, Collections.singletonList(hostClass(MODULE_B, "b", null)));
+		Multimap<String, String> restricted = ArrayListMultimap.create();
+		restricted.put(NODE.getPath(), MODULE_A.getPath());
+		state.setRestricted(restricted);
+
+		Iterable<Export> visibleExports = state.getVisibleExports(NODE);
+		assertEquals(Lists.newArrayList("a"), names(visibleExports));
+		assertNull("Class outside the visible containers", state.findExportedClass("b", visibleExports));
+		assertEquals(1, state.getClassDescriptions(visibleExports).size());
+		assertEquals(2, state.getClassDescriptions(state.getVisibleExports(MODULE_A)).size());
+	}
+
+	@Test
+	public void visibleExportsUseSharedIndex() {
+		AllModulesState state = new AllModulesState();
+		state.setRoot(ROOT);
+		state.addExports(MODULE_A, Collections.singletonList(hostClass(MODULE_A, "a", null)));
+
+		Iterable<Export> visibleExports = state.getVisibleExports(MODULE_A);
+		assertSame(
+			"Descriptions should come from the shared index", state.getExportIndex(MODULE_A).getClassDescriptions().get(0),
+			state.getClassDescriptions(visibleExports).get(0));
+
+		// the view is live and the index is invalidated when exports are added
+		state.addExport(MODULE_B, hostClass(MODULE_B, "b", null));
+		assertEquals(2, state.getClassDescriptions(visibleExports).size());
+		assertEquals(2, state.getExportIndex(MODULE_A).getClasses().size());
+	}
+}
@@ -0,0 +1,262 @@
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.junit.Test;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary.Kind;
+import com.google.inject.Inject;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapter;
+import com.puppetlabs.geppetto.validation.FileType;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationService;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ExportIndex;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ImportedName;
+import com.puppetlabs.geppetto.validation.runner.BuildResult;
+import com.puppetlabs.geppetto.validation.runner.BuildResultCodec;
+import com.puppetlabs.geppetto.validation.runner.MetadataInfo;
+import com.puppetlabs.geppetto.validation.runner.RakefileInfo;
+import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Rakefile;
+import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Raketask;
+
+public class TestBuildResultCodec extends AbstractValidationTest {
+	private static void assertMalformed(int... bytes) {
+		byte[] stream = new byte[bytes.length];
+		for(int idx = 0; idx < bytes.length; ++idx)
+			stream[idx] = (byte) bytes[idx];
+		try {
+			BuildResultCodec.read(new ByteArrayInputStream(stream));
+			fail("A malformed stream should not be accepted: " + Arrays.toString(bytes));
+		}
+		catch(IOException e) {
+			// Expected
+		}
+	}
+
+	private static void assertSameExportMap(Map<File, Multimap<File, Export>> expected, Map<File, Multimap<File, Export>> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for(Map.Entry<File, Multimap<File, Export>> entry : expected.entrySet()) {
+			Multimap<File, Export> actualExporters = actual.get(entry.getKey());
+			assertEquals(entry.getValue().keySet(), actualExporters.keySet());
+			for(File exporter : entry.getValue().keySet()) {
+				Iterator<Export> actualExports = actualExporters.get(exporter).iterator();
+				for(Export export : entry.getValue().get(exporter))
+					assertSameExport(export, actualExports.next());
+				assertFalse("Should have the same number of exports", actualExports.hasNext());
+			}
+		}
+	}
+
+	private static void assertSameExport(Export expected, Export actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getEClass(), actual.getEClass());
+		assertEquals(expected.getFile(), actual.getFile());
+		assertEquals(expected.getLastNameSegment(), actual.getLastNameSegment());
+		assertEquals(expected.getNameWithoutLastSegment(), actual.getNameWithoutLastSegment());
+		assertEquals(expected.getParentName(), actual.getParentName());
+		assertEquals(expected.getDefaultValueText(), actual.getDefaultValueText());
+		assertEquals(expected.getStart(), actual.getStart());
+		assertEquals(expected.getLine(), actual.getLine());
+		assertEquals(expected.getLength(), actual.getLength());
+	}
+
+	private static void assertSameMetricsSummary(MetricsSummary expected, MetricsSummary actual) {
+		assertEquals(expected.getEntries().size(), actual.getEntries().size());
+		for(MetricsSummary.Entry entry : expected.getEntries()) {
+			MetricsSummary.Entry actualEntry = actual.getEntry(entry.getName());
+			assertNotNull("Should have decoded metric " + entry.getName(), actualEntry);
+			assertEquals(entry.getKind(), actualEntry.getKind());
+			assertEquals(entry.getCount(), actualEntry.getCount());
+			assertEquals(entry.getTotal(), actualEntry.getTotal());
+			assertEquals(entry.getMin(), actualEntry.getMin());
+			assertEquals(entry.getMax(), actualEntry.getMax());
+			assertEquals(entry.getP50(), actualEntry.getP50());
+			assertEquals(entry.getP90(), actualEntry.getP90());
+			assertEquals(entry.getP99(), actualEntry.getP99());
+		}
+	}
+
+	private static void assertSameRakefileInfo(RakefileInfo expected, RakefileInfo actual) {
+		assertEquals(expected.getRakefiles().size(), actual.getRakefiles().size());
+		Iterator<Rakefile> actualRakefiles = actual.getRakefiles().iterator();
+		for(Rakefile rakefile : expected.getRakefiles()) {
+			Rakefile actualRakefile = actualRakefiles.next();
+			assertEquals(rakefile.getPath(), actualRakefile.getPath());
+			assertEquals(rakefile.getTasks().size(), actualRakefile.getTasks().size());
+			Iterator<Raketask> actualTasks = actualRakefile.getTasks().iterator();
+			for(Raketask task : rakefile.getTasks()) {
+				Raketask actualTask = actualTasks.next();
+				assertEquals(task.getName(), actualTask.getName());
+				assertEquals(task.getDescription(), actualTask.getDescription());
+			}
+		}
+	}
+
+	private static void assertSameUnresolved(Multimap<File, ImportedName> expected, Multimap<File, ImportedName> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for(File importer : expected.keySet()) {
+			Iterator<ImportedName> actualNames = actual.get(importer).iterator();
+			for(ImportedName name : expected.get(importer)) {
+				ImportedName actualName = actualNames.next();
+				assertEquals(name.getFile(), actualName.getFile());
+				assertEquals(name.getName(), actualName.getName());
+				assertEquals(name.getLine(), actualName.getLine());
+				assertEquals(name.getStart(), actualName.getStart());
+				assertEquals(name.getLength(), actualName.getLength());
+			}
+			assertFalse("Should have the same number of unresolved names", actualNames.hasNext());
+		}
+	}
+
+	private static BuildResult roundTrip(BuildResult buildResult) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BuildResultCodec.write(buildResult, out);
+		return BuildResultCodec.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	@Inject
+	private ValidationService vs;
+
+	@Test
+	public void rejectMalformedExportReference() throws Exception {
+		// Header, no ruby, a state with a null root and one module whose only export refers to an export never written
+		assertMalformed('G', 'B', 'R', 0, BuildResultCodec.VERSION, 0, 1, 0, 1, 1, 1, 'm', 1, 5);
+	}
+
+	@Test
+	public void rejectMalformedStringLength() throws Exception {
+		// Header, no ruby and a state with a root string that claims Integer.MAX_VALUE bytes but has only one
+		assertMalformed('G', 'B', 'R', 0, BuildResultCodec.VERSION, 0, 1, 1, 0xff, 0xff, 0xff, 0xff, 0x07, 'x');
+	}
+
+	@Test
+	public void rejectMalformedStringReference() throws Exception {
+		// Header, no ruby and a state with a root that refers to a string never written
+		assertMalformed('G', 'B', 'R', 0, BuildResultCodec.VERSION, 0, 1, 7);
+	}
+
+	@Test
+	public void rejectUnknownStream() throws Exception {
+		try {
+			BuildResultCodec.read(new ByteArrayInputStream(new byte[] { 'n', 'o', 'p', 'e', 0 }));
+			fail("A stream without the magic number should not be accepted");
+		}
+		catch(IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		File root = TestDataProvider.getTestFile(new Path("testData/testRoles3/"));
+		Diagnostic chain = new Diagnostic();
+		ValidationOptions options = getValidationOptions();
+		options.setCheckLayout(true);
+		options.setCheckModuleSemantics(true);
+		options.setCheckReferences(true);
+		options.setFileType(FileType.PUPPET_ROOT);
+		options.setSearchPath("modules/*:roles/production/*");
+		BuildResult buildResult = vs.validate(chain, options, root, SubMonitor.convert(null));
+		assertEquals("There should be no errors", 0, countErrors(chain));
+
+		// Make sure that each part of the build result has content, regardless of what the validation produced
+		AllModulesState state = buildResult.getAllModuleReferences();
+		List<File> modules = Lists.newArrayList(state.getExportsPerModule().keySet());
+		assertTrue("Should have at least two modules with exports", modules.size() >= 2);
+		File importer = modules.get(0);
+		File exporter = modules.get(1);
+		Export export = state.getExportsPerModule().get(exporter).iterator().next();
+		state.addImport(importer, exporter, export);
+		state.addAmbiguity(importer, exporter, export);
+		PPImportedNamesAdapter importedNames = new PPImportedNamesAdapter();
+		importedNames.addUnresolved(QualifiedName.create("nosuch", "thing"), 3, 42, 11);
+		state.addUnresolved(
+			importer, URI.createFileURI(new File(importer, "manifests/init.pp").getAbsolutePath()), importedNames.getUnresolved(),
+			Functions.toStringFunction());
+
+		RakefileInfo rakefileInfo = new RakefileInfo();
+		Rakefile rakefile = new Rakefile(Path.fromPortableString("modules/a/Rakefile"));
+		rakefile.addTask(new Raketask("spec", "Run the specs"));
+		rakefile.addTask(new Raketask("lint"));
+		rakefileInfo.addRakefile(rakefile);
+		buildResult.setRakefileInfo(rakefileInfo);
+		buildResult.setMetricsSummary(new MetricsSummary(Arrays.asList(
+			new MetricsSummary.Entry("resources", Kind.COUNTER, 17, 17, 0, 0, 0, 0, 0), new MetricsSummary.Entry(
+				"validation", Kind.TIMER, 3, 6000, 1000, 3000, 2047, 3000, 3000))));
+
+		BuildResult decoded = roundTrip(buildResult);
+		assertEquals(buildResult.isRubyServicesAvailable(), decoded.isRubyServicesAvailable());
+
+		AllModulesState expected = buildResult.getAllModuleReferences();
+		AllModulesState actual = decoded.getAllModuleReferences();
+		assertEquals(expected.getRoot(), actual.getRoot());
+		assertEquals(expected.getRestricted(), actual.getRestricted());
+		for(Map.Entry<File, ? extends Iterable<Export>> entry : expected.getExportsPerModule().asMap().entrySet()) {
+			Iterator<Export> actualExports = actual.getExportsPerModule().get(entry.getKey()).iterator();
+			for(Export export : entry.getValue())
+				assertSameExport(export, actualExports.next());
+			assertFalse("Should have the same number of exports", actualExports.hasNext());
+		}
+
+		assertSameExportMap(expected.getImportMap(), actual.getImportMap());
+		assertSameExportMap(expected.getAmbiguityMap(), actual.getAmbiguityMap());
+		assertFalse("Should have unresolved names", expected.getUnresolved().isEmpty());
+		assertSameUnresolved(expected.getUnresolved(), actual.getUnresolved());
+		assertSameRakefileInfo(buildResult.getRakefileInfo(), decoded.getRakefileInfo());
+		assertSameMetricsSummary(buildResult.getMetricsSummary(), decoded.getMetricsSummary());
+
+		File x = new File("roles/production/x");
+		assertEquals(expected.isVisibilityRestricted(x), actual.isVisibilityRestricted(x));
+		ExportIndex index = actual.getExportIndex(x);
+		assertNotNull("Should have found decoded 'aclass'", index.findClass("aclass"));
+		assertNull("Should not have found decoded 'cclass'", index.findClass("cclass"));
+		assertEquals(
+			"Should have the same classes", expected.getExportIndex(x).getClassDescriptions().size(),
+			index.getClassDescriptions().size());
+		assertEquals(
+			"Should have found aclass($aparam) with default value '10'", "10",
+			index.getParameterMap(index.findClass("aclass")).get("aparam").getDefaultValueText());
+
+		Multimap<ModuleName, MetadataInfo> expectedData = buildResult.getModuleData();
+		Multimap<ModuleName, MetadataInfo> actualData = decoded.getModuleData();
+		assertEquals(expectedData.keySet(), actualData.keySet());
+		for(ModuleName name : expectedData.keySet()) {
+			Iterator<MetadataInfo> actualInfos = actualData.get(name).iterator();
+			for(MetadataInfo info : expectedData.get(name)) {
+				MetadataInfo actualInfo = actualInfos.next();
+				assertEquals(info.getMetadata().getName(), actualInfo.getMetadata().getName());
+				assertEquals(info.getMetadata().getVersion(), actualInfo.getMetadata().getVersion());
+				assertEquals(info.getFile(), actualInfo.getFile());
+				assertEquals(info.isRole(), actualInfo.isRole());
+				assertEquals(info.getResolvedDependencies().size(), actualInfo.getResolvedDependencies().size());
+				assertEquals(info.getUnresolvedDependencies().size(), actualInfo.getUnresolvedDependencies().size());
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.puppetlabs.geppetto.validation.runner.ContainerPathIndex;
+
+/**
+ * Asserts that the container path index gives the same result as a linear search for a prefix.
+ */
+public class TestContainerPathIndex {
+	private static String linearSearch(List<IPath> modulePaths, String path) {
+		IPath p = new Path(path);
+		for(IPath prefix : modulePaths)
+			if(prefix.isPrefixOf(p))
+				return prefix.toString();
+		return null;
+	}
+
+	@Test
+	public void sameAsLinearSearch() {
+		String[] modules = { "/env/modules/apache", "/env/modules/apache2", "/env/modules/nested", "/env/modules/nested/inner",
+				"/env/other/modules/apache", "/env/modules/inner/outer" };
+		ContainerPathIndex index = new ContainerPathIndex();
+		List<IPath> modulePaths = Lists.newArrayList();
+		for(String module : modules) {
+			index.add(module);
+			modulePaths.add(new Path(module));
+		}
+		assertEquals(modules.length, index.size());
+
+		String[] files = { "/env/modules/apache/manifests/init.pp", "/env/modules/apache2/manifests/init.pp",
+				"/env/modules/apache", "/env/modules/apach/manifests/init.pp", "/env/modules/nested/inner/manifests/init.pp",
+				"/env/other/modules/apache/lib/puppet/type/foo.rb", "/env/modules/inner/manifests/init.pp", "/env/site.pp",
+				"/env/modules//apache/manifests/init.pp", "/" };
+		for(String file : files)
+			assertEquals(file, linearSearch(modulePaths, file), index.getContainer(file));
+	}
+
+	@Test
+	public void contains() {
+		ContainerPathIndex index = new ContainerPathIndex();
+		index.add("/env/modules/apache");
+		assertTrue(index.contains("/env/modules/apache"));
+		assertTrue(index.contains("/env/modules/apache/"));
+		assertFalse(index.contains("/env/modules"));
+		assertFalse(index.contains("/env/modules/apache/manifests"));
+		assertNull(index.getContainer("/env/modules"));
+	}
+}
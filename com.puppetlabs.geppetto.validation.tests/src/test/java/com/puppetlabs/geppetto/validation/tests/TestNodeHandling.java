@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -25,6 +26,7 @@ import com.puppetlabs.geppetto.validation.ValidationService;
 import com.puppetlabs.geppetto.validation.runner.AllModulesState;
 import com.puppetlabs.geppetto.validation.runner.AllModulesState.ClassDescription;
 import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ExportIndex;
 import com.puppetlabs.geppetto.validation.runner.BuildResult;
 
 public class TestNodeHandling extends AbstractValidationTest {
@@ -83,6 +85,13 @@ public class TestNodeHandling extends AbstractValidationTest {
 		assertEquals("Should have found aclass($aparam) with default value '10'", "10", //
 			classMap.get("aclass").getExportedParameters().get("aparam").getDefaultValueText());
 
+		// The index of the module should answer the same queries
+		ExportIndex index = exports.getExportIndex(new File("roles/production/x"));
+		assertSame("The index should be reused", index, exports.getExportIndex(new File("roles/production/x")));
+		assertNotNull("Should have found indexed 'aclass'", index.findClass("aclass"));
+		assertNull("Should not have found indexed 'cclass'", index.findClass("cclass"));
+		assertEquals("Should have the same classes", classes.size(), index.getClassDescriptions().size());
+		assertEquals("should have one parameter", 1, index.getParameterMap(index.findClass("aclass")).size());
 	}
 
 	/**
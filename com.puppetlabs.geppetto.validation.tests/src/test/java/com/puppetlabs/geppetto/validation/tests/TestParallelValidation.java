@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubMonitor;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.validation.FileType;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationService;
+
+/**
+ * Asserts that parallel validation produces the same diagnostics as serial validation. How validation scales with the
+ * number of threads is measured by the <code>ParallelValidationBenchmark</code> in the benchmarks project.
+ */
+public class TestParallelValidation extends AbstractValidationTest {
+	private static final int GENERATED_MODULE_COUNT = 12;
+
+	private static final int GENERATED_CLASSES_PER_MODULE = 5;
+
+	private static List<String> describe(Diagnostic chain) {
+		List<String> result = Lists.newArrayList();
+		for(Diagnostic d : chain.getChildren())
+			result.add(d.getSeverityString() + ' ' + d.getIssue() + ' ' + d.getLocationLabel(true) + ' ' + d.getMessage());
+		return result;
+	}
+
+	private static void generateModule(File modulesDir, int moduleIndex) throws IOException {
+		String name = "module" + moduleIndex;
+		File moduleDir = new File(modulesDir, name);
+		File manifests = new File(moduleDir, "manifests");
+		manifests.mkdirs();
+
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\n  \"name\": \"test-").append(name).append("\",\n");
+		bld.append("  \"version\": \"1.0.0\",\n  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n");
+		bld.append("  \"summary\": \"Generated module\",\n  \"source\": \"http://example.com\",\n");
+		bld.append("  \"dependencies\": [");
+		if(moduleIndex > 0)
+			bld.append("\n    { \"name\": \"test-module").append(moduleIndex - 1).append("\", \"version_requirement\": \">= 1.0.0\" }\n  ");
+		bld.append("]\n}\n");
+		Files.write(new File(moduleDir, "metadata.json").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+
+		bld.setLength(0);
+		bld.append("class ").append(name).append(" {\n}\n");
+		Files.write(new File(manifests, "init.pp").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+
+		for(int classIndex = 0; classIndex < GENERATED_CLASSES_PER_MODULE; ++classIndex) {
+			bld.setLength(0);
+			String className = name + "::class" + classIndex;
+			bld.append("class ").append(className).append("($param = 'value").append(classIndex).append("') {\n");
+			bld.append("  include ").append(name).append('\n');
+			if(moduleIndex > 0)
+				bld.append("  include module").append(moduleIndex - 1).append("::class").append(classIndex).append('\n');
+			bld.append("  file { \"/tmp/").append(name).append('/').append(classIndex).append("\":\n");
+			bld.append("    ensure  => file,\n    content => $param,\n    mode    => '0644',\n  }\n");
+			bld.append("  $unused = $undefined_variable").append(classIndex).append('\n');
+			bld.append("}\n");
+			Files.write(new File(manifests, "class" + classIndex + ".pp").toPath(), bld.toString().getBytes(Charsets.UTF_8));
+		}
+	}
+
+	@Inject
+	private ValidationService vs;
+
+	private void assertSameAsSerial(File root) throws Exception {
+		Diagnostic serial = validate(root, 1);
+		List<String> expected = describe(serial);
+		assertTrue("There should be diagnostics to compare", !expected.isEmpty());
+		for(int threadCount : new int[] { 2, 4 })
+			assertEquals("Parallel diagnostics should equal serial diagnostics", expected, describe(validate(root, threadCount)));
+	}
+
+	private ValidationOptions getRepositoryOptions(int threadCount) {
+		ValidationOptions options = getValidationOptions();
+		options.setCheckLayout(true);
+		options.setCheckModuleSemantics(true);
+		options.setCheckReferences(true);
+		options.setFileType(FileType.PUPPET_ROOT);
+		options.setThreadCount(threadCount);
+		return options;
+	}
+
+	@Test
+	public void parallelValidationOfBrokenModule() throws Exception {
+		assertSameAsSerial(TestDataProvider.getTestFile(new Path("testData/broken/broken-module/")));
+	}
+
+	@Test
+	public void parallelValidationOfForgeModules() throws Exception {
+		assertSameAsSerial(TestDataProvider.getTestFile(new Path("testData/forgeModules/")));
+	}
+
+	@Test
+	public void parallelValidationOfGeneratedModules() throws Exception {
+		File root = Files.createTempDirectory("geppetto-parallel-").toFile();
+		try {
+			File modulesDir = new File(root, "modules");
+			for(int moduleIndex = 0; moduleIndex < GENERATED_MODULE_COUNT; ++moduleIndex)
+				generateModule(modulesDir, moduleIndex);
+			assertSameAsSerial(root);
+		}
+		finally {
+			FileUtils.rmR(root);
+		}
+	}
+
+	@Test
+	public void parallelValidationOfModuleWithTypeAndProvider() throws Exception {
+		File root = TestDataProvider.getTestFile(new Path("testData/parallel/provided-module/"));
+		assertSameAsSerial(root);
+
+		// The type must have the implicit provider parameter, only the unknown colour attribute is reported
+		boolean colourReported = false;
+		for(String d : describe(validate(root, 4))) {
+			assertFalse("Provider should be a known attribute: " + d, d.contains("Unknown attribute: 'provider'"));
+			if(d.contains("Unknown attribute: 'colour'"))
+				colourReported = true;
+		}
+		assertTrue("Unknown attribute should be reported", colourReported);
+	}
+
+	private Diagnostic validate(File root, int threadCount) {
+		Diagnostic chain = new Diagnostic();
+		ValidationOptions options = getRepositoryOptions(threadCount);
+		options.setValidationRoot(root);
+		vs.validate(chain, options, root, SubMonitor.convert(null));
+		return chain;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.core.runtime.SubMonitor;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.validation.FileType;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationService;
+
+/**
+ * Asserts that validation using the persistent validation cache produces the same diagnostics as validation without
+ * the cache, also after a change to a manifest that other manifests depend on.
+ */
+public class TestValidationCache extends AbstractValidationTest {
+	private static List<String> describe(Diagnostic chain) {
+		List<String> result = Lists.newArrayList();
+		for(Diagnostic d : chain.getChildren())
+			result.add(d.getSeverityString() + ' ' + d.getIssue() + ' ' + d.getLocationLabel(true) + ' ' + d.getMessage());
+		return result;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(Charsets.UTF_8));
+	}
+
+	private static void writeModule(File modulesDir, String name, String dependency) throws IOException {
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\n  \"name\": \"test-").append(name).append("\",\n");
+		bld.append("  \"version\": \"1.0.0\",\n  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n");
+		bld.append("  \"summary\": \"Generated module\",\n  \"source\": \"http://example.com\",\n");
+		bld.append("  \"dependencies\": [");
+		if(dependency != null)
+			bld.append("\n    { \"name\": \"test-").append(dependency).append("\", \"version_requirement\": \">= 1.0.0\" }\n  ");
+		bld.append("]\n}\n");
+		write(new File(modulesDir, name + "/metadata.json"), bld.toString());
+	}
+
+	@Inject
+	private ValidationService vs;
+
+	private ValidationOptions getCacheOptions(File root, File cacheDirectory, FileFilter validationFilter) {
+		ValidationOptions options = getValidationOptions();
+		options.setCheckLayout(true);
+		options.setCheckModuleSemantics(true);
+		options.setCheckReferences(true);
+		options.setFileType(FileType.PUPPET_ROOT);
+		options.setValidationRoot(root);
+		options.setCacheDirectory(cacheDirectory);
+		options.setValidationFilter(validationFilter);
+		return options;
+	}
+
+	@Test
+	public void cachedValidationEqualsUncached() throws Exception {
+		File root = Files.createTempDirectory("geppetto-cache-").toFile();
+		try {
+			File modulesDir = new File(root, "modules");
+			File cacheDirectory = new File(root, "cache");
+			writeModule(modulesDir, "a", "b");
+			writeModule(modulesDir, "b", null);
+			write(new File(modulesDir, "a/manifests/init.pp"), "class a {\n  include b::server\n  $x = \"${undefined_variable}\"\n}\n");
+			write(new File(modulesDir, "a/manifests/client.pp"), "class a::client inherits b::server {\n}\n");
+			write(new File(modulesDir, "b/manifests/init.pp"), "class b {\n}\n");
+			write(new File(modulesDir, "b/manifests/server.pp"), "class b::server($port = 80) {\n}\n");
+
+			List<String> expected = describe(validate(root, null));
+			assertEquals("Initial cached validation", expected, describe(validate(root, cacheDirectory)));
+			assertTrue("A cache should have been written", cacheDirectory.list().length > 0);
+			assertEquals("Validation using the cache", expected, describe(validate(root, cacheDirectory)));
+
+			// Remove the class that module a depends on. Module a must be validated again.
+			write(new File(modulesDir, "b/manifests/server.pp"), "class b::other {\n}\n");
+			List<String> changed = describe(validate(root, null));
+			assertFalse("Removing a class should change the diagnostics", expected.equals(changed));
+			assertEquals("Validation after change using the cache", changed, describe(validate(root, cacheDirectory)));
+			assertEquals("Validation after change using the cache again", changed, describe(validate(root, cacheDirectory)));
+		}
+		finally {
+			FileUtils.rmR(root);
+		}
+	}
+
+	private Diagnostic validate(File root, File cacheDirectory) {
+		return validate(root, cacheDirectory, null);
+	}
+
+	private Diagnostic validate(File root, File cacheDirectory, FileFilter validationFilter) {
+		Diagnostic chain = new Diagnostic();
+		vs.validate(chain, getCacheOptions(root, cacheDirectory, validationFilter), root, SubMonitor.convert(null));
+		return chain;
+	}
+
+	@Test
+	public void validationFilterChange() throws Exception {
+		File root = Files.createTempDirectory("geppetto-cache-").toFile();
+		try {
+			File modulesDir = new File(root, "modules");
+			File cacheDirectory = new File(root, "cache");
+			writeModule(modulesDir, "a", null);
+			final File initPP = new File(modulesDir, "a/manifests/init.pp");
+			write(initPP, "class a {\n  $x = \"${undefined_variable}\"\n}\n");
+			FileFilter excludeInit = new FileFilter() {
+				@Override
+				public boolean accept(File file) {
+					return !file.equals(initPP);
+				}
+			};
+
+			List<String> expectedFiltered = describe(validate(root, null, excludeInit));
+			assertEquals("Cached validation with filter", expectedFiltered, describe(validate(root, cacheDirectory, excludeInit)));
+
+			// The excluded file must be validated once the filter no longer excludes it
+			List<String> expected = describe(validate(root, null));
+			assertFalse("The filter should change the diagnostics", expected.equals(expectedFiltered));
+			assertEquals("Cached validation without filter", expected, describe(validate(root, cacheDirectory)));
+
+			// A file that was cached as validated must not report diagnostics once it is excluded
+			assertEquals("Cached validation with filter again", expectedFiltered, describe(validate(root, cacheDirectory, excludeInit)));
+		}
+		finally {
+			FileUtils.rmR(root);
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.core.runtime.SubMonitor;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.puppetlabs.geppetto.common.os.FileUtils;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.validation.FileType;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationService;
+import com.puppetlabs.geppetto.validation.ValidationSession;
+
+/**
+ * Asserts that an incrementally updated validation reports the same diagnostics as a complete validation of the
+ * changed directory.
+ */
+public class TestValidationSession extends AbstractValidationTest {
+	private static List<String> describe(Diagnostic chain) {
+		List<String> result = Lists.newArrayList();
+		for(Diagnostic d : chain.getChildren())
+			result.add(d.getSeverityString() + ' ' + d.getIssue() + ' ' + d.getLocationLabel(true) + ' ' + d.getMessage());
+		return result;
+	}
+
+	private static Diagnostic findDiagnostic(Diagnostic chain, String messageFragment) {
+		for(Diagnostic d : chain.getChildren())
+			if(d.getMessage() != null && d.getMessage().contains(messageFragment))
+				return d;
+		fail("No diagnostic with a message containing '" + messageFragment + "'");
+		return null;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(Charsets.UTF_8));
+	}
+
+	private static void writeModule(File modulesDir, String name, String dependency) throws IOException {
+		StringBuilder bld = new StringBuilder();
+		bld.append("{\n  \"name\": \"test-").append(name).append("\",\n");
+		bld.append("  \"version\": \"1.0.0\",\n  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n");
+		bld.append("  \"summary\": \"Generated module\",\n  \"source\": \"http://example.com\",\n");
+		bld.append("  \"dependencies\": [");
+		if(dependency != null)
+			bld.append("\n    { \"name\": \"test-").append(dependency).append("\", \"version_requirement\": \">= 1.0.0\" }\n  ");
+		bld.append("]\n}\n");
+		write(new File(modulesDir, name + "/metadata.json"), bld.toString());
+	}
+
+	@Inject
+	private ValidationService vs;
+
+	private Diagnostic assertUpdate(String message, ValidationSession session, File... changedFiles) {
+		Diagnostic updated = new Diagnostic();
+		session.update(updated, Lists.newArrayList(changedFiles), SubMonitor.convert(null));
+		assertEquals(message, describe(validate(session.getRoot())), describe(updated));
+		return updated;
+	}
+
+	private ValidationOptions getSessionOptions(File root) {
+		ValidationOptions options = getValidationOptions();
+		options.setCheckLayout(true);
+		options.setCheckModuleSemantics(true);
+		options.setCheckReferences(true);
+		options.setFileType(FileType.PUPPET_ROOT);
+		options.setValidationRoot(root);
+		return options;
+	}
+
+	@Test
+	public void updateEqualsCompleteValidation() throws Exception {
+		File root = Files.createTempDirectory("geppetto-session-").toFile();
+		try {
+			File modulesDir = new File(root, "modules");
+			writeModule(modulesDir, "a", "b");
+			writeModule(modulesDir, "b", null);
+			File aInit = new File(modulesDir, "a/manifests/init.pp");
+			File bInit = new File(modulesDir, "b/manifests/init.pp");
+			File bServer = new File(modulesDir, "b/manifests/server.pp");
+			File bClient = new File(modulesDir, "b/manifests/client.pp");
+			write(aInit, "class a {\n  include b::server\n  include b::client\n}\n");
+			write(bInit, "class b {\n}\n");
+			write(bServer, "class b::server($port = 80) {\n}\n");
+
+			Diagnostic initial = new Diagnostic();
+			ValidationSession session = vs.createSession(initial, getSessionOptions(root), root, SubMonitor.convert(null));
+			List<String> expected = describe(validate(root));
+			assertEquals("Session validation", expected, describe(initial));
+			assertFalse("b::client should be unresolved", expected.isEmpty());
+
+			// Content change that does not change any exports
+			write(bInit, "class b {\n  $x = 1\n}\n");
+			assertUpdate("Update after body change", session, bInit);
+
+			// Remove an exported class that is used by another module
+			write(bServer, "class b::other {\n}\n");
+			assertUpdate("Update after removed export", session, bServer);
+
+			// Add a file that defines an unresolved class
+			write(bClient, "class b::client {\n}\n");
+			assertUpdate("Update after added file", session, bClient);
+
+			// Delete the file again
+			assertEquals(true, bClient.delete());
+			assertUpdate("Update after deleted file", session, bClient);
+
+			// Changes to module metadata are handled by a complete validation
+			writeModule(modulesDir, "a", null);
+			assertUpdate("Update after metadata change", session, new File(modulesDir, "a/metadata.json"));
+		}
+		finally {
+			FileUtils.rmR(root);
+		}
+	}
+
+	@Test
+	public void updateRecomputesModuleDiagnostics() throws Exception {
+		File root = Files.createTempDirectory("geppetto-session-").toFile();
+		try {
+			File modulesDir = new File(root, "modules");
+			writeModule(modulesDir, "b", null);
+			// A dependency without a version requirement is reported when the module is validated
+			write(new File(modulesDir, "a/metadata.json"), "{\n  \"name\": \"test-a\",\n  \"version\": \"1.0.0\",\n" +
+				"  \"author\": \"test\",\n  \"license\": \"Apache-2.0\",\n  \"summary\": \"Generated module\",\n" +
+				"  \"source\": \"http://example.com\",\n  \"dependencies\": [\n    { \"name\": \"test-b\" }\n  ]\n}\n");
+			File aInit = new File(modulesDir, "a/manifests/init.pp");
+			write(aInit, "class a {\n  include b\n}\n");
+			write(new File(modulesDir, "b/manifests/init.pp"), "class b {\n}\n");
+
+			Diagnostic initial = new Diagnostic();
+			ValidationSession session = vs.createSession(initial, getSessionOptions(root), root, SubMonitor.convert(null));
+			assertEquals("Session validation", describe(validate(root)), describe(initial));
+			Diagnostic initialModuleDiagnostic = findDiagnostic(initial, "version_requirement");
+
+			// The module diagnostics follow the pp diagnostics and must stay in place when the pp diagnostics change
+			write(aInit, "class a {\n  include b\n  include b::missing\n}\n");
+			Diagnostic updated = assertUpdate("Update after added reference", session, aInit);
+			assertNotSame("Module diagnostic was copied", initialModuleDiagnostic, findDiagnostic(updated, "version_requirement"));
+
+			write(aInit, "class a {\n  include b\n}\n");
+			updated = assertUpdate("Update after removed reference", session, aInit);
+			assertNotSame("Module diagnostic was copied", initialModuleDiagnostic, findDiagnostic(updated, "version_requirement"));
+		}
+		finally {
+			FileUtils.rmR(root);
+		}
+	}
+
+	private Diagnostic validate(File root) {
+		Diagnostic chain = new Diagnostic();
+		vs.validate(chain, getSessionOptions(root), root, SubMonitor.convert(null));
+		return chain;
+	}
+}
@@ -0,0 +1,3 @@
+Puppet::Type.type(:widget).provide(:simple) do
+  desc "Manages widgets in a simple way"
+end
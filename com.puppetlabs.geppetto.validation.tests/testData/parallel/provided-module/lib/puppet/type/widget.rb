@@ -0,0 +1,11 @@
+Puppet::Type.newtype(:widget) do
+  desc "A widget"
+
+  newparam(:name, :namevar => true) do
+    desc "The name of the widget"
+  end
+
+  newproperty(:size) do
+    desc "The size of the widget"
+  end
+end
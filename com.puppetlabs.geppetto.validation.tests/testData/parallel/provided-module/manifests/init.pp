@@ -0,0 +1,10 @@
+class provided {
+  widget { 'small':
+    provider => simple,
+    size     => 1,
+  }
+  widget { 'large':
+    provider => simple,
+    colour   => red,
+  }
+}
@@ -49,6 +49,8 @@ public class ValidationOptions {
 
 	private boolean allowFileOverride;
 
+	private File cacheDirectory;
+
 	private boolean checkLayout;
 
 	private boolean checkModuleSemantics;
@@ -81,6 +83,8 @@ public class ValidationOptions {
 
 	private String searchPath;
 
+	private int threadCount;
+
 	private FileFilter validationFilter;
 
 	private File validationRoot;
@@ -91,6 +95,7 @@ public class ValidationOptions {
 
 	public ValidationOptions(ValidationOptions source) {
 		allowFileOverride = source.allowFileOverride;
+		cacheDirectory = source.cacheDirectory;
 		checkLayout = source.checkLayout;
 		checkModuleSemantics = source.checkModuleSemantics;
 		checkReferences = source.checkReferences;
@@ -107,10 +112,21 @@ public class ValidationOptions {
 		produceGraph = source.produceGraph;
 		rubyWarnings = source.rubyWarnings;
 		searchPath = source.searchPath;
+		threadCount = source.threadCount;
 		validationFilter = source.validationFilter;
 		validationRoot = source.validationRoot;
 	}
 
+	/**
+	 * Returns the directory where the outcome of linking and validating .pp files is cached between runs. The cache
+	 * is not used when this value is <code>null</code>.
+	 *
+	 * @return the value of the '<em>cacheDirectory</em>' attribute.
+	 */
+	public File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
 	/**
 	 * Defaults to {@link PuppetTarget#getDefault()#getComplianceLevel()} if not specified.
 	 *
@@ -195,6 +211,17 @@ public class ValidationOptions {
 		return searchPath;
 	}
 
+	/**
+	 * Returns the number of threads that will be used when loading and validating the resources of a directory.
+	 * Linking is always performed by the calling thread. A value less than or equal to 1 means that everything is
+	 * performed by the calling thread.
+	 *
+	 * @return the value of the '<em>threadCount</em>' attribute.
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
 	/**
 	 * @return The root folder for the validation
 	 */
@@ -322,6 +349,16 @@ public class ValidationOptions {
 		this.allowFileOverride = allowFileOverride;
 	}
 
+	/**
+	 * Sets the value of the '<em>cacheDirectory</em>' attribute.
+	 *
+	 * @param cacheDirectory
+	 *            the new value of the '<em>cacheDirectory</em>' attribute.
+	 */
+	public void setCacheDirectory(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
 	/**
 	 * Sets the value of the '<em>checkLayout</em>' attribute.
 	 *
@@ -473,6 +510,18 @@ public class ValidationOptions {
 		this.searchPath = searchPath;
 	}
 
+	/**
+	 * Sets the number of threads to use when loading and validating the resources of a directory. The
+	 * diagnostics produced are the same, and reported in the same order, regardless of the number of threads.
+	 *
+	 * @param threadCount
+	 *            the new value of the '<em>threadCount</em>' attribute.
+	 * @see #getThreadCount()
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Specify a specific a filter for the candidates to be validated. This filter does not limit the scope
 	 * used when for the validating, just the actual files that will be validated.
@@ -34,6 +34,23 @@ public interface ValidationService {
 
 	DiagnosticType CATALOG = new DiagnosticType("CATALOG", ValidationService.class.getName());
 
+	/**
+	 * Validates the directory <code>root</code> in the same way as
+	 * {@link #validate(Diagnostic, ValidationOptions, File, IProgressMonitor)} and keeps the loaded resources so that
+	 * the validation can be updated when files change.
+	 *
+	 * @param diagnostics
+	 *            DiagnosticChain will receive calls to add Diagnostic instances for discovered problems/information.
+	 * @param options
+	 *            Options that controls various aspects of the validation. Must not be changed while the session is in use
+	 * @param root
+	 *            The directory to validate
+	 * @param monitor
+	 *            Monitor where progress is reported. Also used as cancellation mechanism
+	 * @return The session
+	 */
+	ValidationSession createSession(Diagnostic diagnostics, ValidationOptions options, File root, IProgressMonitor monitor);
+
 	/**
 	 * Performs validation and reports diagnostics for all files given by source under the control of options. If a set
 	 * of examinedFiles is given the diagnostics reported is limited to this set. An empty set is the same as reporting
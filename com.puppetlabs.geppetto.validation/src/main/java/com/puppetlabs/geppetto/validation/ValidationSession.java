@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.validation.runner.BuildResult;
+
+/**
+ * A validation of a directory that is kept in memory so that it can be updated when files change. Only the files that
+ * changed, and the .pp files that reference objects whose exports changed, are validated again. A change of module
+ * metadata or ruby code results in a new validation of the whole directory.
+ * <p>
+ * A session is not thread safe. It should be confined to one thread or be externally synchronized.
+ * </p>
+ *
+ * @see ValidationService#createSession(Diagnostic, ValidationOptions, File, IProgressMonitor)
+ */
+public interface ValidationSession {
+	/**
+	 * @return The result of the most recent validation or update
+	 */
+	BuildResult getBuildResult();
+
+	/**
+	 * @return The directory that is validated
+	 */
+	File getRoot();
+
+	/**
+	 * Updates the validation after the given files have been modified, added, or deleted. A file that no longer exists
+	 * is considered deleted. Files that are not subject to validation are ignored.
+	 *
+	 * @param diagnostics
+	 *            Receives the diagnostics for all files in the directory, not just for those that changed
+	 * @param changedFiles
+	 *            The files that have changed
+	 * @param monitor
+	 *            Monitor where progress is reported. Also used as cancellation mechanism
+	 * @return The updated build result
+	 */
+	BuildResult update(Diagnostic diagnostics, Collection<File> changedFiles, IProgressMonitor monitor);
+}
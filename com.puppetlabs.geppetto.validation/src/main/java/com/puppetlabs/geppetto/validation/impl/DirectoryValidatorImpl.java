@@ -25,6 +25,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -35,6 +40,7 @@ import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.validation.CheckMode;
 import org.eclipse.xtext.validation.IResourceValidator;
@@ -42,14 +48,18 @@ import org.eclipse.xtext.validation.Issue;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
+import com.puppetlabs.geppetto.common.tracer.ITimer;
 import com.puppetlabs.geppetto.diagnostic.Diagnostic;
 import com.puppetlabs.geppetto.diagnostic.DiagnosticType;
+import com.puppetlabs.geppetto.diagnostic.ExceptionDiagnostic;
 import com.puppetlabs.geppetto.forge.Forge;
 import com.puppetlabs.geppetto.forge.model.Dependency;
 import com.puppetlabs.geppetto.forge.model.Metadata;
@@ -60,6 +70,7 @@ import com.puppetlabs.geppetto.module.dsl.metadata.JsonMetadata;
 import com.puppetlabs.geppetto.module.dsl.validation.IModuleValidationAdvisor;
 import com.puppetlabs.geppetto.module.dsl.validation.ModuleDiagnostics;
 import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
+import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapterFactory;
 import com.puppetlabs.geppetto.pp.dsl.adapters.ResourcePropertiesAdapter;
 import com.puppetlabs.geppetto.pp.dsl.adapters.ResourcePropertiesAdapterFactory;
 import com.puppetlabs.geppetto.pp.dsl.linking.PPSearchPath;
@@ -90,8 +101,27 @@ import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Rakefile;
 import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Raketask;
 
 public class DirectoryValidatorImpl implements DirectoryValidator {
+	/**
+	 * A resource that is being loaded by the worker pool. The resource is not yet added to the resource set.
+	 */
+	private static class PendingLoad {
+		final Resource resource;
+
+		final Future<Resource> loading;
+
+		PendingLoad(Resource resource, Future<Resource> loading) {
+			this.resource = resource;
+			this.loading = loading;
+		}
+	}
+
 	private static final String NAME_OF_DIR_WITH_RESTRICTED_SCOPE = "roles";
 
+	/**
+	 * The name of the timer that records the time spent validating resources
+	 */
+	public static final String VALIDATE_TIMER = "validation.validate";
+
 	private static final FileFilter metadataFileFilter = new FileFilter() {
 
 		@Override
@@ -155,6 +185,48 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		return fitems;
 	}
 
+	/**
+	 * Waits for the result of a task performed by the worker pool and rethrows any exception that the task threw.
+	 *
+	 * @param future
+	 *            The future that represents the task
+	 * @return The result of the task
+	 * @throws Exception
+	 *             The exception thrown by the task
+	 */
+	private static <T> T await(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception)
+				throw (Exception) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Like {@link #await(Future)} but for tasks that only throws unchecked exceptions.
+	 */
+	private static <T> T awaitUnchecked(Future<T> future) {
+		try {
+			return await(future);
+		}
+		catch(RuntimeException e) {
+			throw e;
+		}
+		catch(Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	private static boolean isOnPath(File f, PPSearchPath searchPath) {
 
 		return searchPath.searchIndexOf(URI.createFileURI(f.getPath())) >= 0;
@@ -164,7 +236,7 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 
 	private final ValidationOptions options;
 
-	private final List<File> ppFiles;
+	private List<File> ppFiles;
 
 	private final PPDiagnosticsRunner ppRunner;
 
@@ -178,6 +250,29 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 
 	private final RubyHelper rubyHelper;
 
+	/**
+	 * Worker pool used while validating in parallel, <code>null</code> when validating serially
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * The state below is retained after validation so that the validation can be updated when files change. It is
+	 * <code>null</code> until a validation of the directory has completed.
+	 */
+	private Map<File, Resource> ppResources;
+
+	private Map<File, Diagnostic> ppDiagnostics;
+
+	private List<Diagnostic> leadingDiagnostics;
+
+	private List<Entry<File, Resource>> modulesToValidate;
+
+	private Multimap<ModuleName, MetadataInfo> moduleData;
+
+	private RakefileInfo rakefileInfo;
+
+	private final ITimer validateTimer;
+
 	@Inject
 	public DirectoryValidatorImpl(PPDiagnosticsRunner ppRunner, @Assisted Diagnostic diagnostics, @Assisted File root,
 			@Assisted ValidationOptions options) throws Exception {
@@ -186,6 +281,7 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		this.options = options;
 		this.ppRunner = ppRunner;
 
+		validateTimer = ppRunner.getMetrics().getTimer(VALIDATE_TIMER);
 		rubyHelper = ppRunner.getRubyHelper();
 		ppFiles = findPPFiles();
 		rbFiles = findRubyFiles();
@@ -221,14 +317,21 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 			ValidationServiceImpl.addFileDiagnostic(diagnostics, severity, type, file, root, message, issueId);
 	}
 
+	private void addLoadFailure(File f, Exception e, Map<File, Diagnostic> loadFailures) {
+		Diagnostic fileDiagnostics = new Diagnostic();
+		ValidationServiceImpl.addExceptionDiagnostic(fileDiagnostics, "Exception while processing file: " + f.getPath(), e);
+		loadFailures.put(f, fileDiagnostics);
+	}
+
 	/**
 	 * Translate and add Xtext module issue diagnostics to the chain.
 	 *
+	 * @param chain
 	 * @param issue
 	 * @param processedFile
 	 */
-	private void addModuleIssueDiagnostic(Issue issue, File processedFile) {
-		ValidationServiceImpl.addModuleIssueDiagnostic(diagnostics, issue, processedFile, root);
+	private void addModuleIssueDiagnostic(Diagnostic chain, Issue issue, File processedFile) {
+		ValidationServiceImpl.addModuleIssueDiagnostic(chain, issue, processedFile, root);
 	}
 
 	/**
@@ -241,6 +344,19 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		ValidationServiceImpl.addPPIssueDiagnostic(diagnostics, issue, processedFile, root);
 	}
 
+	/**
+	 * Adds the diagnostics of all pp files to the chain. The files are ordered by path so that an update reports the
+	 * diagnostics in the same order as a complete validation.
+	 *
+	 * @param chain
+	 */
+	private void addPpDiagnostics(Diagnostic chain) {
+		List<File> files = Lists.newArrayList(ppDiagnostics.keySet());
+		Collections.sort(files);
+		for(File f : files)
+			chain.addChildren(ppDiagnostics.get(f).getChildren());
+	}
+
 	/**
 	 * Translate and add ruby issue diagnostics to the chain.
 	 *
@@ -251,6 +367,47 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		ValidationServiceImpl.addRubyIssueDiagnostic(diagnostics, issue, processedFile, root);
 	}
 
+	/**
+	 * Adds a resource that has been loaded by the worker pool to the resource set and waits for the load to complete.
+	 * The resource is added even if the load fails since that is what happens when loading serially.
+	 *
+	 * @param pending
+	 *            The pending load
+	 * @return The loaded resource
+	 * @throws Exception
+	 *             The exception thrown during load
+	 */
+	private Resource attachResource(PendingLoad pending) throws Exception {
+		ppRunner.addResource(pending.resource);
+		return await(pending.loading);
+	}
+
+	/**
+	 * Returns <code>true</code> if the validation can be updated after a change of the given files, i.e. if the
+	 * directory has been validated and if all changed files are .pp files or files that are not validated. A change of
+	 * module metadata or ruby code requires a new validation of the directory.
+	 *
+	 * @param changedFiles
+	 *            Files that have been modified, added, or deleted
+	 * @return <code>true</code> if {@link #update(Diagnostic, Collection, IProgressMonitor)} can be used
+	 */
+	public boolean canUpdate(Collection<File> changedFiles) {
+		if(ppResources == null)
+			return false;
+		for(File f : changedFiles) {
+			if(f.isDirectory())
+				return false;
+			String name = f.getName();
+			if(name.endsWith(".pp"))
+				continue;
+			String lcname = name.toLowerCase();
+			if(name.equals(Forge.METADATA_JSON_NAME) || name.equals(Forge.MODULEFILE_NAME) || lcname.endsWith(".rb") ||
+				lcname.endsWith(".rake") || lcname.startsWith("rakefile"))
+				return false;
+		}
+		return true;
+	}
+
 	private void checkLayout() {
 		Set<File> rootsChecked = new HashSet<File>();
 		for(File metadata : metadataFiles) {
@@ -447,6 +604,23 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		ppRunner.configureContainers(root, moduleData.values(), uris);
 	}
 
+	private BuildResult createBuildResult() {
+		AllModulesState all = ppRunner.getAllModulesState();
+
+		// set the root to allow relative lookup of module exports
+		all.setRoot(root);
+
+		BuildResult buildResult = new BuildResult(rubyHelper.isRubyServicesAvailable());
+		// buildResult.setExportsForNodes(result);
+		buildResult.setAllModuleReferences(all);
+		buildResult.setModuleData(moduleData);
+		buildResult.setRakefileInfo(rakefileInfo);
+		IMetrics metrics = ppRunner.getMetrics();
+		if(metrics.isEnabled())
+			buildResult.setMetricsSummary(metrics.getSummary());
+		return buildResult;
+	}
+
 	private List<File> findFiles(FileFilter filter) {
 		File[] files = root.listFiles(options.getFileFilter());
 		if(files == null || files.length == 0)
@@ -510,12 +684,112 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		return modulesDir.isDirectory();
 	}
 
+	/**
+	 * Returns <code>true</code> if the given file exists and would be found when searching the root for files, i.e. if
+	 * it is within the root, and it or its parent directories are not excluded or symbolically linked.
+	 */
+	private boolean isIncluded(File f) {
+		if(!f.isFile())
+			return false;
+		File absRoot = root.getAbsoluteFile();
+		FileFilter filter = options.getFileFilter();
+		if(ppRunner.isExcluded(f))
+			return false;
+		for(File p = f.getAbsoluteFile(); p != null; p = p.getParentFile()) {
+			if(p.equals(absRoot))
+				return true;
+			if(Files.isSymbolicLink(p.toPath()) || filter != null && !filter.accept(p))
+				return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Links and validates the given pp resources unless the outcome can be obtained from the validation cache. Linking
+	 * resolves references into other resources of the shared resource set and is therefore always performed serially
+	 * by the calling thread. Once all resources are linked, the worker pool is used for the validation when validating
+	 * in parallel.
+	 *
+	 * @param resources
+	 *            The resources to link and validate
+	 * @param cache
+	 *            The validation cache or <code>null</code>
+	 * @param ticker
+	 *            Monitor used for cancellation
+	 * @return The diagnostics for each file
+	 */
+	private Map<File, Diagnostic> linkAndValidateAll(final Map<File, Resource> resources, final ValidationCache cache,
+			final SubMonitor ticker) {
+		Map<File, Diagnostic> result = Maps.newHashMapWithExpectedSize(resources.size());
+
+		// The linked files, each one mapped to the content hash to cache its outcome with or null when not cached
+		Map<File, String> linked = Maps.newLinkedHashMap();
+		for(Entry<File, Resource> r : resources.entrySet()) {
+			File f = r.getKey();
+			// Files that are not validated are not cached. Their entries would be wrong if the validation filter changes
+			String contentHash = null;
+			if(cache != null && options.isValidationCandidate(f)) {
+				try {
+					contentHash = cache.hash(f);
+					ValidationCache.Entry entry = cache.get(f, contentHash);
+					if(entry != null && cache.restore(entry, PPImportedNamesAdapterFactory.eINSTANCE.adapt(r.getValue()))) {
+						cache.put(f, entry);
+						Diagnostic fileDiagnostics = new Diagnostic();
+						fileDiagnostics.addChildren(entry.getDiagnostics());
+						result.put(f, fileDiagnostics);
+						continue;
+					}
+				}
+				catch(IOException e) {
+					// The file is validated without the cache
+					contentHash = null;
+				}
+			}
+			if(options.isCheckReferences())
+				ppRunner.resolveCrossReferences(r.getValue(), false, ticker);
+			linked.put(f, contentHash);
+		}
+
+		final IResourceValidator validator = ppRunner.getPPResourceValidator();
+		if(executor == null) {
+			for(Entry<File, String> l : linked.entrySet())
+				result.put(l.getKey(), validateLinked(l.getKey(), resources.get(l.getKey()), l.getValue(), cache, validator, ticker));
+			return result;
+		}
+
+		Map<File, Future<Diagnostic>> results = Maps.newLinkedHashMap();
+		for(final Entry<File, String> l : linked.entrySet())
+			results.put(l.getKey(), executor.submit(new Callable<Diagnostic>() {
+				@Override
+				public Diagnostic call() {
+					return validateLinked(l.getKey(), resources.get(l.getKey()), l.getValue(), cache, validator, ticker);
+				}
+			}));
+
+		for(Entry<File, Future<Diagnostic>> r : results.entrySet())
+			result.put(r.getKey(), awaitUnchecked(r.getValue()));
+		return result;
+	}
+
 	private Map<File, Resource> loadModuleResources(Set<File> files, SubMonitor ticker) {
 		// Load all pp
 		// crosslink and validate all
 		Map<File, Resource> moduleResources = Maps.newHashMapWithExpectedSize(files.size());
+		List<File> metadataJsonFiles = Lists.newArrayList();
+		for(File f : files)
+			if(!Forge.MODULEFILE_NAME.equals(f.getName()))
+				metadataJsonFiles.add(f);
+		Map<File, PendingLoad> pendingLoads = startLoading(metadataJsonFiles);
+
 		for(File f : files) {
 			try {
+				PendingLoad pending = pendingLoads.get(f);
+				if(pending != null) {
+					moduleResources.put(f, attachResource(pending));
+					worked(ticker, 1);
+					continue;
+				}
+
 				InputStream in;
 				File mf;
 				if(Forge.MODULEFILE_NAME.equals(f.getName())) {
@@ -556,18 +830,22 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		return moduleResources;
 	}
 
-	private Map<File, Resource> loadPpResources(SubMonitor ticker) {
+	private Map<File, Resource> loadPpResources(Map<File, Diagnostic> loadFailures, SubMonitor ticker) {
 		// Load all pp
 		// crosslink and validate all
 		Map<File, Resource> ppResources = Maps.newHashMapWithExpectedSize(ppFiles.size());
+		Map<File, PendingLoad> pendingLoads = startLoading(ppFiles);
 		for(File f : ppFiles) {
 			try {
-				Resource r = ppRunner.loadResource(new FileInputStream(f), URI.createFileURI(f.getPath()));
+				PendingLoad pending = pendingLoads.get(f);
+				Resource r = pending == null
+					? ppRunner.loadResource(new FileInputStream(f), URI.createFileURI(f.getPath()))
+					: attachResource(pending);
 				if(r != null)
 					ppResources.put(f, r);
 			}
 			catch(Exception e) {
-				addExceptionDiagnostic("Exception while processing file: " + f.getPath(), e);
+				addLoadFailure(f, e, loadFailures);
 			}
 			// consume one pp tick
 			worked(ticker, 1);
@@ -613,6 +891,15 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		Multimap<String, Provider> allProviders = ArrayListMultimap.create();
 		Map<File, Type> allTypes = Maps.newHashMap();
 		Map<File, Function> allFunctions = Maps.newHashMap();
+
+		List<File> rbFilesToLoad = Lists.newArrayList();
+		for(File f : rbFiles)
+			if(!f.getName().toLowerCase().equals("rakefile.rb") &&
+				PptpRubyResource.detectLoadType(URI.createFileURI(f.getPath())) != LoadType.IGNORED)
+				rbFilesToLoad.add(f);
+		Map<File, PendingLoad> pendingLoads = startLoading(rbFilesToLoad);
+		List<Resource> attached = Lists.newArrayListWithCapacity(pendingLoads.size());
+
 		for(File f : rbFiles) {
 			try {
 				// Skip "Rakefile.rb" or they will be processed twice (but still tick x2
@@ -628,7 +915,14 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 					continue;
 				}
 
-				Resource r = ppRunner.loadResource(new FileInputStream(f), uri);
+				PendingLoad pending = pendingLoads.get(f);
+				Resource r;
+				if(pending == null)
+					r = ppRunner.loadResource(new FileInputStream(f), uri);
+				else {
+					r = attachResource(pending);
+					attached.add(r);
+				}
 				if(options.isValidationCandidate(f)) {
 					for(org.eclipse.emf.ecore.resource.Resource.Diagnostic diag : r.getErrors())
 						if(diag instanceof RubyIssueDiagnostic)
@@ -658,6 +952,7 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 				addExceptionDiagnostic("Internal Error: Exception while processing file: " + f.getName(), e);
 			}
 		}
+		registerTypesAndProviders(attached);
 
 		if(options.isExtractDocs()) {
 			// Key all MetadataInfo with their respective module directory
@@ -709,6 +1004,40 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		return relativePath.toFile();
 	}
 
+	/**
+	 * Reloads a pp resource from its file.
+	 *
+	 * @return <code>true</code> if the resource was reloaded, <code>false</code> if the load failed in which case the
+	 *         failure is recorded in <code>loadFailures</code>
+	 */
+	private boolean reloadPpResource(File f, Resource r, Map<File, Diagnostic> loadFailures) {
+		try (InputStream in = new FileInputStream(f)) {
+			ppRunner.reloadResource(r, in);
+			return true;
+		}
+		catch(Exception e) {
+			addLoadFailure(f, e, loadFailures);
+			return false;
+		}
+	}
+
+	/**
+	 * Registers the types and providers of ruby resources that were loaded by the worker pool. The registration that
+	 * takes place when a resource is loaded is skipped for such resources since they are not yet part of the resource
+	 * set. Without this, types would not get the implicit <code>provider</code> parameter.
+	 *
+	 * @param resources
+	 *            The resources that have been added to the resource set
+	 */
+	private void registerTypesAndProviders(List<Resource> resources) {
+		for(Resource r : resources)
+			for(EObject c : r.getContents())
+				if(c instanceof Type)
+					rubyHelper.registerType((Type) c);
+				else if(c instanceof Provider)
+					rubyHelper.registerProvider((Provider) c);
+	}
+
 	private void rememberRootInResource(Resource r) {
 		if(r == null)
 			throw new IllegalArgumentException("resource can not be null");
@@ -717,11 +1046,191 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		adapter.put(PPDSLConstants.RESOURCE_PROPERTY__ROOT_URI, uri);
 	}
 
+	/**
+	 * Starts loading the given files using the worker pool. The resources are created but not added to the resource
+	 * set. That must be done by the calling thread using {@link #attachResource(PendingLoad)}, in the same order as
+	 * when loading serially.
+	 * Since the resources are not in the resource set while loading, ruby types and providers must be registered once
+	 * they are attached, see {@link #registerTypesAndProviders(List)}.
+	 *
+	 * @param files
+	 *            The files to load
+	 * @return A map of pending loads, empty when validating serially
+	 */
+	private Map<File, PendingLoad> startLoading(List<File> files) {
+		if(executor == null)
+			return Collections.emptyMap();
+
+		Map<File, PendingLoad> pendingLoads = Maps.newHashMapWithExpectedSize(files.size());
+		for(final File f : files) {
+			final Resource r = ppRunner.createResource(URI.createFileURI(f.getPath()));
+			pendingLoads.put(f, new PendingLoad(r, executor.submit(new Callable<Resource>() {
+				@Override
+				public Resource call() throws Exception {
+					try (InputStream in = new FileInputStream(f)) {
+						ppRunner.loadResource(r, in);
+					}
+					return r;
+				}
+			})));
+		}
+		return pendingLoads;
+	}
+
+	private void startExecutor() {
+		int threadCount = options.getThreadCount();
+		if(threadCount > 1)
+			executor = Executors.newFixedThreadPool(threadCount);
+	}
+
+	private void stopExecutor() {
+		if(executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Updates the validation after the given files have changed. Changed .pp files are reloaded. Unchanged .pp files
+	 * are linked and validated again only if they import names of objects whose exports were changed. Diagnostics for
+	 * all other files are reused.
+	 *
+	 * @param chain
+	 *            Receives the diagnostics for all validated files
+	 * @param changedFiles
+	 *            Files that have been modified, added, or deleted. Must be accepted by {@link #canUpdate(Collection)}
+	 * @param monitor
+	 *            Monitor where progress is reported. Also used as cancellation mechanism
+	 * @return The updated build result
+	 */
+	public BuildResult update(Diagnostic chain, Collection<File> changedFiles, IProgressMonitor monitor) {
+		if(!canUpdate(changedFiles))
+			throw new IllegalStateException("Changes can not be handled by an update");
+
+		SubMonitor ticker = SubMonitor.convert(monitor, changedFiles.size() + 2);
+		ppRunner.getMetrics().reset();
+		startExecutor();
+		try {
+			update(changedFiles, ticker);
+		}
+		finally {
+			stopExecutor();
+		}
+
+		chain.addChildren(leadingDiagnostics);
+		addPpDiagnostics(chain);
+
+		// The module diagnostics are computed again since the validation of a module may depend on the state of
+		// other resources
+		validateModules(modulesToValidate, chain, ticker.newChild(1));
+		return createBuildResult();
+	}
+
+	private void update(Collection<File> changedFiles, SubMonitor ticker) {
+		Map<String, File> knownFiles = Maps.newHashMapWithExpectedSize(ppResources.size());
+		for(File f : ppResources.keySet())
+			knownFiles.put(f.getAbsolutePath(), f);
+
+		List<File> modified = Lists.newArrayList();
+		List<File> added = Lists.newArrayList();
+		List<File> removed = Lists.newArrayList();
+		for(File f : changedFiles) {
+			if(!f.getName().endsWith(".pp") || f.isDirectory())
+				continue;
+			File known = knownFiles.get(f.getAbsolutePath());
+			boolean included = isIncluded(f);
+			if(known != null) {
+				if(included)
+					modified.add(known);
+				else
+					removed.add(known);
+				continue;
+			}
+
+			// Use the same path as when the file is found by searching the root
+			File rootFile = new File(root, root.getAbsoluteFile().toPath().relativize(f.getAbsoluteFile().toPath()).toString());
+			if(included)
+				added.add(rootFile);
+			else
+				// The file may have failed to load earlier
+				ppDiagnostics.remove(rootFile);
+		}
+
+		// Remember the exports before the change
+		Map<URI, IResourceDescription> oldDescriptions = Maps.newHashMap();
+		for(File f : Iterables.concat(modified, removed))
+			oldDescriptions.put(ppResources.get(f).getURI(), ppRunner.getResourceDescriptionSnapshot(ppResources.get(f).getURI()));
+
+		for(File f : removed) {
+			ppRunner.removeResource(ppResources.remove(f));
+			ppDiagnostics.remove(f);
+			worked(ticker, 1);
+		}
+
+		Map<File, Resource> toValidate = Maps.newHashMap();
+		Map<File, Diagnostic> loadFailures = Maps.newHashMap();
+		for(File f : modified) {
+			Resource r = ppResources.get(f);
+			if(reloadPpResource(f, r, loadFailures))
+				toValidate.put(f, r);
+			worked(ticker, 1);
+		}
+
+		for(File f : added) {
+			URI uri = URI.createFileURI(f.getPath());
+			oldDescriptions.put(uri, null);
+			try (InputStream in = new FileInputStream(f)) {
+				Resource r = ppRunner.loadResource(in, uri);
+				rememberRootInResource(r);
+				ppResources.put(f, r);
+				toValidate.put(f, r);
+			}
+			catch(Exception e) {
+				addLoadFailure(f, e, loadFailures);
+			}
+			worked(ticker, 1);
+		}
+
+		if(!(added.isEmpty() && removed.isEmpty())) {
+			// The set of resources in each container has changed
+			ppFiles = Lists.newArrayList(ppResources.keySet());
+			configureContainers(moduleData);
+		}
+
+		if(options.isCheckReferences()) {
+			Map<Resource, File> resourceFiles = Maps.newHashMapWithExpectedSize(ppResources.size());
+			for(Entry<File, Resource> entry : ppResources.entrySet())
+				resourceFiles.put(entry.getValue(), entry.getKey());
+
+			// Linking leaves state in the resource so an affected resource is reloaded before it is linked again
+			for(Resource r : ppRunner.getAffectedResources(oldDescriptions)) {
+				File f = resourceFiles.get(r);
+				if(f != null && reloadPpResource(f, r, loadFailures))
+					toValidate.put(f, r);
+			}
+		}
+
+		ppDiagnostics.putAll(linkAndValidateAll(toValidate, null, ticker.newChild(1)));
+		ppDiagnostics.putAll(loadFailures);
+	}
+
 	/**
 	 * @param monitor
 	 * @return
 	 */
 	public BuildResult validateDirectory(IProgressMonitor monitor) {
+		ppRunner.getMetrics().reset();
+		startExecutor();
+		try {
+			return validateDirectory(SubMonitor.convert(monitor));
+		}
+		finally {
+			stopExecutor();
+		}
+	}
+
+	private BuildResult validateDirectory(SubMonitor monitor) {
+		int firstDiagnostic = diagnostics.getChildren().size();
 
 		if(options.isCheckLayout())
 			checkLayout();
@@ -760,25 +1269,33 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 		loadRubyFiles(moduleData, ticker);
 		RakefileInfo rakefileInfo = loadRakeFiles(ticker);
 
+		List<Diagnostic> children = diagnostics.getChildren();
+		List<Diagnostic> leadingDiagnostics = Lists.newArrayList(children.subList(firstDiagnostic, children.size()));
 		validatePpResources(ticker.newChild(1));
-		validateModules(modulesToValidate, ticker.newChild(1));
-
-		AllModulesState all = ppRunner.getAllModulesState();
+		validateModules(modulesToValidate, diagnostics, ticker.newChild(1));
 
-		// set the root to allow relative lookup of module exports
-		all.setRoot(root);
 		// make sure everything is consumed
 		ticker.setWorkRemaining(0);
 
-		BuildResult buildResult = new BuildResult(rubyHelper.isRubyServicesAvailable());
-		// buildResult.setExportsForNodes(result);
-		buildResult.setAllModuleReferences(all);
-		buildResult.setModuleData(moduleData);
-		buildResult.setRakefileInfo(rakefileInfo);
-		return buildResult;
+		// remember what is needed to update the validation
+		this.leadingDiagnostics = leadingDiagnostics;
+		this.modulesToValidate = modulesToValidate;
+		this.moduleData = moduleData;
+		this.rakefileInfo = rakefileInfo;
+		return createBuildResult();
 	}
 
-	private void validateModules(List<Entry<File, Resource>> modulesToValidate, final SubMonitor ticker) {
+	private List<Issue> validate(IResourceValidator validator, Resource r, CancelIndicator cancelMonitor) {
+		long start = validateTimer.start();
+		try {
+			return validator.validate(r, CheckMode.ALL, cancelMonitor);
+		}
+		finally {
+			validateTimer.stop(start);
+		}
+	}
+
+	private void validateModules(List<Entry<File, Resource>> modulesToValidate, Diagnostic chain, final SubMonitor ticker) {
 		IResourceValidator validator = ppRunner.getModuleResourceValidator();
 		for(Entry<File, Resource> r : modulesToValidate) {
 
@@ -789,46 +1306,89 @@ public class DirectoryValidatorImpl implements DirectoryValidator {
 				}
 			};
 
-			for(Issue issue : validator.validate(r.getValue(), CheckMode.ALL, cancelMonitor))
-				addModuleIssueDiagnostic(issue, r.getKey());
+			for(Issue issue : validate(validator, r.getValue(), cancelMonitor))
+				addModuleIssueDiagnostic(chain, issue, r.getKey());
 		}
 	}
 
 	/**
-	 * Load all pp
-	 * crosslink and validate all
+	 * Validates one pp resource that has been linked. This method may be called concurrently for different resources
+	 * once all resources have been linked.
+	 *
+	 * @param f
+	 *            The file of the resource
+	 * @param r
+	 *            The resource
+	 * @param contentHash
+	 *            The content hash to cache the outcome with or <code>null</code> if the outcome is not cached
+	 * @param cache
+	 *            The validation cache or <code>null</code>
+	 * @param validator
+	 *            The validator to use
+	 * @param ticker
+	 *            Monitor used for cancellation
+	 * @return The diagnostics for the file
 	 */
-	private void validatePpResources(final SubMonitor ticker) {
-		IResourceValidator validator = ppRunner.getPPResourceValidator();
-		long maxLinkTime = 0;
-		// Turn on for debugging particular files
-		// File slowCandidate = new File("/Users/henrik/gitrepos/forge-modules/jeffmccune-mockbuild/manifests/init.pp");
-
-		final CancelIndicator cancelMonitor = new CancelIndicator() {
-			@Override
-			public boolean isCanceled() {
-				return ticker.isCanceled();
-			}
-		};
-		for(Entry<File, Resource> r : loadPpResources(ticker).entrySet()) {
-			File f = r.getKey();
-			long beforeTime = System.currentTimeMillis();
-			boolean profileThis = false; // /* for debugging slow file */
-			// f.equals(slowCandidate);
-			if(options.isCheckReferences())
-				ppRunner.resolveCrossReferences(r.getValue(), profileThis, ticker);
-			long afterTime = System.currentTimeMillis();
-			if(afterTime - beforeTime > maxLinkTime) {
-				maxLinkTime = afterTime - beforeTime;
-			}
+	private Diagnostic validateLinked(File f, Resource r, String contentHash, ValidationCache cache, IResourceValidator validator,
+			final SubMonitor ticker) {
+		Diagnostic fileDiagnostics = new Diagnostic();
+		if(options.isValidationCandidate(f)) {
+			CancelIndicator cancelMonitor = new CancelIndicator() {
+				@Override
+				public boolean isCanceled() {
+					return ticker.isCanceled();
+				}
+			};
+			for(Issue issue : validate(validator, r, cancelMonitor))
+				ValidationServiceImpl.addPPIssueDiagnostic(fileDiagnostics, issue, f, root);
+		}
 
-			if(options.isValidationCandidate(f)) {
-				List<Issue> issues = validator.validate(r.getValue(), CheckMode.ALL, cancelMonitor);
-				for(Issue issue : issues)
-					addPPIssueDiagnostic(issue, f);
-			}
+		if(contentHash != null)
+			cache.put(f, cache.createEntry(contentHash, fileDiagnostics, PPImportedNamesAdapterFactory.eINSTANCE.adapt(r)));
+		return fileDiagnostics;
+	}
+
+	/**
+	 * Opens the validation cache if one has been configured, and indexes the exports of all loaded resources.
+	 *
+	 * @return The cache or <code>null</code> if no cache is used
+	 */
+	private ValidationCache openCache() {
+		File cacheDirectory = options.getCacheDirectory();
+		if(cacheDirectory == null)
+			return null;
+		ValidationCache cache = ValidationCache.open(cacheDirectory, root, ValidationCache.fingerprint(options));
+		cache.index(ppRunner.getAllExportedObjects(), metadataFiles);
+		return cache;
+	}
+
+	private void saveCache(ValidationCache cache) {
+		if(cache == null)
+			return;
+		try {
+			cache.save();
 		}
+		catch(IOException e) {
+			diagnostics.addChild(new ExceptionDiagnostic(
+				Diagnostic.WARNING, ValidationService.INTERNAL_ERROR, "Unable to save validation cache", e));
+		}
+	}
 
+	/**
+	 * Load all pp
+	 * crosslink and validate all. The diagnostics for each file are collected separately and added in the same order
+	 * regardless of whether the files are validated serially or in parallel.
+	 */
+	private void validatePpResources(final SubMonitor ticker) {
+		Map<File, Diagnostic> loadFailures = Maps.newHashMap();
+		Map<File, Resource> resources = loadPpResources(loadFailures, ticker);
+		ValidationCache cache = openCache();
+		Map<File, Diagnostic> resourceDiagnostics = linkAndValidateAll(resources, cache, ticker);
+		resourceDiagnostics.putAll(loadFailures);
+		ppResources = resources;
+		ppDiagnostics = resourceDiagnostics;
+		addPpDiagnostics(diagnostics);
+		saveCache(cache);
 	}
 
 	private void validateRubyFile(File f, SubMonitor ticker) {
@@ -0,0 +1,419 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
+import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapter;
+import com.puppetlabs.geppetto.pp.dsl.validation.IPotentialProblemsAdvisor;
+import com.puppetlabs.geppetto.pp.dsl.validation.ValidationPreference;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+
+/**
+ * A persistent cache of the outcome of linking and validating a .pp file. An entry is reused when the content of the
+ * file is unchanged and none of the exports that matched names imported by the file have changed. All entries are
+ * discarded when the options that affect validation, the pattern variables, or the module metadata change. Only files
+ * that are validation candidates are cached since the validation filter is not part of the options fingerprint.
+ * <p>
+ * The cache for one validation root is kept in a single file in the cache directory. Entries for files that were not
+ * validated in a run are dropped when the cache is saved.
+ * </p>
+ */
+class ValidationCache {
+	/**
+	 * The cached outcome for one file.
+	 */
+	static class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String contentHash;
+
+		private final String importSignature;
+
+		private final List<String> importedLastSegments;
+
+		private final List<List<String>> importedNames;
+
+		private final List<String> resolved;
+
+		private final List<String> ambiguous;
+
+		private final List<Diagnostic> diagnostics;
+
+		private Entry(String contentHash, String importSignature, List<String> importedLastSegments,
+				List<List<String>> importedNames, List<String> resolved, List<String> ambiguous, List<Diagnostic> diagnostics) {
+			this.contentHash = contentHash;
+			this.importSignature = importSignature;
+			this.importedLastSegments = importedLastSegments;
+			this.importedNames = importedNames;
+			this.resolved = resolved;
+			this.ambiguous = ambiguous;
+			this.diagnostics = diagnostics;
+		}
+
+		/**
+		 * @return The diagnostics produced for the file
+		 */
+		List<Diagnostic> getDiagnostics() {
+			return diagnostics;
+		}
+	}
+
+	private static class Content implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String fingerprint;
+
+		private String globalSignature;
+
+		private final HashMap<String, Entry> entries = Maps.newHashMap();
+
+		Content(String fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	/**
+	 * Increase when the format of the cache or the semantics of the validation changes in a way that is not
+	 * reflected by the fingerprint.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String CACHE_FILE_SUFFIX = ".validation-cache";
+
+	private static String describe(IEObjectDescription d) {
+		return d.getQualifiedName().toString() + ' ' + d.getEClass().getName() + ' ' + d.getEObjectURI();
+	}
+
+	/**
+	 * Computes a fingerprint of the options that affect the outcome of linking and validating a .pp file.
+	 *
+	 * @param options
+	 *            The options
+	 * @return The fingerprint
+	 */
+	static String fingerprint(ValidationOptions options) {
+		StringBuilder bld = new StringBuilder();
+		bld.append(FORMAT_VERSION);
+		bld.append('|').append(ValidationCache.class.getPackage().getImplementationVersion());
+		bld.append('|').append(options.getComplianceLevel());
+		bld.append('|').append(options.isCheckReferences());
+		bld.append('|').append(options.getSearchPath());
+		bld.append('|').append(options.getEnvironment());
+		bld.append('|').append(options.getManifestDir());
+		IPotentialProblemsAdvisor advisor = options.getProblemsAdvisor();
+		if(advisor != null) {
+			// Must list every preference of the advisor
+			ValidationPreference[] preferences = {
+					advisor.getAssignmentToVarNamedString(), advisor.getAssignmentToVarNamedTrusted(),
+					advisor.getAttributeIsNotString(), advisor.getBooleansInStringForm(),
+					advisor.getCaseDefaultShouldAppearLast(), advisor.getDeprecatedImport(),
+					advisor.getDeprecatedNodeInheritance(), advisor.getDeprecatedPlusEquals(),
+					advisor.getDeprecatedVariableName(), advisor.getDqStringNotRequired(),
+					advisor.getDqStringNotRequiredVariable(), advisor.getDuplicateParameter(),
+					advisor.getEnsureShouldAppearFirstInResource(), advisor.getInterpolatedNonBraceEnclosedHyphens(),
+					advisor.getMissingDefaultInSelector(), advisor.getMlComments(), advisor.getRightToLeftRelationships(),
+					advisor.getSelectorDefaultShouldAppearLast(), advisor.getUnbracedInterpolation(),
+					advisor.getUnquotedResourceTitles(), advisor.getValidityAssertedAtRuntime() };
+			for(ValidationPreference preference : preferences)
+				bld.append('|').append(preference);
+		}
+		return Hashing.sha1().hashString(bld, Charsets.UTF_8).toString();
+	}
+
+	/**
+	 * Opens the cache for the given validation root. A missing, unreadable, or outdated cache results in an empty
+	 * cache.
+	 *
+	 * @param cacheDirectory
+	 *            The directory where the cache is kept
+	 * @param root
+	 *            The validation root
+	 * @param fingerprint
+	 *            The fingerprint of the validation options
+	 * @return The cache
+	 */
+	static ValidationCache open(File cacheDirectory, File root, String fingerprint) {
+		String name = Hashing.sha1().hashString(root.getAbsolutePath(), Charsets.UTF_8).toString() + CACHE_FILE_SUFFIX;
+		File cacheFile = new File(cacheDirectory, name);
+		Content content = null;
+		if(cacheFile.isFile()) {
+			try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+				content = (Content) in.readObject();
+			}
+			catch(Exception e) {
+				// A corrupt or incompatible cache is simply ignored
+			}
+		}
+		if(content == null || !fingerprint.equals(content.fingerprint))
+			content = new Content(fingerprint);
+		return new ValidationCache(cacheFile, content);
+	}
+
+	private final File cacheFile;
+
+	private final Content previous;
+
+	private final Content current;
+
+	private Map<String, List<String>> exportsPerLastSegment = Collections.emptyMap();
+
+	private Map<String, IEObjectDescription> exportsPerURI = Collections.emptyMap();
+
+	private ValidationCache(File cacheFile, Content previous) {
+		this.cacheFile = cacheFile;
+		this.previous = previous;
+		this.current = new Content(previous.fingerprint);
+	}
+
+	/**
+	 * Creates an entry for a file that has been linked and validated. Files with unresolved references are not
+	 * cached since the diagnostics for such files contain proposals that depend on all exports.
+	 *
+	 * @param contentHash
+	 *            The hash of the file content
+	 * @param fileDiagnostics
+	 *            The diagnostics produced for the file
+	 * @param importedNames
+	 *            The names recorded during linking
+	 * @return The entry or <code>null</code> if the file can not be cached
+	 */
+	Entry createEntry(String contentHash, Diagnostic fileDiagnostics, PPImportedNamesAdapter importedNames) {
+		if(!importedNames.getUnresolved().isEmpty())
+			return null;
+
+		List<List<String>> names = Lists.newArrayList();
+		Collection<String> lastSegments = Sets.newTreeSet();
+		for(QualifiedName name : importedNames.getNames()) {
+			names.add(new ArrayList<String>(name.getSegments()));
+			if(name.getSegmentCount() > 0)
+				lastSegments.add(name.getLastSegment());
+		}
+
+		List<String> resolved = Lists.newArrayList();
+		for(IEObjectDescription d : importedNames.getResolvedDescriptions())
+			resolved.add(d.getEObjectURI().toString());
+
+		List<String> ambiguous = Lists.newArrayList();
+		for(IEObjectDescription d : importedNames.getAmbiguousDescriptions())
+			ambiguous.add(d.getEObjectURI().toString());
+
+		List<String> segmentList = new ArrayList<String>(lastSegments);
+		return new Entry(contentHash, importSignature(segmentList), segmentList, names, resolved, ambiguous, new ArrayList<Diagnostic>(
+			fileDiagnostics.getChildren()));
+	}
+
+	/**
+	 * Returns the entry for the given file if it is still valid.
+	 *
+	 * @param f
+	 *            The file
+	 * @param contentHash
+	 *            The hash of the current content of the file
+	 * @return The entry or <code>null</code> if the file must be linked and validated
+	 */
+	Entry get(File f, String contentHash) {
+		Entry entry;
+		synchronized(previous) {
+			entry = previous.entries.get(f.getAbsolutePath());
+		}
+		if(entry == null || !entry.contentHash.equals(contentHash) ||
+			!entry.importSignature.equals(importSignature(entry.importedLastSegments)))
+			return null;
+		return entry;
+	}
+
+	/**
+	 * Computes the hash of the content of the given file.
+	 *
+	 * @param f
+	 *            The file
+	 * @return The hash
+	 * @throws IOException
+	 */
+	String hash(File f) throws IOException {
+		return Files.hash(f, Hashing.sha1()).toString();
+	}
+
+	private String importSignature(List<String> lastSegments) {
+		Hasher hasher = Hashing.sha1().newHasher();
+		for(String lastSegment : lastSegments) {
+			hasher.putString(lastSegment, Charsets.UTF_8).putByte((byte) 0);
+			List<String> exports = exportsPerLastSegment.get(lastSegment);
+			if(exports != null)
+				for(String export : exports)
+					hasher.putString(export, Charsets.UTF_8).putByte((byte) 1);
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Indexes the exports of all loaded resources. Must be called once all resources have been loaded and before
+	 * entries are obtained or created. All entries of the previous run are discarded if the pattern variables or
+	 * the module metadata differ from that run.
+	 *
+	 * @param exports
+	 *            All exports of all loaded resources
+	 * @param metadataFiles
+	 *            The module metadata files
+	 */
+	void index(Iterable<IEObjectDescription> exports, Collection<File> metadataFiles) {
+		Map<String, List<String>> perLastSegment = Maps.newHashMap();
+		Map<String, IEObjectDescription> perURI = Maps.newHashMap();
+		List<String> patternVariables = Lists.newArrayList();
+		for(IEObjectDescription d : exports) {
+			perURI.put(d.getEObjectURI().toString(), d);
+			if(d.getQualifiedName().getSegmentCount() < 1)
+				continue;
+			if(d.getUserData(PPDSLConstants.VARIABLE_PATTERN) != null) {
+				patternVariables.add(describe(d) + ' ' + d.getUserData(PPDSLConstants.VARIABLE_PATTERN));
+				continue;
+			}
+			String lastSegment = d.getQualifiedName().getLastSegment();
+			List<String> list = perLastSegment.get(lastSegment);
+			if(list == null) {
+				list = Lists.newArrayList();
+				perLastSegment.put(lastSegment, list);
+			}
+			list.add(describe(d));
+		}
+
+		// The order of exports should not matter
+		for(List<String> list : perLastSegment.values())
+			Collections.sort(list);
+		Collections.sort(patternVariables);
+
+		Hasher hasher = Hashing.sha1().newHasher();
+		for(String patternVariable : patternVariables)
+			hasher.putString(patternVariable, Charsets.UTF_8).putByte((byte) 0);
+		List<File> sortedMetadataFiles = new ArrayList<File>(metadataFiles);
+		Collections.sort(sortedMetadataFiles);
+		for(File metadataFile : sortedMetadataFiles) {
+			hasher.putString(metadataFile.getAbsolutePath(), Charsets.UTF_8).putByte((byte) 0);
+			try {
+				hasher.putBytes(Files.hash(metadataFile, Hashing.sha1()).asBytes());
+			}
+			catch(IOException e) {
+				hasher.putByte((byte) 1);
+			}
+		}
+		String globalSignature = hasher.hash().toString();
+
+		exportsPerLastSegment = perLastSegment;
+		exportsPerURI = perURI;
+		current.globalSignature = globalSignature;
+		synchronized(previous) {
+			if(!globalSignature.equals(previous.globalSignature))
+				previous.entries.clear();
+		}
+	}
+
+	/**
+	 * Records the entry for the given file so that it is saved with the cache.
+	 *
+	 * @param f
+	 *            The file
+	 * @param entry
+	 *            The entry. May be <code>null</code> in which case nothing is recorded
+	 */
+	void put(File f, Entry entry) {
+		if(entry == null)
+			return;
+		synchronized(current) {
+			current.entries.put(f.getAbsolutePath(), entry);
+		}
+	}
+
+	/**
+	 * Restores the names recorded during linking of a file from a cached entry.
+	 *
+	 * @param entry
+	 *            The entry
+	 * @param importedNames
+	 *            The adapter to restore
+	 * @return <code>false</code> if a referenced export could not be found, in which case the file must be linked
+	 */
+	boolean restore(Entry entry, PPImportedNamesAdapter importedNames) {
+		List<IEObjectDescription> resolved = Lists.newArrayListWithCapacity(entry.resolved.size());
+		for(String uri : entry.resolved) {
+			IEObjectDescription d = exportsPerURI.get(uri);
+			if(d == null)
+				return false;
+			resolved.add(d);
+		}
+		List<IEObjectDescription> ambiguous = Lists.newArrayListWithCapacity(entry.ambiguous.size());
+		for(String uri : entry.ambiguous) {
+			IEObjectDescription d = exportsPerURI.get(uri);
+			if(d == null)
+				return false;
+			ambiguous.add(d);
+		}
+
+		importedNames.clear();
+		for(List<String> name : entry.importedNames)
+			importedNames.add(QualifiedName.create(name));
+		importedNames.addResolved(resolved);
+		importedNames.addAmbiguous(ambiguous);
+		return true;
+	}
+
+	/**
+	 * Writes the entries recorded during this run to the cache file. The file is first written to a temporary file
+	 * that then replaces the cache file.
+	 *
+	 * @throws IOException
+	 */
+	void save() throws IOException {
+		File dir = cacheFile.getParentFile();
+		if(!(dir.isDirectory() || dir.mkdirs()))
+			throw new IOException("Unable to create cache directory " + dir);
+
+		File tmp = File.createTempFile("geppetto", ".tmp", dir);
+		try {
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				synchronized(current) {
+					out.writeObject(current);
+				}
+			}
+			java.nio.file.Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			tmp.delete();
+		}
+	}
+}
@@ -45,6 +45,7 @@ import com.puppetlabs.geppetto.ruby.spi.IRubyServices;
 import com.puppetlabs.geppetto.validation.FileType;
 import com.puppetlabs.geppetto.validation.ValidationOptions;
 import com.puppetlabs.geppetto.validation.ValidationService;
+import com.puppetlabs.geppetto.validation.ValidationSession;
 import com.puppetlabs.geppetto.validation.runner.BuildResult;
 import com.puppetlabs.geppetto.validation.runner.DirectoryValidatorFactory;
 import com.puppetlabs.geppetto.validation.runner.ModuleInjections;
@@ -224,7 +225,7 @@ public class ValidationServiceImpl implements ValidationService {
 	@Inject
 	private ModuleInjections moduleInjections;
 
-	private void configureProviders(ValidationOptions options) {
+	void configureProviders(ValidationOptions options) {
 		advisorProvider.setComplianceLevel(options.getComplianceLevel());
 		advisorProvider.setProblemsAdvisor(options.getProblemsAdvisor());
 		fileExcluderProvider.setExcludeGlobs(options.getExcludeGlobs());
@@ -232,6 +233,36 @@ public class ValidationServiceImpl implements ValidationService {
 		moduleInjections.setOptions(options);
 	}
 
+	/**
+	 * Creates a validator for a directory. The validator is not shared with anyone else.
+	 *
+	 * @param diagnostics
+	 *            The chain that will receive diagnostics during validation
+	 * @param root
+	 *            The directory
+	 * @param options
+	 *            The validation options
+	 * @return The created validator
+	 * @throws Exception
+	 */
+	DirectoryValidatorImpl createDirectoryValidator(Diagnostic diagnostics, File root, ValidationOptions options) throws Exception {
+		return directoryValidatorFactory.create(diagnostics, root, options);
+	}
+
+	@Override
+	public ValidationSession createSession(Diagnostic diagnostics, ValidationOptions options, File root, IProgressMonitor monitor) {
+		if(diagnostics == null)
+			throw new IllegalArgumentException("diagnostics can not be null");
+		if(root == null)
+			throw new IllegalArgumentException("root can not be null");
+		if(!root.isDirectory())
+			throw new IllegalArgumentException("root is not a directory");
+
+		ValidationSessionImpl session = new ValidationSessionImpl(this, options, root);
+		session.validate(diagnostics, monitor);
+		return session;
+	}
+
 	private boolean hasModulesSubDirectory(File root) {
 		File modulesDir = new File(root, "modules");
 		return modulesDir.isDirectory();
@@ -296,7 +327,7 @@ public class ValidationServiceImpl implements ValidationService {
 			throw new IllegalArgumentException("source is not a directory as dictated by options");
 
 		try {
-			return directoryValidatorFactory.create(diagnostics, source, options).validateDirectory(monitor);
+			return createDirectoryValidator(diagnostics, source, options).validateDirectory(monitor);
 		}
 		catch(Exception e) {
 			addExceptionDiagnostic(diagnostics, "Internal Error: Exception while setting up pp diagnostics.", e);
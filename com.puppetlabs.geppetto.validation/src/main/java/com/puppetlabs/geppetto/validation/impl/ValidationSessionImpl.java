@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.impl;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.puppetlabs.geppetto.diagnostic.Diagnostic;
+import com.puppetlabs.geppetto.validation.ValidationOptions;
+import com.puppetlabs.geppetto.validation.ValidationSession;
+import com.puppetlabs.geppetto.validation.runner.BuildResult;
+
+/**
+ * A session that keeps the {@link DirectoryValidatorImpl} of the last complete validation, and with it the loaded
+ * resource set, index, and containers, so that changes can be validated incrementally.
+ */
+class ValidationSessionImpl implements ValidationSession {
+	private final ValidationServiceImpl service;
+
+	private final ValidationOptions options;
+
+	private final File root;
+
+	private DirectoryValidatorImpl validator;
+
+	private BuildResult buildResult;
+
+	ValidationSessionImpl(ValidationServiceImpl service, ValidationOptions options, File root) {
+		this.service = service;
+		this.options = options;
+		this.root = root;
+	}
+
+	@Override
+	public BuildResult getBuildResult() {
+		return buildResult;
+	}
+
+	@Override
+	public File getRoot() {
+		return root;
+	}
+
+	@Override
+	public BuildResult update(Diagnostic diagnostics, Collection<File> changedFiles, IProgressMonitor monitor) {
+		if(diagnostics == null)
+			throw new IllegalArgumentException("diagnostics can not be null");
+		if(changedFiles == null)
+			throw new IllegalArgumentException("changedFiles can not be null");
+
+		if(validator == null || !validator.canUpdate(changedFiles))
+			return validate(diagnostics, monitor);
+
+		// The providers are shared with other validations
+		service.configureProviders(options);
+		try {
+			buildResult = validator.update(diagnostics, changedFiles, monitor);
+		}
+		catch(OperationCanceledException e) {
+			// The state of the validator is unknown
+			validator = null;
+			throw e;
+		}
+		catch(Exception e) {
+			validator = null;
+			ValidationServiceImpl.addExceptionDiagnostic(diagnostics, "Internal Error: Exception while updating validation.", e);
+			buildResult = new BuildResult(false);
+		}
+		return buildResult;
+	}
+
+	/**
+	 * Performs a complete validation of the root directory.
+	 *
+	 * @param diagnostics
+	 *            Receives the diagnostics
+	 * @param monitor
+	 *            Monitor where progress is reported. Also used as cancellation mechanism
+	 * @return The build result
+	 */
+	BuildResult validate(Diagnostic diagnostics, IProgressMonitor monitor) {
+		validator = null;
+		service.configureProviders(options);
+		try {
+			DirectoryValidatorImpl newValidator = service.createDirectoryValidator(diagnostics, root, options);
+			buildResult = newValidator.validateDirectory(monitor);
+			validator = newValidator;
+		}
+		catch(OperationCanceledException e) {
+			throw e;
+		}
+		catch(Exception e) {
+			ValidationServiceImpl.addExceptionDiagnostic(diagnostics, "Internal Error: Exception while setting up pp diagnostics.", e);
+			buildResult = new BuildResult(false);
+		}
+		return buildResult;
+	}
+}
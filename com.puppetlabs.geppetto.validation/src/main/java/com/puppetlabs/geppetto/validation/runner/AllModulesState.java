@@ -12,8 +12,9 @@ package com.puppetlabs.geppetto.validation.runner;
 
 import java.io.File;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -27,7 +28,9 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -152,6 +155,155 @@ public class AllModulesState implements Serializable {
 
 	}
 
+	/**
+	 * An immutable index of a set of visible exports. The classes are indexed by name and the parameters by the name of
+	 * the class that declares them so that the queries answered by the index do not need to scan the exports. When
+	 * several classes have the same name, the one that comes first among the visible exports is used. The parameters
+	 * that an indexed class inherits are resolved once and then shared with all classes that inherit from it.
+	 */
+	public static class ExportIndex {
+		private final Map<String, Export> classes;
+
+		private final ListMultimap<String, Export> parameters;
+
+		private final Map<String, Map<String, Export>> resolvedParameters = Maps.newHashMap();
+
+		private List<ClassDescription> classDescriptions;
+
+		/**
+		 * Creates an index of the given exports.
+		 *
+		 * @param visibleExports
+		 *            - all exports to consider
+		 */
+		public ExportIndex(Iterable<Export> visibleExports) {
+			final EClass HostClassLiteral = PPPackage.Literals.HOST_CLASS_DEFINITION;
+			final EClass DefinitionArgumentLiteral = PPPackage.Literals.DEFINITION_ARGUMENT;
+			Map<String, Export> classMap = Maps.newLinkedHashMap();
+			ListMultimap<String, Export> parameterMap = ArrayListMultimap.create();
+			for(Export e : visibleExports) {
+				EClass eClass = e.getEClass();
+				if(HostClassLiteral.isSuperTypeOf(eClass)) {
+					String name = e.getName();
+					if(!classMap.containsKey(name))
+						classMap.put(name, e);
+				}
+				else if(DefinitionArgumentLiteral.isSuperTypeOf(eClass))
+					parameterMap.put(e.getNameWithoutLastSegment(), e);
+			}
+			classes = Collections.unmodifiableMap(classMap);
+			parameters = Multimaps.unmodifiableListMultimap(parameterMap);
+		}
+
+		/**
+		 * Returns the exported class with the given name.
+		 *
+		 * @param className
+		 *            the fqn of the wanted class
+		 * @return The class or <code>null</code> if no such class is visible
+		 */
+		public Export findClass(String className) {
+			return className == null
+				? null
+				: classes.get(className);
+		}
+
+		/**
+		 * Returns a description of each class and its parameters. The descriptions are created on first call.
+		 *
+		 * @return An unmodifiable list of class descriptions
+		 */
+		public synchronized List<ClassDescription> getClassDescriptions() {
+			if(classDescriptions == null) {
+				List<ClassDescription> result = Lists.newArrayListWithCapacity(classes.size());
+				for(Export c : classes.values())
+					result.add(new ClassDescription(c, getParameterMap(c)));
+				classDescriptions = Collections.unmodifiableList(result);
+			}
+			return classDescriptions;
+		}
+
+		/**
+		 * @return An unmodifiable collection of all indexed classes
+		 */
+		public Collection<Export> getClasses() {
+			return classes.values();
+		}
+
+		/**
+		 * Returns the parameters of the given class keyed by their unqualified name. The parameters of the class
+		 * itself are followed by the parameters that it inherits. A parameter of a class hides an inherited parameter
+		 * with the same name.
+		 *
+		 * @param exportedClass
+		 *            The class
+		 * @return An unmodifiable map of the parameters of the class
+		 */
+		public synchronized Map<String, Export> getParameterMap(Export exportedClass) {
+			Map<String, Export> result = resolveParameters(exportedClass, Sets.<String> newHashSet());
+			if(result != null)
+				return result;
+
+			// The inheritance is circular so the parameters depend on where the chain is entered
+			result = Maps.newLinkedHashMap();
+			Set<String> processed = Sets.newHashSet();
+			for(Export c = exportedClass; c != null && processed.add(c.getName()); c = getParent(c))
+				putParameters(parameters.get(c.getName()), result);
+			return Collections.unmodifiableMap(result);
+		}
+
+		/**
+		 * Returns the class that the given class inherits from.
+		 *
+		 * @param exportedClass
+		 *            The class
+		 * @return The parent class or <code>null</code> if the class does not inherit or if the parent is not visible
+		 */
+		public Export getParent(Export exportedClass) {
+			return findClass(exportedClass.getParentName());
+		}
+
+		private static void putParameters(Iterable<Export> classParameters, Map<String, Export> result) {
+			for(Export e : classParameters) {
+				String pName = e.getLastNameSegment();
+				if(!result.containsKey(pName))
+					result.put(pName, e);
+			}
+		}
+
+		/**
+		 * Resolves the parameters of a class and of the classes it inherits from. The result is cached when the class
+		 * is the indexed class with its name.
+		 *
+		 * @return The parameters or <code>null</code> if the inheritance is circular
+		 */
+		private Map<String, Export> resolveParameters(Export exportedClass, Set<String> processing) {
+			String className = exportedClass.getName();
+			boolean indexed = classes.get(className) == exportedClass;
+			if(indexed) {
+				Map<String, Export> resolved = resolvedParameters.get(className);
+				if(resolved != null)
+					return resolved;
+			}
+			if(!processing.add(className))
+				return null;
+
+			Map<String, Export> result = Maps.newLinkedHashMap();
+			putParameters(parameters.get(className), result);
+			Export parent = getParent(exportedClass);
+			if(parent != null) {
+				Map<String, Export> inherited = resolveParameters(parent, processing);
+				if(inherited == null)
+					return null;
+				putParameters(inherited.values(), result);
+			}
+			result = Collections.unmodifiableMap(result);
+			if(indexed)
+				resolvedParameters.put(className, result);
+			return result;
+		}
+	}
+
 	public static class ImportedName implements Serializable {
 		private static final long serialVersionUID = 1L;
 
@@ -165,7 +317,7 @@ public class AllModulesState implements Serializable {
 
 		private final int line;
 
-		private ImportedName(File f, String name, int line, int start, int length) {
+		ImportedName(File f, String name, int line, int start, int length) {
 			this.file = f;
 			this.name = name;
 			this.start = start;
@@ -195,6 +347,36 @@ public class AllModulesState implements Serializable {
 
 	}
 
+	/**
+	 * A live view of the exports visible to a module, or of all exports when the module is <code>null</code>. The
+	 * queries that are given such a view answer it from the shared {@link ExportIndex} of the module instead of
+	 * scanning the exports.
+	 */
+	private class VisibleExports implements Iterable<Export> {
+		private final File moduleDirectory;
+
+		VisibleExports(File moduleDirectory) {
+			this.moduleDirectory = moduleDirectory;
+		}
+
+		ExportIndex getIndex() {
+			return moduleDirectory == null
+				? getAllExportsIndex()
+				: getExportIndex(moduleDirectory);
+		}
+
+		AllModulesState getState() {
+			return AllModulesState.this;
+		}
+
+		@Override
+		public Iterator<Export> iterator() {
+			return (moduleDirectory == null
+				? getExportMap().values()
+				: computeVisibleExports(moduleDirectory)).iterator();
+		}
+	}
+
 	private static final long serialVersionUID = 1L;
 
 	private Multimap<File, Export> exportMap;
@@ -209,6 +391,18 @@ public class AllModulesState implements Serializable {
 
 	private Multimap<String, String> restricted;
 
+	private ContainerPathIndex containerIndex;
+
+	/**
+	 * Indexes of the visible exports of containers with restricted visibility, keyed by container
+	 */
+	private transient Map<String, ExportIndex> restrictedIndexes;
+
+	/**
+	 * Index of all exports, visible to all containers that are not restricted
+	 */
+	private transient ExportIndex allIndex;
+
 	private final static Multimap<File, Export> EmptyExports = ArrayListMultimap.create();
 
 	private final static Multimap<File, String> EmptyUnresolved = ArrayListMultimap.create();
@@ -224,27 +418,6 @@ public class AllModulesState implements Serializable {
 		restricted = Multimaps.unmodifiableMultimap(EmptyRestricted);
 	}
 
-	private Map<String, Export> _collectParameters(Set<String> processed, Map<String, Export> result, String className,
-			Map<String, Export> classes, Multimap<String, Export> parameters) {
-		// if there was no parent
-		if(className == null || className.length() < 1)
-			return result;
-		if(processed.contains(className))
-			return result; // circular
-		processed.add(className);
-
-		Export theClassExport = classes.get(className);
-		if(theClassExport == null)
-			return result;
-
-		for(Export e : parameters.get(className)) {
-			String pName = e.getLastNameSegment();
-			if(!result.containsKey(pName))
-				result.put(pName, e);
-		}
-		return _collectParameters(processed, result, theClassExport.getParentName(), classes, parameters);
-	}
-
 	/**
 	 * Add an ambiguity of e from exporting module to the importing module.
 	 *
@@ -278,6 +451,21 @@ public class AllModulesState implements Serializable {
 		if(exportMap == null)
 			exportMap = ArrayListMultimap.create();
 		exportMap.put(moduleDir, e);
+		clearIndexes();
+	}
+
+	/**
+	 * Add all exports in the given iterable from the given module. The indexes are invalidated once for the whole
+	 * batch.
+	 *
+	 * @param moduleDir
+	 * @param exports
+	 */
+	public void addExports(File moduleDir, Iterable<? extends Export> exports) {
+		if(exportMap == null)
+			exportMap = ArrayListMultimap.create();
+		exportMap.putAll(moduleDir, exports);
+		clearIndexes();
 	}
 
 	/**
@@ -303,6 +491,18 @@ public class AllModulesState implements Serializable {
 		imports.put(exportingModule, e);
 	}
 
+	/**
+	 * Add an unresolved name imported by the given module.
+	 *
+	 * @param importingModuleDir
+	 * @param importedName
+	 */
+	void addUnresolved(File importingModuleDir, ImportedName importedName) {
+		if(unresolvedImports == null)
+			unresolvedImports = ArrayListMultimap.create();
+		unresolvedImports.put(importingModuleDir, importedName);
+	}
+
 	/**
 	 * @param importingModuleDir
 	 * @param uri
@@ -327,24 +527,51 @@ public class AllModulesState implements Serializable {
 		}
 	}
 
-	private Map<String, Export> collectParameters(String className, Map<String, Export> classes, Multimap<String, Export> parameters) {
-		Map<String, Export> result = Maps.newHashMap();
-		Set<String> processed = Sets.newHashSet();
-		return _collectParameters(processed, result, className, classes, parameters);
+	private synchronized void clearIndexes() {
+		restrictedIndexes = null;
+		allIndex = null;
+	}
+
+	private Iterable<Export> computeVisibleExports(File moduleDirectory) {
+		// make absolute if relative and not _pptp
+		String containerKey = file2ContainerKey(moduleDirectory);
+
+		// restricted returns iterator over lookup of all visible handles
+		if(restricted.containsKey(containerKey)) {
+			Iterable<String> r = restricted.get(containerKey);
+			return Iterables.concat(Iterables.transform(r, new Function<String, Iterable<Export>>() {
+
+				@Override
+				public Iterable<Export> apply(String from) {
+					return getExportMap().get(new File(from));
+				}
+			}));
+		}
+		return getExportMap().values();
 	}
 
 	private String file2ContainerKey(File f) {
 		String path = f.getPath();
-		if(!(path.equals("_pptp") || f.isAbsolute()))
-			f = new File(root, path);
+		if(path.equals("_pptp"))
+			return path;
 
-		return f.getPath();
+		if(!f.isAbsolute())
+			path = new File(root, path).getPath();
 
+		// a file within a module belongs to the container of that module
+		if(containerIndex != null && !containerIndex.contains(path)) {
+			String container = containerIndex.getContainer(path);
+			if(container != null)
+				return container;
+		}
+		return path;
 	}
 
 	/**
 	 * Returns an exported class with the given name, or null if no such class
-	 * can be found.
+	 * can be found. When several classes have the same name, the first one among the exports is returned. Exports
+	 * obtained from {@link #getVisibleExports(File)} or {@link #getAllExported()} are looked up in the shared
+	 * {@link ExportIndex}, any other exports are scanned.
 	 *
 	 * @param className
 	 *            the fqn of the wanted class
@@ -355,6 +582,9 @@ public class AllModulesState implements Serializable {
 	public Export findExportedClass(String className, Iterable<Export> visibleExports) {
 		if(className == null || className.length() < 1)
 			return null;
+		ExportIndex index = getSharedIndex(visibleExports);
+		if(index != null)
+			return index.findClass(className);
 		final EClass HostClassLiteral = PPPackage.Literals.HOST_CLASS_DEFINITION;
 		for(Export e : visibleExports) {
 			if(HostClassLiteral.isSuperTypeOf(e.getEClass()) && className.equals(e.getName()))
@@ -369,7 +599,13 @@ public class AllModulesState implements Serializable {
 	 * @return
 	 */
 	public Iterable<Export> getAllExported() {
-		return getExportMap().values();
+		return new VisibleExports(null);
+	}
+
+	private synchronized ExportIndex getAllExportsIndex() {
+		if(allIndex == null)
+			allIndex = new ExportIndex(getExportMap().values());
+		return allIndex;
 	}
 
 	/**
@@ -386,25 +622,18 @@ public class AllModulesState implements Serializable {
 
 	}
 
+	/**
+	 * Returns a description of each class among the given exports in the order in which the classes first appear.
+	 * When several classes have the same name, the first one is described. Exports obtained from
+	 * {@link #getVisibleExports(File)} or {@link #getAllExported()} are described by the shared {@link ExportIndex},
+	 * any other exports are indexed on each call.
+	 *
+	 * @param visibleExports
+	 *            - all exports to consider
+	 * @return
+	 */
 	public List<ClassDescription> getClassDescriptions(Iterable<Export> visibleExports) {
-		ArrayList<ClassDescription> result = Lists.newArrayList();
-		final EClass HostClassLiteral = PPPackage.Literals.HOST_CLASS_DEFINITION;
-		final EClass DefinitionArgumentLiteral = PPPackage.Literals.DEFINITION_ARGUMENT;
-		final Map<String, Export> classes = Maps.newHashMap();
-		final Multimap<String, Export> parameters = ArrayListMultimap.create();
-		for(Export e : visibleExports) {
-			EClass eClass = e.getEClass();
-			if(HostClassLiteral.isSuperTypeOf(eClass)) {
-				classes.put(e.getName(), e);
-			}
-			else if(DefinitionArgumentLiteral.isSuperTypeOf(eClass)) {
-				parameters.put(e.getNameWithoutLastSegment(), e);
-			}
-		}
-		for(String className : classes.keySet())
-			result.add(new ClassDescription(classes.get(className), //
-				collectParameters(className, classes, parameters)));
-		return result;
+		return Lists.newArrayList(getIndex(visibleExports).getClassDescriptions());
 	}
 
 	/**
@@ -429,6 +658,32 @@ public class AllModulesState implements Serializable {
 		});
 	}
 
+	/**
+	 * Returns the index of the exports visible to code in the given module. The index is created on first request and
+	 * is shared by all modules with the same visibility. See {@link #getVisibleExports(File)} for how the module
+	 * directory is interpreted.
+	 *
+	 * @param moduleDirectory
+	 * @return The index of the visible exports
+	 */
+	public synchronized ExportIndex getExportIndex(File moduleDirectory) {
+		String containerKey = file2ContainerKey(moduleDirectory);
+		if(!restricted.containsKey(containerKey))
+			return getAllExportsIndex();
+		if(restrictedIndexes == null)
+			restrictedIndexes = Maps.newHashMap();
+		ExportIndex index = restrictedIndexes.get(containerKey);
+		if(index == null) {
+			index = new ExportIndex(computeVisibleExports(moduleDirectory));
+			restrictedIndexes.put(containerKey, index);
+		}
+		return index;
+	}
+
+	ContainerPathIndex getContainerIndex() {
+		return containerIndex;
+	}
+
 	/**
 	 * Returns an unmodifiable {@link Multimap} containing exports per File,
 	 * where a given File is a reference to a module directory.
@@ -468,6 +723,17 @@ public class AllModulesState implements Serializable {
 
 	}
 
+	/**
+	 * Returns the shared index of the given exports, or an index created for this call when the exports are not a
+	 * view obtained from this instance.
+	 */
+	private ExportIndex getIndex(Iterable<Export> visibleExports) {
+		ExportIndex index = getSharedIndex(visibleExports);
+		return index != null
+			? index
+			: new ExportIndex(visibleExports);
+	}
+
 	public Iterable<String> getParameterNames(Export exportedClass, Iterable<Export> visibleExports) {
 		return Iterables.transform(getParameters(exportedClass, visibleExports), new Function<Export, String>() {
 
@@ -479,34 +745,19 @@ public class AllModulesState implements Serializable {
 		});
 	}
 
+	/**
+	 * Returns the parameters of the given class followed by the parameters that it inherits. A parameter of a class
+	 * hides an inherited parameter with the same name. Exports obtained from {@link #getVisibleExports(File)} or
+	 * {@link #getAllExported()} are resolved by the shared {@link ExportIndex}, any other exports are indexed on each
+	 * call.
+	 *
+	 * @param exportedClass
+	 * @param visibleExports
+	 *            - all exports to consider
+	 * @return
+	 */
 	public Iterable<Export> getParameters(Export exportedClass, Iterable<Export> visibleExports) {
-		// figure out which parameters to include
-		final List<Export> classes = Lists.newArrayList();
-		for(Export parent = exportedClass; parent != null; parent = findExportedClass(parent.getParentName(), visibleExports)) {
-			if(classes.contains(parent))
-				break; // circular
-			classes.add(parent);
-		}
-		final EClass DefinitionArgumentLiteral = PPPackage.Literals.DEFINITION_ARGUMENT;
-		final Map<String, Export> parameters = Maps.newHashMap();
-		// final List<Export> parameters = Lists.newArrayList();
-		for(Export e : visibleExports) {
-			if(!DefinitionArgumentLiteral.isSuperTypeOf(e.getEClass()))
-				continue;
-			for(Export c : classes)
-				if(e.getName().startsWith(c.getName())) {
-					String lastSegment = e.getLastNameSegment();
-					// String lastSegment =
-					// lastSegmentOfQualifiedName(e.getName());
-					if(parameters.get(lastSegment) == null)
-						parameters.put(e.getLastNameSegment(), e);
-					// parameters.put(lastSegmentOfQualifiedName(e.getName()),
-					// e);
-				}
-
-		}
-		return parameters.values();
-
+		return getIndex(visibleExports).getParameterMap(exportedClass).values();
 	}
 
 	/**
@@ -520,6 +771,16 @@ public class AllModulesState implements Serializable {
 		return restricted;
 	}
 
+	/**
+	 * @return The shared index of the given exports or <code>null</code> if they are not a view obtained from this
+	 *         instance
+	 */
+	private ExportIndex getSharedIndex(Iterable<Export> visibleExports) {
+		return visibleExports instanceof VisibleExports && ((VisibleExports) visibleExports).getState() == this
+			? ((VisibleExports) visibleExports).getIndex()
+			: null;
+	}
+
 	/**
 	 * Returns the root to use for relative lookups
 	 *
@@ -536,6 +797,8 @@ public class AllModulesState implements Serializable {
 	 * @return
 	 */
 	public Multimap<File, ImportedName> getUnresolved() {
+		if(unresolvedImports == null)
+			return ImmutableMultimap.of();
 		return Multimaps.unmodifiableMultimap(unresolvedImports);
 	}
 
@@ -564,30 +827,18 @@ public class AllModulesState implements Serializable {
 	/**
 	 * Returns the exports visible to code in the given module. The
 	 * moduleDirectory may be relative in which case the root must have been
-	 * set. If module directory path is the special "_pptp" the content of the
+	 * set. A file within a module directory denotes that module once the
+	 * container index has been set. If module directory path is the special "_pptp" the content of the
 	 * target platform is obtained. If the moduleDirectory is the root path, all
 	 * non modular exports (from manifests and target contributions from ruby
-	 * code) not in any module.
+	 * code) not in any module. The returned iterable is a live view that the
+	 * query methods of this class answer from the shared {@link #getExportIndex(File) index} of the module.
 	 *
 	 * @param moduleDirectory
 	 * @return
 	 */
 	public Iterable<Export> getVisibleExports(File moduleDirectory) {
-		// make absolute if relative and not _pptp
-		String containerKey = file2ContainerKey(moduleDirectory);
-
-		// restricted returns iterator over lookup of all visible handles
-		if(restricted.containsKey(containerKey)) {
-			Iterable<String> r = restricted.get(containerKey);
-			return Iterables.concat(Iterables.transform(r, new Function<String, Iterable<Export>>() {
-
-				@Override
-				public Iterable<Export> apply(String from) {
-					return getExportMap().get(new File(from));
-				}
-			}));
-		}
-		return getExportMap().values();
+		return new VisibleExports(moduleDirectory);
 	}
 
 	/**
@@ -603,10 +854,19 @@ public class AllModulesState implements Serializable {
 
 	}
 
+	/**
+	 * Sets the index used to find the module container of files that are not module directories.
+	 */
+	public void setContainerIndex(ContainerPathIndex containerIndex) {
+		this.containerIndex = containerIndex;
+		clearIndexes();
+	}
+
 	public void setRestricted(Multimap<String, String> restricted) {
 		if(restricted == null)
 			throw new IllegalArgumentException("null 'restricted'");
 		this.restricted = Multimaps.unmodifiableMultimap(restricted);
+		clearIndexes();
 	}
 
 	/**
@@ -614,7 +874,7 @@ public class AllModulesState implements Serializable {
 	 */
 	public void setRoot(File root) {
 		this.root = root;
-
+		clearIndexes();
 	}
 
 }
@@ -11,6 +11,7 @@
 package com.puppetlabs.geppetto.validation.runner;
 
 import com.google.common.collect.Multimap;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary;
 import com.puppetlabs.geppetto.forge.model.ModuleName;
 
 /**
@@ -26,6 +27,8 @@ public class BuildResult {
 
 	private Multimap<ModuleName, MetadataInfo> moduleData;
 
+	private MetricsSummary metricsSummary;
+
 	public BuildResult(boolean rubyAvailable) {
 		this.rubyServicesAvailable = rubyAvailable;
 	}
@@ -34,6 +37,15 @@ public class BuildResult {
 		return allModuleReferences;
 	}
 
+	/**
+	 * Get a summary of the metrics collected during the build, or null if metrics were not collected.
+	 *
+	 * @return
+	 */
+	public MetricsSummary getMetricsSummary() {
+		return metricsSummary;
+	}
+
 	public Multimap<ModuleName, MetadataInfo> getModuleData() {
 		return moduleData;
 	}
@@ -56,6 +68,10 @@ public class BuildResult {
 		this.allModuleReferences = allReferences;
 	}
 
+	public void setMetricsSummary(MetricsSummary metricsSummary) {
+		this.metricsSummary = metricsSummary;
+	}
+
 	public void setModuleData(Multimap<ModuleName, MetadataInfo> moduleData) {
 		this.moduleData = moduleData;
 	}
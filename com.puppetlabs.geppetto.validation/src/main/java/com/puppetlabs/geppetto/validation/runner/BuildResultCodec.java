@@ -0,0 +1,835 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.gson.Gson;
+import com.puppetlabs.geppetto.common.tracer.MetricsSummary;
+import com.puppetlabs.geppetto.forge.client.GsonModule;
+import com.puppetlabs.geppetto.forge.model.Dependency;
+import com.puppetlabs.geppetto.forge.model.Metadata;
+import com.puppetlabs.geppetto.forge.model.ModuleName;
+import com.puppetlabs.geppetto.forge.model.NamedDocItem;
+import com.puppetlabs.geppetto.forge.model.Type;
+import com.puppetlabs.geppetto.pp.PPPackage;
+import com.puppetlabs.geppetto.pp.pptp.PPTPPackage;
+import com.puppetlabs.geppetto.semver.VersionRange;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.Export;
+import com.puppetlabs.geppetto.validation.runner.AllModulesState.ImportedName;
+import com.puppetlabs.geppetto.validation.runner.MetadataInfo.Resolution;
+import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Rakefile;
+import com.puppetlabs.geppetto.validation.runner.RakefileInfo.Raketask;
+
+/**
+ * <p>
+ * A compact binary codec for a {@link BuildResult} and the {@link AllModulesState}, {@link MetadataInfo} and
+ * {@link RakefileInfo} that it holds. The codec does not use Java serialization and works with any {@link Export}
+ * implementation. Decoded exports are detached from the resources that they were created from.
+ * </p>
+ * <p>
+ * The stream starts with a magic number followed by the format version. Integers are written as variable length
+ * quantities so that small values such as offsets and counts occupy a single byte. Strings are written in full the
+ * first time they occur and as a reference into a table of previously written strings after that. The qualified name
+ * of an export is only written when it cannot be joined from its segments. Exports and
+ * metadata infos that are referenced more than once are written once and then referenced the same way. The stream is
+ * written and read in one pass.
+ * </p>
+ * <p>
+ * Forge model objects (metadata, types and functions) are written as JSON using the Forge {@link Gson} instance.
+ * </p>
+ */
+public class BuildResultCodec {
+	/**
+	 * Reads the stream produced by a {@link Encoder}
+	 */
+	private static class Decoder {
+		private static <T> T getReference(List<T> table, int ref, String kind) throws IOException {
+			int index = ref - FIRST_REF;
+			if(index < 0 || index >= table.size())
+				throw new IOException("Malformed build result: reference to unknown " + kind + ' ' + index);
+			return table.get(index);
+		}
+
+		private final InputStream in;
+
+		private final List<String> strings = new ArrayList<String>();
+
+		private final Map<String, File> files = Maps.newHashMap();
+
+		private final List<Export> exports = new ArrayList<Export>();
+
+		private final List<MetadataInfo> metadataInfos = new ArrayList<MetadataInfo>();
+
+		Decoder(InputStream in) {
+			this.in = in;
+		}
+
+		private boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		private int readByte() throws IOException {
+			int b = in.read();
+			if(b < 0)
+				throw new EOFException();
+			return b;
+		}
+
+		private BuildResult readBuildResult() throws IOException {
+			BuildResult result = new BuildResult(readBoolean());
+			if(readBoolean())
+				result.setAllModuleReferences(readState());
+			if(readBoolean())
+				result.setRakefileInfo(readRakefileInfo());
+			if(readBoolean()) {
+				Multimap<ModuleName, MetadataInfo> moduleData = ArrayListMultimap.create();
+				for(int keyCount = readInt(); keyCount > 0; --keyCount) {
+					ModuleName name = readModuleName();
+					for(int count = readInt(); count > 0; --count)
+						moduleData.put(name, readMetadataInfo());
+				}
+				result.setModuleData(moduleData);
+			}
+			if(readBoolean())
+				result.setMetricsSummary(readMetricsSummary());
+			return result;
+		}
+
+		private Dependency readDependency() throws IOException {
+			Dependency dependency = new Dependency();
+			dependency.setName(readModuleName());
+			String versionRequirement = readString();
+			if(versionRequirement != null)
+				dependency.setVersionRequirement(VersionRange.create(versionRequirement));
+			dependency.setRepository(readString());
+			return dependency;
+		}
+
+		private EClass readEClass() throws IOException {
+			String nsURI = readString();
+			String name = readString();
+			EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+			EClassifier eClass = ePackage == null
+				? null
+				: ePackage.getEClassifier(name);
+			if(!(eClass instanceof EClass))
+				throw new IOException("Unknown EClass " + nsURI + '#' + name);
+			return (EClass) eClass;
+		}
+
+		private Export readExport() throws IOException {
+			int ref = readInt();
+			if(ref == NULL_REF)
+				return null;
+			if(ref != NEW_REF)
+				return getReference(exports, ref, "export");
+
+			EClass eClass = readEClass();
+			File file = readFile();
+			String nameWithoutLastSegment = readString();
+			String lastNameSegment = readString();
+			String name = readInt() == JOINED_NAME
+				? joinName(nameWithoutLastSegment, lastNameSegment)
+				: readString();
+			String parentName = readString();
+			String defaultValueText = readString();
+			int start = readSignedInt();
+			int line = readSignedInt();
+			int length = readSignedInt();
+			Export export = new StoredExport(
+				eClass, file, name, nameWithoutLastSegment, lastNameSegment, parentName, defaultValueText, start, line, length);
+			exports.add(export);
+			return export;
+		}
+
+		private File readFile() throws IOException {
+			String path = readString();
+			if(path == null)
+				return null;
+			File file = files.get(path);
+			if(file == null) {
+				file = new File(path);
+				files.put(path, file);
+			}
+			return file;
+		}
+
+		private void readHeader() throws IOException {
+			int magic = readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+			if(magic != MAGIC)
+				throw new IOException("Not an encoded build result");
+			int version = readInt();
+			if(version != VERSION)
+				throw new IOException("Unsupported build result format version " + version);
+		}
+
+		private int readInt() throws IOException {
+			long value = readLong();
+			if(value > Integer.MAX_VALUE)
+				throw new IOException("Integer value out of range");
+			return (int) value;
+		}
+
+		private <T> T readJson(Class<T> type) throws IOException {
+			return gson.fromJson(readRawString(), type);
+		}
+
+		private long readLong() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7f) << shift;
+				if((b & 0x80) == 0)
+					return value;
+			}
+			throw new IOException("Malformed variable length quantity");
+		}
+
+		private MetadataInfo readMetadataInfo() throws IOException {
+			int ref = readInt();
+			if(ref == NULL_REF)
+				return null;
+			if(ref != NEW_REF)
+				return getReference(metadataInfos, ref, "metadata info");
+
+			File file = readFile();
+			boolean role = readBoolean();
+			MetadataInfo info = new MetadataInfo(readJson(Metadata.class), file, role);
+
+			// Register before the resolutions since dependencies may be circular
+			metadataInfos.add(info);
+			for(int count = readInt(); count > 0; --count)
+				info.addType(readJson(Type.class));
+			for(int count = readInt(); count > 0; --count)
+				info.addFunction(readJson(NamedDocItem.class));
+			for(int count = readInt(); count > 0; --count)
+				info.addUnresolvedDependency(readDependency());
+			for(int count = readInt(); count > 0; --count) {
+				Dependency dependency = readDependency();
+				info.addResolvedDependency(dependency, readMetadataInfo());
+			}
+			return info;
+		}
+
+		private ModuleName readModuleName() throws IOException {
+			if(!readBoolean())
+				return null;
+			String owner = readString();
+			return ModuleName.create(owner, readString(), false);
+		}
+
+		private MetricsSummary readMetricsSummary() throws IOException {
+			int count = readInt();
+			List<MetricsSummary.Entry> entries = new ArrayList<MetricsSummary.Entry>(count);
+			while(--count >= 0) {
+				String name = readString();
+				String kindName = readString();
+				MetricsSummary.Kind kind;
+				try {
+					kind = MetricsSummary.Kind.valueOf(kindName);
+				}
+				catch(RuntimeException e) {
+					throw new IOException("Malformed build result: unknown metrics kind " + kindName);
+				}
+				entries.add(new MetricsSummary.Entry(
+					name, kind, readLong(), readLong(), readLong(), readLong(), readLong(), readLong(), readLong()));
+			}
+			return new MetricsSummary(entries);
+		}
+
+		private RakefileInfo readRakefileInfo() throws IOException {
+			RakefileInfo rakefileInfo = new RakefileInfo();
+			for(int count = readInt(); count > 0; --count) {
+				Rakefile rakefile = new Rakefile(Path.fromPortableString(readString()));
+				for(int taskCount = readInt(); taskCount > 0; --taskCount)
+					rakefile.addTask(new Raketask(readString(), readString()));
+				rakefileInfo.addRakefile(rakefile);
+			}
+			return rakefileInfo;
+		}
+
+		private String readRawString() throws IOException {
+			int length = readInt();
+			if(length < 0)
+				throw new IOException("Malformed build result: negative string length");
+			// The buffer grows with the bytes actually read so that a corrupt length ends the stream instead of
+			// being allocated up front
+			byte[] bytes = new byte[Math.min(length, STRING_CHUNK_SIZE)];
+			for(int offset = 0; offset < length;) {
+				if(offset == bytes.length)
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * offset));
+				int count = in.read(bytes, offset, bytes.length - offset);
+				if(count < 0)
+					throw new EOFException("Malformed build result: string length " + length + " exceeds the stream");
+				offset += count;
+			}
+			return new String(bytes, Charsets.UTF_8);
+		}
+
+		private int readSignedInt() throws IOException {
+			int value = (int) readLong();
+			return value >>> 1 ^ -(value & 1);
+		}
+
+		private AllModulesState readState() throws IOException {
+			AllModulesState state = new AllModulesState();
+			state.setRoot(readFile());
+			for(int moduleCount = readInt(); moduleCount > 0; --moduleCount) {
+				File module = readFile();
+				List<Export> moduleExports = new ArrayList<Export>();
+				for(int count = readInt(); count > 0; --count)
+					moduleExports.add(readExport());
+				state.addExports(module, moduleExports);
+			}
+			for(int importerCount = readInt(); importerCount > 0; --importerCount) {
+				File importer = readFile();
+				for(int exporterCount = readInt(); exporterCount > 0; --exporterCount) {
+					File exporter = readFile();
+					for(int count = readInt(); count > 0; --count)
+						state.addImport(importer, exporter, readExport());
+				}
+			}
+			for(int importerCount = readInt(); importerCount > 0; --importerCount) {
+				File importer = readFile();
+				for(int exporterCount = readInt(); exporterCount > 0; --exporterCount) {
+					File exporter = readFile();
+					for(int count = readInt(); count > 0; --count)
+						state.addAmbiguity(importer, exporter, readExport());
+				}
+			}
+			for(int importerCount = readInt(); importerCount > 0; --importerCount) {
+				File importer = readFile();
+				for(int count = readInt(); count > 0; --count) {
+					File file = readFile();
+					String name = readString();
+					int line = readSignedInt();
+					int start = readSignedInt();
+					int length = readSignedInt();
+					state.addUnresolved(importer, new ImportedName(file, name, line, start, length));
+				}
+			}
+			Multimap<String, String> restricted = ArrayListMultimap.create();
+			for(int keyCount = readInt(); keyCount > 0; --keyCount) {
+				String container = readString();
+				for(int count = readInt(); count > 0; --count)
+					restricted.put(container, readString());
+			}
+			state.setRestricted(restricted);
+			if(readBoolean()) {
+				ContainerPathIndex containerIndex = new ContainerPathIndex();
+				for(int count = readInt(); count > 0; --count)
+					containerIndex.add(readString());
+				state.setContainerIndex(containerIndex);
+			}
+			return state;
+		}
+
+		private String readString() throws IOException {
+			int ref = readInt();
+			if(ref == NULL_REF)
+				return null;
+			if(ref != NEW_REF)
+				return getReference(strings, ref, "string");
+			String str = readRawString();
+			strings.add(str);
+			return str;
+		}
+	}
+
+	/**
+	 * An export that holds all its values. This is the result of decoding an export.
+	 */
+	private static class StoredExport implements Export {
+		private static final long serialVersionUID = 1L;
+
+		private final EClass eClass;
+
+		private final File file;
+
+		private final String name;
+
+		private final String nameWithoutLastSegment;
+
+		private final String lastNameSegment;
+
+		private final String parentName;
+
+		private final String defaultValueText;
+
+		private final int start;
+
+		private final int line;
+
+		private final int length;
+
+		StoredExport(EClass eClass, File file, String name, String nameWithoutLastSegment, String lastNameSegment, String parentName,
+				String defaultValueText, int start, int line, int length) {
+			this.eClass = eClass;
+			this.file = file;
+			this.name = name;
+			this.nameWithoutLastSegment = nameWithoutLastSegment;
+			this.lastNameSegment = lastNameSegment;
+			this.parentName = parentName;
+			this.defaultValueText = defaultValueText;
+			this.start = start;
+			this.line = line;
+			this.length = length;
+		}
+
+		@Override
+		public String getDefaultValueText() {
+			return defaultValueText;
+		}
+
+		@Override
+		public EClass getEClass() {
+			return eClass;
+		}
+
+		@Override
+		public File getFile() {
+			return file;
+		}
+
+		@Override
+		public String getLastNameSegment() {
+			return lastNameSegment;
+		}
+
+		@Override
+		public int getLength() {
+			return length;
+		}
+
+		@Override
+		public int getLine() {
+			return line;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getNameWithoutLastSegment() {
+			return nameWithoutLastSegment;
+		}
+
+		@Override
+		public String getParentName() {
+			return parentName;
+		}
+
+		@Override
+		public int getStart() {
+			return start;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Writes the stream read by a {@link Decoder}
+	 */
+	private static class Encoder {
+		private final OutputStream out;
+
+		private final Map<String, Integer> strings = Maps.newHashMap();
+
+		private final Map<Export, Integer> exports = new IdentityHashMap<Export, Integer>();
+
+		private final Map<MetadataInfo, Integer> metadataInfos = new IdentityHashMap<MetadataInfo, Integer>();
+
+		Encoder(OutputStream out) {
+			this.out = out;
+		}
+
+		private void writeBoolean(boolean flag) throws IOException {
+			out.write(flag
+				? 1
+				: 0);
+		}
+
+		private void writeBuildResult(BuildResult result) throws IOException {
+			writeBoolean(result.isRubyServicesAvailable());
+			AllModulesState state = result.getAllModuleReferences();
+			writeBoolean(state != null);
+			if(state != null)
+				writeState(state);
+			RakefileInfo rakefileInfo = result.getRakefileInfo();
+			writeBoolean(rakefileInfo != null);
+			if(rakefileInfo != null)
+				writeRakefileInfo(rakefileInfo);
+			Multimap<ModuleName, MetadataInfo> moduleData = result.getModuleData();
+			writeBoolean(moduleData != null);
+			if(moduleData != null) {
+				Map<ModuleName, Collection<MetadataInfo>> infoMap = moduleData.asMap();
+				writeInt(infoMap.size());
+				for(Map.Entry<ModuleName, Collection<MetadataInfo>> entry : infoMap.entrySet()) {
+					writeModuleName(entry.getKey());
+					writeInt(entry.getValue().size());
+					for(MetadataInfo info : entry.getValue())
+						writeMetadataInfo(info);
+				}
+			}
+			MetricsSummary metricsSummary = result.getMetricsSummary();
+			writeBoolean(metricsSummary != null);
+			if(metricsSummary != null)
+				writeMetricsSummary(metricsSummary);
+		}
+
+		private void writeDependency(Dependency dependency) throws IOException {
+			writeModuleName(dependency.getName());
+			VersionRange versionRequirement = dependency.getVersionRequirement();
+			writeString(versionRequirement == null
+				? null
+				: versionRequirement.toString());
+			writeString(dependency.getRepository());
+		}
+
+		private void writeExport(Export export) throws IOException {
+			if(export == null) {
+				writeInt(NULL_REF);
+				return;
+			}
+			Integer ref = exports.get(export);
+			if(ref != null) {
+				writeInt(ref.intValue());
+				return;
+			}
+			exports.put(export, Integer.valueOf(FIRST_REF + exports.size()));
+			writeInt(NEW_REF);
+			EClass eClass = export.getEClass();
+			writeString(eClass.getEPackage().getNsURI());
+			writeString(eClass.getName());
+			writeFile(export.getFile());
+			String name = export.getName();
+			String nameWithoutLastSegment = export.getNameWithoutLastSegment();
+			String lastNameSegment = export.getLastNameSegment();
+			writeString(nameWithoutLastSegment);
+			writeString(lastNameSegment);
+			if(name != null && name.equals(joinName(nameWithoutLastSegment, lastNameSegment)))
+				writeInt(JOINED_NAME);
+			else {
+				writeInt(EXPLICIT_NAME);
+				writeString(name);
+			}
+			writeString(export.getParentName());
+			writeString(export.getDefaultValueText());
+			writeSignedInt(export.getStart());
+			writeSignedInt(export.getLine());
+			writeSignedInt(export.getLength());
+		}
+
+		private void writeExportMap(Map<File, Multimap<File, Export>> exportMap) throws IOException {
+			writeInt(exportMap.size());
+			for(Map.Entry<File, Multimap<File, Export>> importer : exportMap.entrySet()) {
+				writeFile(importer.getKey());
+				Map<File, Collection<Export>> exporters = importer.getValue().asMap();
+				writeInt(exporters.size());
+				for(Map.Entry<File, Collection<Export>> exporter : exporters.entrySet()) {
+					writeFile(exporter.getKey());
+					writeInt(exporter.getValue().size());
+					for(Export export : exporter.getValue())
+						writeExport(export);
+				}
+			}
+		}
+
+		private void writeFile(File file) throws IOException {
+			writeString(file == null
+				? null
+				: file.getPath());
+		}
+
+		private void writeHeader() throws IOException {
+			out.write(MAGIC >>> 24);
+			out.write(MAGIC >>> 16);
+			out.write(MAGIC >>> 8);
+			out.write(MAGIC);
+			writeInt(VERSION);
+		}
+
+		private void writeInt(int value) throws IOException {
+			writeLong(value & 0xffffffffL);
+		}
+
+		private void writeJson(Object value) throws IOException {
+			writeRawString(gson.toJson(value));
+		}
+
+		private void writeLong(long value) throws IOException {
+			while((value & ~0x7fL) != 0) {
+				out.write((int) (value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			out.write((int) value);
+		}
+
+		private void writeMetadataInfo(MetadataInfo info) throws IOException {
+			if(info == null) {
+				writeInt(NULL_REF);
+				return;
+			}
+			Integer ref = metadataInfos.get(info);
+			if(ref != null) {
+				writeInt(ref.intValue());
+				return;
+			}
+			metadataInfos.put(info, Integer.valueOf(FIRST_REF + metadataInfos.size()));
+			writeInt(NEW_REF);
+			writeFile(info.getFile());
+			writeBoolean(info.isRole());
+			writeJson(info.getMetadata());
+			writeInt(info.getTypes().size());
+			for(Type type : info.getTypes())
+				writeJson(type);
+			writeInt(info.getFunctions().size());
+			for(NamedDocItem function : info.getFunctions())
+				writeJson(function);
+			writeInt(info.getUnresolvedDependencies().size());
+			for(Dependency dependency : info.getUnresolvedDependencies())
+				writeDependency(dependency);
+			writeInt(info.getResolvedDependencies().size());
+			for(Resolution resolution : info.getResolvedDependencies()) {
+				writeDependency(resolution.dependency);
+				writeMetadataInfo(resolution.metadata);
+			}
+		}
+
+		private void writeMetricsSummary(MetricsSummary metricsSummary) throws IOException {
+			List<MetricsSummary.Entry> entries = metricsSummary.getEntries();
+			writeInt(entries.size());
+			for(MetricsSummary.Entry entry : entries) {
+				writeString(entry.getName());
+				writeString(entry.getKind().name());
+				writeLong(entry.getCount());
+				writeLong(entry.getTotal());
+				writeLong(entry.getMin());
+				writeLong(entry.getMax());
+				writeLong(entry.getP50());
+				writeLong(entry.getP90());
+				writeLong(entry.getP99());
+			}
+		}
+
+		private void writeModuleName(ModuleName name) throws IOException {
+			writeBoolean(name != null);
+			if(name != null) {
+				writeString(name.getOwner());
+				writeString(name.getName());
+			}
+		}
+
+		private void writeRakefileInfo(RakefileInfo rakefileInfo) throws IOException {
+			List<Rakefile> rakefiles = rakefileInfo.getRakefiles();
+			writeInt(rakefiles.size());
+			for(Rakefile rakefile : rakefiles) {
+				writeString(rakefile.getPath().toPortableString());
+				List<Raketask> tasks = rakefile.getTasks();
+				writeInt(tasks.size());
+				for(Raketask task : tasks) {
+					writeString(task.getName());
+					writeString(task.getDescription());
+				}
+			}
+		}
+
+		private void writeRawString(String str) throws IOException {
+			byte[] bytes = str.getBytes(Charsets.UTF_8);
+			writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeSignedInt(int value) throws IOException {
+			writeInt(value << 1 ^ value >> 31);
+		}
+
+		private void writeState(AllModulesState state) throws IOException {
+			writeFile(state.getRoot());
+			Map<File, Collection<Export>> exportsPerModule = state.getExportsPerModule().asMap();
+			writeInt(exportsPerModule.size());
+			for(Map.Entry<File, Collection<Export>> entry : exportsPerModule.entrySet()) {
+				writeFile(entry.getKey());
+				writeInt(entry.getValue().size());
+				for(Export export : entry.getValue())
+					writeExport(export);
+			}
+			writeExportMap(state.getImportMap());
+			writeExportMap(state.getAmbiguityMap());
+
+			Map<File, Collection<ImportedName>> unresolved = state.getUnresolved().asMap();
+			writeInt(unresolved.size());
+			for(Map.Entry<File, Collection<ImportedName>> entry : unresolved.entrySet()) {
+				writeFile(entry.getKey());
+				writeInt(entry.getValue().size());
+				for(ImportedName importedName : entry.getValue()) {
+					writeFile(importedName.getFile());
+					writeString(importedName.getName());
+					writeSignedInt(importedName.getLine());
+					writeSignedInt(importedName.getStart());
+					writeSignedInt(importedName.getLength());
+				}
+			}
+
+			Map<String, Collection<String>> restricted = state.getRestricted().asMap();
+			writeInt(restricted.size());
+			for(Map.Entry<String, Collection<String>> entry : restricted.entrySet()) {
+				writeString(entry.getKey());
+				writeInt(entry.getValue().size());
+				for(String visible : entry.getValue())
+					writeString(visible);
+			}
+
+			ContainerPathIndex containerIndex = state.getContainerIndex();
+			writeBoolean(containerIndex != null);
+			if(containerIndex != null) {
+				List<String> containers = containerIndex.getContainers();
+				writeInt(containers.size());
+				for(String container : containers)
+					writeString(container);
+			}
+		}
+
+		private void writeString(String str) throws IOException {
+			if(str == null) {
+				writeInt(NULL_REF);
+				return;
+			}
+			Integer ref = strings.get(str);
+			if(ref != null) {
+				writeInt(ref.intValue());
+				return;
+			}
+			strings.put(str, Integer.valueOf(FIRST_REF + strings.size()));
+			writeInt(NEW_REF);
+			writeRawString(str);
+		}
+	}
+
+	/**
+	 * The magic number that starts the stream, "GBR" followed by a zero byte
+	 */
+	private static final int MAGIC = 0x47425200;
+
+	/**
+	 * The version of the format. Must be incremented when the format changes.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Reference to <code>null</code>
+	 */
+	private static final int NULL_REF = 0;
+
+	/**
+	 * Reference to a value that is written in full since it has not been written before
+	 */
+	private static final int NEW_REF = 1;
+
+	/**
+	 * Reference to the first value of a table
+	 */
+	private static final int FIRST_REF = 2;
+
+	/**
+	 * The name of an export is the join of its segments and is not written
+	 */
+	private static final int JOINED_NAME = 0;
+
+	/**
+	 * The name of an export is written since it is not the join of its segments
+	 */
+	private static final int EXPLICIT_NAME = 1;
+
+	/**
+	 * The number of bytes that the buffer of a decoded string initially holds
+	 */
+	private static final int STRING_CHUNK_SIZE = 8192;
+
+	private static final Gson gson = GsonModule.INSTANCE.getGson();
+
+	static {
+		// Ensure that the packages of all exported elements are registered
+		PPPackage.eINSTANCE.eClass();
+		PPTPPackage.eINSTANCE.eClass();
+	}
+
+	private static String joinName(String nameWithoutLastSegment, String lastNameSegment) {
+		if(lastNameSegment == null)
+			return nameWithoutLastSegment;
+		return nameWithoutLastSegment == null || nameWithoutLastSegment.isEmpty()
+			? lastNameSegment
+			: nameWithoutLastSegment + "::" + lastNameSegment;
+	}
+
+	/**
+	 * Reads a build result.
+	 *
+	 * @param in
+	 *            The stream to read from. The stream is read one byte at a time so it should be buffered. It is not
+	 *            closed
+	 * @return The build result
+	 * @throws IOException
+	 *             if the stream could not be read, if it does not contain an encoded build result of a known version or
+	 *             if the encoded build result is malformed
+	 */
+	public static BuildResult read(InputStream in) throws IOException {
+		Decoder decoder = new Decoder(in);
+		decoder.readHeader();
+		return decoder.readBuildResult();
+	}
+
+	/**
+	 * Writes a build result.
+	 *
+	 * @param result
+	 *            The build result to write
+	 * @param out
+	 *            The stream to write to. The stream is flushed but not closed
+	 * @throws IOException
+	 */
+	public static void write(BuildResult result, OutputStream out) throws IOException {
+		BufferedOutputStream buffered = new BufferedOutputStream(out);
+		Encoder encoder = new Encoder(buffered);
+		encoder.writeHeader();
+		encoder.writeBuildResult(result);
+		buffered.flush();
+	}
+
+	private BuildResultCodec() {
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.runner;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A trie of path segments that maps a path to the container (i.e. module directory) that it belongs to. The cost of a
+ * lookup is proportional to the number of segments in the looked up path, not to the number of containers.
+ * <p>
+ * Containers are absolute paths. When containers are nested, the one that was added first wins, i.e. the result is
+ * the same as when testing each container, in the order they were added, for being a prefix of the path.
+ * </p>
+ */
+public class ContainerPathIndex implements Serializable {
+	private static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private Map<String, Node> children;
+
+		private String container;
+
+		private int order;
+
+		Node getChild(String segment) {
+			return children == null
+				? null
+				: children.get(segment);
+		}
+
+		Node getOrCreateChild(String segment) {
+			if(children == null)
+				children = Maps.newHashMap();
+			Node child = children.get(segment);
+			if(child == null) {
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private static boolean isSeparator(char c) {
+		return c == '/' || c == File.separatorChar;
+	}
+
+	private final Node root = new Node();
+
+	private int size;
+
+	/**
+	 * Adds a container. Adding the same container twice has no effect.
+	 *
+	 * @param containerPath
+	 *            The absolute path of the container
+	 */
+	public void add(String containerPath) {
+		Node node = root;
+		int top = containerPath.length();
+		int start = 0;
+		for(int idx = 0; idx <= top; ++idx) {
+			if(idx == top || isSeparator(containerPath.charAt(idx))) {
+				if(idx > start)
+					node = node.getOrCreateChild(containerPath.substring(start, idx));
+				start = idx + 1;
+			}
+		}
+		if(node.container == null) {
+			node.container = containerPath;
+			node.order = size++;
+		}
+	}
+
+	private void collectContainers(Node node, String[] result) {
+		if(node.container != null)
+			result[node.order] = node.container;
+		if(node.children != null)
+			for(Node child : node.children.values())
+				collectContainers(child, result);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given path has been added as a container.
+	 *
+	 * @param path
+	 *            The path to test
+	 * @return <code>true</code> if the path is a container
+	 */
+	public boolean contains(String path) {
+		Node node = root;
+		int top = path.length();
+		int start = 0;
+		for(int idx = 0; idx <= top && node != null; ++idx) {
+			if(idx == top || isSeparator(path.charAt(idx))) {
+				if(idx > start)
+					node = node.getChild(path.substring(start, idx));
+				start = idx + 1;
+			}
+		}
+		return node != null && node.container != null;
+	}
+
+	/**
+	 * Returns the container of the given file.
+	 *
+	 * @param file
+	 *            The file. Should be absolute
+	 * @return The path of the container, exactly as it was added, or <code>null</code> if the file is not within any
+	 *         container
+	 * @see #getContainer(String)
+	 */
+	public String getContainer(File file) {
+		return getContainer(file.getPath());
+	}
+
+	/**
+	 * Returns the container of the given path. A path that denotes a container is considered to be within that
+	 * container.
+	 *
+	 * @param path
+	 *            The path. Should be absolute
+	 * @return The path of the container, exactly as it was added, or <code>null</code> if the path is not within any
+	 *         container
+	 */
+	public String getContainer(String path) {
+		Node best = root.container == null
+			? null
+			: root;
+		Node node = root;
+		int top = path.length();
+		int start = 0;
+		for(int idx = 0; idx <= top; ++idx) {
+			if(idx == top || isSeparator(path.charAt(idx))) {
+				if(idx > start) {
+					node = node.getChild(path.substring(start, idx));
+					if(node == null)
+						break;
+					if(node.container != null && (best == null || node.order < best.order))
+						best = node;
+				}
+				start = idx + 1;
+			}
+		}
+		return best == null
+			? null
+			: best.container;
+	}
+
+	/**
+	 * @return The containers in the order they were added
+	 */
+	List<String> getContainers() {
+		String[] result = new String[size];
+		collectContainers(root, result);
+		return Arrays.asList(result);
+	}
+
+	/**
+	 * @return The number of containers in this index
+	 */
+	public int size() {
+		return size;
+	}
+}
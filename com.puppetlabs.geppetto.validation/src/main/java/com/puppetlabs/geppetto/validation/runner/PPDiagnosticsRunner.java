@@ -17,6 +17,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +26,7 @@ import java.util.Set;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
@@ -42,6 +45,7 @@ import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.resource.IContainer;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.resource.SaveOptions;
@@ -64,11 +68,15 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.puppetlabs.geppetto.common.os.IFileExcluder;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
+import com.puppetlabs.geppetto.common.tracer.ITimer;
 import com.puppetlabs.geppetto.forge.Forge;
 import com.puppetlabs.geppetto.module.dsl.ModuleUtil;
+import com.puppetlabs.geppetto.module.dsl.validation.ModuleDependencyGraphAdapter;
 import com.puppetlabs.geppetto.pp.dsl.PPDSLConstants;
 import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapter;
 import com.puppetlabs.geppetto.pp.dsl.adapters.PPImportedNamesAdapterFactory;
+import com.puppetlabs.geppetto.pp.dsl.adapters.SharedExportsAdapter;
 import com.puppetlabs.geppetto.pp.dsl.linking.DiagnosticConsumerBasedMessageAcceptor;
 import com.puppetlabs.geppetto.pp.dsl.linking.IMessageAcceptor;
 import com.puppetlabs.geppetto.pp.dsl.linking.PPResourceLinker;
@@ -197,6 +205,11 @@ public class PPDiagnosticsRunner {
 
 	public static final String PPTPCONTAINER = "_pptp";
 
+	/**
+	 * The name of the timer that records the time spent loading (parsing) resources
+	 */
+	public static final String LOAD_RESOURCE_TIMER = "validation.loadResource";
+
 	@Inject
 	private XtextResourceSet resourceSet;
 
@@ -242,12 +255,18 @@ public class PPDiagnosticsRunner {
 	@Inject
 	private RubyInjections rubyInjections;
 
+	private IMetrics metrics;
+
+	private ITimer loadResourceTimer;
+
 	private final Map<String, File> pathToFileMap;
 
 	private String ROOTCONTAINER = null;
 
 	private Multimap<String, String> restricted = null;
 
+	private ContainerPathIndex containerIndex = null;
+
 	private final Function<QualifiedName, String> fQualifiedToString = new Function<QualifiedName, String>() {
 
 		@Override
@@ -273,6 +292,17 @@ public class PPDiagnosticsRunner {
 		}
 	}
 
+	/**
+	 * Adds a resource created by {@link #createResource(URI)} to the resource set. This method must be called from the
+	 * thread that owns the resource set.
+	 *
+	 * @param r
+	 *            The resource to add
+	 */
+	public void addResource(Resource r) {
+		resourceSet.getResources().add(r);
+	}
+
 	/**
 	 * Configure containers if something else than "everything is visible to everything" is wanted. This method must be
 	 * called before resources are loaded.
@@ -293,14 +323,14 @@ public class PPDiagnosticsRunner {
 		allContainers.add(ROOTCONTAINER);
 		allContainers.add(PPTPCONTAINER);
 
-		final List<IPath> modulePaths = Lists.newArrayList();
+		containerIndex = new ContainerPathIndex();
 
 		for(MetadataInfo mi : moduleInfo) {
 			File f = mi.getFile();
 			// get path to directory (the moduleinfo file is for the metadata
 			// file itself
 			IPath p = new Path(f.getAbsolutePath()).removeLastSegments(1);
-			modulePaths.add(p);
+			containerIndex.add(p.toString());
 			allContainers.add(p.toString());
 			if(mi.isRole()) {
 				// This means the dependencies are restricted to the transitive
@@ -321,26 +351,29 @@ public class PPDiagnosticsRunner {
 			}
 
 			// if path starts with a module's prefix it is in that container
-			Path p = new Path(uri.toFileString());
-			IPath modulePath = null;
-			for(IPath prefix : modulePaths)
-				if(prefix.isPrefixOf(p)) {
-					modulePath = prefix;
-					break;
-				}
+			String modulePath = containerIndex.getContainer(uri.toFileString());
 
 			// if not in any module, it is in the root container
 			if(modulePath == null)
 				containedResources.put(ROOTCONTAINER, uri);
 			else
-				containedResources.put(modulePath.toString(), uri);
+				containedResources.put(modulePath, uri);
 		}
 
 		// Create the "all state" and set it in as resourceset adapter
-		// (This is where Xtext will find it later)
+		// (This is where Xtext will find it later). A state from an earlier configuration must be replaced
+		Iterator<Adapter> adapters = resourceSet.eAdapters().iterator();
+		while(adapters.hasNext())
+			if(adapters.next() instanceof DelegatingIAllContainerAdapter)
+				adapters.remove();
 		ValidationContainersStateFactory factory = new ValidationContainersStateFactory();
 		IAllContainersState allState = factory.getContainersState(allContainers, containedResources, restricted);
 		resourceSet.eAdapters().add(new DelegatingIAllContainerAdapter(allState));
+
+		// The index does not change while validating so all resources that see the same containers can share the
+		// exported names. The same is true for the dependencies between modules.
+		SharedExportsAdapter.install(resourceSet);
+		ModuleDependencyGraphAdapter.install(resourceSet);
 	}
 
 	public void configureEncoding(IEncodingProvider provider) {
@@ -379,10 +412,77 @@ public class PPDiagnosticsRunner {
 		return me;
 	}
 
+	/**
+	 * Creates a .pp, .pptp, .rb, or metadata.json resource using the resource factory configured for the extension. The
+	 * resource is <i>not</i> added to the resource set.
+	 *
+	 * @param uri
+	 *            The URI of the resource
+	 * @return The created resource
+	 * @see #loadResource(Resource, InputStream)
+	 * @see #addResource(Resource)
+	 */
+	public Resource createResource(URI uri) {
+		// Lookup the factory to use for the resource
+		Factory factory = Resource.Factory.Registry.INSTANCE.getFactory(uri);
+		return factory.createResource(uri);
+	}
+
 	// private PPGrammarAccess getGrammarAccess() {
 	// return get(PPGrammarAccess.class);
 	// }
 
+	/**
+	 * @return All objects exported by the resources in the resource set
+	 */
+	public Iterable<IEObjectDescription> getAllExportedObjects() {
+		if(resourceSet.getResources().isEmpty())
+			return Collections.emptyList();
+		return getResourceDescriptions().getExportedObjects();
+	}
+
+	/**
+	 * Returns the resources that must be linked and validated again since they import names of objects that were
+	 * exported by the changed resources before or after the change. Resources that have unresolved references are
+	 * affected by all export changes since the proposals given for such references are computed from all exports.
+	 * The changed resources themselves are not included in the result.
+	 *
+	 * @param oldDescriptions
+	 *            Snapshots of the resource descriptions of changed resources, taken before the change using
+	 *            {@link #getResourceDescriptionSnapshot(URI)}, keyed by resource URI. The value is <code>null</code>
+	 *            for an added resource
+	 * @return The affected resources
+	 */
+	public Set<Resource> getAffectedResources(Map<URI, IResourceDescription> oldDescriptions) {
+		Set<Resource> affected = Sets.newLinkedHashSet();
+		if(resourceSet.getResources().isEmpty())
+			return affected;
+
+		IResourceDescriptions descriptionIndex = getResourceDescriptions();
+		IResourceDescription.Manager manager = resourceServiceProvider.getResourceDescriptionManager();
+		List<Delta> deltas = Lists.newArrayList();
+		for(Map.Entry<URI, IResourceDescription> entry : oldDescriptions.entrySet()) {
+			Delta delta = manager.createDelta(entry.getValue(), descriptionIndex.getResourceDescription(entry.getKey()));
+			if(delta.haveEObjectDescriptionsChanged())
+				deltas.add(delta);
+		}
+		if(deltas.isEmpty())
+			return affected;
+
+		for(Resource r : resourceSet.getResources()) {
+			URI uri = r.getURI();
+			if(oldDescriptions.containsKey(uri) || !resourceServiceProvider.canHandle(uri))
+				continue;
+			IResourceDescription candidate = descriptionIndex.getResourceDescription(uri);
+			if(candidate == null)
+				continue;
+			if(!PPImportedNamesAdapterFactory.eINSTANCE.adapt(r).getUnresolved().isEmpty() ||
+				manager.isAffected(deltas, candidate, descriptionIndex))
+				affected.add(r);
+		}
+		return affected;
+	}
+
 	/**
 	 * Translates all Exports and Imports and stores this in an ExportsPerModule.
 	 *
@@ -412,11 +512,13 @@ public class PPDiagnosticsRunner {
 			// special "_pptp" path
 			File moduleDir = new File(handle);
 
+			List<ModuleExport> moduleExports = Lists.newArrayList();
 			for(IEObjectDescription desc : rdesc.getExportedObjects()) {
 				ModuleExport me = createExport(desc);
 				exports.put(desc.getEObjectURI(), me);
-				result.addExport(moduleDir, me);
+				moduleExports.add(me);
 			}
+			result.addExports(moduleDir, moduleExports);
 		}
 		for(Resource r : resourceSet.getResources()) {
 			// get module (i.e. container handle) of importing container
@@ -459,6 +561,7 @@ public class PPDiagnosticsRunner {
 		}
 
 		result.setRestricted(restricted);
+		result.setContainerIndex(containerIndex);
 		return result;
 
 	}
@@ -503,6 +606,13 @@ public class PPDiagnosticsRunner {
 		return qualifiedNameConverter;
 	}
 
+	/**
+	 * @return The metrics collected by the instrumented parts of the validation
+	 */
+	public IMetrics getMetrics() {
+		return metrics;
+	}
+
 	public IResourceValidator getModuleResourceValidator() {
 		return moduleInjections.getResourceValidator();
 	}
@@ -524,6 +634,24 @@ public class PPDiagnosticsRunner {
 		return indexProvider.getResourceDescriptions(resourceSet.getResources().get(0));
 	}
 
+	/**
+	 * Returns a copy of the exports of the resource description for the given resource. The copy is intended as the
+	 * old state when computing the resources affected by a change.
+	 *
+	 * @param uri
+	 *            The URI of the resource
+	 * @return The copy or <code>null</code> if the resource is not in the resource set
+	 * @see #getAffectedResources(Map)
+	 */
+	public IResourceDescription getResourceDescriptionSnapshot(URI uri) {
+		if(resourceSet.getResources().isEmpty())
+			return null;
+		IResourceDescription desc = getResourceDescriptions().getResourceDescription(uri);
+		return desc == null
+			? null
+			: new ResourceDescriptionSnapshot(desc);
+	}
+
 	public EList<Resource> getResources() {
 		return resourceSet.getResources();
 	}
@@ -532,6 +660,26 @@ public class PPDiagnosticsRunner {
 		return rubyInjections.getRubyHelper();
 	}
 
+	private void invalidateSharedState() {
+		SharedExportsAdapter sharedExports = SharedExportsAdapter.get(resourceSet);
+		if(sharedExports != null)
+			sharedExports.invalidate();
+		ModuleDependencyGraphAdapter dependencyGraph = ModuleDependencyGraphAdapter.get(resourceSet);
+		if(dependencyGraph != null)
+			dependencyGraph.invalidate();
+	}
+
+	/**
+	 * Method used for injection. Should normally not be called explicitly
+	 *
+	 * @param metrics
+	 */
+	@Inject
+	public void injectMetrics(IMetrics metrics) {
+		this.metrics = metrics;
+		loadResourceTimer = metrics.getTimer(LOAD_RESOURCE_TIMER);
+	}
+
 	public boolean isExcluded(File f) {
 		return fileExcluder.isExcluded(f.toPath());
 	}
@@ -543,18 +691,34 @@ public class PPDiagnosticsRunner {
 	 * @return The loaded resource
 	 */
 	public Resource loadResource(InputStream in, URI uri) throws IOException {
-		// Lookup the factory to use for the resource
-		Factory factory = Resource.Factory.Registry.INSTANCE.getFactory(uri);
-		Map<String, String> options = Maps.newHashMap();
-		options.put(XtextResource.OPTION_ENCODING, encodingProvider.getEncoding(uri));
-
-		Resource r = factory.createResource(uri);
-		resourceSet.getResources().add(r);
-		r.load(in, options);
-
+		Resource r = createResource(uri);
+		addResource(r);
+		loadResource(r, in);
 		return r;
 	}
 
+	/**
+	 * Loads the content of a resource that has been created using {@link #createResource(URI)}. This method does not
+	 * touch the resource set and may therefore be called concurrently for different resources.
+	 *
+	 * @param r
+	 *            The resource to load
+	 * @param in
+	 *            The stream to load the resource from
+	 * @throws IOException
+	 */
+	public void loadResource(Resource r, InputStream in) throws IOException {
+		Map<String, String> options = Maps.newHashMap();
+		options.put(XtextResource.OPTION_ENCODING, encodingProvider.getEncoding(r.getURI()));
+		long start = loadResourceTimer.start();
+		try {
+			r.load(in, options);
+		}
+		finally {
+			loadResourceTimer.stop(start);
+		}
+	}
+
 	/**
 	 * Load a resource from a String. The URI must be well formed for the language being the content of the given
 	 * sourceString (the uri determined the factory to use and the encoding via an IEncodingProvider).
@@ -605,6 +769,34 @@ public class PPDiagnosticsRunner {
 		return result;
 	}
 
+	/**
+	 * Replaces the content of a resource in the resource set with content read from the given stream. References to
+	 * the previous content held by other resources become proxies that resolve against the new content. Exported names
+	 * and the module dependency graph shared between resources are discarded.
+	 *
+	 * @param r
+	 *            The resource to reload
+	 * @param in
+	 *            The stream to load the resource from
+	 * @throws IOException
+	 */
+	public void reloadResource(Resource r, InputStream in) throws IOException {
+		r.unload();
+		invalidateSharedState();
+		loadResource(r, in);
+	}
+
+	/**
+	 * Unloads the given resource and removes it from the resource set.
+	 *
+	 * @param r
+	 *            The resource to remove
+	 */
+	public void removeResource(Resource r) {
+		r.unload();
+		resourceSet.getResources().remove(r);
+	}
+
 	public void resolveCrossReferences(Resource resource, boolean profileThis, final IProgressMonitor monitor) {
 		if(resource instanceof LazyLinkingResource) {
 			// The default linking
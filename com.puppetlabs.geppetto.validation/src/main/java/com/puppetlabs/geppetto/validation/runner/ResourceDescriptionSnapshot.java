@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2013 Puppet Labs, Inc. and other contributors, as listed below.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Puppet Labs
+ */
+package com.puppetlabs.geppetto.validation.runner;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+/**
+ * An immutable copy of the exported objects of a resource description. The description of a resource is computed
+ * from the resource content, so a copy is needed to compare the exports before and after a resource is reloaded or
+ * removed.
+ */
+class ResourceDescriptionSnapshot implements IResourceDescription {
+	private final URI uri;
+
+	private final List<IEObjectDescription> exportedObjects;
+
+	ResourceDescriptionSnapshot(IResourceDescription original) {
+		uri = original.getURI();
+		exportedObjects = ImmutableList.copyOf(original.getExportedObjects());
+
+		// The URI is computed lazily by the description. Make sure it is computed while the object is still loaded
+		for(IEObjectDescription d : exportedObjects)
+			d.getEObjectURI();
+	}
+
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjects() {
+		return exportedObjects;
+	}
+
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjects(final EClass type, final QualifiedName name, final boolean ignoreCase) {
+		return Iterables.filter(exportedObjects, new Predicate<IEObjectDescription>() {
+			@Override
+			public boolean apply(IEObjectDescription d) {
+				QualifiedName dn = d.getName();
+				return (ignoreCase
+					? dn.equalsIgnoreCase(name)
+					: dn.equals(name)) && EcoreUtil2.isAssignableFrom(type, d.getEClass());
+			}
+		});
+	}
+
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjectsByObject(final EObject object) {
+		final URI objectURI = EcoreUtil.getURI(object);
+		return Iterables.filter(exportedObjects, new Predicate<IEObjectDescription>() {
+			@Override
+			public boolean apply(IEObjectDescription d) {
+				return d.getEObjectOrProxy() == object || objectURI.equals(d.getEObjectURI());
+			}
+		});
+	}
+
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjectsByType(final EClass type) {
+		return Iterables.filter(exportedObjects, new Predicate<IEObjectDescription>() {
+			@Override
+			public boolean apply(IEObjectDescription d) {
+				return EcoreUtil2.isAssignableFrom(type, d.getEClass());
+			}
+		});
+	}
+
+	/**
+	 * A snapshot is only used as the old state of a delta so the imported names are not needed.
+	 */
+	@Override
+	public Iterable<QualifiedName> getImportedNames() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * A snapshot is only used as the old state of a delta so the reference descriptions are not needed.
+	 */
+	@Override
+	public Iterable<IReferenceDescription> getReferenceDescriptions() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public URI getURI() {
+		return uri;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return exportedObjects.isEmpty();
+	}
+}
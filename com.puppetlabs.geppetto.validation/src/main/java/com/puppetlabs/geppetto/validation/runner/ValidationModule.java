@@ -8,12 +8,34 @@ import org.eclipse.xtext.resource.IContainer.Manager;
 
 import com.google.inject.Binder;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.puppetlabs.geppetto.common.tracer.IMetrics;
+import com.puppetlabs.geppetto.common.tracer.NullMetrics;
 import com.puppetlabs.geppetto.pp.dsl.PPRuntimeModule;
 import com.puppetlabs.geppetto.validation.ValidationService;
 import com.puppetlabs.geppetto.validation.impl.DirectoryValidatorImpl;
 import com.puppetlabs.geppetto.validation.impl.ValidationServiceImpl;
 
 public class ValidationModule extends PPRuntimeModule {
+	private final IMetrics metrics;
+
+	/**
+	 * Creates a module that does not collect metrics.
+	 */
+	public ValidationModule() {
+		this(NullMetrics.INSTANCE);
+	}
+
+	/**
+	 * Creates a module that binds the given metrics. The metrics are reset when a validation starts and a summary of
+	 * what was recorded during that validation is attached to its {@link BuildResult} when the metrics are enabled.
+	 * Validations that run concurrently with the same injector will see each other's values.
+	 *
+	 * @param metrics
+	 *            The metrics to bind
+	 */
+	public ValidationModule(IMetrics metrics) {
+		this.metrics = metrics;
+	}
 
 	/**
 	 * Bind an instance of a registry that is unique to this injector. Required since each validation execution may use
@@ -31,6 +53,11 @@ public class ValidationModule extends PPRuntimeModule {
 		return ValidationStateBasedContainerManager.class;
 	}
 
+	@Override
+	public IMetrics bindIMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Overrides the PPLinker used by default, to a linker that does not process documentation and that performs no
 	 * resource linking. (To allow this to be performed separately).